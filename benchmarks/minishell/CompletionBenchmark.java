@@ -0,0 +1,89 @@
+package minishell;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latencia de una pulsación del tabulador con un PATH de 'executables'
+ * ejecutables (más los del sistema), ya cargado en segundo plano:
+ * - command: prefijo con ~100 coincidencias (se devuelven hasta 100, como al listarlas).
+ * - unique: prefijo con una sola coincidencia.
+ * - file: archivo del directorio actual.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompletionBenchmark {
+
+	@Param({ "1000", "30000" })
+	public int executables;
+
+	private Path bin;
+	private Completer completer;
+	private File directory;
+
+	@Setup
+	public void setup() throws IOException, InterruptedException {
+		bin = Files.createTempDirectory("minishell-bench-path");
+		for (int i = 0; i < executables; i++) {
+			Files.createFile(bin.resolve(String.format("cmd%05d", i)),
+					PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwxr-xr-x")));
+		}
+		String path = bin + File.pathSeparator + System.getenv("PATH");
+		completer = new Completer(List.of("cd", "exit"), () -> path);
+		directory = new File(System.getProperty("user.dir"));
+
+		// Espera a que termine la carga en segundo plano
+		while (completer.complete("cmd", 3, directory, 1).matches.total < executables) {
+			Thread.sleep(10);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(bin)) {
+			for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(p);
+			}
+		}
+	}
+
+	@Benchmark
+	public Completer.Result command() {
+		return completer.complete("cmd001", 6, directory, 100);
+	}
+
+	@Benchmark
+	public Completer.Result unique() {
+		return completer.complete("ls | cmd00042", 13, directory, 100);
+	}
+
+	@Benchmark
+	public Completer.Result file() {
+		return completer.complete("cat po", 6, directory, 100);
+	}
+}
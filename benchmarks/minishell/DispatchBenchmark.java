@@ -0,0 +1,54 @@
+package minishell;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latencia de MiniShell.runLine con la misma orden escrita directamente, a
+ * través de un alias y como llamada a una función (cuerpo ya tokenizado).
+ * Las líneas se repiten: salen de la caché de líneas.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+
+	@Param({ "echo hola", "saluda hola", "f hola", "export A=1" })
+	public String line;
+
+	private MiniShell shell;
+
+	@Setup
+	public void setup() {
+		shell = new MiniShell(OutputStream.nullOutputStream(), OutputStream.nullOutputStream());
+		shell.runLine("alias saluda=echo");
+		shell.runLine("function f { echo $1; }");
+	}
+
+	@TearDown
+	public void tearDown() {
+		shell.close();
+	}
+
+	@Benchmark
+	public int dispatch() {
+		return shell.runLine(line);
+	}
+}
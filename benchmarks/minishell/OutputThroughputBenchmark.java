@@ -0,0 +1,77 @@
+package minishell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tokenizer.MissingFileException;
+import tokenizer.TLine;
+import tokenizer.Tokenizer;
+
+/**
+ * Rendimiento del volcado de una salida estándar grande hacia la shell
+ * (StreamPump). La métrica auxiliar "megabytes" se informa en MB/s.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class OutputThroughputBenchmark {
+
+	/** Tamaño de la salida del proceso en MiB */
+
+	@Param({ "64" })
+	public int size;
+
+	/** MB copiados: JMH lo presenta como tasa (MB/s) */
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Transfer {
+		public double megabytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			megabytes = 0;
+		}
+	}
+
+	private PipelineRunner runner;
+	private TLine line;
+	private File directory;
+
+	@Setup
+	public void setup() throws MissingFileException {
+		String os = System.getProperty("os.name").toLowerCase();
+		runner = new PipelineRunner(os, BuiltinRegistry.withDefaults(), new CommandHash());
+		directory = new File(System.getProperty("user.dir"));
+		line = Tokenizer.tokenize("head -c " + size + "M /dev/zero");
+	}
+
+	@Benchmark
+	public int stdout(Transfer transfer) throws IOException, CommandNotFoundException, InterruptedException {
+		Pipeline pipeline = runner.start(line, directory, Environment.Snapshot.INITIAL, OutputStream.nullOutputStream(),
+				OutputStream.nullOutputStream(), false);
+		int status = pipeline.waitFor();
+		transfer.megabytes += size * 1.048576;
+		return status;
+	}
+}
@@ -0,0 +1,100 @@
+package minishell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tokenizer.MissingFileException;
+import tokenizer.TLine;
+import tokenizer.Tokenizer;
+
+/**
+ * Tiempo en ejecutar el mismo comando para 32 argumentos:
+ * - sequential: un bucle que lanza cada pipeline y espera a que termine
+ * 		(lo que haría un 'for' en la shell).
+ * - parallel: el comando interno 'parallel' con -j igual al número de núcleos
+ * 		y con -k (salida en orden).
+ *
+ * Comandos: '/bin/true' mide sobre todo el coste de crear procesos;
+ * '/bin/sleep 0.01' un trabajo que espera (E/S), donde el paralelismo rinde más.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelBenchmark {
+
+	private static final int ARGUMENTS = 32;
+
+	@Param({ "/bin/true", "/bin/sleep" })
+	public String command;
+
+	private PipelineRunner runner;
+	private Parallel parallel;
+	private File directory;
+
+	/** Una pipeline por argumento para el bucle secuencial */
+
+	private List<TLine> lines;
+
+	/** Línea de 'parallel' equivalente */
+
+	private List<String> argv;
+
+	@Setup
+	public void setup() throws MissingFileException {
+		String os = System.getProperty("os.name").toLowerCase();
+		runner = new PipelineRunner(os, BuiltinRegistry.withDefaults(), new CommandHash());
+		parallel = new Parallel(runner, () -> Environment.Snapshot.INITIAL, null);
+		directory = new File(System.getProperty("user.dir"));
+
+		lines = new ArrayList<>();
+		argv = new ArrayList<>(List.of("parallel", "-k", "-j", String.valueOf(Runtime.getRuntime().availableProcessors())));
+		argv.add(command);
+		argv.add(":::");
+		String arg = command.endsWith("sleep") ? "0.01" : "x";
+		for (int i = 0; i < ARGUMENTS; i++) {
+			lines.add(Tokenizer.tokenize(command + " " + arg));
+			argv.add(arg);
+		}
+	}
+
+	@Benchmark
+	public int sequential() throws IOException, CommandNotFoundException, InterruptedException {
+		int failed = 0;
+		for (TLine line : lines) {
+			Pipeline pipeline = runner.start(line, directory, Environment.Snapshot.INITIAL, OutputStream.nullOutputStream(),
+					OutputStream.nullOutputStream(), false);
+			pipeline.closeInput();
+			if (pipeline.waitFor() != 0) {
+				failed++;
+			}
+		}
+		return failed;
+	}
+
+	@Benchmark
+	public int parallel() throws IOException {
+		return parallel.run(argv, directory, InputStream.nullInputStream(), OutputStream.nullOutputStream(),
+				OutputStream.nullOutputStream());
+	}
+}
@@ -0,0 +1,73 @@
+package minishell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tokenizer.MissingFileException;
+import tokenizer.TLine;
+import tokenizer.Tokenizer;
+
+/**
+ * Latencia de extremo a extremo de una pipeline en primer plano (lo que hace
+ * executeExternalCommand): resolución, arranque de las etapas, volcado de la
+ * salida y espera, para 1, 4 y 16 etapas.
+ *
+ * - external: todas las etapas son procesos ('/bin/cat' no es un comando interno).
+ * - builtin: las mismas etapas con los comandos internos de la JVM.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+	@Param({ "1", "4", "16" })
+	public int stages;
+
+	@Param({ "external", "builtin" })
+	public String mode;
+
+	private PipelineRunner runner;
+	private TLine line;
+	private File directory;
+
+	@Setup
+	public void setup() throws MissingFileException {
+		String os = System.getProperty("os.name").toLowerCase();
+		runner = new PipelineRunner(os, BuiltinRegistry.withDefaults(), new CommandHash());
+		directory = new File(System.getProperty("user.dir"));
+
+		String echo = mode.equals("external") ? "/bin/echo" : "echo";
+		String cat = mode.equals("external") ? "/bin/cat" : "cat";
+
+		StringBuilder sb = new StringBuilder(echo).append(" hola");
+		for (int i = 1; i < stages; i++) {
+			sb.append(" | ").append(cat);
+		}
+		line = Tokenizer.tokenize(sb.toString());
+	}
+
+	@Benchmark
+	public int pipeline() throws IOException, CommandNotFoundException, InterruptedException {
+		Pipeline pipeline = runner.start(line, directory, Environment.Snapshot.INITIAL, OutputStream.nullOutputStream(),
+				OutputStream.nullOutputStream(), false);
+		return pipeline.waitFor();
+	}
+}
@@ -0,0 +1,160 @@
+package minishell;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Modo servidor (MiniShell --server) con un socket de dominio UNIX:
+ * - sessions: sesiones por segundo (conectar, ejecutar una orden, 'exit').
+ * 		Comparar con StartupBenchmark, que paga una JVM por cliente.
+ * - footprint: heap retenido por sesión abierta y ociosa, con SESSIONS
+ * 		sesiones a la vez (contador bytesPerSession).
+ */
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShellServerBenchmark {
+
+	/** Sesiones abiertas a la vez al medir la memoria */
+
+	private static final int SESSIONS = 500;
+
+	private Path directory;
+	private UnixDomainSocketAddress address;
+	private ShellServer server;
+
+	/** Orden de cada sesión: un comando interno o un proceso externo */
+
+	@State(Scope.Thread)
+	public static class Line {
+		@Param({ "echo hola", "/bin/true" })
+		public String line;
+	}
+
+	/** Resultado de 'footprint' */
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Footprint {
+		public long bytesPerSession;
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("minishell-server");
+		Path socket = directory.resolve("socket");
+		server = ShellServer.open(socket.toString());
+		address = UnixDomainSocketAddress.of(socket);
+		Thread acceptor = new Thread(server::serve, "bench-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		server.close();
+		Files.deleteIfExists(address.getPath());
+		Files.deleteIfExists(directory);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public int sessions(Line line) throws IOException {
+		try (SocketChannel channel = SocketChannel.open(address)) {
+			send(channel, line.line + "\nexit\n");
+			return readAll(channel);
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void footprint(Footprint result) throws IOException {
+		long before = usedHeap();
+		List<SocketChannel> open = new ArrayList<>(SESSIONS);
+		try {
+			for (int i = 0; i < SESSIONS; i++) {
+				SocketChannel channel = SocketChannel.open(address);
+				open.add(channel);
+				send(channel, "cd /\n");
+				readUntilStatus(channel);
+			}
+			result.bytesPerSession = (usedHeap() - before) / SESSIONS;
+		} finally {
+			for (SocketChannel channel : open) {
+				send(channel, "exit\n");
+				readAll(channel);
+				channel.close();
+			}
+		}
+	}
+
+	private static long usedHeap() {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	private static void send(SocketChannel channel, String text) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/** Lee hasta que el servidor cierra la sesión */
+
+	private static int readAll(SocketChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		int total = 0;
+		int n;
+		while ((n = channel.read(buffer)) >= 0) {
+			total += n;
+			buffer.clear();
+		}
+		return total;
+	}
+
+	/** Lee hasta la línea "status" de la orden enviada */
+
+	private static void readUntilStatus(SocketChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		StringBuilder received = new StringBuilder();
+		while (received.indexOf("status ") < 0 || received.charAt(received.length() - 1) != '\n') {
+			buffer.clear();
+			if (channel.read(buffer) < 0) {
+				throw new IOException("sesión cerrada");
+			}
+			received.append(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package minishell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tokenizer.MissingFileException;
+import tokenizer.TLine;
+import tokenizer.Tokenizer;
+
+/**
+ * Latencia de arranque y espera de procesos externos desde una JVM con un
+ * heap grande (2 GB ya tocado con AlwaysPreTouch):
+ * - direct: JoinedPipes.start() desde la propia JVM.
+ * - server: a través del servidor de arranque (SpawnClient/SpawnServer).
+ *
+ * 'inherit': stdout a /dev/null y stderr heredado, por el servidor solo pasa
+ * la petición. 'pump': stdout y stderr vuelven a la shell (por el socket en 'server').
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-XX:+AlwaysPreTouch" })
+public class SpawnBenchmark {
+
+	@Param({ "direct", "server" })
+	public String mode;
+
+	@Param({ "/bin/true", "/bin/echo hola | /bin/cat" })
+	public String line;
+
+	@Param({ "inherit", "pump" })
+	public String output;
+
+	private PipelineRunner runner;
+	private SpawnClient spawner;
+	private TLine tline;
+	private File directory;
+
+	@Setup
+	public void setup() throws MissingFileException {
+		String os = System.getProperty("os.name").toLowerCase();
+		runner = new PipelineRunner(os, BuiltinRegistry.withDefaults(), new CommandHash());
+		if (mode.equals("server")) {
+			spawner = new SpawnClient();
+			runner.setSpawner(spawner);
+		}
+		directory = new File(System.getProperty("user.dir"));
+		tline = Tokenizer.tokenize(line + (output.equals("inherit") ? " > /dev/null" : ""));
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (spawner != null) {
+			spawner.close();
+		}
+	}
+
+	@Benchmark
+	public int spawn() throws IOException, CommandNotFoundException, InterruptedException {
+		Pipeline pipeline = runner.start(tline, directory, Environment.Snapshot.INITIAL, OutputStream.nullOutputStream(),
+				OutputStream.nullOutputStream(), output.equals("inherit"));
+		pipeline.closeInput();
+		return pipeline.waitFor();
+	}
+}
@@ -0,0 +1,93 @@
+package minishell;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo de arranque de una ejecución corta ("MiniShell -c ...") en una JVM nueva:
+ * - "default": JVM sin opciones (solo el archivo CDS del JDK).
+ * - "tuned": opciones del lanzador bin/minishell (C1 y SerialGC).
+ * - "appcds": además, archivo AppCDS con las clases de la shell, generado en el setup.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+
+	@Param({ "default", "tuned", "appcds" })
+	public String mode;
+
+	/** Línea ejecutada: un comando interno (solo arranque) o una pipeline con un proceso externo */
+
+	@Param({ "echo hola", "echo hola | wc -c" })
+	public String line;
+
+	private List<String> command;
+	private Path archive;
+
+	@Setup
+	public void setup() throws IOException, InterruptedException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		String classpath = System.getProperty("java.class.path");
+
+		command = new ArrayList<>();
+		command.add(java);
+		if (!mode.equals("default")) {
+			command.add("-XX:TieredStopAtLevel=1");
+			command.add("-XX:+UseSerialGC");
+		}
+		if (mode.equals("appcds")) {
+			archive = Files.createTempFile("minishell", ".jsa");
+			Files.delete(archive);
+			run(java, "-XX:ArchiveClassesAtExit=" + archive, "-cp", classpath, "minishell.MiniShell", "-c", line);
+			command.add("-XX:SharedArchiveFile=" + archive);
+		}
+		command.add("-cp");
+		command.add(classpath);
+		command.add("minishell.MiniShell");
+		command.add("-c");
+		command.add(line);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		if (archive != null) {
+			Files.deleteIfExists(archive);
+		}
+	}
+
+	@Benchmark
+	public int start() throws IOException, InterruptedException {
+		return run(command.toArray(new String[0]));
+	}
+
+	private static int run(String... command) throws IOException, InterruptedException {
+		return new ProcessBuilder(command)
+				.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.redirectError(ProcessBuilder.Redirect.DISCARD)
+				.start()
+				.waitFor();
+	}
+}
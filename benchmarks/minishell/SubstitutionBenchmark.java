@@ -0,0 +1,49 @@
+package minishell;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latencia de una línea con sustituciones de órdenes (MiniShell.runLine):
+ * - "echo $(echo hola)": la orden es un comando interno, se captura en la JVM.
+ * - "echo $(/bin/echo hola)": un proceso externo.
+ * - "echo $(sh -c 'echo hola')": lo que había que hacer sin sustituciones (una shell más).
+ * - tres 'sleep 0.05' en la misma línea: se ejecutan a la vez (~50 ms, no ~150 ms).
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubstitutionBenchmark {
+
+	@Param({ "echo $(echo hola)", "echo $(/bin/echo hola)", "echo $(sh -c 'echo hola')",
+			"echo $(sleep 0.05) $(sleep 0.05) $(sleep 0.05)" })
+	public String line;
+
+	private MiniShell shell;
+
+	@Setup
+	public void setup() {
+		shell = new MiniShell(OutputStream.nullOutputStream(), OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public int substitution() {
+		return shell.runLine(line);
+	}
+}
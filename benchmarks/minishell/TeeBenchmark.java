@@ -0,0 +1,104 @@
+package minishell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tokenizer.MissingFileException;
+import tokenizer.TLine;
+import tokenizer.Tokenizer;
+
+/**
+ * Salida de un proceso copiada en dos archivos y en la shell (MB/s en la
+ * métrica auxiliar "megabytes"):
+ * - multios: 'cmd > a > b' (FanOut en la JVM, sin salida a la shell).
+ * - builtin: 'cmd | tee a b' con el comando interno.
+ * - coreutils: 'cmd | /usr/bin/tee a b', un proceso más.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TeeBenchmark {
+
+	/** Tamaño de la salida del proceso en MiB */
+
+	@Param({ "256" })
+	public int size;
+
+	@Param({ "multios", "builtin", "coreutils" })
+	public String mode;
+
+	/** MB copiados: JMH lo presenta como tasa (MB/s) */
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Transfer {
+		public double megabytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			megabytes = 0;
+		}
+	}
+
+	private PipelineRunner runner;
+	private TLine line;
+	private File directory;
+
+	@Setup
+	public void setup() throws MissingFileException, IOException {
+		String os = System.getProperty("os.name").toLowerCase();
+		runner = new PipelineRunner(os, BuiltinRegistry.withDefaults(), new CommandHash());
+		directory = Files.createTempDirectory("minishell-tee").toFile();
+
+		String source = "head -c " + size + "M /dev/zero";
+		switch (mode) {
+			case "multios":
+				line = Tokenizer.tokenize(source + " > a > b");
+				break;
+			case "builtin":
+				line = Tokenizer.tokenize(source + " | tee a b");
+				break;
+			default:
+				line = Tokenizer.tokenize(source + " | /usr/bin/tee a b");
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Benchmark
+	public int tee(Transfer transfer) throws IOException, CommandNotFoundException, InterruptedException {
+		Pipeline pipeline = runner.start(line, directory, Environment.Snapshot.INITIAL, OutputStream.nullOutputStream(),
+				OutputStream.nullOutputStream(), false);
+		int status = pipeline.waitFor();
+		transfer.megabytes += size * 1.048576;
+		return status;
+	}
+}
@@ -0,0 +1,67 @@
+package tokenizer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Coste de Tokenizer.tokenize (y de LineCache con la línea ya en caché)
+// sobre líneas cortas, largas y con muchas redirecciones.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @Param({ "short", "long", "redirected" })
+    public String kind;
+
+    private String input;
+    private LineCache cache;
+
+    @Setup
+    public void setup() throws MissingFileException {
+        switch (kind) {
+            case "short":
+                input = "ls -l";
+                break;
+            case "long":
+                StringBuilder sb = new StringBuilder("cat access.log");
+                for (int i = 0; i < 20; i++) {
+                    sb.append(" | grep -v \"pattern ").append(i).append(" | x\" | sed -e 's/a/b/g'");
+                }
+                sb.append(" | sort | uniq -c | sort -rn | head -n 20");
+                input = sb.toString();
+                break;
+            case "redirected":
+                input = "sort < in.txt 2>> err.log | uniq -c > out.txt 2> err2.log ; "
+                        + "cat < a | wc -l >> b 2>> c && echo ok > d || echo fail 2> e &";
+                break;
+            default:
+                throw new IllegalArgumentException(kind);
+        }
+        cache = new LineCache();
+        cache.tokenize(input);
+    }
+
+    @Benchmark
+    public TLine tokenize() throws MissingFileException {
+        return Tokenizer.tokenize(input);
+    }
+
+    @Benchmark
+    public TLine cached() throws MissingFileException {
+        return cache.tokenize(input);
+    }
+}
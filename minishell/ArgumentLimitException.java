@@ -0,0 +1,23 @@
+package minishell;
+
+/**
+ * Una expansión de comodines genera más argumentos que el límite de la
+ * shell (MINISHELL_GLOB_LIMIT). Se detecta mientras se expande, sin
+ * terminar de recorrer los directorios.
+ */
+
+public class ArgumentLimitException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int limit;
+
+	public ArgumentLimitException(int limit) {
+		super("Lista de argumentos demasiado larga (límite " + limit + ")");
+		this.limit = limit;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+}
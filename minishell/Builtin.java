@@ -0,0 +1,41 @@
+package minishell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Comando interno ejecutado dentro de la JVM (sin crear un proceso).
+ *
+ * Lee su entrada de 'in' y escribe en 'out'/'err' como bytes, de modo que
+ * puede ocupar cualquier posición de una pipeline junto a procesos externos.
+ * Los flujos los abre y cierra quien lo ejecuta (BuiltinProcess).
+ */
+
+@FunctionalInterface
+interface Builtin {
+
+	/**
+	 * @param argv argumentos del comando (argv.get(0) es su nombre)
+	 * @param directory directorio actual de la shell (para rutas relativas)
+	 * @param in entrada estándar de la etapa
+	 * @param out salida estándar de la etapa
+	 * @param err salida de errores de la etapa
+	 * @return código de salida (0 = éxito)
+	 * @throws IOException si falla la lectura o escritura de los flujos
+	 */
+
+	int run(List<String> argv, File directory, InputStream in, OutputStream out, OutputStream err) throws IOException;
+
+	/**
+	 * @return true si puede ejecutarse en el hilo de la shell cuando es la única
+	 * 		etapa en primer plano (comandos breves); false si puede tardar y debe
+	 * 		poder detenerse con Ctrl-C como un proceso (p.ej. 'parallel')
+	 */
+
+	default boolean inline() {
+		return true;
+	}
+}
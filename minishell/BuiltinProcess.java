@@ -0,0 +1,243 @@
+package minishell;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Etapa de pipeline ejecutada por un comando interno (Builtin) en un hilo de la JVM.
+ *
+ * Se presenta como un Process para que la shell la trate igual que a un
+ * proceso externo: esperar, obtener el código de salida, terminarla o
+ * agruparla en un trabajo. Su entrada y salidas se conectan al crearla,
+ * por lo que getInputStream()/getOutputStream()/getErrorStream() están vacíos.
+ */
+
+final class BuiltinProcess extends Process {
+
+	private final Builtin builtin;
+	private final List<String> argv;
+	private final File directory;
+
+	private final InputStream in;
+	private final OutputStream out;
+	private final OutputStream err;
+
+	/** Si la etapa es dueña de sus salidas (pipe o archivo) debe cerrarlas al terminar */
+
+	private final boolean closeOut;
+	private final boolean closeErr;
+
+	private final CompletableFuture<Process> exit = new CompletableFuture<>();
+
+	/** Evita que el comando llegue a ejecutarse si se destruye antes de empezar */
+
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	private volatile int exitCode;
+	private volatile boolean destroyed;
+	private volatile Future<?> task;
+
+	BuiltinProcess(Builtin builtin, List<String> argv, File directory, InputStream in, OutputStream out,
+			boolean closeOut, OutputStream err, boolean closeErr) {
+		this.builtin = builtin;
+		this.argv = argv;
+		this.directory = directory;
+		this.in = in;
+		this.out = out;
+		this.closeOut = closeOut;
+		this.err = err;
+		this.closeErr = closeErr;
+	}
+
+	/** Ejecuta el comando en un hilo del pool de la shell */
+
+	void start() {
+		this.task = StreamPump.submit(this::execute);
+	}
+
+	/** Ejecuta el comando en el hilo actual (etapa única en primer plano) */
+
+	void runInline() {
+		execute();
+	}
+
+	private void execute() {
+		if (!started.compareAndSet(false, true)) {
+			return;
+		}
+
+		int code;
+		try {
+			code = builtin.run(argv, directory, in, out, err);
+			out.flush();
+		} catch (IOException e) {
+			// Un pipe cerrado por la etapa siguiente (p.ej. '| head') no es un error que mostrar:
+			// equivale al SIGPIPE de un proceso (128 + 13).
+			if (destroyed) {
+				code = 143;
+			} else if (isBrokenPipe(e)) {
+				code = 141;
+			} else {
+				code = report(e.getMessage());
+			}
+		} catch (RuntimeException e) {
+			code = report(e.toString());
+		} finally {
+			closeQuietly(in);
+			if (closeOut) {
+				closeQuietly(out);
+			}
+			if (closeErr) {
+				closeQuietly(err);
+			}
+		}
+		this.exitCode = code;
+		exit.complete(this);
+	}
+
+	/**
+	 * Si el error es de escribir en una etapa que ya no lee: un pipe roto
+	 * ("Broken pipe", "Pipe closed", "Read end dead") o un proceso que ya ha
+	 * terminado, cuya entrada la JVM sustituye por un flujo cerrado ("Stream closed").
+	 */
+
+	static boolean isBrokenPipe(IOException e) {
+		String message = String.valueOf(e.getMessage()).toLowerCase();
+		return message.contains("pipe") || message.equals("stream closed") || message.equals("read end dead");
+	}
+
+	private int report(String message) {
+		try {
+			err.write((argv.get(0) + ": " + message + "\n").getBytes(Charset.defaultCharset()));
+		} catch (IOException ignored) {
+			// La salida de errores tampoco está disponible: solo queda el código de salida.
+		}
+		return 1;
+	}
+
+	private static void closeQuietly(Closeable c) {
+		try {
+			c.close();
+		} catch (IOException ignored) {
+			// Ya cerrado
+		}
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return OutputStream.nullOutputStream();
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return InputStream.nullInputStream();
+	}
+
+	@Override
+	public InputStream getErrorStream() {
+		return InputStream.nullInputStream();
+	}
+
+	@Override
+	public int waitFor() throws InterruptedException {
+		try {
+			exit.get();
+		} catch (ExecutionException e) {
+			// execute() nunca completa con excepción
+		}
+		return exitCode;
+	}
+
+	@Override
+	public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+		try {
+			exit.get(timeout, unit);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (ExecutionException e) {
+			return true;
+		}
+	}
+
+	@Override
+	public int exitValue() {
+		if (!exit.isDone()) {
+			throw new IllegalThreadStateException("El comando interno " + argv.get(0) + " no ha terminado");
+		}
+		return exitCode;
+	}
+
+	/**
+	 * Detiene el comando cerrando sus flujos (las lecturas y escrituras
+	 * bloqueadas fallan) e interrumpiendo su hilo.
+	 */
+
+	@Override
+	public void destroy() {
+		destroyed = true;
+		closeQuietly(in);
+		if (closeOut) {
+			closeQuietly(out);
+		}
+
+		if (started.compareAndSet(false, true)) {
+			// No llegó a ejecutarse: se da por terminado directamente.
+			if (closeErr) {
+				closeQuietly(err);
+			}
+			this.exitCode = 143;
+			exit.complete(this);
+			return;
+		}
+
+		Future<?> t = task;
+		if (t != null) {
+			t.cancel(true);
+		}
+	}
+
+	@Override
+	public boolean isAlive() {
+		return !exit.isDone();
+	}
+
+	@Override
+	public CompletableFuture<Process> onExit() {
+		return exit;
+	}
+
+	/** No hay proceso del sistema operativo: se ejecuta dentro de la shell */
+
+	@Override
+	public long pid() {
+		return -1;
+	}
+
+	@Override
+	public Stream<ProcessHandle> children() {
+		return Stream.empty();
+	}
+
+	@Override
+	public Stream<ProcessHandle> descendants() {
+		return Stream.empty();
+	}
+
+	@Override
+	public String toString() {
+		return "BuiltinProcess[" + argv.get(0) + "]";
+	}
+}
@@ -0,0 +1,127 @@
+package minishell;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Registro de comandos internos que se ejecutan dentro de la JVM.
+ *
+ * Funciones/Comportamientos principales:
+ * - Se consulta por cada etapa de una pipeline antes de crear un proceso.
+ * - Cada comando declara las opciones que implementa: si la línea usa
+ * 		alguna otra, se delega en el programa externo del mismo nombre.
+ * - Puede declarar además qué argumentos admite (p.ej. grep solo con patrones
+ * 		sin caracteres especiales); el resto también va al programa externo.
+ * - Es ampliable: basta con registrar un nuevo nombre con register().
+ */
+
+final class BuiltinRegistry {
+
+	/** Comando interno, letras de opción y argumentos que admite */
+
+	private static final class Entry {
+		final Builtin builtin;
+		final String options;
+		final Predicate<List<String>> supports;
+
+		Entry(Builtin builtin, String options, Predicate<List<String>> supports) {
+			this.builtin = builtin;
+			this.options = options;
+			this.supports = supports;
+		}
+	}
+
+	/** Etapa sin comando (solo asignaciones, o palabras que al expandirse quedan vacías) */
+
+	private static final Builtin NOTHING = (argv, directory, in, out, err) -> 0;
+
+	private final Map<String, Entry> builtins = new HashMap<>();
+
+	/**
+	 * Crea un registro con los comandos internos de serie:
+	 * echo, pwd, cat, wc, grep, head y tee.
+	 */
+
+	static BuiltinRegistry withDefaults() {
+		BuiltinRegistry registry = new BuiltinRegistry();
+		registry.register("echo", "n", Builtins::echo);
+		registry.register("pwd", "", Builtins::pwd);
+		registry.register("cat", "", Builtins::cat);
+		registry.register("wc", "lwc", Builtins::wc);
+		registry.register("grep", "ivcnq", Builtins::grepSupports, Builtins::grep);
+		registry.register("head", "n0123456789", Builtins::headSupports, Builtins::head);
+		registry.register("tee", "a", Builtins::tee);
+		return registry;
+	}
+
+	/**
+	 * Registra (o sustituye) un comando interno.
+	 *
+	 * @param name nombre del comando
+	 * @param options letras de opción que implementa (p.ej. "lwc" para wc), o null
+	 * 		si analiza sus propias opciones (p.ej. 'parallel', cuyos argumentos son otro comando)
+	 * @param builtin implementación
+	 */
+
+	void register(String name, String options, Builtin builtin) {
+		register(name, options, null, builtin);
+	}
+
+	/**
+	 * Registra (o sustituye) un comando interno que solo admite algunas formas de sus argumentos.
+	 *
+	 * @param supports si admite el argv completo (con opciones válidas), o null si admite cualquiera
+	 */
+
+	void register(String name, String options, Predicate<List<String>> supports, Builtin builtin) {
+		builtins.put(name, new Entry(builtin, options, supports));
+	}
+
+	boolean contains(String name) {
+		return builtins.containsKey(name);
+	}
+
+	/** Nombres de los comandos registrados (para completar con el tabulador) */
+
+	Set<String> names() {
+		return Set.copyOf(builtins.keySet());
+	}
+
+	/**
+	 * Busca la implementación interna para un comando concreto.
+	 *
+	 * @param argv argumentos del comando
+	 * @return el comando interno, o null si no existe o usa opciones o argumentos no soportados
+	 */
+
+	Builtin find(List<String> argv) {
+		if (argv.isEmpty()) {
+			return NOTHING;
+		}
+		Entry entry = builtins.get(argv.get(0));
+		if (entry == null) {
+			return null;
+		}
+		if (entry.options == null) {
+			return entry.builtin;
+		}
+
+		for (int i = 1; i < argv.size(); i++) {
+			String arg = argv.get(i);
+			if (arg.equals("--")) {
+				break;
+			}
+			if (arg.length() > 1 && arg.charAt(0) == '-') {
+				for (int j = 1; j < arg.length(); j++) {
+					if (entry.options.indexOf(arg.charAt(j)) < 0) {
+						return null;
+					}
+				}
+			}
+		}
+		return entry.supports == null || entry.supports.test(argv) ? entry.builtin : null;
+	}
+}
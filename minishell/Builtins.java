@@ -0,0 +1,562 @@
+package minishell;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Implementaciones de los comandos internos de serie: echo, pwd, cat, wc, grep, head y tee.
+ *
+ * Todos trabajan sobre flujos de bytes con un buffer propio, sin crear
+ * procesos. Las rutas relativas se resuelven respecto al directorio de la shell.
+ * Solo implementan las opciones más habituales; el resto las resuelve
+ * el programa externo (ver BuiltinRegistry).
+ */
+
+final class Builtins {
+
+	private static final Charset charset = Charset.defaultCharset();
+
+	private static final byte[] newline = { '\n' };
+
+	private Builtins() {
+	}
+
+	/**
+	 * echo [-n] args...
+	 * Escribe los argumentos separados por espacios.
+	 */
+
+	static int echo(List<String> argv, File directory, InputStream in, OutputStream out, OutputStream err) throws IOException {
+		int first = 1;
+		boolean trailingNewline = true;
+
+		if (argv.size() > 1 && argv.get(1).equals("-n")) {
+			trailingNewline = false;
+			first = 2;
+		}
+
+		String text = String.join(" ", argv.subList(first, argv.size()));
+		out.write(text.getBytes(charset));
+		if (trailingNewline) {
+			out.write(newline);
+		}
+		return 0;
+	}
+
+	/**
+	 * pwd
+	 * Muestra el directorio actual de la shell.
+	 */
+
+	static int pwd(List<String> argv, File directory, InputStream in, OutputStream out, OutputStream err) throws IOException {
+		out.write(directory.getAbsolutePath().getBytes(charset));
+		out.write(newline);
+		return 0;
+	}
+
+	/**
+	 * cat [archivo...]
+	 * Concatena los archivos (o la entrada estándar) en la salida, byte a byte.
+	 */
+
+	static int cat(List<String> argv, File directory, InputStream in, OutputStream out, OutputStream err) throws IOException {
+		List<String> files = operands(argv);
+		if (files.isEmpty()) {
+			files.add("-");
+		}
+
+		int status = 0;
+		byte[] buffer = new byte[StreamPump.BUFFER_SIZE];
+
+		for (String name : files) {
+			InputStream src = open(name, directory, in, err, "cat");
+			if (src == null) {
+				status = 1;
+				continue;
+			}
+			try {
+				int n;
+				while ((n = src.read(buffer)) != -1) {
+					out.write(buffer, 0, n);
+				}
+			} finally {
+				if (src != in) {
+					src.close();
+				}
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * wc [-lwc] [archivo...]
+	 * Cuenta líneas, palabras y bytes.
+	 */
+
+	static int wc(List<String> argv, File directory, InputStream in, OutputStream out, OutputStream err) throws IOException {
+		String flags = flags(argv);
+		boolean lines = flags.indexOf('l') >= 0;
+		boolean words = flags.indexOf('w') >= 0;
+		boolean bytes = flags.indexOf('c') >= 0;
+
+		if (!lines && !words && !bytes) {
+			lines = words = bytes = true;
+		}
+
+		List<String> files = operands(argv);
+		boolean named = !files.isEmpty();
+		if (!named) {
+			files.add("-");
+		}
+
+		// Con un solo contador sobre la entrada estándar no se rellena con espacios (como coreutils)
+		boolean pad = named || (lines ? 1 : 0) + (words ? 1 : 0) + (bytes ? 1 : 0) > 1;
+
+		int status = 0;
+		long[] total = new long[3];
+		byte[] buffer = new byte[StreamPump.BUFFER_SIZE];
+
+		for (String name : files) {
+			InputStream src = open(name, directory, in, err, "wc");
+			if (src == null) {
+				status = 1;
+				continue;
+			}
+
+			long[] counts = new long[3];
+			boolean inWord = false;
+			try {
+				int n;
+				while ((n = src.read(buffer)) != -1) {
+					counts[2] += n;
+					for (int i = 0; i < n; i++) {
+						byte b = buffer[i];
+						if (b == '\n') {
+							counts[0]++;
+						}
+						boolean space = b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+						if (!space && !inWord) {
+							counts[1]++;
+						}
+						inWord = !space;
+					}
+				}
+			} finally {
+				if (src != in) {
+					src.close();
+				}
+			}
+
+			for (int i = 0; i < 3; i++) {
+				total[i] += counts[i];
+			}
+			writeCounts(out, counts, lines, words, bytes, pad, named ? name : null);
+		}
+
+		if (files.size() > 1) {
+			writeCounts(out, total, lines, words, bytes, pad, "total");
+		}
+		return status;
+	}
+
+	private static void writeCounts(OutputStream out, long[] counts, boolean lines, boolean words, boolean bytes,
+			boolean pad, String name) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		boolean[] enabled = { lines, words, bytes };
+
+		for (int i = 0; i < 3; i++) {
+			if (!enabled[i]) {
+				continue;
+			}
+			if (sb.length() > 0) {
+				sb.append(' ');
+			}
+			sb.append(pad ? String.format("%7d", counts[i]) : Long.toString(counts[i]));
+		}
+		if (name != null) {
+			sb.append(' ').append(name);
+		}
+		sb.append('\n');
+		out.write(sb.toString().getBytes(charset));
+	}
+
+	/**
+	 * grep [-ivcnq] patrón [archivo...]
+	 * Muestra las líneas que contienen el patrón, que se busca como texto literal:
+	 * solo se usa con patrones sin caracteres especiales de las expresiones
+	 * regulares básicas (ver grepSupports), que valen lo mismo en ambos casos.
+	 * Las líneas se separan solo por '\n' y se escriben con sus bytes originales
+	 * (incluido un '\r' final).
+	 * Código de salida: 0 si hay coincidencias, 1 si no, 2 si hay errores.
+	 */
+
+	static int grep(List<String> argv, File directory, InputStream in, OutputStream out, OutputStream err) throws IOException {
+		String flags = flags(argv);
+		boolean ignoreCase = flags.indexOf('i') >= 0;
+		boolean invert = flags.indexOf('v') >= 0;
+		boolean count = flags.indexOf('c') >= 0;
+		boolean number = flags.indexOf('n') >= 0;
+		boolean quiet = flags.indexOf('q') >= 0;
+
+		List<String> operands = operands(argv);
+		if (operands.isEmpty()) {
+			err.write("uso: grep [-ivcnq] patrón [archivo...]\n".getBytes(charset));
+			return 2;
+		}
+
+		Pattern pattern = Pattern.compile(operands.remove(0),
+				Pattern.LITERAL | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0));
+
+		boolean prefix = operands.size() > 1;
+		if (operands.isEmpty()) {
+			operands.add("-");
+		}
+
+		boolean found = false;
+		boolean failed = false;
+
+		for (String name : operands) {
+			InputStream src = open(name, directory, in, err, "grep");
+			if (src == null) {
+				failed = true;
+				continue;
+			}
+
+			long matches = 0;
+			try {
+				LineReader reader = new LineReader(src);
+				long lineNumber = 0;
+				StringBuilder sb = new StringBuilder();
+
+				while (reader.next()) {
+					lineNumber++;
+					if (pattern.matcher(reader.text()).find() == invert) {
+						continue;
+					}
+					matches++;
+					if (quiet) {
+						return 0;
+					}
+					if (count) {
+						continue;
+					}
+
+					sb.setLength(0);
+					if (prefix) {
+						sb.append(name).append(':');
+					}
+					if (number) {
+						sb.append(lineNumber).append(':');
+					}
+					out.write(sb.toString().getBytes(charset));
+					reader.writeLine(out);
+				}
+			} finally {
+				if (src != in) {
+					src.close();
+				}
+			}
+
+			if (count && !quiet) {
+				out.write(((prefix ? name + ":" : "") + matches + "\n").getBytes(charset));
+			}
+			found |= matches > 0;
+		}
+
+		return failed ? 2 : found ? 0 : 1;
+	}
+
+	/**
+	 * Si grep puede ejecutarse dentro de la JVM: el patrón no tiene ninguno de los
+	 * caracteres especiales de una expresión regular básica (. [ ] \ * ^ $).
+	 * Los de las extendidas (+ ? | ( ) { }) son literales en las básicas.
+	 */
+
+	static boolean grepSupports(List<String> argv) {
+		List<String> operands = operands(argv);
+		if (operands.isEmpty()) {
+			return true;
+		}
+		String pattern = operands.get(0);
+		for (int i = 0; i < pattern.length(); i++) {
+			if (".[]\\*^$".indexOf(pattern.charAt(i)) >= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * head [-n N | -N] [archivo...]
+	 * Muestra las primeras N líneas (10 por defecto) sin decodificarlas.
+	 */
+
+	static int head(List<String> argv, File directory, InputStream in, OutputStream out, OutputStream err) throws IOException {
+		long limit = 10;
+		List<String> files = new ArrayList<>();
+
+		for (int i = 1; i < argv.size(); i++) {
+			String arg = argv.get(i);
+			try {
+				if (arg.equals("-n") && i + 1 < argv.size()) {
+					limit = Long.parseLong(argv.get(++i));
+				} else if (arg.startsWith("-n") && arg.length() > 2) {
+					limit = Long.parseLong(arg.substring(2));
+				} else if (arg.length() > 1 && arg.charAt(0) == '-') {
+					limit = Long.parseLong(arg.substring(1));
+				} else {
+					files.add(arg);
+				}
+			} catch (NumberFormatException e) {
+				err.write(("head: número de líneas no válido: " + arg + "\n").getBytes(charset));
+				return 1;
+			}
+		}
+
+		boolean headers = files.size() > 1;
+		if (files.isEmpty()) {
+			files.add("-");
+		}
+
+		int status = 0;
+		byte[] buffer = new byte[StreamPump.BUFFER_SIZE];
+
+		for (int f = 0; f < files.size(); f++) {
+			String name = files.get(f);
+			InputStream src = open(name, directory, in, err, "head");
+			if (src == null) {
+				status = 1;
+				continue;
+			}
+
+			if (headers) {
+				out.write(((f > 0 ? "\n" : "") + "==> " + name + " <==\n").getBytes(charset));
+			}
+
+			try {
+				long remaining = limit;
+				int n;
+				while (remaining > 0 && (n = src.read(buffer)) != -1) {
+					int end = 0;
+					while (end < n && remaining > 0) {
+						if (buffer[end++] == '\n') {
+							remaining--;
+						}
+					}
+					out.write(buffer, 0, end);
+				}
+			} finally {
+				if (src != in) {
+					src.close();
+				}
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Si head puede ejecutarse dentro de la JVM: todas las cuentas son números no
+	 * negativos. 'head -n -N' (todas menos las N últimas) y las formas que no
+	 * conoce van al programa externo.
+	 */
+
+	static boolean headSupports(List<String> argv) {
+		for (int i = 1; i < argv.size(); i++) {
+			String arg = argv.get(i);
+			String value;
+			if (arg.equals("-n")) {
+				if (++i == argv.size()) {
+					return false;
+				}
+				value = argv.get(i);
+			} else if (arg.startsWith("-n")) {
+				value = arg.substring(2);
+			} else if (arg.length() > 1 && arg.charAt(0) == '-') {
+				value = arg.substring(1);
+			} else {
+				continue;
+			}
+			if (value.isEmpty() || value.length() > 18 || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * tee [-a] [archivo...]
+	 * Copia la entrada estándar en la salida y en los archivos (-a: añade al final).
+	 * Cada bloque se lee una vez y se reparte entre todos (FanOut). Si un archivo
+	 * no se puede abrir, se informa y se sigue con el resto (código 1).
+	 */
+
+	static int tee(List<String> argv, File directory, InputStream in, OutputStream out, OutputStream err) throws IOException {
+		boolean append = flags(argv).indexOf('a') >= 0;
+
+		int status = 0;
+		List<FileChannel> files = new ArrayList<>();
+		try {
+			for (String name : operands(argv)) {
+				File file = new File(name);
+				if (!file.isAbsolute()) {
+					file = new File(directory, name);
+				}
+				try {
+					files.add(FanOut.open(file, append));
+				} catch (IOException e) {
+					err.write(("tee: " + name + ": No se puede abrir para escritura\n").getBytes(charset));
+					status = 1;
+				}
+			}
+		} catch (IOException e) {
+			for (FileChannel file : files) {
+				file.close();
+			}
+			throw e;
+		}
+
+		try (FanOut sinks = new FanOut(files, List.of(out))) {
+			sinks.transfer(in);
+		}
+		return status;
+	}
+
+	/** Opciones agrupadas de la línea (p.ej. "-lw -c" -> "lwc") */
+
+	private static String flags(List<String> argv) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 1; i < argv.size(); i++) {
+			String arg = argv.get(i);
+			if (arg.equals("--")) {
+				break;
+			}
+			if (arg.length() > 1 && arg.charAt(0) == '-') {
+				sb.append(arg, 1, arg.length());
+			}
+		}
+		return sb.toString();
+	}
+
+	/** Argumentos que no son opciones */
+
+	private static List<String> operands(List<String> argv) {
+		List<String> operands = new ArrayList<>();
+		boolean options = true;
+		for (int i = 1; i < argv.size(); i++) {
+			String arg = argv.get(i);
+			if (options && arg.equals("--")) {
+				options = false;
+			} else if (!options || arg.length() < 2 || arg.charAt(0) != '-') {
+				operands.add(arg);
+			}
+		}
+		return operands;
+	}
+
+	/**
+	 * Abre un operando: "-" es la entrada estándar; el resto, un archivo
+	 * relativo al directorio de la shell.
+	 *
+	 * @return el flujo, o null (tras informar en 'err') si no se puede abrir
+	 */
+
+	private static InputStream open(String name, File directory, InputStream in, OutputStream err, String command)
+			throws IOException {
+		if (name.equals("-")) {
+			return in;
+		}
+
+		File file = new File(name);
+		if (!file.isAbsolute()) {
+			file = new File(directory, name);
+		}
+
+		if (file.isDirectory()) {
+			err.write((command + ": " + name + ": Es un directorio\n").getBytes(charset));
+			return null;
+		}
+		try {
+			return new FileInputStream(file);
+		} catch (IOException e) {
+			err.write((command + ": " + name + ": No existe el archivo o no se puede leer\n").getBytes(charset));
+			return null;
+		}
+	}
+
+	/**
+	 * Lee líneas separadas solo por '\n' sin decodificarlas: el texto se obtiene
+	 * aparte para buscar en él y la línea se vuelve a escribir con sus bytes exactos.
+	 */
+
+	private static final class LineReader {
+		private final InputStream in;
+		private final byte[] buffer = new byte[StreamPump.BUFFER_SIZE];
+		private int position;
+		private int limit;
+		private byte[] line = new byte[256];
+		private int length;
+
+		LineReader(InputStream in) {
+			this.in = in;
+		}
+
+		/** Lee la siguiente línea; false al llegar al final */
+
+		boolean next() throws IOException {
+			length = 0;
+			while (true) {
+				if (position == limit) {
+					limit = in.read(buffer);
+					position = 0;
+					if (limit <= 0) {
+						limit = 0;
+						return length > 0;
+					}
+				}
+
+				int end = position;
+				while (end < limit && buffer[end] != '\n') {
+					end++;
+				}
+				append(position, end);
+				if (end < limit) {
+					position = end + 1;
+					return true;
+				}
+				position = limit;
+			}
+		}
+
+		/** Texto de la línea, sin el '\n' */
+
+		String text() {
+			return new String(line, 0, length, charset);
+		}
+
+		/** Escribe la línea con su '\n' (también en la última si no lo tenía, como grep) */
+
+		void writeLine(OutputStream out) throws IOException {
+			// append() deja siempre sitio para un byte más
+			line[length] = '\n';
+			out.write(line, 0, length + 1);
+		}
+
+		private void append(int from, int to) {
+			int n = to - from;
+			if (length + n >= line.length) {
+				line = Arrays.copyOf(line, Math.max(2 * line.length, length + n + 1));
+			}
+			System.arraycopy(buffer, from, line, length, n);
+			length += n;
+		}
+	}
+}
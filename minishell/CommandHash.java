@@ -0,0 +1,200 @@
+package minishell;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caché de rutas de ejecutables (equivalente al 'hash' de bash).
+ *
+ * Funciones/Comportamientos principales:
+ * - Resuelve el nombre de un comando a la ruta absoluta de su ejecutable
+ * 		recorriendo el PATH una sola vez; las siguientes búsquedas son inmediatas.
+ * - Se vacía entera si cambia el valor de PATH.
+ * - Antes de usar una entrada comprueba la fecha de modificación de los
+ * 		directorios del PATH hasta el suyo: si alguno ha cambiado (se ha
+ * 		añadido o borrado un ejecutable) la caché se descarta.
+ * - Los nombres con separador ('./script', '/bin/ls') no se guardan: se
+ * 		resuelven respecto al directorio actual.
+ * - Los directorios relativos del PATH (y los elementos vacíos, que son '.')
+ * 		se resuelven respecto al directorio actual de la shell en cada búsqueda,
+ * 		y lo que se encuentra en ellos no se guarda ('cd x; PATH=.:$PATH').
+ */
+
+final class CommandHash {
+
+	/** Ejecutable encontrado, índice de su directorio en el PATH y número de usos */
+
+	private static final class Entry {
+		final Path file;
+		final int dir;
+		int hits;
+
+		Entry(Path file, int dir) {
+			this.file = file;
+			this.dir = dir;
+		}
+	}
+
+	private final Map<String, Entry> table = new LinkedHashMap<>();
+
+	/** Valor de PATH con el que se construyó la caché */
+
+	private String path;
+
+	/** Directorios del PATH tal como aparecen (los relativos sin resolver) */
+
+	private final List<Path> dirs = new ArrayList<>();
+
+	/** Fecha de modificación de cada directorio absoluto del PATH al construir la caché */
+
+	private long[] mtimes = new long[0];
+
+	/**
+	 * Resuelve un comando a la ruta absoluta de su ejecutable.
+	 *
+	 * @param name nombre del comando (argv[0])
+	 * @param directory directorio actual (para nombres con separador y directorios relativos del PATH)
+	 * @param pathValue valor actual de PATH
+	 * @return ruta absoluta, o null si no existe ningún ejecutable con ese nombre
+	 */
+
+	synchronized Path resolve(String name, File directory, String pathValue) {
+
+		// Rutas explícitas: no se busca en el PATH ni se guardan.
+		if (name.indexOf('/') >= 0 || name.indexOf(File.separatorChar) >= 0) {
+			try {
+				Path file = Paths.get(name);
+				if (!file.isAbsolute()) {
+					file = directory.toPath().resolve(file);
+				}
+				return Files.isRegularFile(file) ? file.normalize() : null;
+			} catch (InvalidPathException e) {
+				return null;
+			}
+		}
+
+		revalidate(pathValue);
+
+		Entry entry = table.get(name);
+		if (entry != null) {
+			if (unchanged(entry.dir) && Files.isExecutable(entry.file)) {
+				// Un directorio relativo anterior puede tenerlo desde el directorio actual.
+				Entry relative = search(name, directory, entry.dir, true);
+				if (relative != null) {
+					return relative.file;
+				}
+				entry.hits++;
+				return entry.file;
+			}
+			// Algún directorio ha cambiado: la caché puede estar obsoleta entera.
+			rebuild(pathValue);
+		}
+
+		entry = search(name, directory, dirs.size(), false);
+		if (entry == null) {
+			return null;
+		}
+		if (dirs.get(entry.dir).isAbsolute()) {
+			entry.hits++;
+			table.put(name, entry);
+		}
+		return entry.file;
+	}
+
+	/**
+	 * COMANDO INTERNO: hash -r
+	 * Olvida todas las rutas guardadas.
+	 */
+
+	synchronized void clear() {
+		table.clear();
+	}
+
+	/**
+	 * COMANDO INTERNO: hash
+	 * Lista los comandos guardados con su número de usos (formato de bash).
+	 */
+
+	synchronized List<String> list() {
+		List<String> lines = new ArrayList<>();
+		for (Map.Entry<String, Entry> e : table.entrySet()) {
+			lines.add(e.getValue().hits + "\t" + e.getValue().file);
+		}
+		return lines;
+	}
+
+	/** Si PATH ha cambiado se reconstruye la lista de directorios y se vacía la tabla */
+
+	private void revalidate(String pathValue) {
+		String value = pathValue == null ? "" : pathValue;
+		if (!value.equals(this.path)) {
+			rebuild(value);
+		}
+	}
+
+	private void rebuild(String pathValue) {
+		this.path = pathValue == null ? "" : pathValue;
+		this.table.clear();
+		this.dirs.clear();
+
+		for (String dir : this.path.split(File.pathSeparator)) {
+			try {
+				// Un elemento vacío del PATH equivale al directorio actual.
+				dirs.add(Paths.get(dir.isEmpty() ? "." : dir));
+			} catch (InvalidPathException e) {
+				// Entrada del PATH no válida: se ignora.
+			}
+		}
+
+		this.mtimes = new long[dirs.size()];
+		for (int i = 0; i < mtimes.length; i++) {
+			mtimes[i] = dirs.get(i).isAbsolute() ? mtime(dirs.get(i)) : -1;
+		}
+	}
+
+	/**
+	 * Comprueba que no ha cambiado ningún directorio absoluto del PATH hasta
+	 * 'last' (incluido); los relativos se miran en cada búsqueda.
+	 */
+
+	private boolean unchanged(int last) {
+		for (int i = 0; i <= last; i++) {
+			if (dirs.get(i).isAbsolute() && mtime(dirs.get(i)) != mtimes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Busca el ejecutable en los directorios del PATH anteriores a 'limit' (o solo en los relativos) */
+
+	private Entry search(String name, File directory, int limit, boolean onlyRelative) {
+		for (int i = 0; i < limit; i++) {
+			Path dir = dirs.get(i);
+			if (onlyRelative && dir.isAbsolute()) {
+				continue;
+			}
+			Path file = dir.isAbsolute() ? dir.resolve(name) : directory.toPath().resolve(dir).resolve(name).normalize();
+			if (Files.isRegularFile(file) && Files.isExecutable(file)) {
+				return new Entry(file, i);
+			}
+		}
+		return null;
+	}
+
+	private static long mtime(Path dir) {
+		try {
+			return Files.getLastModifiedTime(dir).toMillis();
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package minishell;
+
+/**
+ * El comando no es interno ni se encuentra como ejecutable en el PATH.
+ * Se detecta antes de intentar crear ningún proceso.
+ */
+
+public class CommandNotFoundException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String command;
+
+	public CommandNotFoundException(String command) {
+		super("Comando no encontrado: " + command);
+		this.command = command;
+	}
+
+	public String getCommand() {
+		return command;
+	}
+}
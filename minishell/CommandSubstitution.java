@@ -0,0 +1,198 @@
+package minishell;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import tokenizer.MissingFileException;
+import tokenizer.Substitutions;
+
+/**
+ * Sustitución de órdenes: $(orden) y `orden`.
+ *
+ * Funciones/Comportamientos principales:
+ * - Cada orden se ejecuta en un subshell (MiniShell): una copia de la shell
+ * 		con su directorio, variables, alias y funciones, que la tokeniza con
+ * 		la caché de líneas compartida y lanza sus pipelines con su propio
+ * 		PipelineRunner, sin 'sh -c' ni archivos temporales.
+ * - Como en sh, los comandos de la shell (cd, export, alias...) funcionan
+ * 		dentro de la orden pero sus cambios no salen del subshell:
+ * 		'echo $(cd /; pwd)' muestra '/' y la shell sigue en su directorio.
+ * - La salida estándar se guarda en un buffer en memoria que crece según
+ * 		hace falta, hasta SIZE_LIMIT bytes; si se supera, la orden se detiene
+ * 		(SIGPIPE) y la pipeline que la contiene no se ejecuta. Los errores
+ * 		van a la salida de errores de la shell.
+ * - Las sustituciones anidadas ($(cat $(ls *.txt))) se ejecutan al expandir
+ * 		la orden que las contiene, en un subshell del subshell.
+ * - Las sustituciones de una misma pipeline son independientes: la primera
+ * 		se ejecuta en el hilo actual y las demás a la vez en el pool de la shell.
+ */
+
+final class CommandSubstitution implements Substitutions {
+
+	/** Tamaño máximo de la salida de una orden */
+
+	static final int SIZE_LIMIT = 16 * 1024 * 1024;
+
+	private static final Charset charset = Charset.defaultCharset();
+
+	/** Ejecuta una orden en un subshell de la shell con la salida estándar indicada */
+
+	@FunctionalInterface
+	interface Subshell {
+
+		/**
+		 * @param command texto de la orden
+		 * @param out salida estándar de la orden
+		 * @return código de salida de la última pipeline ejecutada
+		 * @throws MissingFileException si la orden no se puede tokenizar
+		 */
+
+		int run(String command, OutputStream out) throws MissingFileException;
+	}
+
+	private final Subshell subshell;
+
+	/** Código de salida de la última sustitución ejecutada ('A=$(false)' termina con 1) */
+
+	private volatile int lastStatus;
+
+	/**
+	 * Salida de una orden: buffer que crece según hace falta hasta el límite.
+	 * Al superarlo la escritura falla y la copia del proceso se corta (recibe SIGPIPE).
+	 */
+
+	private static final class Capture extends OutputStream {
+
+		private byte[] buf = new byte[256];
+
+		private int count;
+
+		private boolean exceeded;
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			if (count + len > SIZE_LIMIT) {
+				exceeded = true;
+				throw new IOException("la salida supera el límite de " + (SIZE_LIMIT >> 20) + " MB");
+			}
+			if (count + len > buf.length) {
+				buf = Arrays.copyOf(buf, Math.min(SIZE_LIMIT, Math.max(count + len, buf.length * 2)));
+			}
+			System.arraycopy(b, off, buf, count, len);
+			count += len;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		synchronized boolean exceeded() {
+			return exceeded;
+		}
+
+		/** Texto capturado sin los saltos de línea finales */
+
+		synchronized String text() {
+			int end = count;
+			while (end > 0 && buf[end - 1] == '\n') {
+				end--;
+			}
+			return new String(buf, 0, end, charset);
+		}
+	}
+
+	CommandSubstitution(Subshell subshell) {
+		this.subshell = subshell;
+	}
+
+	/**
+	 * @return código de salida de la última sustitución ejecutada (0 si no se ha
+	 * 		ejecutado ninguna desde reset())
+	 */
+
+	int lastStatus() {
+		return lastStatus;
+	}
+
+	void reset() {
+		this.lastStatus = 0;
+	}
+
+	/**
+	 * Ejecuta las órdenes y devuelve su salida.
+	 *
+	 * @throws SubstitutionException si la salida de alguna supera el límite o no se
+	 * 		puede tokenizar (la pipeline que las contiene no debe ejecutarse)
+	 */
+
+	@Override
+	public List<String> run(List<String> commands) {
+		int n = commands.size();
+		String[] outputs = new String[n];
+		int[] statuses = new int[n];
+
+		List<Future<?>> others = new ArrayList<>(n - 1);
+		for (int i = 1; i < n; i++) {
+			int k = i;
+			others.add(StreamPump.submit(() -> outputs[k] = capture(commands.get(k), statuses, k)));
+		}
+		try {
+			outputs[0] = capture(commands.get(0), statuses, 0);
+		} finally {
+			await(others);
+		}
+
+		this.lastStatus = statuses[n - 1];
+		return Arrays.asList(outputs);
+	}
+
+	/** Espera a las sustituciones lanzadas en otros hilos y propaga su error */
+
+	private static void await(List<Future<?>> others) {
+		RuntimeException failure = null;
+		for (Future<?> f : others) {
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				if (failure == null && e.getCause() instanceof RuntimeException) {
+					failure = (RuntimeException) e.getCause();
+				}
+			} catch (InterruptedException e) {
+				f.cancel(true);
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Ejecuta una orden (pipelines enlazadas con ';', '&&' y '||', como en la shell)
+	 * guardando su salida estándar.
+	 *
+	 * @param command texto de la orden
+	 * @param statuses código de salida de cada orden (se rellena el de 'index')
+	 * @return salida sin los saltos de línea finales
+	 */
+
+	private String capture(String command, int[] statuses, int index) {
+		Capture out = new Capture();
+		try {
+			statuses[index] = subshell.run(command, out);
+		} catch (MissingFileException e) {
+			throw new SubstitutionException(command, e.getMessage());
+		}
+		if (out.exceeded()) {
+			throw new SubstitutionException(command, "la salida supera el límite de " + (SIZE_LIMIT >> 20) + " MB");
+		}
+		return out.text();
+	}
+}
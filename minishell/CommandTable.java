@@ -0,0 +1,198 @@
+package minishell;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import tokenizer.Aliases;
+import tokenizer.TLine;
+
+/**
+ * Tabla de órdenes de la shell: un solo HashMap por nombre.
+ *
+ * Funciones/Comportamientos principales:
+ * - Cada nombre puede tener un comando propio de la shell (cd, export...),
+ * 		un alias y una función: una única búsqueda los encuentra todos.
+ * - Los comandos de la shell se registran una vez al crearla; alias y
+ * 		funciones cambian con 'alias', 'unalias', 'function' y 'unset -f'.
+ * - Los alias se consultan al tokenizar (Aliases); las funciones guardan su
+ * 		cuerpo ya tokenizado.
+ * - Lo que no está en la tabla lo resuelve PipelineRunner con sus propias
+ * 		tablas: comandos internos de la JVM (BuiltinRegistry) y rutas de los
+ * 		ejecutables (CommandHash).
+ */
+
+final class CommandTable implements Aliases {
+
+	/** Comando de la propia shell: recibe la pipeline ya expandida */
+
+	@FunctionalInterface
+	interface Command {
+		int run(TLine line, PipelineTiming timing);
+	}
+
+	/** Lo que hay definido con un nombre */
+
+	private static final class Entry {
+		Command command;
+		boolean prefix;
+		String alias;
+		TLine function;
+
+		boolean isEmpty() {
+			return command == null && alias == null && function == null;
+		}
+	}
+
+	private final Map<String, Entry> entries = new HashMap<>();
+
+	/**
+	 * Registra un comando de la shell. Como hasta ahora, se reconoce también
+	 * con otras mayúsculas ('CD', 'Exit').
+	 *
+	 * @param name nombre en minúsculas
+	 * @param command
+	 */
+
+	void register(String name, Command command) {
+		entry(name).command = command;
+	}
+
+	/**
+	 * Registra un comando de la shell que va delante de otro ('timeout 5 cmd | wc'):
+	 * recibe la pipeline entera aunque tenga varias etapas o redirecciones.
+	 */
+
+	void registerPrefix(String name, Command command) {
+		Entry entry = entry(name);
+		entry.command = command;
+		entry.prefix = true;
+	}
+
+	/**
+	 * @param name nombre del comando
+	 * @return comando de la shell con ese nombre, o null
+	 */
+
+	Command command(String name) {
+		Entry entry = commandEntry(name);
+		return entry == null ? null : entry.command;
+	}
+
+	/** Indica si el comando de la shell con ese nombre va delante de otro (registerPrefix) */
+
+	boolean isPrefix(String name) {
+		Entry entry = commandEntry(name);
+		return entry != null && entry.prefix;
+	}
+
+	/** Texto del alias (se sustituye al tokenizar), o null */
+
+	@Override
+	public String get(String name) {
+		Entry entry = entries.get(name);
+		return entry == null ? null : entry.alias;
+	}
+
+	void alias(String name, String value) {
+		entry(name).alias = value;
+	}
+
+	/** @return false si no había un alias con ese nombre */
+
+	boolean unalias(String name) {
+		Entry entry = entries.get(name);
+		if (entry == null || entry.alias == null) {
+			return false;
+		}
+		entry.alias = null;
+		release(name, entry);
+		return true;
+	}
+
+	/** Alias definidos, por orden alfabético */
+
+	Map<String, String> aliases() {
+		Map<String, String> aliases = new TreeMap<>();
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			if (e.getValue().alias != null) {
+				aliases.put(e.getKey(), e.getValue().alias);
+			}
+		}
+		return aliases;
+	}
+
+	/**
+	 * @param name
+	 * @param body pipelines del cuerpo ya tokenizadas (inmutables), o null si está vacío
+	 */
+
+	void define(String name, TLine body) {
+		entry(name).function = body == null ? new TLine().toImmutable() : body;
+	}
+
+	/** Cuerpo de la función, o null si no existe */
+
+	TLine function(String name) {
+		Entry entry = entries.get(name);
+		return entry == null ? null : entry.function;
+	}
+
+	/** @return false si no había una función con ese nombre */
+
+	boolean undefine(String name) {
+		Entry entry = entries.get(name);
+		if (entry == null || entry.function == null) {
+			return false;
+		}
+		entry.function = null;
+		release(name, entry);
+		return true;
+	}
+
+	/**
+	 * Copia de los alias y funciones para un subshell. Los comandos de la
+	 * shell no se copian: cada shell registra los suyos.
+	 */
+
+	CommandTable copy() {
+		CommandTable copy = new CommandTable();
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			Entry entry = e.getValue();
+			if (entry.alias != null || entry.function != null) {
+				Entry copied = copy.entry(e.getKey());
+				copied.alias = entry.alias;
+				copied.function = entry.function;
+			}
+		}
+		return copy;
+	}
+
+	/** Nombres con algo definido (para completar con el tabulador) */
+
+	Set<String> names() {
+		return new HashSet<>(entries.keySet());
+	}
+
+	private Entry commandEntry(String name) {
+		Entry entry = entries.get(name);
+		if (entry == null || entry.command == null) {
+			String lower = name.toLowerCase(Locale.ROOT);
+			entry = lower.equals(name) ? null : entries.get(lower);
+		}
+		return entry == null || entry.command == null ? null : entry;
+	}
+
+	private Entry entry(String name) {
+		return entries.computeIfAbsent(name, k -> new Entry());
+	}
+
+	private void release(String name, Entry entry) {
+		if (entry.isEmpty()) {
+			entries.remove(name);
+		}
+	}
+}
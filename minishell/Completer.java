@@ -0,0 +1,368 @@
+package minishell;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Motor de completado del editor de línea (tabulador).
+ *
+ * Funciones/Comportamientos principales:
+ * - En posición de comando completa comandos internos y ejecutables del
+ * 		PATH; en el resto (y si la palabra lleva '/') archivos y directorios
+ * 		relativos al directorio actual de la shell. Los directorios acaban en '/'.
+ * - Los ejecutables del PATH están en un CompletionTrie que se construye
+ * 		en un hilo en segundo plano al arrancar. Se mantiene al día de forma
+ * 		incremental: solo se vuelven a leer los directorios del PATH cuya
+ * 		fecha de modificación ha cambiado, y solo se añaden o quitan los
+ * 		nombres que difieren. La comprobación se lanza con cada completado
+ * 		sin esperarla: pulsar el tabulador nunca recorre el PATH.
+ * - El listado de cada directorio de archivos también se guarda en un trie
+ * 		(los más recientes), y se rehace si cambia su fecha de modificación.
+ */
+
+final class Completer {
+
+	/** Directorios de archivos cuyo listado se conserva */
+
+	private static final int DIRECTORY_CACHE_SIZE = 16;
+
+	/** Palabra que se completa y sus coincidencias */
+
+	static final class Result {
+
+		/** Posición de la línea donde empieza la palabra */
+
+		final int start;
+
+		/** Parte de la palabra, sin comillas, que va delante de cada coincidencia ('src/' en 'src/Ma') */
+
+		final String base;
+
+		final CompletionTrie.Matches matches;
+
+		Result(int start, String base, CompletionTrie.Matches matches) {
+			this.start = start;
+			this.base = base;
+			this.matches = matches;
+		}
+	}
+
+	/** Listado de un directorio: fecha de modificación y nombres (en un trie si es de archivos) */
+
+	private static final class Listing {
+		final long mtime;
+		final Set<String> names;
+		final CompletionTrie trie;
+
+		Listing(long mtime, Set<String> names, CompletionTrie trie) {
+			this.mtime = mtime;
+			this.names = names;
+			this.trie = trie;
+		}
+	}
+
+	/** Comandos internos y ejecutables del PATH */
+
+	private final CompletionTrie commands = new CompletionTrie();
+
+	/** Directorios del PATH ya cargados en 'commands' (solo los usa el hilo de fondo) */
+
+	private final Map<Path, Listing> pathListings = new HashMap<>();
+
+	/** Directorios de archivos recientes (orden de acceso) */
+
+	private final Map<Path, Listing> fileListings = new LinkedHashMap<>(DIRECTORY_CACHE_SIZE, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Path, Listing> eldest) {
+			return size() > DIRECTORY_CACHE_SIZE;
+		}
+	};
+
+	/** Valor actual de PATH (cambia con 'export PATH=...') */
+
+	private final Supplier<String> path;
+
+	private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "ms-completion");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/** Hay una comprobación del PATH pendiente: no se encola otra */
+
+	private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+	/**
+	 * Crea el motor y empieza a cargar el PATH en segundo plano.
+	 *
+	 * @param builtins nombres de los comandos internos
+	 * @param path valor actual de PATH
+	 */
+
+	Completer(Collection<String> builtins, Supplier<String> path) {
+		this.path = path;
+		for (String name : builtins) {
+			commands.add(name);
+		}
+		refresh();
+	}
+
+	/**
+	 * Lanza en segundo plano la comprobación de los directorios del PATH (si
+	 * no hay ya una pendiente) y, si se indica, la carga de un directorio de archivos.
+	 *
+	 * @param directory directorio actual de la shell, o null
+	 */
+
+	void refresh(File directory) {
+		refresh();
+		if (directory != null) {
+			worker.execute(() -> files(directory.toPath()));
+		}
+	}
+
+	private void refresh() {
+		if (refreshQueued.compareAndSet(false, true)) {
+			worker.execute(() -> {
+				refreshQueued.set(false);
+				scanPath();
+			});
+		}
+	}
+
+	/**
+	 * Completa la palabra que termina en el cursor.
+	 *
+	 * @param line texto de la línea
+	 * @param cursor posición del cursor
+	 * @param directory directorio actual de la shell
+	 * @param limit número máximo de coincidencias que devolver
+	 * @return la palabra y sus coincidencias, o null si no hay nada que completar (p.ej. entre comillas)
+	 */
+
+	Result complete(String line, int cursor, File directory, int limit) {
+		refresh();
+
+		int start = wordStart(line, cursor);
+		if (start < 0) {
+			return null;
+		}
+		String word = unquote(line.substring(start, cursor));
+
+		if (word.indexOf('/') < 0 && isCommandPosition(line, start)) {
+			return new Result(start, "", commands.complete(word, limit, true));
+		}
+
+		int slash = word.lastIndexOf('/');
+		String base = word.substring(0, slash + 1);
+		String prefix = word.substring(slash + 1);
+		Path dir;
+		try {
+			dir = base.isEmpty() ? directory.toPath() : directory.toPath().resolve(base);
+		} catch (InvalidPathException e) {
+			return new Result(start, base, CompletionTrie.Matches.NONE);
+		}
+
+		CompletionTrie names = files(dir.normalize());
+		if (names == null) {
+			return new Result(start, base, CompletionTrie.Matches.NONE);
+		}
+		return new Result(start, base, names.complete(prefix, limit, false));
+	}
+
+	/**
+	 * Trie con los nombres de un directorio, rehecho si ha cambiado.
+	 *
+	 * @param dir
+	 * @return nombres (los directorios con '/' al final), o null si no es un directorio legible
+	 */
+
+	private CompletionTrie files(Path dir) {
+		long mtime = mtime(dir);
+		if (mtime < 0) {
+			return null;
+		}
+		synchronized (fileListings) {
+			Listing listing = fileListings.get(dir);
+			if (listing != null && listing.mtime == mtime) {
+				return listing.trie;
+			}
+		}
+
+		CompletionTrie trie = new CompletionTrie();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			for (Path entry : stream) {
+				String name = entry.getFileName().toString();
+				trie.add(Files.isDirectory(entry) ? name + "/" : name);
+			}
+		} catch (IOException | SecurityException e) {
+			return null;
+		}
+
+		synchronized (fileListings) {
+			fileListings.put(dir, new Listing(mtime, null, trie));
+		}
+		return trie;
+	}
+
+	/**
+	 * Pone al día los ejecutables del PATH (hilo de fondo): directorios nuevos
+	 * o modificados se releen y se aplican solo las diferencias; los que ya
+	 * no están en el PATH se quitan.
+	 */
+
+	private void scanPath() {
+		Set<Path> dirs = new LinkedHashSet<>();
+		String value = path.get();
+		for (String dir : (value == null ? "" : value).split(File.pathSeparator)) {
+			try {
+				dirs.add(Paths.get(dir.isEmpty() ? "." : dir).toAbsolutePath().normalize());
+			} catch (InvalidPathException e) {
+				// Entrada del PATH no válida: se ignora
+			}
+		}
+
+		for (Path dir : new ArrayList<>(pathListings.keySet())) {
+			if (!dirs.contains(dir)) {
+				for (String name : pathListings.remove(dir).names) {
+					commands.remove(name);
+				}
+			}
+		}
+
+		for (Path dir : dirs) {
+			Listing old = pathListings.get(dir);
+			long mtime = mtime(dir);
+			if (old != null && old.mtime == mtime) {
+				continue;
+			}
+			Set<String> names = mtime < 0 ? Set.of() : executables(dir);
+			Set<String> previous = old == null ? Set.of() : old.names;
+			for (String name : names) {
+				if (!previous.contains(name)) {
+					commands.add(name);
+				}
+			}
+			for (String name : previous) {
+				if (!names.contains(name)) {
+					commands.remove(name);
+				}
+			}
+			pathListings.put(dir, new Listing(mtime, names, null));
+		}
+	}
+
+	private static Set<String> executables(Path dir) {
+		Set<String> names = new HashSet<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			for (Path entry : stream) {
+				if (Files.isRegularFile(entry) && Files.isExecutable(entry)) {
+					names.add(entry.getFileName().toString());
+				}
+			}
+		} catch (IOException | SecurityException e) {
+			// Directorio ilegible: sin ejecutables
+		}
+		return names;
+	}
+
+	/**
+	 * Inicio de la palabra que termina en 'cursor': tras el último espacio o
+	 * separador ('|', ';', '&', '<', '>').
+	 *
+	 * @return posición, o -1 si el cursor está dentro de unas comillas
+	 */
+
+	static int wordStart(String line, int cursor) {
+		char quote = 0;
+		int start = 0;
+		for (int i = 0; i < cursor; i++) {
+			char c = line.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '\'' || c == '"') {
+				quote = c;
+			} else if (Character.isWhitespace(c) || c == '|' || c == ';' || c == '&' || c == '<' || c == '>') {
+				start = i + 1;
+			}
+		}
+		return quote != 0 ? -1 : start;
+	}
+
+	/**
+	 * @return true si la palabra que empieza en 'start' es un comando: la primera
+	 * 		de la línea o la primera tras '|', ';' o '&' (sin contar las asignaciones 'NOMBRE=valor')
+	 */
+
+	static boolean isCommandPosition(String line, int start) {
+		int i = start - 1;
+		while (true) {
+			while (i >= 0 && Character.isWhitespace(line.charAt(i))) {
+				i--;
+			}
+			if (i < 0) {
+				return true;
+			}
+			char c = line.charAt(i);
+			if (c == '|' || c == ';' || c == '&') {
+				return true;
+			}
+			// Palabra anterior: si es una asignación se sigue buscando hacia atrás
+			int end = i + 1;
+			while (i >= 0 && !Character.isWhitespace(line.charAt(i)) && "|;&<>".indexOf(line.charAt(i)) < 0) {
+				i--;
+			}
+			String previous = line.substring(i + 1, end);
+			int eq = previous.indexOf('=');
+			if (eq <= 0 || !Environment.isName(previous.substring(0, eq))) {
+				return false;
+			}
+		}
+	}
+
+	/** Quita las comillas ya cerradas de una palabra ('mis docs'/a -> mis docs/a) */
+
+	private static String unquote(String word) {
+		if (word.indexOf('\'') < 0 && word.indexOf('"') < 0) {
+			return word;
+		}
+		StringBuilder sb = new StringBuilder(word.length());
+		char quote = 0;
+		for (int i = 0; i < word.length(); i++) {
+			char c = word.charAt(i);
+			if (quote != 0 ? c == quote : c == '\'' || c == '"') {
+				quote = quote != 0 ? 0 : c;
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static long mtime(Path dir) {
+		try {
+			return Files.getLastModifiedTime(dir).toMillis();
+		} catch (IOException | SecurityException e) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package minishell;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Árbol de prefijos (trie) de nombres para completar con el tabulador.
+ *
+ * Funciones/Comportamientos principales:
+ * - Cada nodo guarda sus hijos en arrays ordenados por carácter (búsqueda
+ * 		binaria): sin objetos por arista y los nombres salen en orden.
+ * - Cada nodo sabe cuántos nombres hay bajo él: el total de coincidencias
+ * 		y el prefijo común se obtienen sin recorrer el subárbol.
+ * - Un mismo nombre puede añadirse varias veces (p.ej. 'python' en dos
+ * 		directorios del PATH); solo desaparece al quitarlo tantas veces como se añadió.
+ * - Las consultas cuestan lo que mide el prefijo más los resultados pedidos,
+ * 		no lo que mide el árbol: decenas de miles de nombres no se notan al teclear.
+ * - Es seguro entre hilos: se actualiza en segundo plano mientras se consulta.
+ */
+
+final class CompletionTrie {
+
+	private static final char[] NO_KEYS = new char[0];
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	private static final class Node {
+		char[] keys = NO_KEYS;
+		Node[] children = NO_CHILDREN;
+		int size;
+
+		/** Veces que se ha añadido el nombre que termina aquí (0: no es un nombre) */
+
+		int refs;
+
+		/** Nombres distintos en el subárbol, incluido este nodo */
+
+		int words;
+
+		Node child(char c) {
+			int i = Arrays.binarySearch(keys, 0, size, c);
+			return i >= 0 ? children[i] : null;
+		}
+	}
+
+	/** Resultado de una consulta */
+
+	static final class Matches {
+
+		static final Matches NONE = new Matches("", List.of(), 0);
+
+		/** Prefijo común de todas las coincidencias (incluye el prefijo consultado) */
+
+		final String common;
+
+		/** Coincidencias en orden, como mucho las pedidas */
+
+		final List<String> names;
+
+		/** Número total de coincidencias */
+
+		final int total;
+
+		Matches(String common, List<String> names, int total) {
+			this.common = common;
+			this.names = names;
+			this.total = total;
+		}
+	}
+
+	private final Node root = new Node();
+
+	/**
+	 * Añade un nombre (o una referencia más si ya estaba).
+	 *
+	 * @param name
+	 */
+
+	synchronized void add(String name) {
+		Node node = root;
+		Node[] path = new Node[name.length() + 1];
+		path[0] = node;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			Node next = node.child(c);
+			if (next == null) {
+				next = insert(node, c);
+			}
+			node = next;
+			path[i + 1] = node;
+		}
+		if (node.refs++ == 0) {
+			for (Node n : path) {
+				n.words++;
+			}
+		}
+	}
+
+	/**
+	 * Quita una referencia a un nombre. Las ramas que se quedan sin nombres se eliminan.
+	 *
+	 * @param name
+	 */
+
+	synchronized void remove(String name) {
+		Node[] path = new Node[name.length() + 1];
+		Node node = root;
+		path[0] = node;
+		for (int i = 0; i < name.length(); i++) {
+			node = node.child(name.charAt(i));
+			if (node == null) {
+				return;
+			}
+			path[i + 1] = node;
+		}
+		if (node.refs == 0 || --node.refs > 0) {
+			return;
+		}
+		for (Node n : path) {
+			n.words--;
+		}
+		for (int i = name.length(); i > 0; i--) {
+			if (path[i].words == 0) {
+				delete(path[i - 1], name.charAt(i - 1));
+			}
+		}
+	}
+
+	/** Número de nombres distintos */
+
+	synchronized int size() {
+		return root.words;
+	}
+
+	/**
+	 * Nombres que empiezan por un prefijo.
+	 *
+	 * @param prefix
+	 * @param limit número máximo de nombres que devolver (el total se cuenta igual)
+	 * @param hidden si es false y el prefijo está vacío, se omiten los nombres que
+	 * 		empiezan por '.' (archivos ocultos)
+	 * @return coincidencias, prefijo común y total
+	 */
+
+	synchronized Matches complete(String prefix, int limit, boolean hidden) {
+		Node node = root;
+		for (int i = 0; i < prefix.length() && node != null; i++) {
+			node = node.child(prefix.charAt(i));
+		}
+		if (node == null) {
+			return Matches.NONE;
+		}
+		char skip = !hidden && prefix.isEmpty() ? '.' : 0;
+		Node skipped = skip == 0 ? null : node.child(skip);
+		int total = node.words - (skipped == null ? 0 : skipped.words);
+		if (total == 0) {
+			return Matches.NONE;
+		}
+
+		// Prefijo común: se avanza mientras haya un único camino sin nombres intermedios
+		StringBuilder common = new StringBuilder(prefix);
+		Node n = node;
+		if (skipped != null) {
+			if (n.refs == 0 && n.size == 2) {
+				int i = n.keys[0] == skip ? 1 : 0;
+				common.append(n.keys[i]);
+				n = n.children[i];
+			} else {
+				n = null;
+			}
+		}
+		while (n != null && n.refs == 0 && n.size == 1) {
+			common.append(n.keys[0]);
+			n = n.children[0];
+		}
+
+		List<String> names = new ArrayList<>(Math.min(limit, total));
+		collect(node, new StringBuilder(prefix), names, limit, skip);
+		return new Matches(common.toString(), names, total);
+	}
+
+	private static void collect(Node node, StringBuilder name, List<String> names, int limit, char skip) {
+		if (node.refs > 0) {
+			names.add(name.toString());
+		}
+		for (int i = 0; i < node.size && names.size() < limit; i++) {
+			if (node.keys[i] == skip) {
+				continue;
+			}
+			name.append(node.keys[i]);
+			collect(node.children[i], name, names, limit, (char) 0);
+			name.setLength(name.length() - 1);
+		}
+	}
+
+	private static Node insert(Node parent, char c) {
+		int i = -Arrays.binarySearch(parent.keys, 0, parent.size, c) - 1;
+		if (parent.size == parent.keys.length) {
+			int capacity = Math.max(2, parent.size * 2);
+			parent.keys = Arrays.copyOf(parent.keys, capacity);
+			parent.children = Arrays.copyOf(parent.children, capacity);
+		}
+		System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.size - i);
+		System.arraycopy(parent.children, i, parent.children, i + 1, parent.size - i);
+		Node node = new Node();
+		parent.keys[i] = c;
+		parent.children[i] = node;
+		parent.size++;
+		return node;
+	}
+
+	private static void delete(Node parent, char c) {
+		int i = Arrays.binarySearch(parent.keys, 0, parent.size, c);
+		if (i < 0) {
+			return;
+		}
+		System.arraycopy(parent.keys, i + 1, parent.keys, i, parent.size - i - 1);
+		System.arraycopy(parent.children, i + 1, parent.children, i, parent.size - i - 1);
+		parent.size--;
+		parent.children[parent.size] = null;
+	}
+}
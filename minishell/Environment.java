@@ -0,0 +1,214 @@
+package minishell;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Variables de la shell y entorno de los procesos que lanza.
+ *
+ * Funciones/Comportamientos principales:
+ * - Las variables exportadas forman el entorno de los procesos hijos; el
+ * 		resto ('A=1' sin export) solo se ven al expandir $A en la shell.
+ * - El entorno exportado es una instantánea inmutable (Snapshot) que se
+ * 		sustituye entera en cada cambio (copia en escritura): una pipeline en
+ * 		segundo plano conserva el entorno con el que arrancó.
+ * - La instantánea no copia el entorno heredado: guarda solo las diferencias
+ * 		con System.getenv(). Sin cambios (lo habitual) lanzar un proceso no
+ * 		toca ProcessBuilder.environment(), que copia el entorno completo.
+ */
+
+final class Environment {
+
+	/**
+	 * Entorno exportado en un momento dado: el heredado por la JVM más
+	 * las variables cambiadas y menos las eliminadas.
+	 */
+
+	static final class Snapshot {
+
+		/** Entorno heredado por la JVM (System.getenv(), ya inmutable) */
+
+		private static final Map<String, String> INHERITED = System.getenv();
+
+		static final Snapshot INITIAL = new Snapshot(Map.of(), Set.of());
+
+		private final Map<String, String> changed;
+
+		private final Set<String> removed;
+
+		private Snapshot(Map<String, String> changed, Set<String> removed) {
+			this.changed = changed;
+			this.removed = removed;
+		}
+
+		String get(String name) {
+			String value = changed.get(name);
+			if (value != null || removed.contains(name)) {
+				return value;
+			}
+			return INHERITED.get(name);
+		}
+
+		/**
+		 * @return todas las variables, ordenadas por nombre (para 'export' sin argumentos)
+		 */
+
+		Map<String, String> variables() {
+			Map<String, String> all = new TreeMap<>(INHERITED);
+			all.keySet().removeAll(removed);
+			all.putAll(changed);
+			return all;
+		}
+
+		/**
+		 * Aplica el entorno a un ProcessBuilder (que parte de una copia del heredado).
+		 *
+		 * @param pb
+		 */
+
+		void applyTo(ProcessBuilder pb) {
+			if (changed.isEmpty() && removed.isEmpty()) {
+				return;
+			}
+			Map<String, String> environment = pb.environment();
+			environment.keySet().removeAll(removed);
+			environment.putAll(changed);
+		}
+
+		/**
+		 * Instantánea con una variable cambiada (value != null) o eliminada (value == null).
+		 */
+
+		Snapshot with(String name, String value) {
+			Map<String, String> changed = new HashMap<>(this.changed);
+			Set<String> removed = new HashSet<>(this.removed);
+			if (value == null) {
+				changed.remove(name);
+				if (INHERITED.containsKey(name)) {
+					removed.add(name);
+				}
+			} else {
+				changed.put(name, value);
+				removed.remove(name);
+			}
+			return new Snapshot(Collections.unmodifiableMap(changed), Collections.unmodifiableSet(removed));
+		}
+
+		/**
+		 * Instantánea con las asignaciones de un comando ('VAR=valor cmd').
+		 *
+		 * @param assignments asignaciones ya expandidas, de la forma NOMBRE=valor
+		 */
+
+		Snapshot with(List<String> assignments) {
+			Snapshot snapshot = this;
+			for (String assignment : assignments) {
+				int eq = assignment.indexOf('=');
+				snapshot = snapshot.with(assignment.substring(0, eq), assignment.substring(eq + 1));
+			}
+			return snapshot;
+		}
+	}
+
+	/** Variables exportadas (entorno de los procesos) */
+
+	private volatile Snapshot exported = Snapshot.INITIAL;
+
+	/** Variables de la shell sin exportar */
+
+	private final Map<String, String> locals = new HashMap<>();
+
+	/**
+	 * @param name
+	 * @return true si es un nombre de variable válido (letras, dígitos y '_', sin empezar por dígito)
+	 */
+
+	static boolean isName(String name) {
+		if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (!(c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	Snapshot snapshot() {
+		return this.exported;
+	}
+
+	/**
+	 * Copia para un subshell: sus cambios no se ven en esta (la instantánea
+	 * exportada es inmutable y se comparte sin copiarla).
+	 */
+
+	Environment copy() {
+		Environment copy = new Environment();
+		copy.exported = this.exported;
+		copy.locals.putAll(this.locals);
+		return copy;
+	}
+
+	/**
+	 * @param name
+	 * @return valor de la variable (exportada o no), o null si no existe
+	 */
+
+	String get(String name) {
+		String value = locals.get(name);
+		return value != null ? value : exported.get(name);
+	}
+
+	/**
+	 * Asigna una variable ('A=1'): si ya estaba exportada cambia el entorno.
+	 *
+	 * @param name
+	 * @param value
+	 */
+
+	void set(String name, String value) {
+		if (!locals.containsKey(name) && exported.get(name) != null) {
+			this.exported = exported.with(name, value);
+		} else {
+			locals.put(name, value);
+		}
+	}
+
+	/**
+	 * Exporta una variable ('export A=1' o 'export A').
+	 *
+	 * @param name
+	 * @param value nuevo valor, o null para exportar el actual (si lo tiene)
+	 */
+
+	void export(String name, String value) {
+		String local = locals.remove(name);
+		if (value == null) {
+			value = local;
+		}
+		if (value != null) {
+			this.exported = exported.with(name, value);
+		}
+	}
+
+	/**
+	 * Elimina una variable, exportada o no ('unset A').
+	 *
+	 * @param name
+	 */
+
+	void unset(String name) {
+		locals.remove(name);
+		if (exported.get(name) != null) {
+			this.exported = exported.with(name, null);
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package minishell;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Locale;
+
+import tokenizer.TCommand;
+import tokenizer.TLine;
+
+/**
+ * Resultado de una pipeline, sin textos que interpretar.
+ *
+ * Funciones/Comportamientos principales:
+ * - Texto de la pipeline tal como se escribió (comillas y redirecciones incluidas).
+ * - Código de salida de la pipeline ($?) y de cada etapa ($PIPESTATUS).
+ * - Por etapa: nombre del comando, PID (null en JSON para los comandos
+ * 		internos, que no tienen proceso) y, si la pipeline se ha medido,
+ * 		tiempo hasta su terminación.
+ * - Si una pipeline de varias etapas falla antes de arrancar ninguna
+ * 		('nosuch | cat'), sus etapas no tienen código (null en JSON) y
+ * 		$PIPESTATUS es solo el de la pipeline.
+ * - Tipo de error (Error) cuando la pipeline no llega a ejecutarse o se
+ * 		detiene: el mensaje para el usuario se muestra aparte.
+ * - toJson(): una línea JSON por pipeline para otros programas (MINISHELL_RESULTS).
+ */
+
+final class ExecutionResult {
+
+	/** Por qué la pipeline no terminó por sí misma (NONE: terminó, con el código que sea) */
+
+	enum Error {
+		NONE,
+		NOT_FOUND,      // comando o archivo inexistente (127)
+		PERMISSION,     // sin permiso de ejecución o de acceso (126)
+		REDIRECTION,    // redirección no válida (1)
+		ARGUMENTS,      // demasiados argumentos tras los comodines (126)
+		SUBSTITUTION,   // sustitución de orden con demasiada salida o mal formada (1)
+		SYNTAX,         // línea mal formada (2)
+		TIMEOUT,        // tiempo máximo agotado (124)
+		INTERRUPTED,    // Ctrl-C (130)
+		IO;             // cualquier otro error al arrancar las etapas (1)
+
+		/** Nombre en la línea JSON */
+
+		String key() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+
+		/**
+		 * Tipo de un error al crear un proceso. Sale del tipo de la excepción
+		 * (PipelineRunner lo fija con las comprobaciones de la búsqueda en el
+		 * PATH), no del mensaje, que depende del idioma, del sistema y de si lo
+		 * arrancó el servidor de arranque: cualquier otro error es siempre IO.
+		 *
+		 * @param e
+		 * @return NOT_FOUND (falta el archivo), PERMISSION (sin permiso) o IO
+		 */
+
+		static Error of(IOException e) {
+			if (e instanceof NoSuchFileException) {
+				return NOT_FOUND;
+			}
+			if (e instanceof AccessDeniedException) {
+				return PERMISSION;
+			}
+			return IO;
+		}
+	}
+
+	/** Texto de la pipeline */
+
+	private final String text;
+
+	private final int status;
+
+	private final Error error;
+
+	private final boolean background;
+
+	private final String[] names;
+
+	private final long[] pids;
+
+	/** Código de salida de cada etapa (-1: sigue en marcha o no llegó a arrancar) */
+
+	private final int[] codes;
+
+	/** Ninguna etapa llegó a ejecutarse por un error previo */
+
+	private final boolean unstarted;
+
+	/** Tiempo hasta la terminación de cada etapa (null si no se ha medido; -1: sigue en marcha) */
+
+	private final long[] stageNanos;
+
+	/** Tiempo total (-1 si no se ha medido) */
+
+	private final long wallNanos;
+
+	/**
+	 * @param line pipeline ejecutada
+	 * @param text texto de la pipeline tal como se escribió
+	 * @param status código de salida de la pipeline
+	 * @param error
+	 * @param processes etapas arrancadas, o null si no se llegó a arrancar ninguna
+	 * 		(comando interno de la shell: su etapa tiene el código 'status'; error previo
+	 * 		en una pipeline de varias etapas: ninguna tiene código)
+	 * @param timing medición de la pipeline, o null
+	 */
+
+	ExecutionResult(TLine line, String text, int status, Error error, List<Process> processes,
+			PipelineTiming timing) {
+		List<TCommand> commands = line.getCommands();
+		int n = commands.size();
+
+		this.text = text;
+		this.status = status;
+		this.error = error;
+		this.background = line.isBackground();
+		this.names = new String[n];
+		this.pids = new long[n];
+		this.codes = new int[n];
+		this.unstarted = processes == null && error != Error.NONE && n > 1;
+
+		for (int i = 0; i < n; i++) {
+			names[i] = PipelineTiming.nameOf(commands.get(i));
+			if (processes == null) {
+				pids[i] = -1;
+				codes[i] = unstarted ? -1 : status;
+			} else {
+				Process p = processes.get(i);
+				pids[i] = p.pid();
+				codes[i] = p.isAlive() ? -1 : p.exitValue();
+			}
+		}
+
+		// Los tiempos por etapa solo existen si se ha medido la pipeline y se arrancaron sus etapas
+		this.stageNanos = timing != null && processes != null ? timing.stageNanos() : null;
+		this.wallNanos = timing != null ? timing.wallNanos() : -1;
+	}
+
+	/**
+	 * Resultado de una línea que no llega a convertirse en pipelines (error de sintaxis).
+	 *
+	 * @param input texto de la línea
+	 * @param status
+	 * @param error
+	 */
+
+	ExecutionResult(String input, int status, Error error) {
+		this.text = input;
+		this.status = status;
+		this.error = error;
+		this.background = false;
+		this.names = new String[0];
+		this.pids = new long[0];
+		this.codes = new int[0];
+		this.unstarted = true;
+		this.stageNanos = null;
+		this.wallNanos = -1;
+	}
+
+	int status() {
+		return status;
+	}
+
+	Error error() {
+		return error;
+	}
+
+	/**
+	 * Valor de $PIPESTATUS: código de cada etapa separado por espacios
+	 * (como "${PIPESTATUS[@]}" en bash). En segundo plano, o si no arrancó
+	 * ninguna etapa, el de la pipeline.
+	 */
+
+	String pipeStatus() {
+		if (background || unstarted || codes.length == 0) {
+			return Integer.toString(status);
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int code : codes) {
+			if (sb.length() > 0) {
+				sb.append(' ');
+			}
+			sb.append(code);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Línea JSON con el resultado (sin salto de línea). Los valores
+	 * desconocidos (PID de un comando interno, etapa en marcha o sin arrancar, tiempo
+	 * sin medir) son null:
+	 *
+	 * {"line":"ls | wc -l","status":0,"error":"none","background":false,"nanos":1234,
+	 * 		"stages":[{"command":"ls","pid":101,"status":0,"nanos":1000},...]}
+	 */
+
+	String toJson() {
+		StringBuilder sb = new StringBuilder(128 + 64 * names.length);
+		sb.append("{\"line\":");
+		quote(sb, text);
+		sb.append(",\"status\":").append(status);
+		sb.append(",\"error\":\"").append(error.key()).append('"');
+		sb.append(",\"background\":").append(background);
+		sb.append(",\"nanos\":").append(wallNanos < 0 ? "null" : Long.toString(wallNanos));
+		sb.append(",\"stages\":[");
+		for (int i = 0; i < names.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append("{\"command\":");
+			quote(sb, names[i]);
+			sb.append(",\"pid\":").append(pids[i] < 0 ? "null" : Long.toString(pids[i]));
+			sb.append(",\"status\":").append(codes[i] < 0 ? "null" : Integer.toString(codes[i]));
+			sb.append(",\"nanos\":")
+					.append(stageNanos == null || stageNanos[i] < 0 ? "null" : Long.toString(stageNanos[i]));
+			sb.append('}');
+		}
+		sb.append("]}");
+		return sb.toString();
+	}
+
+	/** Añade un texto como cadena JSON */
+
+	private static void quote(StringBuilder sb, String s) {
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						sb.append(String.format("\\u%04x", (int) c));
+					} else {
+						sb.append(c);
+					}
+			}
+		}
+		sb.append('"');
+	}
+}
@@ -0,0 +1,230 @@
+package minishell;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Salida repartida entre varios destinos: 'cmd > a > b' y el comando interno 'tee'.
+ *
+ * Funciones/Comportamientos principales:
+ * - Cada bloque se copia una sola vez en un buffer directo de BUFFER_SIZE
+ * 		bytes y se escribe desde él en todos los archivos con FileChannel
+ * 		(sin copias intermedias por destino ni procesos 'tee').
+ * - Admite además flujos de la shell (p.ej. su salida estándar): si son
+ * 		descriptores (FileOutputStream) se escriben con su canal desde el mismo
+ * 		buffer; si no, con el bloque en memoria y de forma atómica respecto a
+ * 		otros hilos que compartan el flujo (como StreamPump).
+ * - Los buffers directos se reutilizan entre pipelines.
+ * - close() cierra los archivos; los flujos de la shell quedan abiertos.
+ */
+
+final class FanOut extends OutputStream {
+
+	/** Tamaño del buffer de cada reparto */
+
+	static final int BUFFER_SIZE = 1024 * 1024;
+
+	/** Buffers directos libres (reservarlos y liberarlos es caro) */
+
+	private static final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+
+	/** Archivos abiertos para este reparto */
+
+	private final FileChannel[] files;
+
+	/** Flujos de la shell, y su canal si son descriptores (null si no) */
+
+	private final OutputStream[] streams;
+
+	private final FileChannel[] streamChannels;
+
+	private ByteBuffer buffer;
+
+	/** Copia en memoria de un bloque leído de un canal (solo si hay flujos sin canal) */
+
+	private byte[] chunk;
+
+	/**
+	 * @param files archivos de destino (se cierran con close())
+	 * @param streams otros destinos (no se cierran)
+	 */
+
+	FanOut(List<FileChannel> files, List<OutputStream> streams) {
+		this.files = files.toArray(new FileChannel[0]);
+		this.streams = streams.toArray(new OutputStream[0]);
+		this.streamChannels = new FileChannel[this.streams.length];
+		for (int i = 0; i < this.streams.length; i++) {
+			if (this.streams[i] instanceof FileOutputStream) {
+				streamChannels[i] = ((FileOutputStream) this.streams[i]).getChannel();
+			}
+		}
+		ByteBuffer reused = free.poll();
+		this.buffer = reused != null ? reused : ByteBuffer.allocateDirect(BUFFER_SIZE);
+	}
+
+	/**
+	 * Abre un archivo de destino.
+	 *
+	 * @param file
+	 * @param append si se añade al final ('>>', 'tee -a') o se trunca
+	 */
+
+	static FileChannel open(File file, boolean append) throws IOException {
+		return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Reparto hacia varios archivos. Si alguno no se puede abrir, se cierran los ya abiertos.
+	 *
+	 * @param files archivos de destino
+	 * @param append si cada uno se abre para añadir
+	 * @throws IOException si alguno no se puede abrir
+	 */
+
+	static FanOut open(List<File> files, List<Boolean> append) throws IOException {
+		List<FileChannel> channels = new ArrayList<>(files.size());
+		try {
+			for (int i = 0; i < files.size(); i++) {
+				channels.add(open(files.get(i), append.get(i)));
+			}
+		} catch (IOException e) {
+			for (FileChannel channel : channels) {
+				channel.close();
+			}
+			throw e;
+		}
+		return new FanOut(channels, List.of());
+	}
+
+	/**
+	 * Copia 'in' en todos los destinos hasta EOF y cierra 'in'.
+	 * Un archivo se lee directamente en el buffer directo; cualquier otro flujo
+	 * (p.ej. la salida de un proceso) se lee en memoria y se copia en él una vez.
+	 *
+	 * @return número de bytes copiados
+	 */
+
+	long transfer(InputStream in) throws IOException {
+		long total = 0;
+		try (in) {
+			if (in instanceof FileInputStream) {
+				FileChannel source = ((FileInputStream) in).getChannel();
+				int n;
+				while ((n = source.read(buffer)) != -1) {
+					buffer.flip();
+					drain(null, 0);
+					buffer.clear();
+					total += n;
+				}
+			} else {
+				byte[] block = chunk();
+				int n;
+				while ((n = in.read(block)) != -1) {
+					write(block, 0, n);
+					total += n;
+				}
+			}
+		}
+		return total;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			int n = Math.min(len, buffer.capacity());
+			buffer.clear();
+			buffer.put(b, off, n);
+			buffer.flip();
+			drain(b, off);
+			off += n;
+			len -= n;
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Escribe el contenido del buffer (entre 0 y su límite) en todos los destinos.
+	 *
+	 * @param block el mismo contenido en memoria desde 'off', o null si solo está en el buffer
+	 * @param off
+	 */
+
+	private void drain(byte[] block, int off) throws IOException {
+		for (FileChannel file : files) {
+			buffer.rewind();
+			while (buffer.hasRemaining()) {
+				file.write(buffer);
+			}
+		}
+
+		int len = buffer.limit();
+		for (int i = 0; i < streams.length; i++) {
+			synchronized (streams[i]) {
+				if (streamChannels[i] != null) {
+					buffer.rewind();
+					while (buffer.hasRemaining()) {
+						streamChannels[i].write(buffer);
+					}
+				} else {
+					if (block == null) {
+						block = chunk();
+						off = 0;
+						buffer.rewind();
+						buffer.get(block, 0, len);
+					}
+					streams[i].write(block, off, len);
+					streams[i].flush();
+				}
+			}
+		}
+	}
+
+	private byte[] chunk() {
+		if (chunk == null) {
+			chunk = new byte[BUFFER_SIZE];
+		}
+		return chunk;
+	}
+
+	/** Cierra los archivos y devuelve el buffer directo */
+
+	@Override
+	public void close() throws IOException {
+		if (buffer == null) {
+			return;
+		}
+		IOException failure = null;
+		for (FileChannel file : files) {
+			try {
+				file.close();
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		buffer.clear();
+		free.offer(buffer);
+		buffer = null;
+		if (failure != null) {
+			throw failure;
+		}
+	}
+}
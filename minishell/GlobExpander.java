@@ -0,0 +1,329 @@
+package minishell;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import tokenizer.Glob;
+
+/**
+ * Expansión de comodines de los argumentos de una pipeline.
+ *
+ * Funciones/Comportamientos principales:
+ * - '*' cualquier texto, '?' un carácter y '[abc]', '[a-z]', '[!0-9]' una clase
+ * 		de caracteres, dentro de un componente de la ruta. '**' como componente
+ * 		entero recorre además todos los subdirectorios (Files.walkFileTree).
+ * - Cada componente con comodines se compila una sola vez a una expresión regular.
+ * - Se crea uno por pipeline: el listado de cada directorio (ordenado) se lee
+ * 		una sola vez aunque varios argumentos apunten a él ('*.c *.h').
+ * 		No se comparte entre pipelines: una anterior de la misma línea puede
+ * 		haber creado o borrado archivos.
+ * - En directorios muy grandes solo se comparan los nombres que empiezan por
+ * 		la parte literal del patrón (búsqueda binaria en el listado ordenado).
+ * - Los archivos ocultos solo coinciden si el patrón empieza por '.'.
+ * - Un límite de argumentos generados protege de expansiones desbordadas
+ * 		('/**' en la raíz): al superarlo se detiene sin terminar el recorrido.
+ */
+
+final class GlobExpander implements Glob {
+
+	/** Límite por defecto de argumentos generados por pipeline (MINISHELL_GLOB_LIMIT) */
+
+	static final int DEFAULT_LIMIT = 65536;
+
+	private static final String[] EMPTY = new String[0];
+
+	/** Directorio actual de la shell (para patrones relativos) */
+
+	private final File directory;
+
+	private final int limit;
+
+	/** Argumentos generados hasta ahora en la pipeline */
+
+	private int count;
+
+	/** Nombres de cada directorio listado, ordenados */
+
+	private final Map<Path, String[]> listings = new HashMap<>();
+
+	/** Subdirectorios ('' y 'a/', 'a/b/'...) de cada directorio recorrido por '**' */
+
+	private final Map<Path, List<String>> trees = new HashMap<>();
+
+	/** Componentes ya compilados */
+
+	private final Map<String, Pattern> compiled = new HashMap<>();
+
+	GlobExpander(File directory, int limit) {
+		this.directory = directory;
+		this.limit = limit;
+	}
+
+	/**
+	 * @param pattern patrón con los caracteres literales escapados (ver tokenizer.Glob)
+	 * @return rutas que coinciden, ordenadas, con el mismo prefijo que el patrón
+	 * @throws ArgumentLimitException si se supera el límite de argumentos
+	 */
+
+	@Override
+	public List<String> expand(String pattern) {
+		List<String> parts = split(pattern);
+		String prefix = pattern.startsWith("/") ? "/" : "";
+		boolean dirsOnly = pattern.endsWith("/");
+
+		List<String> matches = new ArrayList<>();
+		expand(prefix, parts, 0, dirsOnly, matches);
+		Collections.sort(matches);
+		return matches;
+	}
+
+	/**
+	 * Expande los componentes desde 'index' bajo el directorio 'prefix'.
+	 *
+	 * @param prefix ruta ya resuelta, vacía o terminada en '/'
+	 * @param parts componentes del patrón
+	 * @param index primer componente por resolver
+	 * @param dirsOnly el patrón termina en '/': solo directorios
+	 * @param matches rutas encontradas
+	 */
+
+	private void expand(String prefix, List<String> parts, int index, boolean dirsOnly, List<String> matches) {
+		if (index == parts.size()) {
+			String path = prefix.length() > 1 && !dirsOnly ? prefix.substring(0, prefix.length() - 1) : prefix;
+			add(path, matches);
+			return;
+		}
+
+		String part = parts.get(index);
+		boolean last = index == parts.size() - 1;
+		int meta = firstMeta(part);
+
+		// Componente literal: no hace falta listar el directorio
+		if (meta < 0) {
+			String path = prefix + unescape(part);
+			if (!last) {
+				expand(path + "/", parts, index + 1, dirsOnly, matches);
+			} else if (dirsOnly ? Files.isDirectory(resolve(path)) : Files.exists(resolve(path))) {
+				add(dirsOnly ? path + "/" : path, matches);
+			}
+			return;
+		}
+
+		// '**': el mismo resto del patrón en el directorio y en cada subdirectorio
+		if (part.equals("**")) {
+			List<String> rest = last ? List.of("*") : parts.subList(index + 1, parts.size());
+			for (String sub : tree(prefix)) {
+				expand(prefix + sub, rest, 0, dirsOnly, matches);
+			}
+			return;
+		}
+
+		Pattern regex = compiled.computeIfAbsent(part, GlobExpander::compile);
+		String literal = unescape(part.substring(0, meta));
+		boolean hidden = part.startsWith(".");
+
+		// Solo los nombres que empiezan por la parte literal: un rango del listado ordenado
+		String[] names = listing(prefix);
+		int from = literal.isEmpty() ? 0 : lowerBound(names, literal);
+		for (int i = from; i < names.length && names[i].startsWith(literal); i++) {
+			String name = names[i];
+			if ((!hidden && name.startsWith(".")) || !regex.matcher(name).matches()) {
+				continue;
+			}
+			if (!last || dirsOnly) {
+				if (Files.isDirectory(resolve(prefix + name))) {
+					expand(prefix + name + "/", parts, index + 1, dirsOnly, matches);
+				}
+			} else {
+				add(prefix + name, matches);
+			}
+		}
+	}
+
+	private void add(String path, List<String> matches) {
+		if (++this.count > this.limit) {
+			throw new ArgumentLimitException(this.limit);
+		}
+		matches.add(path);
+	}
+
+	private Path resolve(String path) {
+		return path.isEmpty() ? directory.toPath() : directory.toPath().resolve(path);
+	}
+
+	/**
+	 * Nombres del directorio, ordenados (leídos una vez por pipeline).
+	 *
+	 * @param prefix ruta del directorio, vacía o terminada en '/'
+	 * @return nombres, o ninguno si no es un directorio legible
+	 */
+
+	private String[] listing(String prefix) {
+		return listings.computeIfAbsent(resolve(prefix).normalize(), dir -> {
+			List<String> names = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+				for (Path entry : stream) {
+					names.add(entry.getFileName().toString());
+				}
+			} catch (IOException | SecurityException e) {
+				return EMPTY;
+			}
+			String[] sorted = names.toArray(EMPTY);
+			Arrays.sort(sorted);
+			return sorted;
+		});
+	}
+
+	/**
+	 * Subdirectorios de 'prefix' a cualquier profundidad, sin los ocultos
+	 * ni los enlaces simbólicos (evita ciclos).
+	 *
+	 * @param prefix ruta del directorio, vacía o terminada en '/'
+	 * @return rutas relativas a 'prefix': "" (el propio directorio), "a/", "a/b/"...
+	 */
+
+	private List<String> tree(String prefix) {
+		return trees.computeIfAbsent(resolve(prefix).normalize(), root -> {
+			List<String> dirs = new ArrayList<>();
+			try {
+				Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+					@Override
+					public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+						if (!dir.equals(root) && dir.getFileName().toString().startsWith(".")) {
+							return FileVisitResult.SKIP_SUBTREE;
+						}
+						String relative = root.relativize(dir).toString();
+						dirs.add(relative.isEmpty() ? "" : relative + "/");
+						if (dirs.size() > limit) {
+							throw new ArgumentLimitException(limit);
+						}
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFileFailed(Path file, IOException e) {
+						return FileVisitResult.CONTINUE;
+					}
+				});
+			} catch (IOException e) {
+				// Directorio inexistente o ilegible: sin coincidencias
+			}
+			return dirs;
+		});
+	}
+
+	/**
+	 * Traduce un componente con comodines a una expresión regular.
+	 *
+	 * @param part componente del patrón (sin '/')
+	 * @return
+	 */
+
+	static Pattern compile(String part) {
+		StringBuilder regex = new StringBuilder(part.length() + 16);
+		int i = 0;
+		while (i < part.length()) {
+			char c = part.charAt(i++);
+			if (c == '\\' && i < part.length()) {
+				regex.append(Pattern.quote(String.valueOf(part.charAt(i++))));
+			} else if (c == '*') {
+				regex.append(".*");
+			} else if (c == '?') {
+				regex.append('.');
+			} else if (c == '[') {
+				regex.append('[');
+				if (part.charAt(i) == '!') {
+					regex.append('^');
+					i++;
+				}
+				// Un ']' justo al principio es parte de la clase
+				int start = i;
+				while (part.charAt(i) != ']' || i == start) {
+					char k = part.charAt(i++);
+					if (k == '\\' || k == '[' || k == '&' || k == '^' || k == ']') {
+						regex.append('\\');
+					}
+					regex.append(k);
+				}
+				regex.append(']');
+				i++;
+			} else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return Pattern.compile(regex.toString(), Pattern.DOTALL);
+	}
+
+	/**
+	 * @param part
+	 * @return posición del primer comodín sin escapar, o -1 si es literal
+	 */
+
+	private static int firstMeta(String part) {
+		for (int i = 0; i < part.length(); i++) {
+			char c = part.charAt(i);
+			if (c == '\\') {
+				i++;
+			} else if (c == '*' || c == '?' || c == '[') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static String unescape(String text) {
+		if (text.indexOf('\\') < 0) {
+			return text;
+		}
+		StringBuilder sb = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\\' && i + 1 < text.length()) {
+				c = text.charAt(++i);
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	/** Componentes del patrón separados por '/' (sin los vacíos de '//' o de los extremos) */
+
+	private static List<String> split(String pattern) {
+		List<String> parts = new ArrayList<>();
+		for (String part : pattern.split("/")) {
+			if (!part.isEmpty()) {
+				parts.add(part);
+			}
+		}
+		return parts;
+	}
+
+	/** Primera posición del listado ordenado cuyo nombre es >= 'key' */
+
+	private static int lowerBound(String[] names, String key) {
+		int low = 0;
+		int high = names.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (names[mid].compareTo(key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
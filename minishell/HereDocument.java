@@ -0,0 +1,113 @@
+package minishell;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Contenido de un documento en línea (<<FIN) o de una cadena (<<<) que
+ * hace de entrada estándar de una etapa.
+ *
+ * Funciones/Comportamientos principales:
+ * - Hasta SPILL_THRESHOLD bytes se guarda en memoria y se escribe en la
+ * 		entrada del proceso desde un hilo del pool (el proceso puede no leerlo
+ * 		entero sin bloquear a la shell).
+ * - Por encima se vuelca a un archivo temporal y el proceso lo recibe
+ * 		como redirección de entrada, sin copias en la JVM.
+ * - El archivo temporal se borra en cuanto la etapa lo ha abierto (release()).
+ */
+
+final class HereDocument {
+
+	/** Tamaño máximo en memoria */
+
+	static final int SPILL_THRESHOLD = 64 * 1024;
+
+	/** Contenido en memoria (null si está en un archivo) */
+
+	private final byte[] bytes;
+
+	/** Archivo temporal (null si está en memoria) */
+
+	private final Path file;
+
+	private HereDocument(byte[] bytes, Path file) {
+		this.bytes = bytes;
+		this.file = file;
+	}
+
+	/**
+	 * @param text contenido ya expandido
+	 * @return documento en memoria o en un archivo temporal según su tamaño
+	 * @throws IOException si no se puede crear el archivo temporal
+	 */
+
+	static HereDocument of(String text) throws IOException {
+		byte[] bytes = text.getBytes(Charset.defaultCharset());
+		if (bytes.length <= SPILL_THRESHOLD) {
+			return new HereDocument(bytes, null);
+		}
+		Path file = Files.createTempFile("minishell-heredoc", ".tmp");
+		try {
+			Files.write(file, bytes);
+		} catch (IOException e) {
+			Files.deleteIfExists(file);
+			throw e;
+		}
+		return new HereDocument(null, file);
+	}
+
+	/**
+	 * @return archivo temporal, o null si el contenido está en memoria
+	 */
+
+	File file() {
+		return file == null ? null : file.toFile();
+	}
+
+	/**
+	 * @return flujo con el contenido (para un comando interno)
+	 * @throws IOException
+	 */
+
+	InputStream open() throws IOException {
+		return file == null ? new ByteArrayInputStream(bytes) : Files.newInputStream(file);
+	}
+
+	/**
+	 * Escribe el contenido en memoria en la entrada de un proceso desde un
+	 * hilo del pool y la cierra al terminar.
+	 *
+	 * @param in entrada estándar del proceso
+	 */
+
+	void feed(OutputStream in) {
+		StreamPump.submit(() -> {
+			try (in) {
+				in.write(bytes);
+			} catch (IOException e) {
+				// El proceso terminó sin leerlo todo (p.ej. 'head -1'): se descarta el resto
+			}
+		});
+	}
+
+	/**
+	 * Borra el archivo temporal. Las etapas que ya lo abrieron siguen
+	 * leyéndolo (en Windows, donde no se puede borrar abierto, se borra al salir).
+	 */
+
+	void release() {
+		if (file != null) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				file.toFile().deleteOnExit();
+			}
+		}
+	}
+}
@@ -0,0 +1,453 @@
+package minishell;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Historial de comandos persistente -> comando 'history' y expansiones '!'.
+ *
+ * Funciones/Comportamientos principales:
+ * - Cada línea se añade al final del archivo con un FileChannel en modo APPEND:
+ * 		una escritura por línea y sin fsync (el sistema la vuelca cuando quiera).
+ * 		Varias shells pueden escribir a la vez en el mismo archivo.
+ * - Carga perezosa: al arrancar no se lee nada. La primera consulta proyecta el
+ * 		archivo en memoria (mmap) e indexa solo el comienzo de cada línea; las
+ * 		entradas se decodifican cuando se piden.
+ * - Búsqueda por texto o prefijo con un índice de trigramas (sobre los bytes
+ * 		UTF-8), construido en la primera búsqueda: solo se comprueban las
+ * 		entradas que contienen el trigrama menos frecuente del texto buscado.
+ */
+
+final class History {
+
+	private final Path file;
+
+	/** Canal de escritura (se abre con la primera línea añadida) */
+
+	private FileChannel channel;
+
+	/** Tamaño del archivo la primera vez que se usa: lo anterior es historial de otras sesiones */
+
+	private long baseSize = -1;
+
+	/** Historial anterior proyectado en memoria y el comienzo de cada línea */
+
+	private MappedByteBuffer mapped;
+
+	private int[] starts;
+
+	private int baseCount;
+
+	private boolean loaded;
+
+	/** Líneas de esta sesión, en UTF-8 */
+
+	private final List<byte[]> session = new ArrayList<>();
+
+	/** Trigrama (3 bytes) -> entradas que lo contienen, en orden creciente */
+
+	private Map<Integer, IntList> trigrams;
+
+	History(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Añade una línea al historial y al archivo.
+	 *
+	 * @param line
+	 */
+
+	void add(String line) {
+		byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+		try {
+			if (channel == null) {
+				channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.APPEND);
+				if (baseSize < 0) {
+					baseSize = channel.size();
+				}
+			}
+			ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 1);
+			buffer.put(bytes).put((byte) '\n').flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			// Sin archivo el historial sigue funcionando en memoria para esta sesión.
+			if (baseSize < 0) {
+				baseSize = 0;
+			}
+		}
+
+		session.add(bytes);
+		if (trigrams != null) {
+			index(size() - 1, bytes, 0, bytes.length);
+		}
+	}
+
+	int size() {
+		load();
+		return baseCount + session.size();
+	}
+
+	/**
+	 * @param id posición en el historial (0 = la más antigua)
+	 * @return la línea
+	 */
+
+	String get(int id) {
+		load();
+		if (id < baseCount) {
+			int from = starts[id];
+			int to = lineEnd(id);
+			byte[] bytes = new byte[to - from];
+			mapped.get(from, bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		return new String(session.get(id - baseCount), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Expande las referencias al historial de una línea, como bash:
+	 * - "!!" la última línea.
+	 * - "!n" la línea n (numeración de 'history') y "!-n" la n-ésima empezando por el final.
+	 * - "!prefijo" la línea más reciente que empieza por el prefijo.
+	 * No se expande nada entre comillas simples ni un '!' seguido de espacio, '=' o '('.
+	 *
+	 * @param line
+	 * @return la línea expandida (la misma si no hay referencias)
+	 * @throws IllegalArgumentException si una referencia no existe en el historial
+	 */
+
+	String expand(String line) {
+		if (line.indexOf('!') < 0) {
+			return line;
+		}
+
+		StringBuilder sb = new StringBuilder(line.length());
+		boolean quoted = false;
+		int i = 0;
+		int n = line.length();
+
+		while (i < n) {
+			char c = line.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+			}
+			if (c != '!' || quoted || i + 1 >= n || " \t=(\"".indexOf(line.charAt(i + 1)) >= 0) {
+				sb.append(c);
+				i++;
+				continue;
+			}
+
+			// Fin de la referencia: espacio o metacarácter de la shell
+			int end = i + 1;
+			if (line.charAt(end) == '!') {
+				end++;
+			} else {
+				while (end < n && " \t|&;<>\"'".indexOf(line.charAt(end)) < 0) {
+					end++;
+				}
+			}
+			String event = line.substring(i, end);
+			String spec = event.substring(1);
+
+			int id;
+			if (spec.equals("!")) {
+				id = size() - 1;
+			} else if (isNumber(spec)) {
+				long number = Long.parseLong(spec);
+				id = (int) Math.max(-1, Math.min(Integer.MAX_VALUE, number < 0 ? size() + number : number - 1));
+			} else {
+				id = findPrefix(spec);
+			}
+			if (id < 0 || id >= size()) {
+				throw new IllegalArgumentException(event + ": evento no encontrado");
+			}
+
+			sb.append(get(id));
+			i = end;
+		}
+		return sb.toString();
+	}
+
+	private static boolean isNumber(String spec) {
+		int start = spec.startsWith("-") ? 1 : 0;
+		if (spec.length() <= start || spec.length() - start > 18) {
+			return false;
+		}
+		for (int i = start; i < spec.length(); i++) {
+			if (!Character.isDigit(spec.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Entrada más reciente que empieza por el texto ('!prefijo').
+	 *
+	 * @param prefix
+	 * @return posición, o -1 si no hay ninguna
+	 */
+
+	int findPrefix(String prefix) {
+		List<Integer> found = search(prefix, true, 1);
+		return found.isEmpty() ? -1 : found.get(0);
+	}
+
+	/**
+	 * Entradas que contienen el texto, de la más reciente a la más antigua.
+	 *
+	 * @param text
+	 * @param limit número máximo de resultados
+	 * @return posiciones en el historial
+	 */
+
+	List<Integer> search(String text, int limit) {
+		return search(text, false, limit);
+	}
+
+	private List<Integer> search(String text, boolean prefix, int limit) {
+		load();
+		byte[] query = text.getBytes(StandardCharsets.UTF_8);
+		List<Integer> found = new ArrayList<>();
+
+		if (query.length < 3) {
+			// Sin trigramas que consultar: recorrido desde la más reciente
+			for (int id = size() - 1; id >= 0 && found.size() < limit; id--) {
+				if (matches(id, query, prefix)) {
+					found.add(id);
+				}
+			}
+			return found;
+		}
+
+		// Candidatas: las entradas del trigrama menos frecuente de la consulta
+		buildIndex();
+		IntList candidates = null;
+		for (int i = 0; i + 3 <= query.length; i++) {
+			IntList list = trigrams.get(trigram(query, i));
+			if (list == null) {
+				return found;
+			}
+			if (candidates == null || list.size < candidates.size) {
+				candidates = list;
+			}
+			if (prefix) {
+				break;  // Con un prefijo basta su primer trigrama
+			}
+		}
+
+		for (int k = candidates.size - 1; k >= 0 && found.size() < limit; k--) {
+			int id = candidates.values[k];
+			if (matches(id, query, prefix)) {
+				found.add(id);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Vacía el historial y el archivo ('history -c').
+	 */
+
+	void clear() {
+		try {
+			if (channel != null) {
+				channel.close();
+				channel = null;
+			}
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			System.err.println("history: no se puede borrar " + file + ": " + e.getMessage());
+		}
+		session.clear();
+		mapped = null;
+		starts = new int[0];
+		baseCount = 0;
+		baseSize = 0;
+		loaded = true;
+		trigrams = null;
+	}
+
+	/**
+	 * Proyecta en memoria el historial de sesiones anteriores (solo la primera vez).
+	 * Si supera 2 GB se conservan solo las líneas más recientes.
+	 */
+
+	private void load() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+		starts = new int[0];
+
+		try {
+			if (baseSize < 0) {
+				baseSize = Files.exists(file) ? Files.size(file) : 0;
+			}
+			if (baseSize == 0) {
+				return;
+			}
+
+			long offset = Math.max(0, baseSize - Integer.MAX_VALUE);
+			try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+				mapped = in.map(FileChannel.MapMode.READ_ONLY, offset, baseSize - offset);
+			}
+		} catch (IOException e) {
+			System.err.println("history: no se puede leer " + file + ": " + e.getMessage());
+			return;
+		}
+
+		// Comienzo de cada línea (si se recortó el principio, la primera línea parcial se descarta)
+		int limit = mapped.limit();
+		IntList lines = new IntList();
+		int pos = 0;
+		if (baseSize > Integer.MAX_VALUE) {
+			while (pos < limit && mapped.get(pos) != '\n') {
+				pos++;
+			}
+			pos++;
+		}
+		while (pos < limit) {
+			lines.add(pos);
+			while (pos < limit && mapped.get(pos) != '\n') {
+				pos++;
+			}
+			pos++;
+		}
+		starts = lines.toArray();
+		baseCount = starts.length;
+	}
+
+	private int lineEnd(int id) {
+		int end = id + 1 < baseCount ? starts[id + 1] - 1 : mapped.limit();
+		if (end > starts[id] && mapped.get(end - 1) == '\n') {
+			end--;
+		}
+		return end;
+	}
+
+	private boolean matches(int id, byte[] query, boolean prefix) {
+		if (id >= baseCount) {
+			byte[] line = session.get(id - baseCount);
+			return prefix ? startsWith(line, 0, line.length, query) : indexOf(line, 0, line.length, query);
+		}
+		return prefix ? startsWithMapped(starts[id], lineEnd(id), query) : indexOfMapped(starts[id], lineEnd(id), query);
+	}
+
+	private static boolean startsWith(byte[] line, int from, int to, byte[] query) {
+		if (to - from < query.length) {
+			return false;
+		}
+		for (int i = 0; i < query.length; i++) {
+			if (line[from + i] != query[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean indexOf(byte[] line, int from, int to, byte[] query) {
+		for (int i = from; i + query.length <= to; i++) {
+			if (startsWith(line, i, to, query)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean startsWithMapped(int from, int to, byte[] query) {
+		if (to - from < query.length) {
+			return false;
+		}
+		for (int i = 0; i < query.length; i++) {
+			if (mapped.get(from + i) != query[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean indexOfMapped(int from, int to, byte[] query) {
+		for (int i = from; i + query.length <= to; i++) {
+			if (startsWithMapped(i, to, query)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Construye el índice de trigramas de todo el historial (solo la primera búsqueda).
+	 */
+
+	private void buildIndex() {
+		if (trigrams != null) {
+			return;
+		}
+		trigrams = new HashMap<>();
+
+		byte[] line = new byte[256];
+		for (int id = 0; id < baseCount; id++) {
+			int from = starts[id];
+			int length = lineEnd(id) - from;
+			if (length > line.length) {
+				line = new byte[Math.max(length, line.length * 2)];
+			}
+			mapped.get(from, line, 0, length);
+			index(id, line, 0, length);
+		}
+		for (int i = 0; i < session.size(); i++) {
+			byte[] bytes = session.get(i);
+			index(baseCount + i, bytes, 0, bytes.length);
+		}
+	}
+
+	private void index(int id, byte[] line, int from, int to) {
+		for (int i = from; i + 3 <= to; i++) {
+			IntList list = trigrams.computeIfAbsent(trigram(line, i), k -> new IntList());
+			// Un trigrama repetido en la misma línea solo se anota una vez
+			if (list.size == 0 || list.values[list.size - 1] != id) {
+				list.add(id);
+			}
+		}
+	}
+
+	private static int trigram(byte[] bytes, int i) {
+		return (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF);
+	}
+
+	/** Lista de enteros sin objetos por elemento (1 millón de entradas no caben bien en Integer) */
+
+	private static final class IntList {
+
+		private int[] values = new int[4];
+
+		private int size;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
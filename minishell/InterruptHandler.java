@@ -0,0 +1,92 @@
+package minishell;
+
+/**
+ * Gestión de Ctrl-C (SIGINT) en modo interactivo.
+ *
+ * Funciones/Comportamientos principales:
+ * - Sustituye al manejador de la JVM, que terminaría la shell y con ella
+ * 		todos los trabajos en segundo plano.
+ * - Si hay una pipeline en primer plano la detiene con Pipeline.destroy():
+ * 		SIGTERM a todo su árbol de procesos y SIGKILL a los que lo ignoren.
+ * - Sin pipeline en primer plano se descarta la línea y se vuelve al prompt.
+ * - Usa sun.misc.Signal (módulo jdk.unsupported), la única forma de capturar
+ * 		señales sin código nativo. Si no está disponible la shell funciona igual,
+ * 		pero Ctrl-C la termina.
+ */
+
+final class InterruptHandler {
+
+	/** Margen entre SIGTERM y SIGKILL al detener la pipeline */
+
+	private final long graceMillis;
+
+	/** Acción con la shell esperando una línea (mostrar el prompt de nuevo) */
+
+	private final Runnable onIdle;
+
+	private volatile Pipeline foreground;
+
+	private volatile boolean interrupted;
+
+	private boolean installed;
+
+	InterruptHandler(long graceMillis, Runnable onIdle) {
+		this.graceMillis = graceMillis;
+		this.onIdle = onIdle;
+	}
+
+	/**
+	 * Registra el manejador de SIGINT (solo la primera vez).
+	 *
+	 * @return true si el manejador está activo
+	 */
+
+	synchronized boolean install() {
+		if (!installed) {
+			try {
+				sun.misc.Signal.handle(new sun.misc.Signal("INT"), signal -> handle());
+				installed = true;
+			} catch (IllegalArgumentException | LinkageError e) {
+				// Señal no soportada en este sistema o JVM lanzada con -Xrs
+			}
+		}
+		return installed;
+	}
+
+	/**
+	 * Marca la pipeline como la de primer plano: Ctrl-C la detendrá.
+	 *
+	 * @param pipeline
+	 */
+
+	void enter(Pipeline pipeline) {
+		this.interrupted = false;
+		this.foreground = pipeline;
+	}
+
+	/**
+	 * La pipeline de primer plano ha terminado.
+	 *
+	 * @return true si se detuvo con Ctrl-C
+	 */
+
+	boolean leave() {
+		this.foreground = null;
+		return this.interrupted;
+	}
+
+	/**
+	 * Se ejecuta en un hilo propio creado por la JVM para cada señal:
+	 * puede esperar al margen de destroy() sin bloquear al bucle principal.
+	 */
+
+	private void handle() {
+		Pipeline pipeline = this.foreground;
+		if (pipeline != null) {
+			this.interrupted = true;
+			pipeline.destroy(this.graceMillis);
+		} else {
+			onIdle.run();
+		}
+	}
+}
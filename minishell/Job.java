@@ -0,0 +1,105 @@
+package minishell;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Trabajo (job) de la shell: una pipeline completa lanzada desde una línea.
+ *
+ * Funciones/Comportamientos principales:
+ * - Agrupa todos los procesos de la pipeline bajo un mismo identificador.
+ * - Se marca como terminado de forma asíncrona cuando todos sus procesos
+ * 		han finalizado (Process.onExit()), sin hacer polling.
+ * - Permite terminar todos sus procesos (y sus descendientes) a la vez.
+ */
+
+final class Job {
+
+	private final int id;
+
+	private final String command;
+
+	private final List<Process> processes;
+
+	/** Se completa cuando todos los procesos de la pipeline han terminado */
+
+	private final CompletableFuture<Job> completion;
+
+	Job(int id, String command, List<Process> processes) {
+		this.id = id;
+		this.command = command;
+		this.processes = List.copyOf(processes);
+
+		CompletableFuture<?>[] exits = new CompletableFuture<?>[processes.size()];
+		for (int i = 0; i < exits.length; i++) {
+			exits[i] = processes.get(i).onExit();
+		}
+		this.completion = CompletableFuture.allOf(exits).thenApply(v -> this);
+	}
+
+	int getId() {
+		return id;
+	}
+
+	String getCommand() {
+		return command;
+	}
+
+	List<Process> getProcesses() {
+		return processes;
+	}
+
+	CompletableFuture<Job> onExit() {
+		return completion;
+	}
+
+	boolean isDone() {
+		return completion.isDone();
+	}
+
+	/** PID del último proceso de la pipeline (el que se muestra al usuario) */
+
+	long lastPid() {
+		return processes.get(processes.size() - 1).pid();
+	}
+
+	/** Código de salida de la pipeline: el del último proceso (como en bash) */
+
+	int exitCode() {
+		return processes.get(processes.size() - 1).exitValue();
+	}
+
+	/**
+	 * Termina todos los procesos del trabajo y sus descendientes.
+	 *
+	 * @param force true para terminación forzosa (equivalente a SIGKILL)
+	 */
+
+	void kill(boolean force) {
+		for (Process p : processes) {
+			p.descendants().forEach(h -> {
+				if (force) {
+					h.destroyForcibly();
+				} else {
+					h.destroy();
+				}
+			});
+			if (force) {
+				p.destroyForcibly();
+			} else {
+				p.destroy();
+			}
+		}
+	}
+
+	/** Estado legible para el comando 'jobs' */
+
+	String status() {
+		return isDone() ? "Hecho (" + exitCode() + ")" : "Ejecutando";
+	}
+
+	@Override
+	public String toString() {
+		return "[" + id + "] " + status() + "\t" + command;
+	}
+}
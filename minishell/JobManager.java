@@ -0,0 +1,378 @@
+package minishell;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Tabla de trabajos (jobs) de la shell.
+ *
+ * Funciones/Comportamientos principales:
+ * - Registra cada pipeline lanzada en segundo plano como un único trabajo.
+ * - Recoge los trabajos terminados de forma asíncrona (Process.onExit()):
+ * 		el bucle principal nunca se bloquea ni hace polling.
+ * - Avisa de los trabajos terminados antes de mostrar el siguiente prompt.
+ * - Implementa los comandos internos 'jobs', 'wait', 'fg' y 'kill' (las
+ * 		señales TERM y KILL; el resto, con el 'kill' del sistema).
+ */
+
+final class JobManager {
+
+	/** Trabajos activos ordenados por identificador */
+
+	private final ConcurrentSkipListMap<Integer, Job> jobs;
+
+	/** Trabajos terminados pendientes de notificar al usuario */
+
+	private final Queue<Job> finished = new ConcurrentLinkedQueue<>();
+
+	/** Salida y errores de la shell */
+
+	private final PrintStream out;
+
+	private final PrintStream err;
+
+	JobManager(PrintStream out, PrintStream err) {
+		this(new ConcurrentSkipListMap<>(), out, err);
+	}
+
+	private JobManager(ConcurrentSkipListMap<Integer, Job> jobs, PrintStream out, PrintStream err) {
+		this.jobs = jobs;
+		this.out = out;
+		this.err = err;
+	}
+
+	/**
+	 * Copia de la tabla para un subshell ('jobs | wc -l', 'kill %1 > f'): ve los
+	 * trabajos de la shell, pero lo que haga con la tabla no cambia la de esta.
+	 *
+	 * @param out salida del subshell
+	 * @param err errores del subshell
+	 */
+
+	JobManager copy(PrintStream out, PrintStream err) {
+		return new JobManager(new ConcurrentSkipListMap<>(jobs), out, err);
+	}
+
+	/**
+	 * Registra una nueva pipeline en segundo plano.
+	 * Como en bash, el identificador es el mayor en uso más uno.
+	 *
+	 * @param command texto de la línea (para 'jobs')
+	 * @param processes procesos de la pipeline
+	 * @return el trabajo creado
+	 */
+
+	synchronized Job launch(String command, List<Process> processes) {
+		int id = jobs.isEmpty() ? 1 : jobs.lastKey() + 1;
+		Job job = new Job(id, command, processes);
+		jobs.put(id, job);
+
+		// Recolección asíncrona: se encola para avisar en el próximo prompt.
+		job.onExit().thenAccept(finished::add);
+
+		// Un comando interno no tiene PID propio: solo se muestra el identificador.
+		long pid = job.lastPid();
+		out.println("[" + id + "]" + (pid >= 0 ? " " + pid : ""));
+		return job;
+	}
+
+	/**
+	 * Muestra y elimina de la tabla los trabajos que han terminado desde el último aviso.
+	 * Se llama desde el bucle principal antes de mostrar el prompt.
+	 */
+
+	void reportFinished() {
+		Job job;
+		while ((job = finished.poll()) != null) {
+			if (jobs.remove(job.getId(), job)) {
+				out.println(job);
+			}
+		}
+	}
+
+	/**
+	 * COMANDO INTERNO: jobs
+	 * Lista los trabajos de la tabla con su estado.
+	 */
+
+	void list() {
+		for (Job job : jobs.values()) {
+			out.println(job);
+		}
+	}
+
+	/**
+	 * COMANDO INTERNO: wait [id]
+	 * Espera a un trabajo concreto o, sin argumentos, a todos.
+	 * Los trabajos esperados se retiran de la tabla sin aviso posterior.
+	 *
+	 * @param args argumentos del comando (args.get(0) es "wait")
+	 * @return código de salida del último trabajo esperado (127 si no existe)
+	 */
+
+	int waitFor(List<String> args) {
+		int status = 0;
+
+		if (args.size() < 2) {
+			for (Job job : jobs.values()) {
+				status = await(job);
+				if (status < 0) {
+					return 130;
+				}
+			}
+			return status;
+		}
+
+		for (String spec : args.subList(1, args.size())) {
+			Job job = find(spec);
+			status = job == null ? 127 : await(job);
+			if (status < 0) {
+				return 130;
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * COMANDO INTERNO: fg [id]
+	 * Pasa un trabajo a primer plano: muestra su línea y espera a que termine.
+	 * Sin argumentos se usa el trabajo más reciente.
+	 *
+	 * @param args argumentos del comando (args.get(0) es "fg")
+	 * @return código de salida del trabajo
+	 */
+
+	int foreground(List<String> args) {
+		Job job;
+		if (args.size() < 2) {
+			if (jobs.isEmpty()) {
+				err.println("fg: no hay trabajos en segundo plano");
+				return 1;
+			}
+			job = jobs.lastEntry().getValue();
+		} else {
+			job = find(args.get(1));
+		}
+
+		if (job == null) {
+			return 1;
+		}
+		out.println(job.getCommand());
+		int status = await(job);
+		return status < 0 ? 130 : status;
+	}
+
+	/**
+	 * Si la shell resuelve 'kill' con estos argumentos: sin opciones o con la
+	 * señal TERM o KILL (-15, -TERM, -SIGTERM, -9, -KILL, -SIGKILL) y con
+	 * trabajos (%id) o PIDs. Las demás formas ('kill -l', 'kill -HUP pid',
+	 * 'kill -s TERM pid'...) son del 'kill' del sistema (ver external()).
+	 *
+	 * @param args argumentos del comando (args.get(0) es "kill")
+	 */
+
+	boolean handles(List<String> args) {
+		int first = 1;
+		if (args.size() > 1 && args.get(1).startsWith("-")) {
+			if (signal(args.get(1)) == null) {
+				return false;
+			}
+			first = 2;
+		}
+		for (String spec : args.subList(Math.min(first, args.size()), args.size())) {
+			if (spec.startsWith("-")) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Argumentos para el 'kill' del sistema: cada trabajo (%id) se sustituye
+	 * por los PIDs de sus procesos ('kill -USR1 %1').
+	 *
+	 * @param args argumentos del comando (args.get(0) es "kill")
+	 * @return los argumentos, o null si algún trabajo no existe (ya informado)
+	 */
+
+	List<String> external(List<String> args) {
+		List<String> argv = new ArrayList<>(args.size());
+		argv.add(args.get(0));
+		for (String arg : args.subList(1, args.size())) {
+			if (!arg.startsWith("%")) {
+				argv.add(arg);
+				continue;
+			}
+			Job job = find(arg);
+			if (job == null) {
+				return null;
+			}
+			int before = argv.size();
+			for (Process p : job.getProcesses()) {
+				// Los comandos internos de la pipeline no tienen PID propio
+				if (p.pid() >= 0) {
+					argv.add(Long.toString(p.pid()));
+				}
+			}
+			if (argv.size() == before) {
+				err.println("kill: " + arg + ": el trabajo no tiene procesos");
+				return null;
+			}
+		}
+		return argv;
+	}
+
+	/**
+	 * COMANDO INTERNO: kill [-9|-15] %id | pid ...
+	 * Termina un trabajo completo (%id) o un proceso concreto (pid).
+	 * Con -9 o -KILL la terminación es forzosa. Solo para las formas que
+	 * acepta handles().
+	 *
+	 * @param args argumentos del comando (args.get(0) es "kill")
+	 * @return 0, o 1 si algún trabajo o proceso no existe o no se ha podido terminar
+	 */
+
+	int kill(List<String> args) {
+		boolean force = false;
+		int first = 1;
+
+		if (args.size() > 1 && args.get(1).startsWith("-")) {
+			Boolean forcibly = signal(args.get(1));
+			if (forcibly == null) {
+				err.println("kill: señal no soportada: " + args.get(1));
+				return 2;
+			}
+			force = forcibly;
+			first = 2;
+		}
+
+		if (args.size() <= first) {
+			err.println("kill: uso: kill [-9] %trabajo | pid ...");
+			return 2;
+		}
+
+		int status = 0;
+
+		for (String spec : args.subList(first, args.size())) {
+			if (spec.startsWith("%")) {
+				Job job = find(spec);
+				if (job != null) {
+					job.kill(force);
+				} else {
+					status = 1;
+				}
+				continue;
+			}
+
+			long pid;
+			try {
+				pid = Long.parseLong(spec);
+			} catch (NumberFormatException e) {
+				err.println("kill: argumento no válido: " + spec);
+				status = 1;
+				continue;
+			}
+			Optional<ProcessHandle> handle = ProcessHandle.of(pid);
+			if (handle.isEmpty()) {
+				err.println("kill: (" + pid + ") - No existe el proceso");
+				status = 1;
+				continue;
+			}
+			// destroy() devuelve false si la señal no se ha podido enviar (p.ej. sin permiso)
+			boolean sent;
+			try {
+				sent = force ? handle.get().destroyForcibly() : handle.get().destroy();
+			} catch (IllegalStateException e) {
+				sent = false;  // La propia shell
+			}
+			if (!sent) {
+				err.println("kill: (" + pid + ") - No se ha podido enviar la señal");
+				status = 1;
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * @param option opción de señal de 'kill' ("-9", "-TERM", "-SIGKILL"...)
+	 * @return true si es KILL, false si es TERM, null si es otra (o no es una señal)
+	 */
+
+	private static Boolean signal(String option) {
+		String name = option.substring(1).toUpperCase(Locale.ROOT);
+		if (name.startsWith("SIG")) {
+			name = name.substring(3);
+		}
+		switch (name) {
+			case "9":
+			case "KILL":
+				return true;
+			case "15":
+			case "TERM":
+				return false;
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Termina los trabajos que siguen en marcha (al cerrar una sesión del
+	 * servidor, como SIGHUP en bash).
+	 */
+
+	void killAll() {
+		for (Job job : jobs.values()) {
+			if (!job.isDone()) {
+				job.kill(false);
+			}
+		}
+	}
+
+	/**
+	 * Busca un trabajo a partir de "%n" o "n".
+	 *
+	 * @return el trabajo, o null (tras informar al usuario) si no existe
+	 */
+
+	private Job find(String spec) {
+		String number = spec.startsWith("%") ? spec.substring(1) : spec;
+		try {
+			Job job = jobs.get(Integer.parseInt(number));
+			if (job == null) {
+				err.println("No existe el trabajo: " + spec);
+			}
+			return job;
+		} catch (NumberFormatException e) {
+			err.println("Identificador de trabajo no válido: " + spec);
+			return null;
+		}
+	}
+
+	/**
+	 * Espera a que termine un trabajo y lo retira de la tabla.
+	 *
+	 * @return código de salida del trabajo, o -1 si la espera se ha interrumpido
+	 */
+
+	private int await(Job job) {
+		try {
+			job.onExit().get();
+			jobs.remove(job.getId(), job);
+			return job.exitCode();
+		} catch (InterruptedException e) {
+			err.println("Espera interrumpida");
+			Thread.currentThread().interrupt();
+			return -1;
+		} catch (ExecutionException e) {
+			err.println("Error al esperar el trabajo [" + job.getId() + "]: " + e.getCause().getMessage());
+			return 1;
+		}
+	}
+}
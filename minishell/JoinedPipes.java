@@ -0,0 +1,57 @@
+package minishell;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arranca un tramo de procesos externos unidos por pipes que son de la shell.
+ *
+ * Funciones/Comportamientos principales:
+ * - Sustituye a ProcessBuilder.startPipeline(): cada etapa se crea con su
+ * 		stdout y su stdin en PIPE y un hilo de StreamPump copia la salida de
+ * 		una en la entrada de la siguiente.
+ * - Como la shell tiene el único extremo de lectura de cada pipe, SIGPIPE
+ * 		funciona como en sh: si la etapa que lee termina, la copia falla al
+ * 		escribir, cierra la salida de la anterior y esta recibe SIGPIPE en su
+ * 		siguiente escritura ('yes | head'). Una etapa que no vuelve a escribir
+ * 		sigue hasta acabar ('sleep 2 | true').
+ * - Solo usa la API pública de Process: con startPipeline() la JVM guarda una
+ * 		copia del extremo de lectura de cada pipe y no hay forma de cerrarla.
+ * - Si una etapa no se puede crear, se terminan las ya creadas.
+ */
+
+final class JoinedPipes {
+
+	private JoinedPipes() {
+	}
+
+	/**
+	 * Arranca las etapas de un tramo y las une en orden.
+	 *
+	 * @param builders etapas (stdout de cada una y stdin de la siguiente en PIPE)
+	 * @return los procesos, en el mismo orden
+	 * @throws IOException si alguna etapa no se puede crear (mismo mensaje que ProcessBuilder.start())
+	 */
+
+	static List<Process> start(List<ProcessBuilder> builders) throws IOException {
+		List<Process> processes = new ArrayList<>(builders.size());
+		try {
+			for (ProcessBuilder pb : builders) {
+				processes.add(pb.start());
+			}
+		} catch (IOException | RuntimeException e) {
+			for (Process p : processes) {
+				p.destroy();
+			}
+			throw e;
+		}
+
+		// Al llegar al fin de datos se cierra la entrada de la siguiente; si esta ya
+		// no lee, la copia termina y cierra la salida de la anterior (SIGPIPE)
+		for (int k = 0; k + 1 < processes.size(); k++) {
+			StreamPump.connect(processes.get(k).getInputStream(), processes.get(k + 1).getOutputStream());
+		}
+		return processes;
+	}
+}
@@ -0,0 +1,111 @@
+package minishell;
+
+import java.util.Arrays;
+
+/**
+ * Histograma de latencias de rango dinámico (al estilo HdrHistogram).
+ *
+ * Funciones/Comportamientos principales:
+ * - Los valores (microsegundos) se agrupan en potencias de dos, cada una
+ * 		dividida en 64 sub-cubos lineales: el error relativo es inferior al 1,6 %
+ * 		desde 1 µs hasta el máximo de un long.
+ * - record() solo incrementa un contador de un array reservado al crearlo:
+ * 		no reserva memoria.
+ * - percentile() recorre los contadores acumulados (sin ordenar muestras).
+ */
+
+final class LatencyHistogram {
+
+	/** Bits de precisión de cada potencia de dos (128 sub-cubos, la mitad superior en uso) */
+
+	private static final int SUB_BUCKET_BITS = 7;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+
+	/** Potencias de dos necesarias para cubrir todo el rango de long */
+
+	private static final int BUCKET_COUNT = 64 - SUB_BUCKET_BITS + 1;
+
+	private final long[] counts = new long[BUCKET_COUNT * SUB_BUCKET_HALF + SUB_BUCKET_HALF];
+
+	private long total;
+
+	private long max;
+
+	private long sum;
+
+	synchronized void record(long micros) {
+		if (micros < 0) {
+			micros = 0;
+		}
+		counts[indexOf(micros)]++;
+		total++;
+		sum += micros;
+		if (micros > max) {
+			max = micros;
+		}
+	}
+
+	synchronized long count() {
+		return total;
+	}
+
+	synchronized long max() {
+		return max;
+	}
+
+	synchronized long mean() {
+		return total == 0 ? 0 : sum / total;
+	}
+
+	/**
+	 * Valor por debajo del cual queda el porcentaje indicado de las muestras.
+	 *
+	 * @param percent entre 0 y 100
+	 * @return límite superior del sub-cubo correspondiente (0 si no hay muestras)
+	 */
+
+	synchronized long percentile(double percent) {
+		if (total == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(percent / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= target) {
+				return Math.min(highestEquivalent(i), max);
+			}
+		}
+		return max;
+	}
+
+	synchronized void reset() {
+		Arrays.fill(counts, 0);
+		total = 0;
+		max = 0;
+		sum = 0;
+	}
+
+	/**
+	 * Los valores menores que 128 ocupan los primeros 128 índices tal cual;
+	 * a partir de ahí cada potencia de dos usa 64 índices (su mitad superior).
+	 */
+
+	private static int indexOf(long value) {
+		int bucket = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+		int sub = (int) (value >>> bucket);
+		return bucket * SUB_BUCKET_HALF + sub;
+	}
+
+	private static long highestEquivalent(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int bucket = index / SUB_BUCKET_HALF - 1;
+		long sub = index - (long) bucket * SUB_BUCKET_HALF;
+		return ((sub + 1) << bucket) - 1;
+	}
+}
@@ -0,0 +1,606 @@
+package minishell;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import sun.misc.Signal;
+
+/**
+ * Editor de línea en modo "raw" para el modo interactivo.
+ *
+ * Funciones/Comportamientos principales:
+ * - Mientras se escribe la línea el terminal no procesa las teclas (stty
+ * 		-icanon -echo -isig): el editor las recibe una a una y redibuja la
+ * 		línea. Al pulsar Enter se restaura la configuración anterior, así los
+ * 		comandos se ejecutan con el terminal normal (Ctrl-C vuelve a ser una señal).
+ * - Tabulador: completa comandos internos, ejecutables del PATH y archivos
+ * 		(Completer). Con una coincidencia la inserta; con varias inserta su
+ * 		prefijo común y un segundo tabulador las lista.
+ * - Flechas, Inicio/Fin, Supr, Ctrl-A/E/U/K/W/L, historial con arriba/abajo
+ * 		y búsqueda hacia atrás con Ctrl-R. Ctrl-C descarta la línea y Ctrl-D
+ * 		con la línea vacía es el fin de la entrada.
+ * - Cada tecla solo consulta estructuras en memoria: nunca lee directorios
+ * 		ni arranca procesos, y la latencia no depende del tamaño del PATH.
+ */
+
+final class LineEditor {
+
+	/** Coincidencias que se listan como mucho con el segundo tabulador */
+
+	private static final int LIST_LIMIT = 100;
+
+	/** Entradas que recorre la búsqueda Ctrl-R */
+
+	private static final int SEARCH_LIMIT = 200;
+
+	/** Secuencias de color/estilo del prompt: no ocupan columnas */
+
+	private static final Pattern ANSI = Pattern.compile("\u001B\\[[0-9;]*[A-Za-z]");
+
+	/** Caracteres que no hace falta entrecomillar al insertar un nombre */
+
+	private static final Pattern SAFE = Pattern.compile("[\\p{L}\\p{N}_./+,:@%=~-]*");
+
+	private static final char CTRL_A = 1, CTRL_B = 2, CTRL_C = 3, CTRL_D = 4, CTRL_E = 5, CTRL_F = 6, CTRL_G = 7,
+			BACKSPACE = 8, TAB = 9, CTRL_K = 11, CTRL_L = 12, CTRL_N = 14, CTRL_P = 16, CTRL_R = 18, CTRL_U = 21,
+			CTRL_W = 23, ESC = 27, DEL = 127;
+
+	/** Teclas especiales (secuencias de escape) */
+
+	private static final int KEY_UP = -2, KEY_DOWN = -3, KEY_RIGHT = -4, KEY_LEFT = -5, KEY_HOME = -6,
+			KEY_END = -7, KEY_DELETE = -8, KEY_UNKNOWN = -9;
+
+	private final InputStream in;
+	private final PrintStream out;
+	private final Completer completer;
+	private final Supplier<File> directory;
+	private final Supplier<History> history;
+
+	/** Configuración del terminal antes de entrar en modo raw (stty -g) */
+
+	private final String saved;
+
+	private volatile boolean raw;
+
+	/** Columnas del terminal (se vuelven a leer si cambia de tamaño) */
+
+	private int columns;
+
+	private volatile boolean resized = true;
+
+	// Estado de la línea en curso
+	private final StringBuilder buffer = new StringBuilder();
+	private int cursor;
+	private String prompt;
+	private int promptWidth;
+
+	/** Fila (desde la del prompt) en la que quedó el cursor en el último redibujado */
+
+	private int cursorRow;
+
+	private LineEditor(String saved, Completer completer, Supplier<File> directory, Supplier<History> history) {
+		this.in = System.in;
+		this.out = System.out;
+		this.saved = saved;
+		this.completer = completer;
+		this.directory = directory;
+		this.history = history;
+	}
+
+	/**
+	 * Crea el editor si la entrada es un terminal que lo admite.
+	 *
+	 * @param completer motor de completado
+	 * @param directory directorio actual de la shell
+	 * @param history historial de la shell
+	 * @return el editor, o null si no se puede usar (Windows, TERM=dumb, sin 'stty'...)
+	 */
+
+	static LineEditor open(Completer completer, Supplier<File> directory, Supplier<History> history) {
+		String os = System.getProperty("os.name").toLowerCase();
+		String term = System.getenv("TERM");
+		if (os.contains("win") || term == null || term.equals("dumb")) {
+			return null;
+		}
+		String saved = stty("-g");
+		if (saved == null || saved.isBlank()) {
+			return null;
+		}
+
+		LineEditor editor = new LineEditor(saved.trim(), completer, directory, history);
+		Runtime.getRuntime().addShutdownHook(new Thread(editor::restore, "ms-tty-restore"));
+		try {
+			Signal.handle(new Signal("WINCH"), signal -> editor.resized = true);
+		} catch (IllegalArgumentException e) {
+			// Sin SIGWINCH: el ancho se lee una sola vez
+		}
+		return editor;
+	}
+
+	/**
+	 * Lee una línea editándola en el terminal.
+	 *
+	 * @param prompt texto del prompt (puede llevar secuencias de color)
+	 * @return la línea, o null al final de la entrada (Ctrl-D con la línea vacía)
+	 * @throws IOException si no se puede leer del terminal
+	 */
+
+	String readLine(String prompt) throws IOException {
+		this.prompt = prompt;
+		this.promptWidth = ANSI.matcher(prompt).replaceAll("").length();
+		buffer.setLength(0);
+		cursor = 0;
+		cursorRow = 0;
+
+		enterRaw();
+		try {
+			out.print(prompt);
+			out.flush();
+			return edit();
+		} finally {
+			restore();
+		}
+	}
+
+	private String edit() throws IOException {
+		// Posición en el historial (-1: la línea nueva; el historial se carga con la primera flecha)
+		int historyId = -1;
+		String draft = null;
+		boolean lastTab = false;
+
+		while (true) {
+			int key = readKey();
+			boolean tab = false;
+
+			switch (key) {
+			case -1:
+				if (buffer.length() == 0) {
+					return null;
+				}
+				out.print("\n");
+				return buffer.toString();
+			case '\r':
+			case '\n':
+				moveToEnd();
+				out.print("\n");
+				out.flush();
+				return buffer.toString();
+			case CTRL_C:
+				moveToEnd();
+				out.print("^C\n");
+				buffer.setLength(0);
+				cursor = 0;
+				cursorRow = 0;
+				historyId = -1;
+				break;
+			case CTRL_D:
+				if (buffer.length() == 0) {
+					return null;
+				}
+				// Con texto borra el carácter bajo el cursor, como Supr
+				if (cursor < buffer.length()) {
+					buffer.deleteCharAt(cursor);
+				}
+				break;
+			case KEY_DELETE:
+				if (cursor < buffer.length()) {
+					buffer.deleteCharAt(cursor);
+				}
+				break;
+			case BACKSPACE:
+			case DEL:
+				if (cursor > 0) {
+					buffer.deleteCharAt(--cursor);
+				}
+				break;
+			case CTRL_B:
+			case KEY_LEFT:
+				cursor = Math.max(0, cursor - 1);
+				break;
+			case CTRL_F:
+			case KEY_RIGHT:
+				cursor = Math.min(buffer.length(), cursor + 1);
+				break;
+			case CTRL_A:
+			case KEY_HOME:
+				cursor = 0;
+				break;
+			case CTRL_E:
+			case KEY_END:
+				cursor = buffer.length();
+				break;
+			case CTRL_U:
+				buffer.delete(0, cursor);
+				cursor = 0;
+				break;
+			case CTRL_K:
+				buffer.setLength(cursor);
+				break;
+			case CTRL_W: {
+				int start = cursor;
+				while (start > 0 && Character.isWhitespace(buffer.charAt(start - 1))) {
+					start--;
+				}
+				while (start > 0 && !Character.isWhitespace(buffer.charAt(start - 1))) {
+					start--;
+				}
+				buffer.delete(start, cursor);
+				cursor = start;
+				break;
+			}
+			case CTRL_L:
+				out.print("\u001B[H\u001B[2J");
+				cursorRow = 0;
+				break;
+			case CTRL_P:
+			case KEY_UP:
+			case CTRL_N:
+			case KEY_DOWN: {
+				boolean up = key == CTRL_P || key == KEY_UP;
+				int size = history.get().size();
+				if (historyId < 0) {
+					historyId = size;
+				}
+				if (up ? historyId == 0 : historyId >= size) {
+					bell();
+					break;
+				}
+				if (historyId == size) {
+					draft = buffer.toString();
+				}
+				historyId += up ? -1 : 1;
+				replaceLine(historyId == size ? draft : history.get().get(historyId));
+				break;
+			}
+			case CTRL_R:
+				if (search()) {
+					moveToEnd();
+					out.print("\n");
+					out.flush();
+					return buffer.toString();
+				}
+				break;
+			case TAB:
+				tab = true;
+				complete(lastTab);
+				break;
+			case ESC:
+			case KEY_UNKNOWN:
+				break;
+			default:
+				if (key >= ' ') {
+					buffer.insert(cursor++, (char) key);
+				}
+				break;
+			}
+			lastTab = tab;
+			redraw();
+		}
+	}
+
+	/**
+	 * Completado con el tabulador.
+	 *
+	 * @param list true si es el segundo tabulador seguido: lista las coincidencias
+	 */
+
+	private void complete(boolean list) {
+		Completer.Result result = completer.complete(buffer.toString(), cursor, directory.get(), LIST_LIMIT);
+		if (result == null || result.matches.total == 0) {
+			bell();
+			return;
+		}
+		CompletionTrie.Matches matches = result.matches;
+
+		if (matches.total == 1) {
+			String name = matches.names.get(0);
+			insertWord(result.start, quote(result.base + name) + (name.endsWith("/") ? "" : " "));
+			return;
+		}
+
+		String common = result.base + matches.common;
+		if (common.length() > word(result).length()) {
+			insertWord(result.start, quote(common));
+		} else if (list) {
+			list(matches);
+		} else {
+			bell();
+		}
+	}
+
+	/** Palabra actual sin comillas */
+
+	private String word(Completer.Result result) {
+		return buffer.substring(result.start, cursor).replace("'", "").replace("\"", "");
+	}
+
+	private void insertWord(int start, String text) {
+		buffer.replace(start, cursor, text);
+		cursor = start + text.length();
+	}
+
+	/** Muestra las coincidencias en columnas debajo de la línea */
+
+	private void list(CompletionTrie.Matches matches) {
+		int width = 0;
+		for (String name : matches.names) {
+			width = Math.max(width, name.length());
+		}
+		width += 2;
+		int perRow = Math.max(1, columns / width);
+
+		moveToEnd();
+		StringBuilder sb = new StringBuilder("\n");
+		for (int i = 0; i < matches.names.size(); i++) {
+			String name = matches.names.get(i);
+			sb.append(name);
+			if ((i + 1) % perRow == 0 || i == matches.names.size() - 1) {
+				sb.append('\n');
+			} else {
+				sb.append(" ".repeat(width - name.length()));
+			}
+		}
+		if (matches.total > matches.names.size()) {
+			sb.append("(").append(matches.total - matches.names.size()).append(" más)\n");
+		}
+		out.print(sb);
+		cursorRow = 0;
+	}
+
+	/**
+	 * Búsqueda hacia atrás en el historial (Ctrl-R): cada carácter afina la
+	 * búsqueda y Ctrl-R pasa a la siguiente coincidencia más antigua.
+	 *
+	 * @return true si se pulsó Enter (la línea encontrada se ejecuta)
+	 */
+
+	private boolean search() throws IOException {
+		String original = buffer.toString();
+		int originalCursor = cursor;
+		StringBuilder text = new StringBuilder();
+		List<Integer> found = List.of();
+		int index = 0;
+
+		while (true) {
+			String match = found.isEmpty() ? "" : history.get().get(found.get(index));
+			drawSearch(text, match, !found.isEmpty() || text.length() == 0);
+
+			int key = readKey();
+			if (key == CTRL_R) {
+				if (index + 1 < found.size()) {
+					index++;
+				} else {
+					bell();
+				}
+				continue;
+			}
+			if (key == BACKSPACE || key >= ' ') {
+				if (key == BACKSPACE || key == DEL) {
+					if (text.length() == 0) {
+						continue;
+					}
+					text.setLength(text.length() - 1);
+				} else {
+					text.append((char) key);
+				}
+				found = text.length() == 0 ? List.of() : history.get().search(text.toString(), SEARCH_LIMIT);
+				index = 0;
+				continue;
+			}
+
+			// Cualquier otra tecla termina la búsqueda
+			if (key == CTRL_C || key == CTRL_G) {
+				buffer.setLength(0);
+				buffer.append(original);
+				cursor = originalCursor;
+			} else if (!match.isEmpty()) {
+				buffer.setLength(0);
+				buffer.append(match);
+				cursor = match.length();
+			}
+			clearFromPrompt();
+			return key == '\r' || key == '\n';
+		}
+	}
+
+	private void drawSearch(CharSequence text, String match, boolean ok) {
+		clearFromPrompt();
+		String line = (ok ? "(búsqueda)`" : "(búsqueda fallida)`") + text + "': " + match;
+		out.print(line);
+		int width = Math.max(1, columns);
+		cursorRow = line.length() > 0 && line.length() % width == 0 ? line.length() / width - 1 : line.length() / width;
+		out.flush();
+	}
+
+	/** Vuelve al comienzo del prompt y borra hasta el final de la pantalla */
+
+	private void clearFromPrompt() {
+		if (cursorRow > 0) {
+			out.print("\u001B[" + cursorRow + "A");
+		}
+		out.print("\r\u001B[J");
+		cursorRow = 0;
+	}
+
+	private void replaceLine(String text) {
+		buffer.setLength(0);
+		buffer.append(text);
+		cursor = buffer.length();
+	}
+
+	/**
+	 * Redibuja el prompt y la línea y coloca el cursor, teniendo en cuenta
+	 * las líneas que ocupa en el terminal.
+	 */
+
+	private void redraw() {
+		int width = Math.max(1, columns);
+		StringBuilder sb = new StringBuilder();
+		if (cursorRow > 0) {
+			sb.append("\u001B[").append(cursorRow).append('A');
+		}
+		sb.append('\r').append(prompt).append(buffer).append("\u001B[J");
+
+		int end = promptWidth + buffer.length();
+		if (end > 0 && end % width == 0) {
+			// El terminal no baja de línea hasta el siguiente carácter
+			sb.append('\n');
+		}
+		int endRow = end / width;
+		int position = promptWidth + cursor;
+		int row = position / width;
+		if (endRow > row) {
+			sb.append("\u001B[").append(endRow - row).append('A');
+		}
+		sb.append('\r');
+		if (position % width > 0) {
+			sb.append("\u001B[").append(position % width).append('C');
+		}
+		cursorRow = row;
+		out.print(sb);
+		out.flush();
+	}
+
+	/** Deja el cursor tras el último carácter de la línea */
+
+	private void moveToEnd() {
+		cursor = buffer.length();
+		redraw();
+	}
+
+	private void bell() {
+		out.print('\007');
+	}
+
+	/**
+	 * Lee una tecla.
+	 *
+	 * @return el carácter, una tecla especial (KEY_*) o -1 al final de la entrada
+	 */
+
+	private int readKey() throws IOException {
+		out.flush();
+		int b = in.read();
+		if (b != ESC) {
+			return b < 0x80 ? b : decode(b);
+		}
+
+		int next = in.read();
+		if (next != '[' && next != 'O') {
+			return next < 0 ? -1 : KEY_UNKNOWN;
+		}
+		// Secuencia CSI/SS3: parámetros numéricos y un carácter final
+		int param = 0;
+		int c;
+		while ((c = in.read()) >= '0' && c <= '9' || c == ';') {
+			param = c == ';' ? 0 : param * 10 + (c - '0');
+		}
+		switch (c) {
+		case 'A':
+			return KEY_UP;
+		case 'B':
+			return KEY_DOWN;
+		case 'C':
+			return KEY_RIGHT;
+		case 'D':
+			return KEY_LEFT;
+		case 'H':
+			return KEY_HOME;
+		case 'F':
+			return KEY_END;
+		case '~':
+			return param == 1 || param == 7 ? KEY_HOME
+					: param == 4 || param == 8 ? KEY_END : param == 3 ? KEY_DELETE : KEY_UNKNOWN;
+		default:
+			return c < 0 ? -1 : KEY_UNKNOWN;
+		}
+	}
+
+	/** Decodifica un carácter UTF-8 de varios bytes (los que no caben en un char se descartan) */
+
+	private int decode(int first) throws IOException {
+		int length = first >= 0xF0 ? 4 : first >= 0xE0 ? 3 : first >= 0xC0 ? 2 : 1;
+		byte[] bytes = new byte[length];
+		bytes[0] = (byte) first;
+		for (int i = 1; i < length; i++) {
+			int b = in.read();
+			if (b < 0) {
+				return -1;
+			}
+			bytes[i] = (byte) b;
+		}
+		String s = new String(bytes, StandardCharsets.UTF_8);
+		return s.length() == 1 ? s.charAt(0) : KEY_UNKNOWN;
+	}
+
+	/** Entrecomilla un nombre si contiene caracteres especiales para la shell */
+
+	static String quote(String name) {
+		if (SAFE.matcher(name).matches()) {
+			return name;
+		}
+		return "'" + name.replace("'", "'\"'\"'") + "'";
+	}
+
+	private void enterRaw() throws IOException {
+		if (stty("-icanon", "-echo", "-isig", "-ixon", "min", "1", "time", "0") == null) {
+			throw new IOException("no se puede configurar el terminal");
+		}
+		raw = true;
+		if (resized) {
+			resized = false;
+			String size = stty("size");
+			try {
+				columns = Integer.parseInt(size.trim().split("\\s+")[1]);
+			} catch (RuntimeException e) {
+				columns = 0;
+			}
+			// Terminal sin tamaño (p.ej. algunos pseudoterminales): ancho habitual
+			if (columns <= 0) {
+				columns = 80;
+			}
+		}
+	}
+
+	/** Restaura la configuración del terminal (también al salir de la shell) */
+
+	private void restore() {
+		if (raw) {
+			raw = false;
+			stty(saved);
+		}
+	}
+
+	/**
+	 * Ejecuta 'stty' sobre el terminal de la shell.
+	 *
+	 * @return su salida, o null si falla
+	 */
+
+	private static String stty(String... args) {
+		String[] command = new String[args.length + 1];
+		command[0] = "stty";
+		System.arraycopy(args, 0, command, 1, args.length);
+		try {
+			Process process = new ProcessBuilder(command)
+					.redirectInput(ProcessBuilder.Redirect.INHERIT)
+					.redirectError(ProcessBuilder.Redirect.DISCARD)
+					.start();
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			process.getInputStream().transferTo(output);
+			return process.waitFor() == 0 ? output.toString(StandardCharsets.UTF_8) : null;
+		} catch (IOException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+}
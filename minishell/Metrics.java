@@ -0,0 +1,87 @@
+package minishell;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estadísticas acumuladas de ejecución -> comando 'stats'.
+ *
+ * Funciones/Comportamientos principales:
+ * - Un histograma de latencias por nombre de comando, más el tokenizado
+ * 		y el arranque de las pipelines.
+ * - Desactivadas por defecto ('stats on' las activa): mientras lo están,
+ * 		la shell no crea ninguna PipelineTiming ni reserva memoria por comando.
+ */
+
+final class Metrics {
+
+	private volatile boolean enabled;
+
+	private final Map<String, LatencyHistogram> commands = new ConcurrentHashMap<>();
+
+	private final LatencyHistogram parse = new LatencyHistogram();
+
+	private final LatencyHistogram spawn = new LatencyHistogram();
+
+	boolean isEnabled() {
+		return enabled;
+	}
+
+	void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	void record(String command, long nanos) {
+		commands.computeIfAbsent(command, k -> new LatencyHistogram()).record(nanos / 1_000L);
+	}
+
+	void recordParse(long nanos) {
+		parse.record(nanos / 1_000L);
+	}
+
+	void recordSpawn(long nanos) {
+		spawn.record(nanos / 1_000L);
+	}
+
+	void reset() {
+		commands.clear();
+		parse.reset();
+		spawn.reset();
+	}
+
+	/**
+	 * Tabla de percentiles: una fila por comando (orden alfabético) más el
+	 * tokenizado y el arranque.
+	 *
+	 * @return líneas de la tabla, vacía si no hay muestras
+	 */
+
+	List<String> report() {
+		List<String> lines = new ArrayList<>();
+		if (commands.isEmpty() && parse.count() == 0) {
+			return lines;
+		}
+
+		lines.add(String.format("%-16s %8s %10s %10s %10s %10s %10s", "comando", "n", "media", "p50", "p90", "p99", "máx"));
+		for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(commands).entrySet()) {
+			lines.add(row(e.getKey(), e.getValue()));
+		}
+		lines.add(row("(tokenizado)", parse));
+		if (spawn.count() > 0) {
+			lines.add(row("(arranque)", spawn));
+		}
+		return lines;
+	}
+
+	private static String row(String name, LatencyHistogram h) {
+		return String.format("%-16s %8d %10s %10s %10s %10s %10s", name, h.count(), micros(h.mean()),
+				micros(h.percentile(50)), micros(h.percentile(90)), micros(h.percentile(99)), micros(h.max()));
+	}
+
+	private static String micros(long micros) {
+		return PipelineTiming.format(micros * 1_000L);
+	}
+}
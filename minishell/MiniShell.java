@@ -1,386 +1,1855 @@
-package minishell;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Scanner;
-
-import tokenizer.MissingFileException;
-import tokenizer.TCommand;
-import tokenizer.TLine;
-import tokenizer.Tokenizer;
-
-/**
- * @author Sergio Juanas Santamaría
- * @version 10 
- * @date 22/10/2025
- * 
- * Repositorio del proyecto:
- * https://github.com/sermadita7777/MiniShell
- * 
- */
-
-public class MiniShell {
-
-	/** Prompt mostrado al usuario */
-	
-	private static final String prompt = "ms$";
-
-	/** Directorio actual de trabajo -> modificable con el comando 'cd'	*/
-
-	private File currentDirectory = new File(System.getProperty("user.dir"));
-
-	/** Nombre del sistema operativo -> permite compatibilidad multiplataforma (Linux/Windows) */
-
-	private final String os;
-
-	public MiniShell() {
-		this.os = System.getProperty("os.name").toLowerCase();
-	}
-
-	/**
-	 * Búcle principal.
-	 * 
-	 * Por cada iteración ejecuta la lectura de comandos y muestra el prompt.
-	 * - Ejecuta los comandos "tokenizando" la entrada con la clase Tokenizer.
-	 * - Ejecuta comandos internos o delega al método executeExternalCommand().
-	 */
-
-	public void run() {
-		Scanner sc = new Scanner(System.in);
-
-		while (true) {
-			System.out.print("\u001B[36m" + prompt + "@>\u001B[0m ");
-
-			String input = sc.nextLine().trim();
-
-			// Si la línea está vacía (el usuario solo pulsó Enter), vuelve a mostrarse el prompt.
-			if (input.isEmpty()) {
-				continue;
-			}
-			
-			try {
-
-				// Convierte la entrada del usuario en comandos y argumentos.
-				
-				TLine line = Tokenizer.tokenize(input);
-
-				if (line.getNcommands() > 0) {
-
-					// Se crea un objeto TCommand en el primer comando para ver si se trata de uno interno.
-					
-					TCommand cmd = line.getCommands().get(0);
-
-					// Se guarda el primer argumento (nombre) del comando.
-					String cmdName = cmd.getArgv().get(0);
-					
-					/**
-					 * COMANDO INTERNO: exit Usado para finalizar el bucle y la aplicación.
-					 */
-
-					if (cmdName.equalsIgnoreCase("exit")) {
-						System.out.println("Saliendo...");
-						break;
-
-						/**
-						 * COMANDO INTERNO: cd Usado para el cambio de directorios mediante rutas
-						 * absolutas o relativas.
-						 */
-
-					} else if (cmdName.equalsIgnoreCase("cd")) {
-						handleCd(cmd);
-
-						/**
-						 * COMANDOS EXTERNOS 
-						 * Este método se encargará de crear procesos, unir pipes y aplicar las redirecciones.
-						 */
-						
-					} else {
-						executeExternalCommand(line);
-					}
-
-				}
-
-			} catch (MissingFileException e) {
-				System.err.println("Debes introducir un archivo para aplicar la redirección: "+e.getMessage());
-			}
-		}
-
-		sc.close();
-	}
-
-	/**
-	 * Cambia el directorio actual de trabajo.
-	 * 
-	 * Funciones/Comportamientos principales: 
-	 * - Si no se pasa argumento ( solo "cd" ), se va al directorio home del usuario.
-	 * - Si se pasa una ruta relativa, se interpreta respecto al directorio actual.
-	 * - Se normaliza la ruta con getCanonicalFile() para resolver '..' o '.' .
-	 * 		Subida de nivel o mostrar el directorio actual.
-	 * - Si la ruta no existe o no es un directorio, se informa al usuario.
-	 * 
-	 * @param cmd
-	 */
-	
-	private void handleCd(TCommand cmd) {
-		
-		//Obtenemos los argumentos del comando.
-		List<String> args = cmd.getArgv();
-
-		if (args.size() < 2) {
-			this.currentDirectory = new File(System.getProperty("user.home"));
-		} else {
-			
-			// Se toma el primer argumento como ruta objetivo.
-			String pathArg = args.get(1);
-			
-			// El programa crea un archivo con esa ruta tal cual (bien relativa o absoluta)
-			
-			File targetDir = new File(pathArg);
-
-			// Si la ruta no es absoluta, se interpreta como relativa en el directorio actual.
-			
-			if (!targetDir.isAbsolute()) {
-				targetDir = new File(this.currentDirectory, pathArg);
-			}
-
-			try {				
-				targetDir = targetDir.getCanonicalFile();
-			} catch (IOException e) {
-				System.err.println("Error al acceder al directorio: " + e.getMessage());
-			}
-
-			// Actualizar el directorio actual o mostrar error.
-			
-			if (targetDir.exists() && targetDir.isDirectory()) {
-				this.currentDirectory = targetDir;
-			} else {
-				System.err.println("No existe el directorio: " + pathArg);
-			}
-		}
-
-		System.out.println("Directorio actual: " + this.currentDirectory.getAbsolutePath());
-	}
-	
-	/**
-	 * Método para ejecutar comandos externos.
-	 * 
-	 * Funciones/Comportamientos principales: 
-	 * - Recibe un TLine que puede contener una secuencia de comandos (pipe)
-	 * y redirecciones.
-	 * - Crea un ProcessBuilder para cada comando en la línea.
-	 * - Aplica redirecciones de entrada/salida/error.
-	 * - Ejecuta la pipeline usando ProcessBuilder.startPipeLine() 
-	 * 		Permite conectarlas automaticamente.
-	 * - Si la línea termina con '&' (background), muestra únicamente su PID.
-	 * - Si está en foreground, muestra la salida/error del último proceso y espera.
-	 * 
-	 * @param line
-	 */
-
-	private void executeExternalCommand(TLine line) {
-		try {
-
-			int n = line.getNcommands();
-			
-			List<ProcessBuilder> builders = new ArrayList<>();
-
-			for (TCommand cmd : line.getCommands()) {
-
-				/**
-				 * TLine ofrece de base la representación de las redirecciones,
-				 * por lo que se "limpian" los argumentos filtrando los símbolos
-				 *  de redireccón y añadiendo los "limpios" a una nueva lista.
-				 */
-				
-				List<String> cleanArgs = new ArrayList<>();
-
-				for (String arg : cmd.getArgv()) {
-					if (!arg.equals(">") && !arg.equals(">>") && !arg.equals("<") && !arg.equals("2>")
-							&& !arg.equals("2>>")) {
-						cleanArgs.add(arg);
-					}
-				}
-				
-				/**
-				 * VERIFICACIÓN SISTEMA OPERATIVO:
-				 * Se crea una nueva lista que recogerá la "formación" de los comandos 
-				 * en base al S.O. correspondiente. Una vez rellenada se le pasará 
-				 * a un nuevo ProcessBuilder. 
-				 */
-
-				List<String> command = new ArrayList<>();
-
-				if (this.os.contains("win")) {
-
-					// Configuración específica para windows, 
-					// pues al contrario de linux no permite poner el comando por si solo.
-					
-					command.add("cmd.exe");
-					command.add("/c");
-					
-					command.add(String.join(" ", cleanArgs));
-				} else {
-					
-					/**
-					 * En linux la línea de comandos está formada por:
-					 * "/bin/sh -c <cadena de comandos>"
-					 * No hace falta ponerlo pues se interpreta automático.
-					 */			
-				
-					command.addAll(cleanArgs);
-				}
-
-				ProcessBuilder pb = new ProcessBuilder(command);
-				
-				pb.directory(this.currentDirectory);
-				pb.redirectErrorStream(false);				
-				builders.add(pb);
-
-			}
-
-			/**
-			 * CONFIGURACIÓN DE REDIRECCIONES: 
-			 */
-			
-			//Redirección de entrada (<): se aplica solo al primer comando.
-			if (line.getRedirectInput() != null) {
-				
-				File inFile = new File(line.getRedirectInput());
-				
-				if(!inFile.exists() || !inFile.canRead()){
-					System.err.println("Error: archivo de entrada no encontrado o no legible: "+inFile);
-					return;
-				}
-				builders.get(0).redirectInput(inFile);
-			}
-
-			//Por otro lado las redirecciones de salida y error serán aplicadas al último.
-			ProcessBuilder lst = builders.get(n - 1);
-
-			// Redirección de salida (> o >>)
-			if (line.getRedirectOutput() != null) {
-				File outFile = new File(line.getRedirectOutput());
-					
-				if(outFile.exists() && !outFile.canWrite()) {
-					System.err.println("Error: no se puede escribir en el archivo de salida: "+outFile);
-					return;
-				}					
-				
-				if (line.isAppendOutput()) {
-					lst.redirectOutput(ProcessBuilder.Redirect.appendTo(outFile));
-				} else {
-					lst.redirectOutput(ProcessBuilder.Redirect.to(outFile));
-				}
-			}
-
-			// Redirección de error (2> o 2>>)
-			if (line.getRedirectError() != null) {
-				File errFile = new File(line.getRedirectError());
-				
-				if (errFile.exists() && !errFile.canWrite()) {
-					System.err.println("Error: no se puede escribir en el archivo de error: "+errFile);
-					return;
-				} 
-				
-				if (line.isAppendError()) {
-					lst.redirectError(ProcessBuilder.Redirect.appendTo(errFile));
-				} else {
-					lst.redirectError(ProcessBuilder.Redirect.to(errFile));
-				}
-			}
-
-			/**
-			 * EJECUCIÓN CON PIPES:
-			 * Conexión automática entre procesos (stdout -> stin).
-			 */
-
-			List<Process> processes = ProcessBuilder.startPipeline(builders);
-
-			//Se obtiene el último proceso para recoger su PID o stdout/err
-			Process lstProcess = processes.get(processes.size() - 1);
-
-		
-			/**
-			 * BACKGROUND VS FOREGROUND:
-			 * Si la línea termina con '&' se ejecuta en segund plano.
-			 * - No se espera a que termine el proceso, solo se muestra el PID
-			 */
-			
-			if (line.isBackground()) {
-				long PID = lstProcess.pid();
-				System.out.println("Proceso [" + PID + "] ejecutándose en segundo plano...");
-			} else {
-				
-				//Foreground -> se muestra la salida y espera a que terminen.
-				
-				//Mostrar la salida estándar (stdout) del último proceso si no es redirección.
-				if (line.getRedirectOutput() == null) {
-					try (BufferedReader br = new BufferedReader(new InputStreamReader(lstProcess.getInputStream()))) {
-						String lineOut;
-						while ((lineOut = br.readLine()) != null) {
-							System.out.println(lineOut);
-						}
-					}
-				}
-
-				// Mostrar la salida de errores (stderr) de todos los procesos si no se redirecciona.
-				// Útil para identificar fallos a mitad de pipe.
-				if (line.getRedirectError() == null) {
-					for(Process p: processes) {
-						try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getErrorStream()))) {
-							String lineErr;
-							while ((lineErr = br.readLine()) != null) {
-								System.err.println(lineErr);
-							}
-						}	
-					}
-				}
-			}
-
-			/**
-			 * ESPERAR FINALIZACIÓN:
-			 * En caso de que el proceso no sea background, se espera a que 
-			 * todos los procesos terminen.
-			 */
-			
-			if (!line.isBackground()) {
-				for (Process p : processes) {
-					p.waitFor();
-				}
-			}
-
-		} catch (IOException e) {
-			
-			// Limpieza visual en mensajes de error
-			
-			String msg=e.getMessage();
-			
-			if(msg.contains("No such file") || msg.contains("cannot find the file")) {
-				System.err.println("Archivo no encontrado: verifica la ruta.");
-				
-			} else if (msg.contains("Access is denied") || msg.contains("Permission denied")) {
-				System.err.println("Permiso denegado: no se puede acceder al archivo o directorio.");
-				  
-			} else {
-				System.err.println("Error inesperado: "+ msg);
-			}
-		} catch (InterruptedException e) {
-			System.err.println("Ejecución interrumpida");
-			Thread.currentThread().interrupt();
-		}
-	}
-
-	/**
-	 * Método main:
-	 * 
-	 * Crea una instancia de la minishell y ejecuta el bucle run().
-	 */
-	
-	public static void main(String[] args) {
-		new MiniShell().run();
-	}
-}
+package minishell;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import tokenizer.LineCache;
+import tokenizer.MissingFileException;
+import tokenizer.TCommand;
+import tokenizer.TLine;
+import tokenizer.Tokenizer;
+import tokenizer.Variables;
+
+/**
+ * @author Sergio Juanas Santamaría
+ * @version 10 
+ * @date 22/10/2025
+ * 
+ * Repositorio del proyecto:
+ * https://github.com/sermadita7777/MiniShell
+ * 
+ */
+
+public class MiniShell {
+
+	/** Prompt mostrado al usuario */
+	
+	private static final String prompt = "ms$";
+
+	/** Prompt tal como se muestra (en color) */
+
+	private static final String DISPLAYED_PROMPT = "\u001B[36m" + prompt + "@>\u001B[0m ";
+
+	/** Prompt de las líneas de continuación (orden incompleta o documento en línea) */
+
+	private static final String CONTINUATION_PROMPT = "> ";
+
+	/** Tamaño del buffer de lectura de comandos (scripts con miles de líneas) */
+
+	private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
+	/** Buffer de los mensajes de la shell en una sesión del servidor (se vacía tras cada orden) */
+
+	private static final int SESSION_BUFFER_SIZE = 1024;
+
+	/** Margen entre SIGTERM y SIGKILL al detener una pipeline (Ctrl-C o 'timeout') */
+
+	private static final long DESTROY_GRACE_MILLIS = 2000;
+
+	/** Número máximo de resultados de 'history -s' */
+
+	private static final int HISTORY_SEARCH_LIMIT = 50;
+
+	/** Código de salida de una pipeline detenida por tiempo agotado (como timeout(1)) */
+
+	private static final int TIMEOUT_STATUS = 124;
+
+	/** Palabras reservadas que no están en la tabla de órdenes -> tabulador */
+
+	private static final List<String> KEYWORDS = List.of("time", "function");
+
+	/** Llamadas anidadas a funciones como máximo (una función recursiva sin fin no agota la pila) */
+
+	private static final int FUNCTION_DEPTH_LIMIT = 200;
+
+	/** Directorio actual de trabajo -> modificable con el comando 'cd'	*/
+
+	private File currentDirectory = new File(System.getProperty("user.dir"));
+
+	/** Nombre del sistema operativo -> permite compatibilidad multiplataforma (Linux/Windows) */
+
+	private final String os;
+
+	/** Indica si la shell está conectada a un terminal (si no, los procesos heredan sus descriptores) */
+
+	private final boolean interactive;
+
+	/** Salida y errores de la shell (los de la JVM, o los de una sesión del servidor) */
+
+	private final PrintStream out;
+
+	private final PrintStream err;
+
+	/** Destinos de la salida de las pipelines, sin capas de codificación ni buffer */
+
+	private final OutputStream stdout;
+
+	private final OutputStream stderr;
+
+	/**
+	 * Entrada de las pipelines: la de la JVM (StreamPump.stdin, la heredan los procesos),
+	 * la de un subshell, o null en una sesión del servidor (sin entrada)
+	 */
+
+	private final InputStream stdin;
+
+	/** Los procesos pueden escribir directamente en los descriptores de la JVM (no en una sesión) */
+
+	private final boolean inheritOutput;
+
+	/** Subshell de otra shell ($(...)): sus cambios no salen de él */
+
+	private final boolean subshell;
+
+	/**
+	 * INICIALIZACIÓN PEREZOSA:
+	 * Las ejecuciones cortas ('-c', scripts) pagan el arranque de la JVM en cada
+	 * línea de comandos, así que lo que no todas usan (trabajos, estadísticas,
+	 * historial, Ctrl-C) se crea la primera vez que hace falta.
+	 */
+
+	/** Tabla de trabajos en segundo plano -> comandos 'jobs', 'wait', 'fg' y 'kill' (perezosa: jobs()) */
+
+	private JobManager jobs;
+
+	/** Lanzador de pipelines: consulta los comandos internos antes de crear procesos */
+
+	private final PipelineRunner runner;
+
+	/** Caché de rutas de ejecutables -> comando 'hash' (compartida con los subshells) */
+
+	private final CommandHash hash;
+
+	/** Comandos de la shell, alias y funciones por nombre -> 'alias', 'unalias' y 'function' */
+
+	private final CommandTable commands;
+
+	/**
+	 * Caché de líneas ya tokenizadas (scripts y bucles repiten las mismas órdenes) -> comando 'cache'.
+	 * Los alias se sustituyen al tokenizar: al cambiarlos se vacía. Un subshell
+	 * usa la de su shell hasta que cambia sus propios alias (aliasesChanged).
+	 */
+
+	private LineCache lineCache;
+
+	/** Estadísticas de latencia por comando -> comando 'stats' (null hasta el primer 'stats') */
+
+	private Metrics metrics;
+
+	/** Historial persistente (~/.minishell_history o MINISHELL_HISTFILE) -> comando 'history' y '!' (perezoso: history()) */
+
+	private History history;
+
+	/** Ctrl-C: detiene la pipeline en primer plano en lugar de la shell (solo en modo interactivo) */
+
+	private InterruptHandler interrupts;
+
+	/** Comandos internos que se ejecutan en la JVM (echo, cat, parallel...) */
+
+	private final BuiltinRegistry builtins;
+
+	/** Editor de línea con completado (modo interactivo en un terminal; null si no) */
+
+	private LineEditor editor;
+
+	private Completer completer;
+
+	/** Variables de la shell y entorno de los procesos -> 'export', 'unset' y 'A=1' */
+
+	private final Environment environment;
+
+	/** Valores para expandir $NOMBRE, $? y $$ en cada pipeline ("$@": un argumento por palabra) */
+
+	private final Variables variables = new Variables() {
+		@Override
+		public String get(String name) {
+			return variable(name);
+		}
+
+		@Override
+		public List<String> parameters() {
+			return arguments;
+		}
+	};
+
+	/** Ejecuta las sustituciones de órdenes $(...) y `...` al expandir cada pipeline */
+
+	private final CommandSubstitution substitution;
+
+	/** Tiempo máximo de cada pipeline en primer plano (0 = sin límite) -> 'timeout N' o MINISHELL_TIMEOUT */
+
+	private long defaultTimeoutMillis = 0;
+
+	/** Fin del plazo de 'timeout N' para una función o comando de la shell (System.nanoTime(); 0 = sin plazo) */
+
+	private long deadline = 0;
+
+	/** Número máximo de argumentos generados por los comodines de una pipeline -> MINISHELL_GLOB_LIMIT */
+
+	private int globLimit = GlobExpander.DEFAULT_LIMIT;
+
+	/** Tiempo empleado en tokenizar la línea en curso */
+
+	private long parseNanos = 0;
+
+	/** Código de salida del último comando ejecutado */
+
+	private int lastStatus = 0;
+
+	/** Argumentos de la función en curso -> $1..$9, $# y $@ */
+
+	private List<String> arguments = List.of();
+
+	/** Llamadas a funciones en curso */
+
+	private int functionDepth = 0;
+
+	/** Resultado de la última pipeline -> $PIPESTATUS y MINISHELL_RESULTS */
+
+	private ExecutionResult lastResult;
+
+	/**
+	 * Pipeline arrancada, sus etapas y tipo de error de la pipeline en curso (los anota
+	 * executeExternalCommand; con 'timeout N' la pipeline es la que va tras el prefijo).
+	 */
+
+	private TLine startedLine;
+
+	private List<Process> started;
+
+	private ExecutionResult.Error failure = ExecutionResult.Error.NONE;
+
+	/** Destino de una línea JSON por pipeline -> MINISHELL_RESULTS (null: desactivado) */
+
+	private PrintStream results;
+
+	/** Se activa con el comando 'exit' */
+
+	private boolean exitRequested = false;
+
+	/**
+	 * Estado que hereda un subshell. Se copia al crearlo en el hilo de la
+	 * shell: los cambios posteriores de una no se ven en la otra.
+	 */
+
+	private static final class Fork {
+		final MiniShell parent;
+		final File directory;
+		final Environment environment;
+		final CommandTable commands;
+		final List<String> arguments;
+		final int lastStatus;
+		final ExecutionResult lastResult;
+		final int functionDepth;
+		final long defaultTimeoutMillis;
+		final long deadline;
+		final int globLimit;
+		final JobManager jobs;
+		final History history;
+		final Metrics metrics;
+
+		/**
+		 * @param parent shell que se copia
+		 * @param deadline fin del plazo de 'timeout N' que debe respetar el subshell (0 = sin plazo)
+		 */
+
+		Fork(MiniShell parent, long deadline) {
+			this.parent = parent;
+			this.directory = parent.currentDirectory;
+			this.environment = parent.environment.copy();
+			this.commands = parent.commands.copy();
+			this.arguments = parent.arguments;
+			this.lastStatus = parent.lastStatus;
+			this.lastResult = parent.lastResult;
+			this.functionDepth = parent.functionDepth;
+			this.defaultTimeoutMillis = parent.defaultTimeoutMillis;
+			this.deadline = deadline;
+			this.globLimit = parent.globLimit;
+			this.jobs = parent.jobs;
+			this.history = parent.history;
+			this.metrics = parent.metrics;
+		}
+	}
+
+	public MiniShell() {
+		this(System.out, System.err, StreamPump.stdout, StreamPump.stderr, System.console() != null, true);
+	}
+
+	/**
+	 * Shell de una sesión del servidor (ShellServer): su salida va a la sesión
+	 * y no a la de la JVM. Tiene su propio directorio, variables y trabajos.
+	 *
+	 * @param stdout salida estándar de la sesión
+	 * @param stderr salida de errores de la sesión
+	 */
+
+	MiniShell(OutputStream stdout, OutputStream stderr) {
+		this(new PrintStream(new BufferedOutputStream(stdout, SESSION_BUFFER_SIZE), false, Charset.defaultCharset()),
+				new PrintStream(new BufferedOutputStream(stderr, SESSION_BUFFER_SIZE), false, Charset.defaultCharset()),
+				stdout, stderr, false, false);
+	}
+
+	private MiniShell(PrintStream out, PrintStream err, OutputStream stdout, OutputStream stderr, boolean interactive,
+			boolean inheritOutput) {
+		this.os = System.getProperty("os.name").toLowerCase();
+		this.interactive = interactive;
+		this.out = out;
+		this.err = err;
+		this.stdout = stdout;
+		this.stderr = stderr;
+		this.stdin = inheritOutput ? StreamPump.stdin : null;
+		this.inheritOutput = inheritOutput;
+		this.subshell = false;
+		this.hash = new CommandHash();
+		this.commands = new CommandTable();
+		this.lineCache = new LineCache(LineCache.DEFAULT_CAPACITY, this.commands);
+		this.environment = new Environment();
+		this.builtins = BuiltinRegistry.withDefaults();
+		this.runner = new PipelineRunner(this.os, this.builtins, this.hash);
+		this.runner.setShellStages(this::shellStage);
+		this.substitution = new CommandSubstitution(this::substitute);
+		this.builtins.register("parallel", null,
+				new Parallel(this.runner, this.environment::snapshot, this.substitution));
+		registerCommands();
+
+		String configured = System.getenv("MINISHELL_TIMEOUT");
+		if (configured != null && !configured.isBlank()) {
+			long millis = parseDuration(configured.trim());
+			if (millis >= 0) {
+				this.defaultTimeoutMillis = millis;
+			} else {
+				this.err.println("MINISHELL_TIMEOUT: duración no válida: " + configured);
+			}
+		}
+
+		// Servidor de arranque de procesos: solo en sistemas con sockets de dominio UNIX (uno para toda la JVM)
+		String spawnServer = System.getenv("MINISHELL_SPAWN_SERVER");
+		if (spawnServer != null && (spawnServer.equals("1") || spawnServer.equalsIgnoreCase("on"))
+				&& !this.os.contains("win")) {
+			this.runner.setSpawner(SpawnClient.shared());
+		}
+
+		String globLimit = System.getenv("MINISHELL_GLOB_LIMIT");
+		if (globLimit != null && !globLimit.isBlank()) {
+			try {
+				this.globLimit = Math.max(1, Integer.parseInt(globLimit.trim()));
+			} catch (NumberFormatException e) {
+				this.err.println("MINISHELL_GLOB_LIMIT: número no válido: " + globLimit);
+			}
+		}
+
+		// Resultados para otros programas: '-' es la salida de errores de la shell; si no, un archivo
+		String results = System.getenv("MINISHELL_RESULTS");
+		if (results != null && !results.isBlank()) {
+			if (results.equals("-")) {
+				this.results = this.err;
+			} else {
+				try {
+					this.results = new PrintStream(new FileOutputStream(results, true), true, StandardCharsets.UTF_8);
+				} catch (IOException e) {
+					this.err.println("MINISHELL_RESULTS: no se puede abrir " + results + ": " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Subshell: copia de una shell con su propia salida. Tiene su directorio,
+	 * variables, alias y funciones (los de la shell al crearlo) y comparte
+	 * con ella las cachés de rutas y de líneas y el servidor de arranque.
+	 *
+	 * @param fork estado copiado de la shell
+	 * @param stdin entrada estándar del subshell
+	 * @param stdout salida estándar del subshell
+	 * @param stderr salida de errores del subshell
+	 */
+
+	private MiniShell(Fork fork, InputStream stdin, OutputStream stdout, OutputStream stderr) {
+		MiniShell parent = fork.parent;
+		this.os = parent.os;
+		this.interactive = false;
+		this.out = new PrintStream(new BufferedOutputStream(stdout, SESSION_BUFFER_SIZE), false, Charset.defaultCharset());
+		this.err = new PrintStream(new BufferedOutputStream(stderr, SESSION_BUFFER_SIZE), false, Charset.defaultCharset());
+		this.stdout = stdout;
+		this.stderr = stderr;
+		this.stdin = stdin;
+		this.inheritOutput = false;
+		this.subshell = true;
+		this.hash = parent.hash;
+		this.commands = fork.commands;
+		this.lineCache = parent.lineCache;
+		this.environment = fork.environment;
+		this.currentDirectory = fork.directory;
+		this.arguments = fork.arguments;
+		this.lastStatus = fork.lastStatus;
+		this.lastResult = fork.lastResult;
+		this.functionDepth = fork.functionDepth;
+		this.defaultTimeoutMillis = fork.defaultTimeoutMillis;
+		this.deadline = fork.deadline;
+		this.globLimit = fork.globLimit;
+		this.jobs = fork.jobs == null ? null : fork.jobs.copy(this.out, this.err);
+		this.history = fork.history;
+		this.metrics = fork.metrics;
+		this.builtins = BuiltinRegistry.withDefaults();
+		this.runner = new PipelineRunner(this.os, this.builtins, this.hash);
+		this.runner.setSpawner(parent.runner.getSpawner());
+		this.runner.setShellStages(this::shellStage);
+		this.substitution = new CommandSubstitution(this::substitute);
+		this.builtins.register("parallel", null,
+				new Parallel(this.runner, this.environment::snapshot, this.substitution));
+		registerCommands();
+	}
+
+	/**
+	 * Ejecuta pipelines en un subshell.
+	 *
+	 * @param fork estado copiado de la shell
+	 * @param line primera pipeline (null: nada que ejecutar)
+	 * @param in entrada estándar del subshell
+	 * @param out salida estándar del subshell
+	 * @param err salida de errores del subshell
+	 * @return código de salida de la última pipeline ejecutada (0 si no hay ninguna)
+	 */
+
+	private static int runSubshell(Fork fork, TLine line, InputStream in, OutputStream out, OutputStream err) {
+		if (line == null) {
+			return 0;
+		}
+		MiniShell shell = new MiniShell(fork, in, out, err);
+		try {
+			return shell.runPipelines(line);
+		} finally {
+			shell.flush();
+		}
+	}
+
+	/**
+	 * Orden de una sustitución $(...) o `...` (CommandSubstitution): se ejecuta
+	 * en un subshell sin entrada y con los errores en los de esta shell.
+	 */
+
+	private int substitute(String command, OutputStream out) throws MissingFileException {
+		return runSubshell(new Fork(this, this.deadline), this.lineCache.tokenize(command), InputStream.nullInputStream(), out,
+				this.stderr);
+	}
+
+	/**
+	 * Etapa de una pipeline que ejecuta una función o un comando de la shell (PipelineRunner).
+	 *
+	 * Funciones/Comportamientos principales:
+	 * - Fuera de una orden simple ('nombre | ...', 'nombre > f', 'nombre &',
+	 * 		'parallel nombre') se ejecuta en un subshell, como en sh: un 'cd'
+	 * 		en el cuerpo de una función o en 'cd / | cat' no cambia el
+	 * 		directorio de la shell.
+	 * - El subshell usa la entrada y las salidas de la etapa; su estado se
+	 * 		copia al resolver la etapa, antes de arrancar la pipeline. Ve los
+	 * 		trabajos y el historial de la shell ('jobs | wc -l', 'history > f').
+	 * - La entrada la comparten las pipelines del cuerpo (no la cierra la
+	 * 		primera); se cierra al terminar la etapa.
+	 * - Puede tardar: se ejecuta en su propio hilo y se detiene con Ctrl-C o
+	 * 		'timeout' como cualquier otra etapa.
+	 *
+	 * @param name nombre del comando de la etapa
+	 * @return la etapa, o null si no hay una función ni un comando de la shell con ese nombre
+	 */
+
+	private Builtin shellStage(String name) {
+		TLine body = this.commands.function(name);
+		if (body == null && this.commands.command(name) == null) {
+			return null;
+		}
+		// El plazo de 'timeout N' lo aplica la pipeline que contiene la etapa
+		Fork fork = new Fork(this, 0);
+		return new Builtin() {
+			@Override
+			public int run(List<String> argv, File directory, InputStream in, OutputStream out, OutputStream err) {
+				// La entrada de la shell la siguen heredando los procesos del subshell
+				InputStream shared = in == StreamPump.stdin ? in : new FilterInputStream(in) {
+					@Override
+					public void close() {
+						// La cierra la etapa (BuiltinProcess) al terminar
+					}
+				};
+				MiniShell shell = new MiniShell(fork, shared, out, err);
+				try {
+					if (body != null) {
+						return shell.invoke(argv, body);
+					}
+					// Las redirecciones ya las ha aplicado la etapa: queda una orden simple
+					TLine simple = new TLine();
+					simple.addCommand(new TCommand(argv.get(0), argv));
+					return shell.dispatch(simple, null);
+				} finally {
+					shell.flush();
+				}
+			}
+
+			@Override
+			public boolean inline() {
+				return false;
+			}
+		};
+	}
+
+	private JobManager jobs() {
+		if (this.jobs == null) {
+			this.jobs = new JobManager(this.out, this.err);
+		}
+		return this.jobs;
+	}
+
+	private History history() {
+		if (this.history == null) {
+			String histFile = System.getenv("MINISHELL_HISTFILE");
+			Path historyPath = histFile != null && !histFile.isBlank() ? Paths.get(histFile)
+					: Paths.get(System.getProperty("user.home"), ".minishell_history");
+			this.history = new History(historyPath);
+		}
+		return this.history;
+	}
+
+	private Metrics metrics() {
+		if (this.metrics == null) {
+			this.metrics = new Metrics();
+		}
+		return this.metrics;
+	}
+
+	/** Indica si las estadísticas ('stats on') están activas */
+
+	private boolean measuring() {
+		return this.metrics != null && this.metrics.isEnabled();
+	}
+
+	/**
+	 * Búcle principal.
+	 * 
+	 * Lee los comandos de la entrada estándar. Si la shell está conectada
+	 * a un terminal muestra el prompt; si no (entrada redirigida o pipe),
+	 * funciona en modo por lotes sin prompt.
+	 * 
+	 * @return código de salida del último comando ejecutado
+	 */
+
+	public int run() {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in), INPUT_BUFFER_SIZE);
+
+		// Editor de línea con tabulador (se desactiva con MINISHELL_EDITOR=off)
+		String editorSetting = System.getenv("MINISHELL_EDITOR");
+		if (this.interactive && !"off".equalsIgnoreCase(editorSetting) && !"0".equals(editorSetting)) {
+			Set<String> commands = this.commands.names();
+			commands.addAll(KEYWORDS);
+			commands.addAll(this.builtins.names());
+			Completer completer = new Completer(commands, () -> this.environment.snapshot().get("PATH"));
+			this.editor = LineEditor.open(completer, () -> this.currentDirectory, this::history);
+			if (this.editor != null) {
+				this.completer = completer;
+				completer.refresh(this.currentDirectory);
+			}
+		}
+		return run(reader, this.interactive);
+	}
+
+	/**
+	 * Ejecuta los comandos leídos de un flujo (terminal, script o entrada redirigida).
+	 * 
+	 * Por cada iteración ejecuta la lectura de comandos y, si procede, muestra el prompt.
+	 * - Ejecuta cada línea con runLine().
+	 * - Termina con 'exit' o al llegar al final de la entrada (EOF).
+	 * 
+	 * @param reader origen de las líneas
+	 * @param showPrompt true en modo interactivo
+	 * @return código de salida del último comando ejecutado
+	 */
+
+	public int run(BufferedReader reader, boolean showPrompt) {
+
+		// En modo interactivo Ctrl-C detiene el comando en curso, no la shell.
+		if (showPrompt && this.interrupts == null) {
+			InterruptHandler handler = new InterruptHandler(DESTROY_GRACE_MILLIS, () -> {
+				this.out.println();
+				printPrompt();
+			});
+			if (handler.install()) {
+				this.interrupts = handler;
+			}
+		}
+
+		while (!this.exitRequested) {
+
+			// Avisar de los trabajos en segundo plano que han terminado desde el último prompt.
+			if (this.jobs != null) {
+				jobs.reportFinished();
+			}
+
+			String input;
+			try {
+				input = readLine(reader, showPrompt ? DISPLAYED_PROMPT : null);
+			} catch (IOException e) {
+				this.err.println("Error al leer la entrada: " + e.getMessage());
+				break;
+			}
+
+			// Fin de la entrada (Ctrl-D o fin del script): se sale con el último código.
+			if (input == null) {
+				if (showPrompt) {
+					this.out.println();
+				}
+				break;
+			}
+
+			input = input.trim();
+
+			// Si la línea está vacía (el usuario solo pulsó Enter), vuelve a mostrarse el prompt.
+			if (input.isEmpty()) {
+				continue;
+			}
+
+			/**
+			 * HISTORIAL (solo en modo interactivo, como bash):
+			 * Se expanden las referencias '!!', '!n' y '!prefijo', se muestra la
+			 * línea resultante y se guarda en el historial.
+			 */
+
+			if (showPrompt) {
+				try {
+					String expanded = history().expand(input);
+					if (!expanded.equals(input)) {
+						this.out.println(expanded);
+						input = expanded;
+					}
+				} catch (IllegalArgumentException e) {
+					this.err.println(e.getMessage());
+					continue;
+				}
+				history().add(input);
+			}
+
+			/**
+			 * CONTINUACIÓN EN VARIAS LÍNEAS:
+			 * Si la orden no está completa (termina en '|', '&&', '||' o '\\', queda
+			 * una comilla sin cerrar o falta el delimitador de un documento en línea
+			 * <<FIN) se leen más líneas, sin recortar: el cuerpo del documento se
+			 * usa tal cual.
+			 */
+
+			StringBuilder pending = null;
+			while (!Tokenizer.isComplete(pending == null ? input : pending.toString())) {
+				if (pending == null) {
+					pending = new StringBuilder(input);
+				}
+				String more;
+				try {
+					more = readLine(reader, showPrompt ? CONTINUATION_PROMPT : null);
+				} catch (IOException e) {
+					this.err.println("Error al leer la entrada: " + e.getMessage());
+					more = null;
+				}
+				// Fin de la entrada a mitad de una orden: se ejecuta lo leído
+				if (more == null) {
+					break;
+				}
+				pending.append('\n').append(more);
+			}
+			if (pending != null) {
+				input = pending.toString();
+			}
+
+			runLine(input);
+		}
+
+		if (showPrompt && this.exitRequested) {
+			this.out.println("Saliendo...");
+		}
+		this.out.flush();
+		return this.lastStatus;
+	}
+
+	private void printPrompt() {
+		this.out.print(DISPLAYED_PROMPT);
+		this.out.flush();
+	}
+
+	/**
+	 * Lee una línea con el editor (si lo hay) o del flujo.
+	 *
+	 * @param reader origen de las líneas sin editor
+	 * @param prompt prompt que mostrar, o null en modo por lotes
+	 * @return la línea, o null al final de la entrada
+	 */
+
+	private String readLine(BufferedReader reader, String prompt) throws IOException {
+		if (prompt != null && this.editor != null) {
+			return this.editor.readLine(prompt);
+		}
+		if (prompt != null) {
+			this.out.print(prompt);
+			this.out.flush();
+		}
+		return reader.readLine();
+	}
+
+	/**
+	 * Ejecuta una línea completa.
+	 * 
+	 * Funciones/Comportamientos principales: 
+	 * - Convierte la entrada en pipelines con la clase Tokenizer.
+	 * - Las pipelines separadas por ';' o '&' se ejecutan siempre.
+	 * - Tras '&&' la siguiente solo se ejecuta si la anterior terminó con éxito (0),
+	 * 		y tras '||' solo si falló.
+	 * 
+	 * @param input
+	 * @return código de salida de la última pipeline ejecutada
+	 */
+
+	public int runLine(String input) {
+		try {
+
+			// Convierte la entrada del usuario en comandos y argumentos.
+			// Si la misma línea ya se tokenizó, se reutiliza el resultado (inmutable).
+			
+			long start = System.nanoTime();
+			TLine line = lineCache.tokenize(input);
+			this.parseNanos = System.nanoTime() - start;
+
+			if (measuring()) {
+				metrics.recordParse(this.parseNanos);
+			}
+
+			runPipelines(line);
+
+		} catch (MissingFileException e) {
+			this.err.println("Error de sintaxis: " + e.getMessage());
+			this.lastStatus = 2;
+			publish(new ExecutionResult(input, 2, ExecutionResult.Error.SYNTAX));
+		}
+		return this.lastStatus;
+	}
+
+	/**
+	 * Ejecuta las pipelines encadenadas de una línea (o del cuerpo de una función).
+	 *
+	 * Funciones/Comportamientos principales:
+	 * - Las pipelines separadas por ';' o '&' se ejecutan siempre.
+	 * - Tras '&&' la siguiente solo se ejecuta si la anterior terminó con éxito (0),
+	 * 		y tras '||' solo si falló.
+	 * - Una definición de función ('function nombre { ... }') la guarda en la
+	 * 		tabla de órdenes con su cuerpo ya tokenizado.
+	 * - Un subshell interrumpido (se detiene la orden que lo contiene) no
+	 * 		ejecuta las pipelines que le quedan.
+	 *
+	 * @param line primera pipeline (null: nada que ejecutar)
+	 * @return código de salida de la última pipeline ejecutada
+	 */
+
+	private int runPipelines(TLine line) {
+		TLine.Separator previous = TLine.Separator.SEQUENCE;
+
+		for (TLine l = line; l != null && !this.exitRequested; l = l.getNext()) {
+
+			if (this.subshell && Thread.currentThread().isInterrupted()) {
+				break;
+			}
+
+			boolean skip = (previous == TLine.Separator.AND && this.lastStatus != 0)
+					|| (previous == TLine.Separator.OR && this.lastStatus == 0);
+
+			if (!skip && l.getFunction() != null) {
+				this.commands.define(l.getFunction(), l.getBody());
+				this.lastStatus = 0;
+			} else if (!skip && l.getNcommands() > 0) {
+				this.lastStatus = execute(l);
+			}
+			previous = l.getSeparator();
+		}
+		return this.lastStatus;
+	}
+
+	/**
+	 * Ejecuta una pipeline, midiéndola si va precedida de 'time', si las
+	 * estadísticas están activas ('stats on') o si se publican los resultados
+	 * (MINISHELL_RESULTS). Sin medición no se crea ningún objeto de medida.
+	 * 
+	 * @param line
+	 * @return código de salida
+	 */
+
+	private int execute(TLine line) {
+		this.startedLine = null;
+		this.started = null;
+		this.failure = ExecutionResult.Error.NONE;
+
+		// La medición incluye la expansión: las sustituciones de órdenes forman parte de la pipeline
+		PipelineTiming timing = line.isTimed() || measuring() || this.results != null
+				? new PipelineTiming(this.parseNanos) : null;
+
+		// Las variables, las sustituciones de órdenes y los comodines se sustituyen justo antes de
+		// ejecutar: cada pipeline ve los cambios de la anterior ('A=1; echo $A', 'touch a.c; ls *.c').
+		this.substitution.reset();
+		try {
+			line = line.expand(this.variables,
+					line.hasGlobs() ? new GlobExpander(this.currentDirectory, this.globLimit) : null,
+					this.substitution);
+		} catch (ArgumentLimitException e) {
+			this.err.println(e.getMessage());
+			this.failure = ExecutionResult.Error.ARGUMENTS;
+			return record(line, 126, null);
+		} catch (SubstitutionException e) {
+			this.err.println(e.getMessage());
+			this.failure = ExecutionResult.Error.SUBSTITUTION;
+			return record(line, 1, null);
+		}
+
+		if (timing == null) {
+			return record(line, dispatch(line, null), null);
+		}
+
+		int status = dispatch(line, timing);
+		timing.finish(line, status);
+
+		if (line.isTimed()) {
+			timing.report(this.err);
+		}
+		if (measuring()) {
+			timing.record(metrics);
+		}
+		return record(line, status, timing);
+	}
+
+	/**
+	 * Guarda el resultado de la pipeline recién ejecutada ($PIPESTATUS) y lo
+	 * publica si se ha pedido (MINISHELL_RESULTS).
+	 *
+	 * @param line
+	 * @param status código de salida de la pipeline
+	 * @param timing medición (null si no se ha medido)
+	 * @return status
+	 */
+
+	private int record(TLine line, int status, PipelineTiming timing) {
+		TLine executed = this.startedLine != null ? this.startedLine : line;
+		// El texto es el de la entrada ('timeout 5 cat < f'), no el de las palabras ya expandidas
+		String text = line.getSource() != null ? line.getSource() : describe(executed);
+		publish(new ExecutionResult(executed, text, status, this.failure, this.started, timing));
+		return status;
+	}
+
+	private void publish(ExecutionResult result) {
+		this.lastResult = result;
+		if (this.results != null) {
+			// Lo escrito antes por la shell va delante, como con cualquier otro mensaje
+			this.out.flush();
+			this.results.println(result.toJson());
+			this.results.flush();
+		}
+	}
+
+	/**
+	 * Ejecuta una pipeline: funciones, comandos internos de la shell (tabla de
+	 * órdenes) o delega al método executeExternalCommand().
+	 * 
+	 * @param line
+	 * @param timing medición en curso (null si no se mide)
+	 * @return código de salida
+	 */
+
+	private int dispatch(TLine line, PipelineTiming timing) {
+
+		// Se crea un objeto TCommand en el primer comando para ver si se trata de uno interno.
+		
+		TCommand cmd = line.getCommands().get(0);
+
+		/**
+		 * ASIGNACIONES: 'A=1 B=2' sin comando cambia las variables de la shell.
+		 * En una pipeline ('A=1 | cat') la etapa no hace nada, como en sh.
+		 * Con redirecciones ('> vacio') la etapa solo abre sus archivos.
+		 */
+
+		if (cmd.getArgv().isEmpty()) {
+			if (line.getNcommands() == 1) {
+				for (String assignment : cmd.getAssignments()) {
+					int eq = assignment.indexOf('=');
+					environment.set(assignment.substring(0, eq), assignment.substring(eq + 1));
+				}
+			}
+			if (line.getNcommands() > 1 || !cmd.getRedirections().isEmpty()) {
+				return executeExternalCommand(line, timing, this.defaultTimeoutMillis);
+			}
+			// 'A=$(cmd)' termina con el código de la orden, como en sh
+			return this.substitution.lastStatus();
+		}
+
+		// Se guarda el primer argumento (nombre) del comando.
+		String cmdName = cmd.getArgv().get(0);
+
+		/**
+		 * FUNCIONES: su cuerpo se tokenizó al definirla; se ejecuta en esta shell
+		 * con los argumentos como $1, $2... En una pipeline, con redirecciones o
+		 * en segundo plano es una etapa más, en un subshell (shellStage).
+		 */
+
+		TLine body = this.commands.function(cmdName);
+		if (body != null) {
+			if (line.getNcommands() > 1 || !cmd.getRedirections().isEmpty() || line.isBackground()) {
+				return executeExternalCommand(line, timing, this.defaultTimeoutMillis);
+			}
+			return callFunction(line, body);
+		}
+
+		/**
+		 * COMANDOS INTERNOS DE LA SHELL: una búsqueda en la tabla de órdenes
+		 * (registerCommands) en lugar de comparar el nombre con cada uno.
+		 * Como las funciones, solo cambian esta shell en una orden simple: en
+		 * una pipeline ('alias | wc -l'), con redirecciones ('hash > f') o en
+		 * segundo plano son una etapa más, en un subshell (shellStage).
+		 * 'timeout' recibe siempre la pipeline entera.
+		 */
+
+		CommandTable.Command command = this.commands.command(cmdName);
+		if (command != null && (this.commands.isPrefix(cmdName)
+				|| line.getNcommands() == 1 && cmd.getRedirections().isEmpty() && !line.isBackground())) {
+			return command.run(line, timing);
+		}
+
+		/**
+		 * COMANDOS EXTERNOS 
+		 * Este método se encargará de crear procesos, unir pipes y aplicar las redirecciones.
+		 */
+
+		return executeExternalCommand(line, timing, this.defaultTimeoutMillis);
+	}
+
+	/**
+	 * Rellena la tabla de órdenes con los comandos internos de la propia shell
+	 * (los que cambian su estado: directorio, variables, trabajos...).
+	 */
+
+	private void registerCommands() {
+
+		// exit [n]: finaliza el bucle y la aplicación
+		commands.register("exit", (line, timing) -> handleExit(first(line)));
+
+		// cd: cambio de directorio con rutas absolutas o relativas
+		commands.register("cd", (line, timing) -> handleCd(first(line)));
+
+		// Control de trabajos: jobs, wait [id], fg [id] y kill [-9] %id|pid
+		commands.register("jobs", (line, timing) -> {
+			jobs().list();
+			return 0;
+		});
+		commands.register("wait", (line, timing) -> jobs().waitFor(first(line).getArgv()));
+		commands.register("fg", (line, timing) -> jobs().foreground(first(line).getArgv()));
+		commands.register("kill", this::handleKill);
+
+		// hash: muestra, amplía (hash nombre...) o vacía (hash -r) la caché de rutas de ejecutables
+		commands.register("hash", (line, timing) -> handleHash(first(line)));
+
+		// cache: aciertos/fallos de la caché de líneas tokenizadas, o la vacía (cache -r)
+		commands.register("cache", (line, timing) -> {
+			TCommand cmd = first(line);
+			if (cmd.getArgc() > 1 && cmd.getArgv().get(1).equals("-r")) {
+				lineCache.clear();
+			} else {
+				this.out.println("Caché de líneas: " + lineCache.size() + "/" + lineCache.getCapacity()
+						+ " entradas, " + lineCache.getHits() + " aciertos, " + lineCache.getMisses() + " fallos");
+			}
+			return 0;
+		});
+
+		// stats: percentiles de latencia por comando; 'stats on|off' y 'stats -r'
+		commands.register("stats", (line, timing) -> handleStats(first(line)));
+
+		// history: muestra o busca en el historial de comandos
+		commands.register("history", (line, timing) -> handleHistory(first(line)));
+
+		// timeout: pipeline con tiempo máximo (timeout 5 cmd | ...) o tiempo por defecto (timeout 5)
+		commands.registerPrefix("timeout", this::handleTimeout);
+
+		// Variables: export [NOMBRE[=valor]...] y unset [-f] NOMBRE...
+		commands.register("export", (line, timing) -> handleExport(first(line)));
+		commands.register("unset", (line, timing) -> handleUnset(first(line)));
+
+		// Alias: alias [nombre[=texto]...] y unalias [-a] nombre...
+		commands.register("alias", (line, timing) -> handleAlias(first(line)));
+		commands.register("unalias", (line, timing) -> handleUnalias(first(line)));
+	}
+
+	/**
+	 * kill: TERM y KILL a trabajos o PIDs en la propia shell; cualquier otra
+	 * forma ('kill -l', 'kill -HUP pid', 'kill -USR1 %1') la ejecuta el 'kill'
+	 * del sistema, con los trabajos traducidos a sus PIDs.
+	 *
+	 * @param line
+	 * @param timing medición en curso (null si no se mide)
+	 * @return código de salida
+	 */
+
+	private int handleKill(TLine line, PipelineTiming timing) {
+		List<String> args = first(line).getArgv();
+		if (jobs().handles(args)) {
+			return jobs().kill(args);
+		}
+		List<String> argv = jobs().external(args);
+		if (argv == null) {
+			return 1;
+		}
+		// Por su ruta: con el nombre, la etapa volvería a ser este comando (shellStage)
+		Path program = hash.resolve(argv.get(0), this.currentDirectory, environment.snapshot().get("PATH"));
+		if (program == null) {
+			this.err.println(new CommandNotFoundException(argv.get(0)).getMessage());
+			return 127;
+		}
+		argv.set(0, program.toString());
+		return executeExternalCommand(line.withArgv(argv), timing, this.defaultTimeoutMillis);
+	}
+
+	private static TCommand first(TLine line) {
+		return line.getCommands().get(0);
+	}
+
+	/**
+	 * Ejecuta una función llamada como orden simple en esta shell (no en un
+	 * subshell, como en sh): un 'cd' en su cuerpo cambia su directorio.
+	 *
+	 * @param line llamada ('nombre args...')
+	 * @param body pipelines del cuerpo
+	 * @return código de salida de la última pipeline del cuerpo
+	 */
+
+	private int callFunction(TLine line, TLine body) {
+		try {
+			return invoke(first(line).getArgv(), body);
+		} finally {
+			// El resultado de la llamada es el de una sola etapa ('nombre args'), no el de su cuerpo
+			this.startedLine = null;
+			this.started = null;
+			this.failure = ExecutionResult.Error.NONE;
+		}
+	}
+
+	/**
+	 * Ejecuta el cuerpo de una función.
+	 *
+	 * Funciones/Comportamientos principales:
+	 * - Su cuerpo ya está tokenizado: cada llamada solo expande y ejecuta sus pipelines.
+	 * - Los argumentos son $1..$9, $# y $@ mientras dura la llamada.
+	 *
+	 * @param argv nombre de la función y argumentos
+	 * @param body pipelines del cuerpo
+	 * @return código de salida de la última pipeline del cuerpo
+	 */
+
+	private int invoke(List<String> argv, TLine body) {
+		if (this.functionDepth >= FUNCTION_DEPTH_LIMIT) {
+			this.err.println(argv.get(0) + ": demasiadas llamadas anidadas (máximo " + FUNCTION_DEPTH_LIMIT + ")");
+			return 1;
+		}
+
+		List<String> saved = this.arguments;
+		this.arguments = List.copyOf(argv.subList(1, argv.size()));
+		this.functionDepth++;
+		try {
+			return runPipelines(body);
+		} finally {
+			this.functionDepth--;
+			this.arguments = saved;
+		}
+	}
+
+	/** Indica si se ha ejecutado 'exit' (una sesión del servidor se cierra) */
+
+	boolean isExitRequested() {
+		return this.exitRequested;
+	}
+
+	/** Vuelca lo que la shell haya escrito (p.ej. antes de enviar el código de salida de una sesión) */
+
+	void flush() {
+		this.out.flush();
+		this.err.flush();
+	}
+
+	/**
+	 * Cierra la shell de una sesión: termina sus trabajos en segundo plano,
+	 * que ya no tienen a dónde enviar su salida.
+	 */
+
+	void close() {
+		if (this.jobs != null) {
+			this.jobs.killAll();
+		}
+		flush();
+		if (this.results != null && this.results != this.err) {
+			this.results.close();
+		}
+	}
+
+	/**
+	 * Termina la shell.
+	 * 
+	 * - Sin argumentos sale con el código del último comando.
+	 * - Con argumento numérico ("exit 3") sale con ese código.
+	 * 
+	 * @param cmd
+	 * @return código de salida de la shell
+	 */
+
+	private int handleExit(TCommand cmd) {
+		List<String> args = cmd.getArgv();
+		this.exitRequested = true;
+
+		if (args.size() < 2) {
+			return this.lastStatus;
+		}
+		try {
+			return Integer.parseInt(args.get(1)) & 0xFF;
+		} catch (NumberFormatException e) {
+			this.err.println("exit: se requiere un argumento numérico: " + args.get(1));
+			return 2;
+		}
+	}
+
+	/**
+	 * Cambia el directorio actual de trabajo.
+	 * 
+	 * Funciones/Comportamientos principales: 
+	 * - Si no se pasa argumento ( solo "cd" ), se va al directorio home del usuario.
+	 * - Si se pasa una ruta relativa, se interpreta respecto al directorio actual.
+	 * - Se normaliza la ruta con getCanonicalFile() para resolver '..' o '.' .
+	 * 		Subida de nivel o mostrar el directorio actual.
+	 * - Si la ruta no existe o no es un directorio, se informa al usuario.
+	 * 
+	 * @param cmd
+	 * @return 0 si se cambia de directorio, 1 si no existe
+	 */
+	
+	private int handleCd(TCommand cmd) {
+		
+		//Obtenemos los argumentos del comando.
+		List<String> args = cmd.getArgv();
+
+		if (args.size() < 2) {
+			this.currentDirectory = new File(System.getProperty("user.home"));
+			environment.set("PWD", this.currentDirectory.getPath());
+		} else {
+			
+			// Se toma el primer argumento como ruta objetivo.
+			String pathArg = args.get(1);
+			
+			// El programa crea un archivo con esa ruta tal cual (bien relativa o absoluta)
+			
+			File targetDir = new File(pathArg);
+
+			// Si la ruta no es absoluta, se interpreta como relativa en el directorio actual.
+			
+			if (!targetDir.isAbsolute()) {
+				targetDir = new File(this.currentDirectory, pathArg);
+			}
+
+			try {				
+				targetDir = targetDir.getCanonicalFile();
+			} catch (IOException e) {
+				this.err.println("Error al acceder al directorio: " + e.getMessage());
+			}
+
+			// Actualizar el directorio actual o mostrar error.
+			
+			if (targetDir.exists() && targetDir.isDirectory()) {
+				this.currentDirectory = targetDir;
+				environment.set("PWD", targetDir.getPath());
+			} else {
+				this.err.println("No existe el directorio: " + pathArg);
+				return 1;
+			}
+		}
+
+		// El completado de archivos tiene listo el nuevo directorio antes del siguiente tabulador
+		if (this.completer != null) {
+			this.completer.refresh(this.currentDirectory);
+		}
+
+		// En un subshell la salida es la de la orden: 'echo $(cd /; pwd)' muestra solo '/'
+		if (!this.subshell) {
+			this.out.println("Directorio actual: " + this.currentDirectory.getAbsolutePath());
+		}
+		return 0;
+	}
+	
+	/**
+	 * Valor de una variable al expandir una pipeline.
+	 * 
+	 * @param name nombre de la variable ('?' es el código del último comando, 'PIPESTATUS'
+	 * 		el de cada etapa de la última pipeline, '$' el PID de la shell y '1'-'9',
+	 * 		'#' y '@' los argumentos de la función en curso)
+	 * @return valor, o null si no existe
+	 */
+
+	private String variable(String name) {
+		switch (name) {
+			case "?":
+				return Integer.toString(this.lastStatus);
+			case "PIPESTATUS":
+				return this.lastResult != null ? this.lastResult.pipeStatus() : Integer.toString(this.lastStatus);
+			case "$":
+				return Long.toString(ProcessHandle.current().pid());
+			case "0":
+				return "minishell";
+			case "#":
+				return Integer.toString(this.arguments.size());
+			case "@":
+				return String.join(" ", this.arguments);
+			default:
+				if (name.length() == 1 && name.charAt(0) >= '1' && name.charAt(0) <= '9') {
+					int index = name.charAt(0) - '1';
+					return index < this.arguments.size() ? this.arguments.get(index) : null;
+				}
+				return environment.get(name);
+		}
+	}
+
+	/**
+	 * Exporta variables al entorno de los procesos.
+	 * 
+	 * Funciones/Comportamientos principales: 
+	 * - "export" lista las variables exportadas.
+	 * - "export A=1" asigna y exporta; "export A" exporta el valor actual de A.
+	 * 
+	 * @param cmd
+	 * @return 0, o 1 si algún nombre no es válido
+	 */
+
+	private int handleExport(TCommand cmd) {
+		List<String> args = cmd.getArgv();
+
+		if (args.size() < 2) {
+			environment.snapshot().variables()
+					.forEach((name, value) -> this.out.println("export " + name + "=\"" + value + "\""));
+			return 0;
+		}
+
+		int status = 0;
+		for (String arg : args.subList(1, args.size())) {
+			int eq = arg.indexOf('=');
+			String name = eq < 0 ? arg : arg.substring(0, eq);
+			if (!Environment.isName(name)) {
+				this.err.println("export: nombre de variable no válido: " + arg);
+				status = 1;
+			} else {
+				environment.export(name, eq < 0 ? null : arg.substring(eq + 1));
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Elimina variables de la shell y del entorno de los procesos
+	 * ('unset -f nombre...' elimina funciones).
+	 * 
+	 * @param cmd
+	 * @return 0, o 1 si algún nombre no es válido
+	 */
+
+	private int handleUnset(TCommand cmd) {
+		List<String> args = cmd.getArgv();
+		if (args.size() > 1 && args.get(1).equals("-f")) {
+			for (String name : args.subList(2, args.size())) {
+				this.commands.undefine(name);
+			}
+			return 0;
+		}
+
+		int status = 0;
+		for (String name : args.subList(1, args.size())) {
+			if (!Environment.isName(name)) {
+				this.err.println("unset: nombre de variable no válido: " + name);
+				status = 1;
+			} else {
+				environment.unset(name);
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Define o muestra alias.
+	 * 
+	 * Funciones/Comportamientos principales: 
+	 * - "alias" los lista todos; "alias nombre" muestra uno.
+	 * - "alias nombre=texto" lo define: el texto sustituye al nombre cuando es el
+	 * 		comando de una orden, una sola vez al tokenizarla. Las líneas ya
+	 * 		tokenizadas con los alias anteriores se descartan de la caché.
+	 * 
+	 * @param cmd
+	 * @return 0, o 1 si algún alias no existe o su nombre no es válido
+	 */
+
+	private int handleAlias(TCommand cmd) {
+		List<String> args = cmd.getArgv();
+
+		if (args.size() < 2) {
+			this.commands.aliases().forEach((name, value) -> this.out.println(describeAlias(name, value)));
+			return 0;
+		}
+
+		int status = 0;
+		for (String arg : args.subList(1, args.size())) {
+			int eq = arg.indexOf('=');
+			String name = eq < 0 ? arg : arg.substring(0, eq);
+			if (eq < 0) {
+				String value = this.commands.get(name);
+				if (value == null) {
+					this.err.println("alias: " + name + ": no encontrado");
+					status = 1;
+				} else {
+					this.out.println(describeAlias(name, value));
+				}
+			} else if (!isAliasName(name)) {
+				this.err.println("alias: nombre no válido: " + name);
+				status = 1;
+			} else {
+				this.commands.alias(name, arg.substring(eq + 1));
+				aliasesChanged();
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Elimina alias ('unalias -a' los elimina todos).
+	 * 
+	 * @param cmd
+	 * @return 0, o 1 si alguno no existe
+	 */
+
+	private int handleUnalias(TCommand cmd) {
+		List<String> args = cmd.getArgv();
+		List<String> names = args.size() > 1 && args.get(1).equals("-a")
+				? List.copyOf(this.commands.aliases().keySet()) : args.subList(1, args.size());
+
+		int status = 0;
+		for (String name : names) {
+			if (!this.commands.unalias(name)) {
+				this.err.println("unalias: " + name + ": no encontrado");
+				status = 1;
+			}
+		}
+		aliasesChanged();
+		return status;
+	}
+
+	/**
+	 * Descarta las líneas tokenizadas con los alias anteriores. Un subshell no
+	 * vacía la caché de su shell: pasa a tener una propia con sus alias.
+	 */
+
+	private void aliasesChanged() {
+		if (this.subshell) {
+			this.lineCache = new LineCache(LineCache.DEFAULT_CAPACITY, this.commands);
+		} else {
+			this.lineCache.clear();
+		}
+	}
+
+	/** Alias tal como se volvería a definir: alias ll='ls -l' */
+
+	private static String describeAlias(String name, String value) {
+		return "alias " + name + "='" + value.replace("'", "'\\''") + "'";
+	}
+
+	/** Nombre de alias: una palabra sin espacios, comillas, operadores, '$', '/' ni comodines */
+
+	private static boolean isAliasName(String name) {
+		if (name.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if (" \t\n'\"\\|&;<>()$`=/*?[]{}".indexOf(name.charAt(i)) >= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gestiona la caché de rutas de ejecutables.
+	 * 
+	 * Funciones/Comportamientos principales: 
+	 * - "hash" lista los comandos guardados y cuántas veces se han usado.
+	 * - "hash -r" vacía la caché.
+	 * - "hash nombre..." busca los comandos en el PATH y los guarda.
+	 * 
+	 * @param cmd
+	 * @return 0, o 1 si algún comando no se encuentra
+	 */
+
+	private int handleHash(TCommand cmd) {
+		List<String> args = cmd.getArgv();
+
+		if (args.size() < 2) {
+			List<String> entries = hash.list();
+			if (entries.isEmpty()) {
+				this.out.println("hash: tabla vacía");
+			} else {
+				this.out.println("usos\tcomando");
+				entries.forEach(this.out::println);
+			}
+			return 0;
+		}
+
+		int status = 0;
+		for (String name : args.subList(1, args.size())) {
+			if (name.equals("-r")) {
+				hash.clear();
+			} else if (hash.resolve(name, this.currentDirectory, environment.snapshot().get("PATH")) == null) {
+				this.err.println("hash: " + name + ": no encontrado");
+				status = 1;
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Gestiona las estadísticas de ejecución.
+	 * 
+	 * Funciones/Comportamientos principales: 
+	 * - "stats" muestra, por comando, el número de ejecuciones y los percentiles de latencia.
+	 * - "stats on" / "stats off" activa o desactiva la medición de cada pipeline.
+	 * - "stats -r" descarta las muestras acumuladas.
+	 * 
+	 * @param cmd
+	 * @return 0, o 2 si la opción no es válida
+	 */
+
+	private int handleStats(TCommand cmd) {
+		List<String> args = cmd.getArgv();
+
+		if (args.size() < 2) {
+			List<String> lines = metrics().report();
+			if (lines.isEmpty()) {
+				this.out.println("stats: sin muestras" + (measuring() ? "" : " (activar con 'stats on')"));
+			} else {
+				lines.forEach(this.out::println);
+			}
+			return 0;
+		}
+
+		switch (args.get(1)) {
+		case "on":
+			metrics().setEnabled(true);
+			return 0;
+		case "off":
+			metrics().setEnabled(false);
+			return 0;
+		case "-r":
+			metrics().reset();
+			return 0;
+		default:
+			this.err.println("stats: opción no válida: " + args.get(1) + " (uso: stats [on|off|-r])");
+			return 2;
+		}
+	}
+
+	/**
+	 * Muestra o busca en el historial de comandos.
+	 * 
+	 * Funciones/Comportamientos principales: 
+	 * - "history" muestra todas las líneas numeradas y "history N" solo las N últimas.
+	 * - "history -s texto" busca las líneas que contienen el texto, de la más
+	 * 		reciente a la más antigua (índice de trigramas: no recorre todo el historial).
+	 * - "history -c" vacía el historial, también el archivo.
+	 * 
+	 * @param cmd
+	 * @return 0, 1 si la búsqueda no encuentra nada o 2 si los argumentos no son válidos
+	 */
+
+	private int handleHistory(TCommand cmd) {
+		List<String> args = cmd.getArgv();
+		History history = history();
+		int size = history.size();
+		int first = 0;
+
+		if (args.size() > 1) {
+			String option = args.get(1);
+
+			if (option.equals("-c")) {
+				history.clear();
+				return 0;
+
+			} else if (option.equals("-s")) {
+				if (args.size() < 3) {
+					this.err.println("history: -s: se requiere un texto");
+					return 2;
+				}
+				List<Integer> found = history.search(String.join(" ", args.subList(2, args.size())), HISTORY_SEARCH_LIMIT);
+				StringBuilder sb = new StringBuilder();
+				for (int id : found) {
+					sb.append(String.format("%5d  %s%n", id + 1, history.get(id)));
+				}
+				this.out.print(sb);
+				return found.isEmpty() ? 1 : 0;
+			}
+
+			try {
+				first = Math.max(0, size - Integer.parseInt(option));
+			} catch (NumberFormatException e) {
+				this.err.println("history: argumento no válido: " + option + " (uso: history [N | -s texto | -c])");
+				return 2;
+			}
+		}
+
+		// Volcado por bloques: el historial puede tener millones de líneas
+		StringBuilder sb = new StringBuilder();
+		for (int id = first; id < size; id++) {
+			sb.append(String.format("%5d  %s%n", id + 1, history.get(id)));
+			if (sb.length() >= INPUT_BUFFER_SIZE) {
+				this.out.print(sb);
+				sb.setLength(0);
+			}
+		}
+		this.out.print(sb);
+		return 0;
+	}
+
+	/**
+	 * Limita el tiempo de ejecución de las pipelines.
+	 * 
+	 * Funciones/Comportamientos principales: 
+	 * - "timeout" muestra el tiempo máximo por defecto.
+	 * - "timeout N" lo cambia para todas las pipelines en primer plano (0 lo desactiva).
+	 * - "timeout N cmd args | ..." ejecuta la pipeline con tiempo máximo N, también
+	 * 		en segundo plano. Al agotarse se detiene y termina con el código 124.
+	 * - La orden se resuelve como cualquier otra (dispatch): los comandos de la
+	 * 		shell (cd, export...) se ejecutan al momento y en una función el plazo
+	 * 		es el de todas las pipelines de su cuerpo juntas.
+	 * - N son segundos, admite decimales y los sufijos s, m y h (como timeout(1)).
+	 * 
+	 * @param line
+	 * @param timing medición en curso (null si no se mide)
+	 * @return código de salida de la pipeline, 124 si se agota el tiempo o 125 si N no es válido
+	 */
+
+	private int handleTimeout(TLine line, PipelineTiming timing) {
+		List<String> args = line.getCommands().get(0).getArgv();
+
+		if (args.size() < 2) {
+			this.out.println(this.defaultTimeoutMillis == 0 ? "timeout: sin límite"
+					: "timeout: " + (this.defaultTimeoutMillis / 1000.0) + "s");
+			return 0;
+		}
+
+		long millis = parseDuration(args.get(1));
+		if (millis < 0) {
+			this.err.println("timeout: duración no válida: " + args.get(1));
+			return 125;
+		}
+
+		TLine target = line.dropPrefix(2);
+		if (target == null) {
+			this.defaultTimeoutMillis = millis;
+			return 0;
+		}
+
+		long saved = this.deadline;
+		if (millis > 0) {
+			long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+			this.deadline = saved != 0 && saved - end < 0 ? saved : end;
+		}
+		try {
+			return dispatch(target, timing);
+		} finally {
+			this.deadline = saved;
+		}
+	}
+
+	/**
+	 * Tiempo máximo de una pipeline: el indicado o lo que quede del plazo de
+	 * 'timeout N' en curso, lo que sea menor.
+	 *
+	 * @param timeoutMillis tiempo máximo propio (0 = sin límite)
+	 * @return milisegundos (0 = sin límite)
+	 */
+
+	private long limit(long timeoutMillis) {
+		if (this.deadline == 0) {
+			return timeoutMillis;
+		}
+		long remaining = Math.max(1, TimeUnit.NANOSECONDS.toMillis(this.deadline - System.nanoTime()));
+		return timeoutMillis == 0 ? remaining : Math.min(timeoutMillis, remaining);
+	}
+
+	/**
+	 * Convierte una duración ("10", "1.5", "2m", "1h") a milisegundos.
+	 * 
+	 * @param text
+	 * @return milisegundos, o -1 si no es válida
+	 */
+
+	private static long parseDuration(String text) {
+		long unit = 1000;
+		String number = text;
+
+		char suffix = text.isEmpty() ? ' ' : text.charAt(text.length() - 1);
+		if (suffix == 's' || suffix == 'm' || suffix == 'h') {
+			unit = suffix == 's' ? 1000 : suffix == 'm' ? 60_000 : 3_600_000;
+			number = text.substring(0, text.length() - 1);
+		}
+
+		try {
+			double value = Double.parseDouble(number);
+			if (value < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+				return -1;
+			}
+			return (long) Math.ceil(value * unit);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Método para ejecutar comandos externos.
+	 * 
+	 * Funciones/Comportamientos principales: 
+	 * - Recibe un TLine que puede contener una secuencia de comandos (pipe)
+	 * y redirecciones.
+	 * - Delega en PipelineRunner la creación de las etapas: comandos internos
+	 * 		de la JVM (echo, cat, grep...) o procesos externos, unidos por pipes
+	 * 		y con las redirecciones de entrada/salida/error aplicadas.
+	 * - Si la línea termina con '&' (background), la registra como trabajo.
+	 * - Si está en foreground, muestra la salida/error de las etapas y espera.
+	 * 
+	 * - Con tiempo máximo, al agotarse detiene todas las etapas y sus descendientes.
+	 * - Ctrl-C detiene la pipeline en primer plano (InterruptHandler).
+	 * - Si se puede detener así (tiempo máximo o Ctrl-C), un comando interno solo
+	 * 		tampoco se ejecuta en el hilo de la shell: se espera como las demás etapas.
+	 * 
+	 * @param line
+	 * @param timing medición en curso (null si no se mide)
+	 * @param timeoutMillis tiempo máximo (0 = sin límite)
+	 * @return código de salida de la última etapa (0 en segundo plano, 124 si
+	 * 		se agota el tiempo, 130 si se interrumpe con Ctrl-C)
+	 */
+
+	private int executeExternalCommand(TLine line, PipelineTiming timing, long timeoutMillis) {
+		timeoutMillis = limit(timeoutMillis);
+		try {
+
+			// Lo que la shell haya escrito antes debe salir antes que la salida de los procesos.
+			this.out.flush();
+			this.err.flush();
+
+			/**
+			 * SALIDA SIN COPIAS:
+			 * Si la salida de la shell no es un terminal, o la línea va en segundo
+			 * plano, los procesos escriben directamente en sus descriptores (INHERIT):
+			 * la JVM no copia nada y no queda ningún pipe que vaciar.
+			 * En otro caso los bytes pasan tal cual a los descriptores de la shell
+			 * (StreamPump), sin decodificar ni cambiar los finales de línea.
+			 * En una sesión del servidor la salida siempre se copia a la sesión.
+			 */
+
+			boolean inherit = this.inheritOutput && (!this.interactive || line.isBackground());
+
+			boolean inline = timeoutMillis == 0 && this.interrupts == null;
+
+			// En segundo plano no lee la entrada de la JVM (la sigue leyendo la shell)
+			InputStream input = line.isBackground() && this.stdin == StreamPump.stdin ? null : this.stdin;
+
+			Pipeline pipeline = runner.start(line, this.currentDirectory, environment.snapshot(), input, this.stdout,
+					this.stderr, inherit, inline);
+
+			if (pipeline == null) {
+				this.failure = ExecutionResult.Error.REDIRECTION;
+				return 1;
+			}
+			this.startedLine = line;
+			this.started = pipeline.getProcesses();
+
+			if (timing != null) {
+				timing.spawned(line, pipeline);
+			}
+
+			/**
+			 * BACKGROUND VS FOREGROUND:
+			 * Si la línea termina con '&' se ejecuta en segund plano.
+			 * - No se espera a que termine: la pipeline se registra como un trabajo
+			 * 		y se muestra su identificador y el PID del último proceso.
+			 * - Su entrada estándar se cierra para que no espere datos de la shell.
+			 */
+			
+			if (line.isBackground()) {
+				if (!line.getCommands().get(0).redirectsInput()) {
+					pipeline.closeInput();
+				}
+				jobs().launch(describe(line), pipeline.getProcesses());
+
+				if (timeoutMillis > 0) {
+					CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS)
+							.execute(() -> pipeline.destroy(DESTROY_GRACE_MILLIS));
+				}
+				return 0;
+			} else {
+
+				/**
+				 * ESPERAR FINALIZACIÓN:
+				 * Se espera a que todas las etapas terminen y a que su salida
+				 * se haya volcado por completo. Si se agota el tiempo máximo,
+				 * se detiene todo el árbol de procesos: SIGTERM y, pasado el
+				 * margen, SIGKILL a los que sigan vivos.
+				 */
+
+				InterruptHandler handler = this.interrupts;
+				if (handler != null) {
+					handler.enter(pipeline);
+				}
+				try {
+					int status = pipeline.waitFor(timing, timeoutMillis);
+					if (handler != null && handler.leave()) {
+						this.out.println();
+						this.failure = ExecutionResult.Error.INTERRUPTED;
+						return 130;
+					}
+					return status;
+
+				} catch (TimeoutException e) {
+					this.err.println("timeout: tiempo agotado (" + (timeoutMillis / 1000.0) + "s): " + describe(line));
+					pipeline.destroy(DESTROY_GRACE_MILLIS);
+					pipeline.waitFor();
+					this.failure = ExecutionResult.Error.TIMEOUT;
+					return TIMEOUT_STATUS;
+
+				} catch (InterruptedException e) {
+					// Se detiene la orden que contiene este subshell: sus etapas no deben quedar en marcha
+					pipeline.destroy(DESTROY_GRACE_MILLIS);
+					throw e;
+
+				} finally {
+					if (handler != null) {
+						handler.leave();
+					}
+				}
+			}
+
+		} catch (CommandNotFoundException e) {
+			this.err.println(e.getMessage());
+			this.failure = ExecutionResult.Error.NOT_FOUND;
+			return 127;
+
+		} catch (IOException e) {
+			
+			// El tipo de error sale del tipo de la excepción (PipelineRunner), no del mensaje
+			
+			this.failure = ExecutionResult.Error.of(e);
+			
+			if (this.failure == ExecutionResult.Error.NOT_FOUND) {
+				this.err.println("Archivo no encontrado: verifica la ruta.");
+				return 127;
+				
+			} else if (this.failure == ExecutionResult.Error.PERMISSION) {
+				this.err.println("Permiso denegado: no se puede acceder al archivo o directorio.");
+				return 126;
+				  
+			} else {
+				this.err.println("Error inesperado: "+ e.getMessage());
+				return 1;
+			}
+		} catch (InterruptedException e) {
+			// Un subshell lo interrumpe quien lo contiene, que ya informa si hace falta
+			if (!this.subshell) {
+				this.err.println("Ejecución interrumpida");
+			}
+			this.failure = ExecutionResult.Error.INTERRUPTED;
+			Thread.currentThread().interrupt();
+			return 130;
+		}
+	}
+
+	/**
+	 * Reconstruye el texto de una línea para mostrarlo en la tabla de trabajos.
+	 * 
+	 * @param line
+	 * @return comandos unidos por '|'
+	 */
+
+	static String describe(TLine line) {
+		StringBuilder sb = new StringBuilder();
+		for (TCommand cmd : line.getCommands()) {
+			if (sb.length() > 0) {
+				sb.append(" | ");
+			}
+			// Las palabras sin expandir (p.ej. si falla la expansión) se muestran como se escribieron
+			List<String> argv = cmd.getArgv();
+			for (int i = 0; i < argv.size(); i++) {
+				if (i > 0) {
+					sb.append(' ');
+				}
+				sb.append(Tokenizer.display(argv.get(i)));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Método main:
+	 * 
+	 * Crea una instancia de la minishell y la ejecuta en uno de estos modos:
+	 * - "MiniShell": bucle interactivo (o por lotes si la entrada no es un terminal).
+	 * - "MiniShell script.msh": ejecuta las líneas del archivo, sin prompt.
+	 * - "MiniShell -c 'comandos'": ejecuta una única línea.
+	 * - "MiniShell --server socket|puerto": atiende sesiones remotas (ShellServer).
+	 * Termina con el código de salida del último comando.
+	 */
+	
+	public static void main(String[] args) {
+		if (args.length > 0 && args[0].equals("--server")) {
+			if (args.length < 2) {
+				System.err.println("--server: se requiere la ruta de un socket o un puerto");
+				System.exit(2);
+			}
+			System.exit(ShellServer.run(args[1]));
+		}
+
+		MiniShell shell = new MiniShell();
+		int status;
+
+		if (args.length > 0 && args[0].equals("-c")) {
+			if (args.length < 2) {
+				System.err.println("-c: se requiere un argumento");
+				System.exit(2);
+			}
+			status = shell.runLine(args[1]);
+
+		} else if (args.length > 0) {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(new FileInputStream(args[0])), INPUT_BUFFER_SIZE)) {
+				status = shell.run(reader, false);
+			} catch (IOException e) {
+				System.err.println("No se puede leer el script: " + args[0]);
+				status = 127;
+			}
+
+		} else {
+			status = shell.run();
+		}
+
+		System.out.flush();
+		System.exit(status);
+	}
+}
@@ -0,0 +1,361 @@
+package minishell;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import tokenizer.MissingFileException;
+import tokenizer.Substitutions;
+import tokenizer.TCommand;
+import tokenizer.TLine;
+import tokenizer.Tokenizer;
+
+/**
+ * Comando interno 'parallel': ejecuta una pipeline por cada argumento, varias a la vez.
+ *
+ * parallel [-j N] [-k] comando [args...] [::: arg1 arg2 ...]
+ *
+ * Funciones/Comportamientos principales:
+ * - Los argumentos van tras ':::' o, si no hay, se leen de la entrada
+ * 		estándar, uno por línea ('ls *.log | parallel gzip', como xargs -P).
+ * - '{}' en el comando se sustituye por el argumento; si no aparece, el
+ * 		argumento se añade al final. Un comando de una sola palabra con
+ * 		espacios se tokeniza como una línea, con pipes, ';', '&&' y '||'
+ * 		('parallel "sort {} | uniq -c > {}.txt" ::: ...').
+ * - Como mucho N trabajos a la vez (-j, por defecto el número de núcleos) en
+ * 		un ForkJoinPool propio de N hilos: los trabajos pendientes se reparten
+ * 		entre los hilos que quedan libres (work-stealing) y el pool no crea
+ * 		hilos de compensación aunque un trabajo espere bloqueado.
+ * - La salida de cada trabajo se guarda entera y se escribe de una vez al
+ * 		terminar: nunca se mezclan líneas de dos trabajos. Por defecto en el
+ * 		orden en que terminan; con -k en el orden de los argumentos.
+ * - Código de salida: el número de trabajos que fallaron (máximo 101), 0 si ninguno.
+ */
+
+final class Parallel implements Builtin {
+
+	/** Código de salida máximo (el resto de valores quedan para errores de uso) */
+
+	private static final int MAX_FAILED = 101;
+
+	/** Espera antes de forzar la parada de los trabajos al interrumpir 'parallel' */
+
+	private static final long DESTROY_GRACE_MILLIS = 2000;
+
+	private static final Charset charset = Charset.defaultCharset();
+
+	private final PipelineRunner runner;
+
+	/** Entorno exportado de la shell en el momento de lanzar los trabajos */
+
+	private final Supplier<Environment.Snapshot> environment;
+
+	/** Sustituciones de órdenes ($(...)) de los trabajos */
+
+	private final Substitutions substitutions;
+
+	/** Salida de un trabajo terminado */
+
+	private static final class Result {
+		final int index;
+		final int status;
+		final ByteArrayOutputStream out;
+		final ByteArrayOutputStream err;
+
+		Result(int index, int status, ByteArrayOutputStream out, ByteArrayOutputStream err) {
+			this.index = index;
+			this.status = status;
+			this.out = out;
+			this.err = err;
+		}
+	}
+
+	Parallel(PipelineRunner runner, Supplier<Environment.Snapshot> environment, Substitutions substitutions) {
+		this.runner = runner;
+		this.environment = environment;
+		this.substitutions = substitutions;
+	}
+
+	/** Puede tardar: se ejecuta en su propio hilo para que Ctrl-C lo detenga */
+
+	@Override
+	public boolean inline() {
+		return false;
+	}
+
+	@Override
+	public int run(List<String> argv, File directory, InputStream in, OutputStream out, OutputStream err) throws IOException {
+		int jobs = Runtime.getRuntime().availableProcessors();
+		boolean keepOrder = false;
+
+		int i = 1;
+		for (; i < argv.size() && argv.get(i).startsWith("-") && argv.get(i).length() > 1; i++) {
+			String option = argv.get(i);
+			if (option.equals("--")) {
+				i++;
+				break;
+			} else if (option.equals("-k")) {
+				keepOrder = true;
+			} else if (option.startsWith("-j")) {
+				String value = option.length() > 2 ? option.substring(2) : ++i < argv.size() ? argv.get(i) : "";
+				try {
+					jobs = Integer.parseInt(value);
+				} catch (NumberFormatException e) {
+					jobs = 0;
+				}
+				if (jobs < 1) {
+					return usage(err, "número de trabajos no válido: " + value);
+				}
+			} else {
+				return usage(err, "opción no válida: " + option);
+			}
+		}
+
+		int separator = argv.subList(i, argv.size()).indexOf(":::");
+		List<String> template = argv.subList(i, separator < 0 ? argv.size() : i + separator);
+		if (template.isEmpty()) {
+			return usage(err, "falta el comando");
+		}
+		List<String> args = separator < 0 ? lines(in) : argv.subList(i + separator + 1, argv.size());
+		if (args.isEmpty()) {
+			return 0;
+		}
+
+		// Se tokenizan todos antes de lanzar ninguno: un error de sintaxis no deja trabajos a medias
+		List<TLine> lines = new ArrayList<>(args.size());
+		for (String arg : args) {
+			TLine line = job(template, arg);
+			if (line == null) {
+				return usage(err, "comando vacío: " + template.get(0));
+			}
+			lines.add(line);
+		}
+
+		return execute(lines, Math.min(jobs, lines.size()), keepOrder, directory, out, err);
+	}
+
+	/**
+	 * Lanza los trabajos y vuelca su salida a medida que terminan.
+	 *
+	 * @param lines una línea (pipelines enlazadas) por argumento
+	 * @param jobs trabajos simultáneos
+	 * @param keepOrder volcar en el orden de los argumentos (-k)
+	 * @return número de trabajos fallidos (máximo MAX_FAILED), o 130 si se interrumpe
+	 * @throws IOException si falla la escritura de la salida
+	 */
+
+	private int execute(List<TLine> lines, int jobs, boolean keepOrder, File directory, OutputStream out,
+			OutputStream err) throws IOException {
+		Environment.Snapshot env = environment.get();
+		Set<Pipeline> running = ConcurrentHashMap.newKeySet();
+
+		// maximumPoolSize = parallelism: como mucho 'jobs' trabajos aunque esperen bloqueados
+		ForkJoinPool pool = new ForkJoinPool(jobs, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true, 0,
+				jobs, 1, p -> true, 30, TimeUnit.SECONDS);
+		CompletionService<Result> completion = new ExecutorCompletionService<>(pool);
+		try {
+			for (int index = 0; index < lines.size(); index++) {
+				int k = index;
+				completion.submit(() -> runJob(k, lines.get(k), directory, env, running));
+			}
+
+			Result[] pending = new Result[lines.size()];
+			int next = 0;
+			int failed = 0;
+			for (int done = 0; done < lines.size(); done++) {
+				Result result = completion.take().get();
+				if (result.status != 0) {
+					failed++;
+				}
+				if (!keepOrder) {
+					write(result, out, err);
+					continue;
+				}
+				pending[result.index] = result;
+				while (next < pending.length && pending[next] != null) {
+					write(pending[next], out, err);
+					pending[next++] = null;
+				}
+			}
+			return Math.min(failed, MAX_FAILED);
+
+		} catch (InterruptedException e) {
+			for (Pipeline pipeline : running) {
+				pipeline.destroy(DESTROY_GRACE_MILLIS);
+			}
+			Thread.currentThread().interrupt();
+			return 130;
+		} catch (ExecutionException e) {
+			// runJob() no lanza excepciones comprobadas: solo puede ser un error de programación
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Ejecuta un trabajo en un hilo del pool guardando su salida en memoria.
+	 * Las pipelines de la línea se encadenan como en la shell ('&&' y '||'
+	 * según el código de la anterior; '&' se ejecuta como ';').
+	 *
+	 * @return resultado con el código de salida de la última pipeline ejecutada
+	 */
+
+	private Result runJob(int index, TLine line, File directory, Environment.Snapshot env, Set<Pipeline> running) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		int status = 0;
+		TLine.Separator previous = TLine.Separator.SEQUENCE;
+		for (TLine l = line; l != null; l = l.getNext()) {
+			boolean skip = (previous == TLine.Separator.AND && status != 0)
+					|| (previous == TLine.Separator.OR && status == 0);
+			previous = l.getSeparator();
+			if (skip) {
+				continue;
+			}
+			status = runPipeline(l, directory, env, running, out, err);
+			if (status == 130 && Thread.currentThread().isInterrupted()) {
+				break;
+			}
+		}
+		return new Result(index, status, out, err);
+	}
+
+	/**
+	 * Ejecuta una pipeline de un trabajo (con sus variables y comodines ya expandidos).
+	 *
+	 * @return código de salida de la última etapa
+	 */
+
+	private int runPipeline(TLine line, File directory, Environment.Snapshot env, Set<Pipeline> running,
+			ByteArrayOutputStream out, ByteArrayOutputStream err) {
+		int status;
+		Pipeline pipeline = null;
+		try {
+			if (line.hasReferences() || line.hasGlobs()) {
+				line = line.expand(env::get, line.hasGlobs() ? new GlobExpander(directory, GlobExpander.DEFAULT_LIMIT) : null,
+						substitutions);
+			}
+			pipeline = runner.start(line, directory, env, out, err, false);
+			if (pipeline == null) {
+				return 1;
+			}
+			running.add(pipeline);
+			pipeline.closeInput();
+			status = pipeline.waitFor();
+		} catch (ArgumentLimitException e) {
+			err.writeBytes((e.getMessage() + "\n").getBytes(charset));
+			status = 126;
+		} catch (SubstitutionException e) {
+			err.writeBytes((e.getMessage() + "\n").getBytes(charset));
+			status = 1;
+		} catch (CommandNotFoundException e) {
+			err.writeBytes((e.getMessage() + "\n").getBytes(charset));
+			status = 127;
+		} catch (IOException e) {
+			err.writeBytes(("Error inesperado: " + e.getMessage() + "\n").getBytes(charset));
+			status = 126;
+		} catch (InterruptedException e) {
+			pipeline.destroy(DESTROY_GRACE_MILLIS);
+			Thread.currentThread().interrupt();
+			status = 130;
+		} finally {
+			if (pipeline != null) {
+				running.remove(pipeline);
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Línea de un trabajo (sin expandir: se expande al ejecutar cada pipeline).
+	 *
+	 * @param template comando con '{}' donde va el argumento
+	 * @param arg argumento del trabajo
+	 * @return la primera pipeline de la línea, o null si queda vacía
+	 */
+
+	private static TLine job(List<String> template, String arg) throws IOException {
+		if (template.size() == 1 && template.get(0).chars().anyMatch(Character::isWhitespace)) {
+			String text = template.get(0);
+			text = text.contains("{}") ? text.replace("{}", quote(arg)) : text + " " + quote(arg);
+			TLine line;
+			try {
+				line = Tokenizer.tokenize(text);
+			} catch (MissingFileException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+			return line == null || line.getCommands().isEmpty() ? null : line;
+		}
+
+		List<String> words = new ArrayList<>(template.size() + 1);
+		boolean substituted = false;
+		for (String word : template) {
+			if (word.contains("{}")) {
+				word = word.replace("{}", arg);
+				substituted = true;
+			}
+			words.add(word);
+		}
+		if (!substituted) {
+			words.add(arg);
+		}
+		TLine line = new TLine();
+		line.addCommand(new TCommand(words.get(0), words));
+		return line;
+	}
+
+	/** Vuelca la salida completa de un trabajo */
+
+	private static void write(Result result, OutputStream out, OutputStream err) throws IOException {
+		if (result.out.size() > 0) {
+			result.out.writeTo(out);
+			out.flush();
+		}
+		if (result.err.size() > 0) {
+			result.err.writeTo(err);
+			err.flush();
+		}
+	}
+
+	/** Argumentos de la entrada estándar: uno por línea, sin las vacías */
+
+	private static List<String> lines(InputStream in) throws IOException {
+		List<String> args = new ArrayList<>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, charset));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (!line.isBlank()) {
+				args.add(line);
+			}
+		}
+		return args;
+	}
+
+	/** Entrecomilla un argumento para insertarlo literal en una línea ('it'"'"'s') */
+
+	private static String quote(String arg) {
+		return "'" + arg.replace("'", "'\"'\"'") + "'";
+	}
+
+	private static int usage(OutputStream err, String message) throws IOException {
+		err.write(("parallel: " + message + "\n"
+				+ "Uso: parallel [-j N] [-k] comando [args...] [::: arg1 arg2 ...]\n").getBytes(charset));
+		return 2;
+	}
+}
@@ -0,0 +1,170 @@
+package minishell;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pipeline en ejecución: sus etapas (procesos externos o comandos internos)
+ * y las copias de salida asociadas (StreamPump).
+ */
+
+final class Pipeline {
+
+	/** Intervalo de muestreo de CPU mientras se mide una pipeline */
+
+	private static final long SAMPLE_MILLIS = 10;
+
+	private final List<Process> processes;
+
+	private final List<Future<Long>> pumps;
+
+	/** Se activa con destroy(): los errores de lectura de sus flujos ya no se muestran */
+
+	private volatile boolean destroyed;
+
+	Pipeline(List<Process> processes, List<Future<Long>> pumps) {
+		this.processes = List.copyOf(processes);
+		this.pumps = List.copyOf(pumps);
+	}
+
+	List<Process> getProcesses() {
+		return processes;
+	}
+
+	/**
+	 * Cierra la entrada estándar de la primera etapa para que no espere datos de la shell.
+	 */
+
+	void closeInput() throws IOException {
+		processes.get(0).getOutputStream().close();
+	}
+
+	/**
+	 * Espera a que terminen todas las etapas y a que su salida se haya volcado por completo.
+	 *
+	 * @return código de salida de la última etapa
+	 * @throws InterruptedException
+	 */
+
+	int waitFor() throws InterruptedException {
+		for (Process p : processes) {
+			p.waitFor();
+		}
+		awaitPumps();
+		return processes.get(processes.size() - 1).exitValue();
+	}
+
+	/**
+	 * Igual que waitFor(), con un tiempo máximo y, si se mide la pipeline
+	 * ('time' / 'stats'), tomando muestras periódicas de la CPU de las etapas.
+	 *
+	 * @param timing medición en curso (null si no se mide)
+	 * @param timeoutMillis tiempo máximo de espera (0 = sin límite)
+	 * @return código de salida de la última etapa
+	 * @throws InterruptedException
+	 * @throws TimeoutException si alguna etapa sigue en marcha al agotarse el tiempo
+	 * 		(las etapas no se detienen: ver destroy())
+	 */
+
+	int waitFor(PipelineTiming timing, long timeoutMillis) throws InterruptedException, TimeoutException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+		for (Process p : processes) {
+			if (timing == null && timeoutMillis <= 0) {
+				p.waitFor();
+				continue;
+			}
+			while (true) {
+				long step = SAMPLE_MILLIS;
+				if (timeoutMillis > 0) {
+					long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+					if (remaining <= 0) {
+						if (p.isAlive()) {
+							throw new TimeoutException();
+						}
+						break;
+					}
+					step = timing != null ? Math.min(step, remaining) : remaining;
+				}
+				if (p.waitFor(step, TimeUnit.MILLISECONDS)) {
+					break;
+				}
+				if (timing != null) {
+					timing.sample();
+				}
+			}
+		}
+		awaitPumps();
+		return processes.get(processes.size() - 1).exitValue();
+	}
+
+	/**
+	 * Detiene la pipeline y todos los procesos que hayan creado sus etapas.
+	 *
+	 * Funciones/Comportamientos principales:
+	 * - Los descendientes se recogen antes de terminar a nadie: al morir un
+	 * 		proceso sus hijos pasan a init y ya no se podrían encontrar.
+	 * - Primero se pide terminar (SIGTERM); los que sigan vivos tras
+	 * 		'graceMillis' se matan (SIGKILL).
+	 * - Vuelve en cuanto todos han terminado, sin esperar el margen completo.
+	 *
+	 * @param graceMillis margen para terminar de forma ordenada
+	 */
+
+	void destroy(long graceMillis) {
+		this.destroyed = true;
+
+		List<ProcessHandle> tree = new ArrayList<>();
+		for (Process p : processes) {
+			p.descendants().forEach(tree::add);
+		}
+
+		List<CompletableFuture<?>> exits = new ArrayList<>();
+		for (ProcessHandle h : tree) {
+			h.destroy();
+			exits.add(h.onExit());
+		}
+		for (Process p : processes) {
+			p.destroy();
+			exits.add(p.onExit());
+		}
+
+		try {
+			CompletableFuture.allOf(exits.toArray(new CompletableFuture<?>[0])).get(graceMillis, TimeUnit.MILLISECONDS);
+			return;
+		} catch (TimeoutException | ExecutionException e) {
+			// Quedan procesos que ignoran SIGTERM: se fuerza su terminación.
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (ProcessHandle h : tree) {
+			h.destroyForcibly();
+		}
+		for (Process p : processes) {
+			p.destroyForcibly();
+		}
+	}
+
+	private void awaitPumps() throws InterruptedException {
+		if (!this.destroyed) {
+			StreamPump.awaitAll(pumps);
+			return;
+		}
+
+		// Al destruir un proceso se cierran sus flujos: las copias en curso fallan con "Stream closed".
+		for (Future<Long> f : pumps) {
+			try {
+				f.get();
+			} catch (ExecutionException ignored) {
+				// Esperado tras destroy()
+			}
+		}
+	}
+}
@@ -0,0 +1,752 @@
+package minishell;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import tokenizer.Redirection;
+import tokenizer.TCommand;
+import tokenizer.TLine;
+
+/**
+ * Lanza las etapas de una línea de comandos.
+ *
+ * Funciones/Comportamientos principales:
+ * - Cada etapa se ejecuta como función o comando de la shell, o como comando interno
+ * 		(BuiltinRegistry) si existe, o como proceso externo en caso contrario.
+ * - Los ejecutables se resuelven a su ruta absoluta con la caché 'hash'
+ * 		antes de lanzar nada: un comando inexistente no llega a crear procesos.
+ * - Los tramos de procesos externos consecutivos se arrancan juntos y se
+ * 		unen con pipes de la shell (JoinedPipes), o los arranca un servidor
+ * 		aparte (SpawnClient).
+ * - Los comandos internos se conectan a sus vecinos escribiendo/leyendo
+ * 		los flujos del proceso contiguo, o con un pipe en memoria entre dos internos.
+ * - Cada etapa aplica sus propias redirecciones en orden ('<', 'N>', 'N>>',
+ * 		'N>&M', '&>', '<<', '<<<') sobre sus descriptores 0, 1 y 2, con las
+ * 		rutas relativas al directorio actual de la shell.
+ * - Varias redirecciones a archivo del mismo descriptor ('cmd > a > b', como
+ * 		MULTIOS en zsh) reparten la salida entre todos ellos (FanOut).
+ * - Todo se traduce a ProcessBuilder.Redirect o a redirectErrorStream()
+ * 		(2>&1, |&): nunca hace falta un 'sh -c' intermedio.
+ * - Los procesos reciben el entorno exportado de la shell más las
+ * 		asignaciones propias de su comando ('VAR=valor cmd').
+ * - stdout de la última etapa y stderr de todas se vuelcan en los destinos
+ * 		indicados, a la vez (StreamPump), salvo que se hereden o redirijan.
+ */
+
+final class PipelineRunner {
+
+	/** Nombre del sistema operativo -> permite compatibilidad multiplataforma (Linux/Windows) */
+
+	private final String os;
+
+	private final BuiltinRegistry builtins;
+
+	/** Caché de rutas de ejecutables ('hash') */
+
+	private final CommandHash hash;
+
+	/** Etapa que ejecuta cada función o comando de la shell (null: solo comandos internos y ejecutables) */
+
+	private Function<String, Builtin> shellStages;
+
+	/** Servidor de arranque de procesos (null: se crean desde esta JVM) */
+
+	private SpawnClient spawner;
+
+	/** Tipo de destino de un descriptor de una etapa */
+
+	private enum Kind {
+		PREVIOUS,  // stdin: lo que envía la etapa anterior (en la primera, nada)
+		NEXT,      // stdin de la etapa siguiente
+		OUT,       // 'out' de la shell
+		ERR,       // 'err' de la shell
+		READ,      // archivo de entrada
+		WRITE,     // archivo de salida
+		FANOUT,    // varios archivos de salida a la vez
+		DOCUMENT   // documento en línea (HereDocument)
+	}
+
+	/**
+	 * Destino de un descriptor tras aplicar las redirecciones de la etapa.
+	 * 'N>&M' copia la referencia: dos descriptores con el mismo objeto
+	 * apuntan al mismo sitio (redirectErrorStream si son stdout y stderr).
+	 */
+
+	private static final class Target {
+		static final Target PREVIOUS = new Target(Kind.PREVIOUS, null, false, null);
+		static final Target NEXT = new Target(Kind.NEXT, null, false, null);
+		static final Target OUT = new Target(Kind.OUT, null, false, null);
+		static final Target ERR = new Target(Kind.ERR, null, false, null);
+
+		final Kind kind;
+		final File file;                // READ, WRITE o DOCUMENT volcado a disco
+		final boolean append;
+		final HereDocument document;
+		final List<Target> sinks;       // FANOUT: un destino WRITE por archivo
+
+		Target(Kind kind, File file, boolean append, HereDocument document) {
+			this.kind = kind;
+			this.file = file;
+			this.append = append;
+			this.document = document;
+			this.sinks = null;
+		}
+
+		/** Reparto entre los archivos de 'previous' (WRITE o FANOUT) y 'added' */
+
+		Target(Target previous, Target added) {
+			this.kind = Kind.FANOUT;
+			this.file = null;
+			this.append = false;
+			this.document = null;
+			List<Target> sinks = new ArrayList<>(previous.kind == Kind.FANOUT ? previous.sinks : List.of(previous));
+			sinks.add(added);
+			this.sinks = sinks;
+		}
+
+		boolean isOutput() {
+			return kind == Kind.NEXT || kind == Kind.OUT || kind == Kind.ERR || kind == Kind.WRITE
+					|| kind == Kind.FANOUT;
+		}
+
+		/** Si escribe (ya) en 'file' */
+
+		boolean writes(File file) {
+			return kind == Kind.FANOUT ? sinks.stream().anyMatch(t -> t.file.equals(file))
+					: kind == Kind.WRITE && this.file.equals(file);
+		}
+
+		/** Abre los archivos de un destino FANOUT */
+
+		FanOut open() throws IOException {
+			List<File> files = new ArrayList<>(sinks.size());
+			List<Boolean> append = new ArrayList<>(sinks.size());
+			for (Target sink : sinks) {
+				files.add(sink.file);
+				append.add(sink.append);
+			}
+			return FanOut.open(files, append);
+		}
+	}
+
+	PipelineRunner(String os, BuiltinRegistry builtins, CommandHash hash) {
+		this.os = os;
+		this.builtins = builtins;
+		this.hash = hash;
+	}
+
+	/**
+	 * Crea los procesos externos a través de un servidor de arranque
+	 * (MINISHELL_SPAWN_SERVER) en lugar de hacerlo desde esta JVM.
+	 *
+	 * @param spawner cliente del servidor, o null para crearlos directamente
+	 */
+
+	void setSpawner(SpawnClient spawner) {
+		this.spawner = spawner;
+	}
+
+	SpawnClient getSpawner() {
+		return this.spawner;
+	}
+
+	/**
+	 * Resuelve las funciones y los comandos de la shell antes que los comandos
+	 * internos y los ejecutables, como una etapa más ('nombre | ...', 'alias > f',
+	 * 'parallel nombre').
+	 *
+	 * @param shellStages devuelve la etapa de la función o del comando de la shell
+	 * 		con ese nombre, o null si no existe
+	 */
+
+	void setShellStages(Function<String, Builtin> shellStages) {
+		this.shellStages = shellStages;
+	}
+
+	/**
+	 * Arranca todas las etapas de la línea. Una línea con un único comando
+	 * interno breve en primer plano se ejecuta en el hilo actual.
+	 *
+	 * @see #start(TLine, File, Environment.Snapshot, InputStream, OutputStream, OutputStream, boolean, boolean)
+	 */
+
+	Pipeline start(TLine line, File directory, Environment.Snapshot environment, OutputStream out,
+			OutputStream err, boolean inherit)
+			throws IOException, CommandNotFoundException {
+		return start(line, directory, environment, null, out, err, inherit, true);
+	}
+
+	/**
+	 * Arranca todas las etapas de la línea.
+	 *
+	 * Si se permite, una línea con un único comando interno breve en primer
+	 * plano se ejecuta en el hilo actual: la pipeline devuelta ya ha terminado.
+	 * Quien tenga que poder detenerla mientras tanto (tiempo máximo, Ctrl-C)
+	 * no debe permitirlo.
+	 *
+	 * @param line línea tokenizada
+	 * @param directory directorio de trabajo de la shell
+	 * @param environment entorno exportado de la shell
+	 * @param in entrada de la primera etapa (si no se redirige): un flujo que se le
+	 * 		copia, StreamPump.stdin para heredar la de la shell, o null si no tiene ninguna
+	 * 		(fin de datos)
+	 * @param out destino de stdout de la última etapa (si no se redirige)
+	 * @param err destino de stderr de todas las etapas (si no se redirige)
+	 * @param inherit si 'out' y 'err' son los descriptores de la propia shell, los
+	 * 		procesos externos los heredan directamente (sin copias en la JVM)
+	 * @param inline si un único comando interno breve puede ejecutarse en el hilo actual
+	 * @return la pipeline en marcha, o null si una redirección no es válida (ya informado)
+	 * @throws IOException si no se puede arrancar alguna etapa
+	 * @throws CommandNotFoundException si algún comando no es interno ni está en el PATH
+	 */
+
+	Pipeline start(TLine line, File directory, Environment.Snapshot environment, InputStream in,
+			OutputStream out, OutputStream err, boolean inherit, boolean inline)
+			throws IOException, CommandNotFoundException {
+
+		List<TCommand> commands = line.getCommands();
+		int n = commands.size();
+
+		// Documentos en línea: el archivo temporal (si lo hay) se borra al terminar de arrancar
+		List<HereDocument> documents = new ArrayList<>();
+		try {
+			return start(line, commands, n, directory, environment, in, out, err, inherit, inline, documents);
+		} finally {
+			for (HereDocument document : documents) {
+				document.release();
+			}
+		}
+	}
+
+	private Pipeline start(TLine line, List<TCommand> commands, int n, File directory,
+			Environment.Snapshot environment, InputStream input, OutputStream out, OutputStream err,
+			boolean inherit, boolean inline, List<HereDocument> documents)
+			throws IOException, CommandNotFoundException {
+
+		/**
+		 * CONFIGURACIÓN DE REDIRECCIONES:
+		 * Se resuelven y validan las de todas las etapas antes de lanzar nada.
+		 */
+
+		Target[][] fds = new Target[n][];
+		for (int i = 0; i < n; i++) {
+			fds[i] = descriptors(commands.get(i), i == n - 1, directory, documents, err);
+			if (fds[i] == null) {
+				return null;
+			}
+		}
+
+		// reads[i]: la etapa i + 1 lee lo que la etapa i envía a NEXT (si no, se descarta)
+		boolean[] reads = new boolean[n];
+		for (int i = 0; i < n - 1; i++) {
+			reads[i] = fds[i + 1][0] == Target.PREVIOUS;
+		}
+
+		// Función, comando de la shell o comando interno de cada etapa (null -> proceso externo)
+		Builtin[] internal = new Builtin[n];
+		for (int i = 0; i < n; i++) {
+			internal[i] = internal(commands.get(i).getArgv());
+		}
+
+		/**
+		 * RESOLUCIÓN DE EJECUTABLES:
+		 * En Windows la búsqueda la hace cmd.exe; en el resto se usa la caché
+		 * 'hash' y el proceso se crea directamente con la ruta absoluta.
+		 */
+
+		String[] executables = new String[n];
+		Environment.Snapshot[] environments = new Environment.Snapshot[n];
+		for (int i = 0; i < n; i++) {
+			environments[i] = environment.with(commands.get(i).getAssignments());
+		}
+		if (!this.os.contains("win")) {
+			for (int i = 0; i < n; i++) {
+				if (internal[i] == null) {
+					// 'PATH=... cmd' también cambia dónde se busca 'cmd'
+					String name = commands.get(i).getFilename();
+					Path file = hash.resolve(name, directory, environments[i].get("PATH"));
+					if (file == null) {
+						throw new CommandNotFoundException(name);
+					}
+					executables[i] = file.toString();
+				}
+			}
+		}
+
+		Process[] processes = new Process[n];
+		List<Future<Long>> pumps = new ArrayList<>();
+
+		try {
+
+			/**
+			 * PROCESOS EXTERNOS:
+			 * Cada tramo de etapas externas consecutivas unidas por su stdout se
+			 * arranca junto (JoinedPipes: stdout de una -> stdin de la siguiente).
+			 * Un tramo se corta si una etapa redirige su stdout o la siguiente su stdin.
+			 */
+
+			// La primera etapa lee directamente la entrada de la shell (sin copias ni pipes)
+			boolean inheritInput = input == StreamPump.stdin && fds[0][0] == Target.PREVIOUS;
+
+			int i = 0;
+			while (i < n) {
+				if (internal[i] != null) {
+					i++;
+					continue;
+				}
+
+				int first = i;
+				List<ProcessBuilder> segment = new ArrayList<>();
+				while (true) {
+					ProcessBuilder pb = builder(commands.get(i), executables[i], directory, environments[i],
+							fds[i], reads[i], inherit);
+					if (i == 0 && inheritInput) {
+						pb.redirectInput(ProcessBuilder.Redirect.INHERIT);
+					}
+					segment.add(pb);
+					boolean joined = i + 1 < n && internal[i + 1] == null && fds[i][1] == Target.NEXT && reads[i];
+					i++;
+					if (!joined) {
+						break;
+					}
+				}
+				int last = i - 1;
+
+				/**
+				 * SIGPIPE ENTRE PROCESOS:
+				 * Los pipes del tramo solo los tiene abiertos la shell (o el servidor de
+				 * arranque): si una etapa termina antes, la anterior recibe SIGPIPE como
+				 * en sh (yes | head) y las que no vuelven a escribir siguen hasta acabar
+				 * (sleep 2 | true).
+				 */
+
+				// El servidor de arranque no tiene la entrada de la shell: ese tramo se arranca aquí
+				List<Process> started;
+				try {
+					started = spawner != null && !(first == 0 && inheritInput)
+							? spawner.startPipeline(segment)
+							: JoinedPipes.start(segment);
+				} catch (IOException e) {
+					throw startFailure(e, executables, first, last);
+				}
+				for (int k = first; k <= last; k++) {
+					processes[k] = started.get(k - first);
+				}
+
+				// Entrada indicada para la primera etapa: se copia sin esperarla (puede no leerla entera).
+				// Sin entrada, el pipe se cierra ya: la etapa recibe fin de datos y no se queda esperando
+				if (first == 0 && fds[0][0] == Target.PREVIOUS && !inheritInput) {
+					if (input != null) {
+						StreamPump.connect(input, processes[0].getOutputStream());
+					} else {
+						processes[0].getOutputStream().close();
+					}
+				}
+
+				/**
+				 * BOMBEO CONCURRENTE:
+				 * Los flujos que van a la shell y no se heredan se vacían a la vez,
+				 * así ninguna etapa se bloquea con el pipe lleno mientras se lee
+				 * la salida de otra.
+				 */
+
+				for (int k = first; k <= last; k++) {
+					Target[] t = fds[k];
+					if (t[0].kind == Kind.DOCUMENT && t[0].file == null) {
+						// Documento en línea en memoria: se escribe en la entrada del proceso
+						t[0].document.feed(processes[k].getOutputStream());
+					}
+					if (segment.get(k - first).redirectOutput().type() == ProcessBuilder.Redirect.Type.PIPE) {
+						if (t[1] == Target.OUT || t[1] == Target.ERR) {
+							pumps.add(StreamPump.pump(processes[k].getInputStream(), t[1] == Target.OUT ? out : err));
+						} else if (t[1].kind == Kind.FANOUT) {
+							pumps.add(StreamPump.fanOut(processes[k].getInputStream(), t[1].open()));
+						}
+					}
+					if (segment.get(k - first).redirectError().type() == ProcessBuilder.Redirect.Type.PIPE
+							&& !segment.get(k - first).redirectErrorStream()) {
+						if (t[2] == Target.OUT || t[2] == Target.ERR) {
+							pumps.add(StreamPump.pump(processes[k].getErrorStream(), t[2] == Target.OUT ? out : err));
+						} else if (t[2].kind == Kind.FANOUT) {
+							pumps.add(StreamPump.fanOut(processes[k].getErrorStream(), t[2].open()));
+						}
+					}
+				}
+			}
+
+			/**
+			 * CONEXIONES A TRAVÉS DE LA JVM:
+			 * Entre dos procesos de tramos distintos (p.ej. 'cmd 2>&1 >f | sort',
+			 * donde solo stderr va a la siguiente) se copia el flujo correspondiente;
+			 * si la anterior no le envía nada, la siguiente recibe fin de datos.
+			 */
+
+			for (i = 0; i < n - 1; i++) {
+				if (internal[i] != null || internal[i + 1] != null || !reads[i] || fds[i][1] == Target.NEXT) {
+					continue;
+				}
+				OutputStream next = processes[i + 1].getOutputStream();
+				if (fds[i][2] == Target.NEXT) {
+					pumps.add(StreamPump.connect(processes[i].getErrorStream(), next));
+				} else {
+					next.close();
+				}
+			}
+
+			/**
+			 * COMANDOS INTERNOS:
+			 * Se conectan a los procesos ya arrancados o entre sí con un pipe en memoria.
+			 */
+
+			PipedInputStream[] pipes = new PipedInputStream[n];
+
+			for (i = 0; i < n; i++) {
+				if (internal[i] == null) {
+					continue;
+				}
+				Target[] t = fds[i];
+
+				InputStream in;
+				if (t[0].kind == Kind.READ) {
+					in = new FileInputStream(t[0].file);
+				} else if (t[0].kind == Kind.DOCUMENT) {
+					in = t[0].document.open();
+				} else if (i == 0) {
+					in = input != null ? input : InputStream.nullInputStream();
+				} else if (internal[i - 1] == null) {
+					in = fds[i - 1][1] == Target.NEXT ? processes[i - 1].getInputStream()
+							: fds[i - 1][2] == Target.NEXT ? processes[i - 1].getErrorStream()
+							: InputStream.nullInputStream();
+				} else {
+					in = pipes[i] != null ? pipes[i] : InputStream.nullInputStream();
+				}
+
+				// Entrada de la etapa siguiente (si alguna de las salidas va hacia ella)
+				OutputStream next = null;
+				if (t[1] == Target.NEXT || t[2] == Target.NEXT) {
+					if (!reads[i]) {
+						next = OutputStream.nullOutputStream();
+					} else if (internal[i + 1] == null) {
+						next = processes[i + 1].getOutputStream();
+					} else {
+						pipes[i + 1] = new PipedInputStream(StreamPump.BUFFER_SIZE);
+						next = new PipedOutputStream(pipes[i + 1]);
+					}
+				} else if (reads[i] && internal[i + 1] == null) {
+					processes[i + 1].getOutputStream().close();
+				}
+
+				OutputStream stageOut = stream(t[1], out, err, next);
+				OutputStream stageErr = t[2] == t[1] ? stageOut : stream(t[2], out, err, next);
+				boolean closeOut = t[1].kind == Kind.WRITE || t[1].kind == Kind.FANOUT || t[1].kind == Kind.NEXT;
+				boolean closeErr = t[2] != t[1]
+						&& (t[2].kind == Kind.WRITE || t[2].kind == Kind.FANOUT || t[2].kind == Kind.NEXT);
+
+				processes[i] = new BuiltinProcess(internal[i], commands.get(i).getArgv(), directory, in, stageOut,
+						closeOut, stageErr, closeErr);
+			}
+
+		} catch (IOException e) {
+			// Si una etapa no arranca, no deben quedar huérfanas las que sí lo hicieron.
+			for (Process p : processes) {
+				if (p != null) {
+					p.destroy();
+				}
+			}
+			throw e;
+		}
+
+		// Un único comando interno breve en primer plano no necesita hilo propio.
+		if (inline && n == 1 && internal[0] != null && internal[0].inline() && !line.isBackground()) {
+			((BuiltinProcess) processes[0]).runInline();
+		} else {
+			for (Process p : processes) {
+				if (p instanceof BuiltinProcess) {
+					((BuiltinProcess) p).start();
+				}
+			}
+		}
+
+		return new Pipeline(Arrays.asList(processes), pumps);
+	}
+
+	/**
+	 * @param argv argumentos de la etapa
+	 * @return la función, el comando de la shell o el comando interno que la ejecuta,
+	 * 		o null si es un proceso externo
+	 */
+
+	private Builtin internal(List<String> argv) {
+		if (shellStages != null && !argv.isEmpty()) {
+			Builtin stage = shellStages.apply(argv.get(0));
+			if (stage != null) {
+				return stage;
+			}
+		}
+		return builtins.find(argv);
+	}
+
+	/**
+	 * Error de un tramo que no se ha podido arrancar, con el tipo que corresponde
+	 * a sus ejecutables (ExecutionResult.Error.of): se repiten las comprobaciones
+	 * de la búsqueda en el PATH, que pueden haber cambiado desde entonces, en vez
+	 * de interpretar el mensaje de la JVM (o del servidor de arranque).
+	 *
+	 * @param e error al arrancar
+	 * @param executables rutas resueltas de cada etapa (null si no se resolvió)
+	 * @param first primera etapa del tramo
+	 * @param last última etapa del tramo
+	 * @return NoSuchFileException si falta un ejecutable, AccessDeniedException si
+	 * 		no se puede ejecutar, o el propio error
+	 */
+
+	private static IOException startFailure(IOException e, String[] executables, int first, int last) {
+		if (e instanceof FileSystemException) {
+			return e;
+		}
+		for (int k = first; k <= last; k++) {
+			if (executables[k] == null) {
+				continue;
+			}
+			Path file = Paths.get(executables[k]);
+			FileSystemException failure = null;
+			if (!Files.exists(file)) {
+				failure = new NoSuchFileException(executables[k], null, e.getMessage());
+			} else if (!Files.isExecutable(file)) {
+				failure = new AccessDeniedException(executables[k], null, e.getMessage());
+			}
+			if (failure != null) {
+				failure.initCause(e);
+				return failure;
+			}
+		}
+		return e;
+	}
+
+	/**
+	 * Aplica en orden las redirecciones de una etapa a sus descriptores 0, 1 y 2.
+	 *
+	 * @param cmd
+	 * @param last si es la última etapa (stdout por defecto a 'out' y no a la siguiente)
+	 * @param directory directorio actual de la shell (rutas relativas)
+	 * @param documents documentos en línea creados (para borrarlos después)
+	 * @param err salida de errores de la shell
+	 * @return destino de cada descriptor, o null si alguna redirección no es válida (ya informado)
+	 * @throws IOException si no se puede crear el archivo temporal de un documento en línea
+	 */
+
+	private static Target[] descriptors(TCommand cmd, boolean last, File directory, List<HereDocument> documents,
+			OutputStream err) throws IOException {
+
+		Target[] fds = { Target.PREVIOUS, last ? Target.OUT : Target.NEXT, Target.ERR };
+
+		for (Redirection redirection : cmd.getRedirections()) {
+			int fd = redirection.getFd();
+			if (fd > 2 || (redirection.getType() == Redirection.Type.DUPLICATE && redirection.getTargetFd() > 2)) {
+				report(err, "Error: descriptor no soportado: " + redirection);
+				return null;
+			}
+
+			switch (redirection.getType()) {
+				case INPUT: {
+					File file = resolve(redirection.getTarget(), directory);
+					if (!file.exists() || !file.canRead()) {
+						report(err, "Error: archivo de entrada no encontrado o no legible: " + file);
+						return null;
+					}
+					fds[fd] = new Target(Kind.READ, file, false, null);
+					break;
+				}
+				case OUTPUT:
+				case APPEND: {
+					File file = resolve(redirection.getTarget(), directory);
+					if (file.exists() && !file.canWrite()) {
+						report(err, "Error: no se puede escribir en el archivo de "
+								+ (fd == 2 ? "error: " : "salida: ") + file);
+						return null;
+					}
+					Target target = new Target(Kind.WRITE, file, redirection.getType() == Redirection.Type.APPEND, null);
+
+					// Otro archivo para un descriptor que ya va a archivos (y no comparte destino
+					// con otro descriptor por 'N>&M'): la salida se reparte entre todos
+					Target current = fds[fd];
+					boolean shared = current == fds[fd == 1 ? 2 : 1];
+					if ((current.kind == Kind.WRITE || current.kind == Kind.FANOUT) && !shared) {
+						if (!current.writes(file)) {
+							fds[fd] = new Target(current, target);
+						}
+					} else {
+						fds[fd] = target;
+					}
+					break;
+				}
+				case DUPLICATE:
+					fds[fd] = fds[redirection.getTargetFd()];
+					break;
+				default: {
+					HereDocument document = HereDocument.of(redirection.getTarget());
+					documents.add(document);
+					fds[fd] = new Target(Kind.DOCUMENT, document.file(), false, document);
+					break;
+				}
+			}
+		}
+
+		// ProcessBuilder solo permite leer en stdin y escribir en stdout/stderr
+		if (fds[0].isOutput() || !fds[1].isOutput() || !fds[2].isOutput()) {
+			report(err, "Error: redirección no soportada: " + cmd.getRedirections());
+			return null;
+		}
+		return fds;
+	}
+
+	private static void report(OutputStream err, String message) throws IOException {
+		err.write((message + System.lineSeparator()).getBytes(Charset.defaultCharset()));
+	}
+
+	/**
+	 * @param name ruta de la redirección
+	 * @param directory directorio actual de la shell
+	 * @return archivo, relativo al directorio actual si la ruta no es absoluta
+	 */
+
+	private static File resolve(String name, File directory) {
+		File file = new File(name);
+		return file.isAbsolute() ? file : new File(directory, name);
+	}
+
+	/**
+	 * Traduce el destino de stdout o stderr de un proceso externo.
+	 *
+	 * @param target
+	 * @param reads si la etapa siguiente lee lo que se le envía
+	 * @param inherit si los destinos de la shell se heredan
+	 * @param stdout si es stdout (se hereda el de la shell) o stderr
+	 * @return
+	 */
+
+	private static ProcessBuilder.Redirect redirect(Target target, boolean reads, boolean inherit, boolean stdout) {
+		switch (target.kind) {
+			case WRITE:
+				return target.append ? ProcessBuilder.Redirect.appendTo(target.file)
+						: ProcessBuilder.Redirect.to(target.file);
+			case FANOUT:
+				return ProcessBuilder.Redirect.PIPE;
+			case NEXT:
+				return reads ? ProcessBuilder.Redirect.PIPE : ProcessBuilder.Redirect.DISCARD;
+			case OUT:
+				return inherit && stdout ? ProcessBuilder.Redirect.INHERIT : ProcessBuilder.Redirect.PIPE;
+			default:
+				return inherit && !stdout ? ProcessBuilder.Redirect.INHERIT : ProcessBuilder.Redirect.PIPE;
+		}
+	}
+
+	/**
+	 * Flujo de salida de un comando interno para un destino.
+	 *
+	 * @param target
+	 * @param out 'out' de la shell
+	 * @param err 'err' de la shell
+	 * @param next entrada de la etapa siguiente
+	 * @return
+	 * @throws IOException si no se puede abrir el archivo
+	 */
+
+	private static OutputStream stream(Target target, OutputStream out, OutputStream err, OutputStream next)
+			throws IOException {
+		switch (target.kind) {
+			case WRITE:
+				return new FileOutputStream(target.file, target.append);
+			case FANOUT:
+				return target.open();
+			case NEXT:
+				return next;
+			case OUT:
+				return out;
+			default:
+				return err;
+		}
+	}
+
+	/**
+	 * Crea el ProcessBuilder de un comando externo.
+	 *
+	 * @param cmd
+	 * @param executable ruta absoluta del ejecutable (null en Windows)
+	 * @param directory
+	 * @param environment entorno del proceso
+	 * @param fds destinos de sus descriptores
+	 * @param reads si la etapa siguiente lee lo que se le envía
+	 * @param inherit si los destinos de la shell se heredan
+	 * @return
+	 */
+
+	private ProcessBuilder builder(TCommand cmd, String executable, File directory, Environment.Snapshot environment,
+			Target[] fds, boolean reads, boolean inherit) {
+
+		/**
+		 * VERIFICACIÓN SISTEMA OPERATIVO:
+		 * Se crea una nueva lista que recogerá la "formación" de los comandos
+		 * en base al S.O. correspondiente. Una vez rellenada se le pasará
+		 * a un nuevo ProcessBuilder.
+		 */
+
+		List<String> command = new ArrayList<>();
+
+		if (this.os.contains("win")) {
+
+			// Configuración específica para windows,
+			// pues al contrario de linux no permite poner el comando por si solo.
+
+			command.add("cmd.exe");
+			command.add("/c");
+
+			command.add(String.join(" ", cmd.getArgv()));
+		} else {
+
+			/**
+			 * En linux el ejecutable ya resuelto por la caché sustituye al
+			 * nombre del comando: el sistema no vuelve a recorrer el PATH.
+			 */
+
+			command.add(executable);
+			command.addAll(cmd.getArgv().subList(1, cmd.getArgv().size()));
+		}
+
+		ProcessBuilder pb = new ProcessBuilder(command);
+
+		pb.directory(directory);
+		environment.applyTo(pb);
+
+		if (fds[0].file != null) {
+			pb.redirectInput(fds[0].file);
+		}
+		pb.redirectOutput(redirect(fds[1], reads, inherit, true));
+		if (fds[2] == fds[1]) {
+			// 2>&1: stderr se une a stdout, vaya donde vaya
+			pb.redirectErrorStream(true);
+		} else {
+			pb.redirectErrorStream(false);
+			pb.redirectError(redirect(fds[2], reads, inherit, false));
+		}
+		return pb;
+	}
+}
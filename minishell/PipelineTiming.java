@@ -0,0 +1,289 @@
+package minishell;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import tokenizer.TCommand;
+import tokenizer.TLine;
+
+/**
+ * Medición de una pipeline ('time' o 'stats on').
+ *
+ * Funciones/Comportamientos principales:
+ * - Tiempo de tokenizado de la línea, de arranque de las etapas y total (real).
+ * - Por etapa: PID, tiempo hasta su terminación, código de salida y CPU del proceso,
+ * 		según ProcessHandle.Info.totalCpuDuration().
+ * - CPU de usuario y de sistema de todos los hijos esperados (cutime/cstime de
+ * 		/proc/self/stat), como el 'time' de bash. Solo en Linux.
+ * - Solo se crea si la medición está activa: sin ella la shell no reserva nada.
+ */
+
+final class PipelineTiming {
+
+	/** Duración de un tick de /proc (USER_HZ = 100 en Linux) */
+
+	private static final long CLOCK_TICK_NANOS = 10_000_000L;
+
+	private static final Path PROC_SELF_STAT = Paths.get("/proc/self/stat");
+
+	private final long parseNanos;
+
+	private final long startNanos;
+
+	private final long[] childTicksAtStart;
+
+	private long spawnNanos = -1;
+
+	private long wallNanos;
+
+	private long childUserNanos = -1;
+
+	private long childSysNanos = -1;
+
+	private int status;
+
+	// Datos por etapa (se rellenan al arrancar la pipeline)
+
+	private List<Process> processes;
+
+	private String[] names;
+
+	private long[] pids;
+
+	private long[] stageEnd;
+
+	private long[] cpuNanos;
+
+	private int[] exitCodes;
+
+	private CompletableFuture<?>[] exits;
+
+	/**
+	 * @param parseNanos tiempo empleado en tokenizar la línea
+	 */
+
+	PipelineTiming(long parseNanos) {
+		this.parseNanos = parseNanos;
+		this.childTicksAtStart = readChildTicks();
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Registra el fin del arranque de las etapas. Cada etapa anota el instante
+	 * en que termina aunque la shell todavía esté esperando a otra.
+	 *
+	 * @param line
+	 * @param pipeline pipeline ya arrancada
+	 */
+
+	void spawned(TLine line, Pipeline pipeline) {
+		this.spawnNanos = System.nanoTime() - this.startNanos;
+		this.processes = pipeline.getProcesses();
+
+		int n = processes.size();
+		this.names = new String[n];
+		this.pids = new long[n];
+		this.stageEnd = new long[n];
+		this.cpuNanos = new long[n];
+		this.exitCodes = new int[n];
+		this.exits = new CompletableFuture<?>[n];
+
+		for (int i = 0; i < n; i++) {
+			Process p = processes.get(i);
+			int stage = i;
+			names[i] = nameOf(line.getCommands().get(i));
+			pids[i] = p.pid();
+			cpuNanos[i] = -1;
+			exits[i] = p.onExit().thenRun(() -> stageEnd[stage] = System.nanoTime());
+		}
+		sample();
+	}
+
+	/**
+	 * Toma una muestra de la CPU consumida por las etapas que siguen vivas.
+	 * La información del sistema desaparece al recoger el proceso, así que
+	 * se conserva la última lectura.
+	 */
+
+	void sample() {
+		for (int i = 0; i < processes.size(); i++) {
+			Process p = processes.get(i);
+			if (pids[i] < 0 || !p.isAlive()) {
+				continue;
+			}
+			Optional<Duration> cpu = p.toHandle().info().totalCpuDuration();
+			if (cpu.isPresent()) {
+				cpuNanos[i] = cpu.get().toNanos();
+			}
+		}
+	}
+
+	/**
+	 * Cierra la medición.
+	 *
+	 * @param line
+	 * @param status código de salida de la pipeline
+	 */
+
+	void finish(TLine line, int status) {
+		long end = System.nanoTime();
+		this.wallNanos = end - this.startNanos;
+		this.status = status;
+
+		long[] ticks = readChildTicks();
+		if (ticks != null && this.childTicksAtStart != null) {
+			this.childUserNanos = (ticks[0] - this.childTicksAtStart[0]) * CLOCK_TICK_NANOS;
+			this.childSysNanos = (ticks[1] - this.childTicksAtStart[1]) * CLOCK_TICK_NANOS;
+		}
+
+		// Comando interno de la shell (cd, jobs...): una sola etapa sin proceso
+		if (this.processes == null) {
+			TCommand cmd = line.getCommands().get(0);
+			this.names = new String[] { nameOf(cmd) };
+			this.pids = new long[] { -1 };
+			this.stageEnd = new long[] { end };
+			this.cpuNanos = new long[] { -1 };
+			this.exitCodes = new int[] { status };
+			return;
+		}
+
+		for (int i = 0; i < processes.size(); i++) {
+			Process p = processes.get(i);
+			if (p.isAlive()) {
+				// Segundo plano: la etapa sigue en marcha
+				stageEnd[i] = -1;
+				exitCodes[i] = -1;
+			} else {
+				exits[i].join();
+				exitCodes[i] = p.exitValue();
+			}
+		}
+	}
+
+	/**
+	 * Muestra la medición al estilo de 'time' (real/user/sys) seguida del detalle por etapa.
+	 *
+	 * @param out
+	 */
+
+	void report(PrintStream out) {
+		StringBuilder sb = new StringBuilder();
+		sb.append('\n');
+		sb.append("real\t").append(clock(wallNanos)).append('\n');
+		sb.append("user\t").append(childUserNanos < 0 ? "-" : clock(childUserNanos)).append('\n');
+		sb.append("sys\t").append(childSysNanos < 0 ? "-" : clock(childSysNanos)).append('\n');
+		sb.append("tokenizado\t").append(format(parseNanos)).append('\n');
+		if (spawnNanos >= 0) {
+			sb.append("arranque\t").append(format(spawnNanos)).append('\n');
+		}
+		for (int i = 0; i < names.length; i++) {
+			sb.append('[').append(i + 1).append("] ").append(names[i]);
+			sb.append("\tpid ").append(pids[i] < 0 ? "-" : Long.toString(pids[i]));
+			sb.append("\t").append(stageEnd[i] < 0 ? "en curso" : format(stageEnd[i] - startNanos));
+			sb.append("\tcpu ").append(cpuNanos[i] < 0 ? "-" : format(cpuNanos[i]));
+			sb.append("\tsalida ").append(exitCodes[i] < 0 ? "-" : Integer.toString(exitCodes[i]));
+			sb.append('\n');
+		}
+		sb.append("estado\t").append(status).append('\n');
+		out.print(sb);
+		out.flush();
+	}
+
+	/** Tiempo total de la pipeline (tras finish()) */
+
+	long wallNanos() {
+		return wallNanos;
+	}
+
+	/**
+	 * @return tiempo hasta la terminación de cada etapa (-1 si sigue en marcha), tras finish()
+	 */
+
+	long[] stageNanos() {
+		long[] nanos = new long[stageEnd.length];
+		for (int i = 0; i < nanos.length; i++) {
+			nanos[i] = stageEnd[i] < 0 ? -1 : stageEnd[i] - startNanos;
+		}
+		return nanos;
+	}
+
+	/**
+	 * Añade la medición a las estadísticas acumuladas ('stats').
+	 * El tokenizado se anota una vez por línea (MiniShell.runLine), no por pipeline.
+	 *
+	 * @param metrics
+	 */
+
+	void record(Metrics metrics) {
+		if (spawnNanos >= 0) {
+			metrics.recordSpawn(spawnNanos);
+		}
+		for (int i = 0; i < names.length; i++) {
+			if (stageEnd[i] >= 0) {
+				metrics.record(names[i], stageEnd[i] - startNanos);
+			}
+		}
+	}
+
+	/**
+	 * Tiempo de CPU (usuario y sistema, en ticks) de los hijos ya esperados por la JVM.
+	 *
+	 * @return {cutime, cstime}, o null si /proc no está disponible
+	 */
+
+	private static long[] readChildTicks() {
+		try {
+			String stat = new String(Files.readAllBytes(PROC_SELF_STAT), StandardCharsets.US_ASCII);
+
+			// El nombre del proceso va entre paréntesis y puede contener espacios
+			String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+
+			// Tras el nombre, el campo 3 (estado) es el índice 0: cutime y cstime son los campos 16 y 17
+			return new long[] { Long.parseLong(fields[13]), Long.parseLong(fields[14]) };
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/** Nombre de una etapa en los informes (un comando con solo asignaciones no tiene) */
+
+	static String nameOf(TCommand cmd) {
+		return cmd.getFilename() != null ? cmd.getFilename() : "(asignación)";
+	}
+
+	/**
+	 * Duración legible: µs, ms o s según su magnitud.
+	 *
+	 * @param nanos
+	 * @return
+	 */
+
+	static String format(long nanos) {
+		if (nanos < 1_000_000L) {
+			return String.format("%dµs", nanos / 1_000L);
+		} else if (nanos < 1_000_000_000L) {
+			return String.format("%.3fms", nanos / 1e6);
+		}
+		return String.format("%.3fs", nanos / 1e9);
+	}
+
+	/**
+	 * Duración en el formato de 'time' de bash: 0m0.000s.
+	 *
+	 * @param nanos
+	 * @return
+	 */
+
+	private static String clock(long nanos) {
+		long millis = nanos / 1_000_000L;
+		return String.format("%dm%d.%03ds", millis / 60_000, (millis / 1000) % 60, millis % 1000);
+	}
+}
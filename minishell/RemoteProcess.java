@@ -0,0 +1,161 @@
+package minishell;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Proceso externo creado por el servidor de arranque (SpawnServer).
+ *
+ * Se presenta como un Process para que la shell lo trate igual que a uno
+ * propio. Sus flujos son conexiones al servidor (o vacíos si no son PIPE),
+ * el código de salida llega por la conexión de control y las señales se
+ * envían directamente al PID con ProcessHandle: no es hijo de la shell,
+ * pero es del mismo usuario.
+ */
+
+final class RemoteProcess extends Process {
+
+	private final long pid;
+
+	/** null si el proceso terminó antes de poder obtenerlo */
+
+	private final ProcessHandle handle;
+
+	private final OutputStream stdin;
+	private final InputStream stdout;
+	private final InputStream stderr;
+
+	private final CompletableFuture<Process> exit = new CompletableFuture<>();
+
+	private volatile int exitCode;
+
+	RemoteProcess(long pid, OutputStream stdin, InputStream stdout, InputStream stderr) {
+		this.pid = pid;
+		this.handle = ProcessHandle.of(pid).orElse(null);
+		this.stdin = stdin;
+		this.stdout = stdout;
+		this.stderr = stderr;
+	}
+
+	/** Código de salida recibido del servidor */
+
+	void exited(int code) {
+		this.exitCode = code;
+		exit.complete(this);
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return stdin;
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return stdout;
+	}
+
+	@Override
+	public InputStream getErrorStream() {
+		return stderr;
+	}
+
+	@Override
+	public int waitFor() throws InterruptedException {
+		try {
+			exit.get();
+		} catch (ExecutionException e) {
+			// exited() nunca completa con excepción
+		}
+		return exitCode;
+	}
+
+	@Override
+	public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+		try {
+			exit.get(timeout, unit);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (ExecutionException e) {
+			return true;
+		}
+	}
+
+	@Override
+	public int exitValue() {
+		if (!exit.isDone()) {
+			throw new IllegalThreadStateException("El proceso " + pid + " no ha terminado");
+		}
+		return exitCode;
+	}
+
+	/** Solo mientras no se ha recibido su salida: después el PID podría reutilizarse */
+
+	@Override
+	public void destroy() {
+		if (handle != null && !exit.isDone()) {
+			handle.destroy();
+		}
+	}
+
+	@Override
+	public Process destroyForcibly() {
+		if (handle != null && !exit.isDone()) {
+			handle.destroyForcibly();
+		}
+		return this;
+	}
+
+	@Override
+	public boolean supportsNormalTermination() {
+		return true;
+	}
+
+	/**
+	 * Sin handle el proceso ya ha terminado aunque su código aún no haya
+	 * llegado: así nadie pide toHandle() de un proceso que no existe.
+	 */
+
+	@Override
+	public boolean isAlive() {
+		return handle != null && !exit.isDone();
+	}
+
+	@Override
+	public CompletableFuture<Process> onExit() {
+		return exit;
+	}
+
+	@Override
+	public long pid() {
+		return pid;
+	}
+
+	@Override
+	public ProcessHandle toHandle() {
+		if (handle == null) {
+			throw new UnsupportedOperationException("El proceso " + pid + " ya ha terminado");
+		}
+		return handle;
+	}
+
+	@Override
+	public Stream<ProcessHandle> children() {
+		return handle == null ? Stream.empty() : handle.children();
+	}
+
+	@Override
+	public Stream<ProcessHandle> descendants() {
+		return handle == null ? Stream.empty() : handle.descendants();
+	}
+
+	@Override
+	public String toString() {
+		return "RemoteProcess[pid=" + pid + "]";
+	}
+}
@@ -0,0 +1,379 @@
+package minishell;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import tokenizer.Tokenizer;
+
+/**
+ * Modo servidor: una sola JVM atiende muchas sesiones de shell a la vez
+ * (MiniShell --server socket|puerto).
+ *
+ * Funciones/Comportamientos principales:
+ * - Escucha en un socket de dominio UNIX (solo accesible por el usuario) o
+ * 		en un puerto TCP de la interfaz local (127.0.0.1).
+ * - El socket UNIX se crea dentro de un directorio privado y se enlaza en su
+ * 		ruta ya con permisos 0600: no hay un momento en que otro usuario pueda
+ * 		conectarse.
+ * - Por TCP cualquier usuario de la máquina llega al puerto: cada sesión
+ * 		debe empezar con "auth CLAVE". La clave es aleatoria y se guarda en un
+ * 		archivo 0600 (MINISHELL_SERVER_TOKEN o ~/.minishell_server_token).
+ * - Cada conexión es una sesión con su propia MiniShell: directorio actual,
+ * 		variables y tabla de trabajos independientes. Lo que no depende de la
+ * 		sesión (la JVM, el JIT, los hilos de bombeo) se comparte.
+ * - Cada sesión tiene su propio hilo: virtual si la JVM lo permite (21 o
+ * 		superior), si no un hilo de plataforma con una pila pequeña.
+ * - Protocolo de líneas:
+ * 		cliente -> servidor: órdenes de texto en UTF-8, una por línea (o varias
+ * 		líneas si la orden continúa, como en un script).
+ * 		servidor -> cliente: "out N" o "err N" seguidas de N bytes de salida
+ * 		estándar o de errores, y "status C" al terminar cada orden.
+ * 		La sesión se cierra con 'exit' o cuando el cliente cierra la conexión;
+ * 		sus trabajos en segundo plano se terminan. Si la clave no es correcta
+ * 		se envía un mensaje de error y se cierra la conexión.
+ */
+
+final class ShellServer {
+
+	/** Pila de los hilos de sesión cuando no hay hilos virtuales */
+
+	private static final long SESSION_STACK_SIZE = 512 * 1024;
+
+	/** Las órdenes son líneas cortas: un buffer pequeño por sesión */
+
+	private static final int READER_BUFFER_SIZE = 1024;
+
+	/** Bytes aleatorios de la clave de las sesiones TCP */
+
+	private static final int TOKEN_BYTES = 32;
+
+	private final ServerSocketChannel server;
+
+	/** Clave que debe enviar cada sesión ("auth CLAVE"), o null si no hace falta (socket UNIX) */
+
+	private final byte[] token;
+
+	private final ExecutorService sessions = sessionExecutor();
+
+	private ShellServer(ServerSocketChannel server, byte[] token) {
+		this.server = server;
+		this.token = token;
+	}
+
+	/**
+	 * Escucha y atiende sesiones hasta que se cierre el socket.
+	 *
+	 * @param address ruta del socket de dominio UNIX, o número de puerto TCP local
+	 * @return código de salida (1 si no se puede escuchar)
+	 */
+
+	static int run(String address) {
+		ShellServer shell;
+		try {
+			shell = open(address);
+		} catch (IOException | UnsupportedOperationException e) {
+			System.err.println("--server: no se puede escuchar en " + address + ": " + e.getMessage());
+			return 1;
+		}
+		System.err.println("MiniShell: sesiones en " + address
+				+ (shell.token != null ? " (clave en " + tokenFile() + ")" : ""));
+		shell.serve();
+		return 0;
+	}
+
+	/**
+	 * Abre el socket del servidor (las sesiones se atienden con serve()).
+	 *
+	 * @param address ruta de un socket UNIX (no debe existir) o número de puerto
+	 * @throws IOException si no se puede crear o ya existe
+	 */
+
+	static ShellServer open(String address) throws IOException {
+		return open(address, tokenFile());
+	}
+
+	/**
+	 * @param address ruta de un socket UNIX (no debe existir) o número de puerto
+	 * @param tokenFile archivo donde se guarda la clave de las sesiones TCP
+	 * @throws IOException si no se puede crear o ya existe
+	 */
+
+	static ShellServer open(String address, Path tokenFile) throws IOException {
+		if (address.matches("\\d+")) {
+			ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.INET);
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address)));
+			try {
+				return new ShellServer(server, writeToken(tokenFile));
+			} catch (IOException e) {
+				server.close();
+				throw e;
+			}
+		}
+		return new ShellServer(bindUnix(Path.of(address).toAbsolutePath()), null);
+	}
+
+	/** Archivo de la clave: MINISHELL_SERVER_TOKEN o ~/.minishell_server_token */
+
+	static Path tokenFile() {
+		String configured = System.getenv("MINISHELL_SERVER_TOKEN");
+		if (configured != null && !configured.isBlank()) {
+			return Path.of(configured);
+		}
+		return Path.of(System.getProperty("user.home"), ".minishell_server_token");
+	}
+
+	/**
+	 * Crea una clave nueva y la guarda en un archivo que solo puede leer el
+	 * usuario (creado ya con esos permisos). Se borra al terminar el servidor.
+	 *
+	 * @return la clave (en hexadecimal, como en el archivo)
+	 */
+
+	private static byte[] writeToken(Path file) throws IOException {
+		byte[] random = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(random);
+		byte[] token = HexFormat.of().formatHex(random).getBytes(StandardCharsets.US_ASCII);
+
+		Files.deleteIfExists(file);
+		try {
+			Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} catch (UnsupportedOperationException e) {
+			// Sistema sin permisos POSIX
+			Files.createFile(file);
+		}
+		Files.write(file, token);
+		deleteOnExit(file);
+		return token;
+	}
+
+	/**
+	 * Crea el socket en un directorio nuevo que solo puede abrir el usuario,
+	 * le quita los permisos al resto y lo enlaza en su ruta (falla si ya existe).
+	 */
+
+	private static ServerSocketChannel bindUnix(Path socket) throws IOException {
+		Path parent = socket.getParent();
+		Path directory;
+		try {
+			directory = Files.createTempDirectory(parent, ".minishell-server",
+					PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+		} catch (UnsupportedOperationException e) {
+			// Sistema sin permisos POSIX
+			directory = Files.createTempDirectory(parent, ".minishell-server");
+		}
+
+		Path bound = directory.resolve("socket");
+		ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		try {
+			server.bind(UnixDomainSocketAddress.of(bound));
+			try {
+				// Solo el usuario puede conectarse (cada sesión ejecuta comandos en su nombre)
+				Files.setPosixFilePermissions(bound, PosixFilePermissions.fromString("rw-------"));
+			} catch (UnsupportedOperationException e) {
+				// Sistema sin permisos POSIX
+			}
+			Files.createLink(socket, bound);
+		} catch (IOException e) {
+			server.close();
+			throw e;
+		} finally {
+			Files.deleteIfExists(bound);
+			Files.deleteIfExists(directory);
+		}
+		deleteOnExit(socket);
+		return server;
+	}
+
+	private static void deleteOnExit(Path file) {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException ignored) {
+				// Se borra en el siguiente arranque
+			}
+		}, "ms-server-cleanup"));
+	}
+
+	/** Dirección en la que escucha (con el puerto elegido si se pidió el 0) */
+
+	SocketAddress address() throws IOException {
+		return server.getLocalAddress();
+	}
+
+	/** Bucle de aceptación: una tarea por conexión */
+
+	void serve() {
+		while (true) {
+			SocketChannel channel;
+			try {
+				channel = server.accept();
+			} catch (ClosedChannelException e) {
+				break;
+			} catch (IOException e) {
+				System.err.println("--server: error al aceptar una conexión: " + e.getMessage());
+				continue;
+			}
+			sessions.execute(() -> session(channel, token));
+		}
+		sessions.shutdown();
+	}
+
+	/** Deja de aceptar sesiones (las abiertas siguen hasta que terminan) */
+
+	void close() throws IOException {
+		server.close();
+	}
+
+	/**
+	 * Atiende una sesión: comprueba la clave (si hace falta), lee órdenes hasta
+	 * 'exit' o el fin de la conexión y envía su salida y su código.
+	 */
+
+	private static void session(SocketChannel channel, byte[] token) {
+		try (channel) {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(input(channel), StandardCharsets.UTF_8),
+					READER_BUFFER_SIZE);
+			if (token != null && !authenticated(reader.readLine(), token)) {
+				new Frames(channel, "err").write("--server: clave incorrecta\n".getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+
+			MiniShell shell = new MiniShell(new Frames(channel, "out"), new Frames(channel, "err"));
+			try {
+				String line;
+				while (!shell.isExitRequested() && (line = reader.readLine()) != null) {
+					if (line.isBlank()) {
+						continue;
+					}
+
+					// Orden incompleta ('|' al final, documento en línea...): se leen más líneas
+					StringBuilder input = new StringBuilder(line.trim());
+					while (!Tokenizer.isComplete(input.toString()) && (line = reader.readLine()) != null) {
+						input.append('\n').append(line);
+					}
+
+					int status = shell.runLine(input.toString());
+					shell.flush();
+					send(channel, ByteBuffer.wrap(("status " + status + "\n").getBytes(StandardCharsets.US_ASCII)));
+				}
+			} finally {
+				shell.close();
+			}
+		} catch (IOException e) {
+			// El cliente ha cerrado la conexión
+		}
+	}
+
+	/** Primera línea de una sesión TCP: "auth CLAVE" (se compara en tiempo constante) */
+
+	private static boolean authenticated(String line, byte[] token) {
+		if (line == null || !line.startsWith("auth ")) {
+			return false;
+		}
+		byte[] given = line.substring("auth ".length()).trim().getBytes(StandardCharsets.US_ASCII);
+		return MessageDigest.isEqual(given, token);
+	}
+
+	/**
+	 * Salida (estándar o de errores) de una sesión: cada bloque se envía con
+	 * su cabecera ("out N") en una sola escritura, sin buffer intermedio. Es
+	 * seguro entre hilos: los bloques de varios procesos no se mezclan.
+	 */
+
+	private static final class Frames extends OutputStream {
+
+		private final SocketChannel channel;
+		private final String tag;
+
+		Frames(SocketChannel channel, String tag) {
+			this.channel = channel;
+			this.tag = tag;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return;
+			}
+			send(channel, ByteBuffer.wrap((tag + " " + len + "\n").getBytes(StandardCharsets.US_ASCII)),
+					ByteBuffer.wrap(b, off, len));
+		}
+	}
+
+	/** Escribe varios bloques seguidos: ningún otro hilo de la sesión escribe entre ellos */
+
+	private static void send(SocketChannel channel, ByteBuffer... buffers) throws IOException {
+		ByteBuffer last = buffers[buffers.length - 1];
+		synchronized (channel) {
+			while (last.hasRemaining()) {
+				channel.write(buffers);
+			}
+		}
+	}
+
+	/**
+	 * Entrada sobre el canal sin Channels.newInputStream: comparte un cerrojo
+	 * con las escrituras, y un hilo esperando a la siguiente orden impediría
+	 * que la salida de un trabajo en segundo plano llegase al cliente.
+	 */
+
+	private static InputStream input(SocketChannel channel) {
+		return new InputStream() {
+			@Override
+			public int read() throws IOException {
+				byte[] b = new byte[1];
+				return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				return len == 0 ? 0 : channel.read(ByteBuffer.wrap(b, off, len));
+			}
+		};
+	}
+
+	/**
+	 * Un hilo virtual por sesión si la JVM los tiene (se compila para Java 17,
+	 * así que se busca por reflexión); si no, hilos de plataforma reutilizables.
+	 */
+
+	private static ExecutorService sessionExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			AtomicInteger count = new AtomicInteger();
+			return Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(null, r, "ms-session-" + count.incrementAndGet(), SESSION_STACK_SIZE);
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+}
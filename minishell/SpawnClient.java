@@ -0,0 +1,269 @@
+package minishell;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Crea los procesos externos a través del servidor de arranque (SpawnServer).
+ *
+ * Funciones/Comportamientos principales:
+ * - Con MINISHELL_SPAWN_SERVER=1 sustituye a JoinedPipes.start():
+ * 		el coste de crear cada proceso lo paga una JVM de 16 MB en lugar de
+ * 		la de la shell, por grande que sea su heap.
+ * - El servidor se lanza con el primer comando externo, no al arrancar la shell.
+ * - Si no se puede lanzar o deja de responder, se avisa una vez y los
+ * 		procesos se vuelven a crear directamente.
+ * - Su entrada estándar es el "cordón" que lo mantiene vivo: al salir la
+ * 		shell (aunque sea de forma abrupta) recibe fin de datos y termina.
+ * - Hay uno por JVM (shared()), no uno por shell: las sesiones del modo
+ * 		servidor comparten el mismo.
+ */
+
+final class SpawnClient {
+
+	/** Opciones de la JVM del servidor: heap mínimo y arranque rápido */
+
+	private static final String[] JVM_OPTIONS = { "-Xmx16m", "-Xss256k", "-XX:TieredStopAtLevel=1",
+			"-XX:+UseSerialGC", "-XX:-UsePerfData" };
+
+	/** Tiempo máximo de espera a que el servidor escuche */
+
+	private static final long LAUNCH_TIMEOUT_MILLIS = 5000;
+
+	/** Servidor en marcha (null hasta el primer uso) */
+
+	private Process server;
+
+	private UnixDomainSocketAddress address;
+
+	/** No se pudo usar el servidor: se crean los procesos directamente */
+
+	private volatile boolean unavailable;
+
+	/** Cliente común de todas las shells de la JVM (null hasta el primer uso) */
+
+	private static SpawnClient shared;
+
+	/**
+	 * Un solo servidor de arranque por JVM: lo comparten todas las shells
+	 * (p.ej. cada sesión de --server) y termina con la JVM.
+	 *
+	 * @return el cliente común
+	 */
+
+	static synchronized SpawnClient shared() {
+		if (shared == null) {
+			shared = new SpawnClient();
+		}
+		return shared;
+	}
+
+	/**
+	 * Arranca un tramo de procesos unidos por pipes, igual que
+	 * JoinedPipes.start().
+	 *
+	 * @param builders etapas del tramo
+	 * @return los procesos, en el mismo orden
+	 * @throws IOException si algún proceso no se puede crear (mismo mensaje que en la JVM)
+	 */
+
+	List<Process> startPipeline(List<ProcessBuilder> builders) throws IOException {
+		UnixDomainSocketAddress address = address();
+		if (address == null) {
+			return JoinedPipes.start(builders);
+		}
+
+		SocketChannel control;
+		try {
+			control = SocketChannel.open(address);
+		} catch (IOException e) {
+			disable(e);
+			return JoinedPipes.start(builders);
+		}
+
+		List<RemoteProcess> processes = new ArrayList<>(builders.size());
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(control)));
+			out.writeByte(SpawnServer.START);
+			SpawnServer.writeBuilders(out, builders);
+			out.flush();
+
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(control)));
+			if (!in.readBoolean()) {
+				throw new IOException(SpawnServer.readString(in));
+			}
+			long id = in.readLong();
+			long[] pids = new long[builders.size()];
+			for (int k = 0; k < pids.length; k++) {
+				pids[k] = in.readLong();
+			}
+
+			// Una conexión por cada flujo que la shell lee o escribe
+			int last = builders.size() - 1;
+			OutputStream[] stdin = new OutputStream[builders.size()];
+			InputStream[] stdout = new InputStream[builders.size()];
+			InputStream[] stderr = new InputStream[builders.size()];
+			for (int[] stream : SpawnServer.streams(builders)) {
+				SocketChannel channel = attach(address, id, stream[0], stream[1]);
+				if (stream[1] == 0) {
+					stdin[stream[0]] = Channels.newOutputStream(channel);
+				} else if (stream[1] == 1) {
+					stdout[stream[0]] = Channels.newInputStream(channel);
+				} else {
+					stderr[stream[0]] = Channels.newInputStream(channel);
+				}
+			}
+			for (int k = 0; k <= last; k++) {
+				processes.add(new RemoteProcess(pids[k],
+						stdin[k] != null ? stdin[k] : OutputStream.nullOutputStream(),
+						stdout[k] != null ? stdout[k] : InputStream.nullInputStream(),
+						stderr[k] != null ? stderr[k] : InputStream.nullInputStream()));
+			}
+
+			// Códigos de salida según terminan; si se pierde la conexión, el resto acaba con 255
+			StreamPump.submit(() -> {
+				try (control) {
+					for (int k = 0; k <= last; k++) {
+						int stage = in.readInt();
+						processes.get(stage).exited(in.readInt());
+					}
+				} catch (IOException e) {
+					for (RemoteProcess p : processes) {
+						p.exited(255);
+					}
+				}
+			});
+			return new ArrayList<>(processes);
+
+		} catch (IOException e) {
+			SpawnServer.closeQuietly(control);
+			throw e;
+		}
+	}
+
+	/**
+	 * Abre la conexión de un flujo de un tramo ya arrancado.
+	 */
+
+	private static SocketChannel attach(UnixDomainSocketAddress address, long id, int stage, int fd) throws IOException {
+		SocketChannel channel = SocketChannel.open(address);
+		ByteBuffer header = ByteBuffer.allocate(1 + Long.BYTES + 2 * Integer.BYTES);
+		header.put((byte) SpawnServer.ATTACH).putLong(id).putInt(stage).putInt(fd).flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+		return channel;
+	}
+
+	/**
+	 * @return dirección del servidor (lanzándolo si hace falta), o null si no está disponible
+	 */
+
+	private synchronized UnixDomainSocketAddress address() {
+		if (unavailable) {
+			return null;
+		}
+		if (address == null) {
+			try {
+				launch();
+			} catch (IOException e) {
+				disable(e);
+				return null;
+			}
+		}
+		return address;
+	}
+
+	/**
+	 * Lanza el servidor con el mismo classpath que la shell y espera a que escuche.
+	 *
+	 * @throws IOException si no arranca a tiempo (p.ej. ejecutable nativo sin JVM)
+	 */
+
+	private void launch() throws IOException {
+		String home = System.getProperty("java.home");
+		if (home == null) {
+			throw new IOException("no hay una JVM con la que lanzarlo");
+		}
+
+		// Directorio privado (solo accesible por el usuario): nadie más puede conectarse
+		Path socket = Files.createTempDirectory("minishell-spawn").resolve("socket");
+
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(home, "bin", "java").toString());
+		command.addAll(List.of(JVM_OPTIONS));
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(SpawnServer.class.getName());
+		command.add(socket.toString());
+
+		Process process = new ProcessBuilder(command)
+				.redirectOutput(ProcessBuilder.Redirect.INHERIT)
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+
+		UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socket);
+		long deadline = System.currentTimeMillis() + LAUNCH_TIMEOUT_MILLIS;
+		while (true) {
+			try {
+				SocketChannel.open(address).close();
+				break;
+			} catch (IOException e) {
+				if (!process.isAlive() || System.currentTimeMillis() > deadline) {
+					process.destroyForcibly();
+					Files.deleteIfExists(socket);
+					Files.deleteIfExists(socket.getParent());
+					throw new IOException("no responde");
+				}
+			}
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+				throw new IOException("interrumpido");
+			}
+		}
+
+		this.server = process;
+		this.address = address;
+	}
+
+	private synchronized void disable(IOException cause) {
+		if (!unavailable) {
+			unavailable = true;
+			System.err.println("spawn-server: no disponible (" + cause.getMessage() + "): los procesos se crean directamente");
+		}
+		close();
+	}
+
+	/**
+	 * Detiene el servidor (cierra su entrada estándar). Los procesos ya
+	 * creados siguen en marcha.
+	 */
+
+	synchronized void close() {
+		if (server != null) {
+			try {
+				server.getOutputStream().close();
+			} catch (IOException ignored) {
+				// Ya cerrada
+			}
+			server = null;
+		}
+		address = null;
+	}
+}
@@ -0,0 +1,369 @@
+package minishell;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor de arranque de procesos (MINISHELL_SPAWN_SERVER): una JVM pequeña
+ * que crea los procesos externos en nombre de la shell.
+ *
+ * Funciones/Comportamientos principales:
+ * - Lo lanza SpawnClient con un heap mínimo y escucha en un socket de
+ * 		dominio UNIX dentro de un directorio temporal privado.
+ * - Cada petición es un tramo de ProcessBuilders (programa, directorio,
+ * 		entorno y redirecciones); los arranca y une con JoinedPipes, así que
+ * 		los pipes entre etapas no pasan por la shell.
+ * - Los flujos que la shell necesita leer o escribir (PIPE) se conectan cada
+ * 		uno por su propia conexión al socket; los archivos y los descriptores
+ * 		heredados (los de la shell) no pasan por aquí.
+ * - Responde con el PID de cada proceso y después con su código de salida
+ * 		según van terminando.
+ * - Termina al cerrarse su entrada estándar: la shell ha salido. Ctrl-C
+ * 		no le afecta (lo gestiona la shell, ver InterruptHandler).
+ */
+
+final class SpawnServer {
+
+	/** Tipo de conexión (primer byte) */
+
+	static final int START = 1;
+	static final int ATTACH = 2;
+
+	/** Número de petición de cada tramo arrancado */
+
+	private static final AtomicLong ids = new AtomicLong();
+
+	/** Tramos con flujos aún por conectar */
+
+	private static final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+
+	/** Procesos de un tramo y conexiones de flujos que faltan por llegar */
+
+	private static final class Session {
+		final List<Process> processes;
+		final AtomicInteger pending;
+
+		Session(List<Process> processes, int streams) {
+			this.processes = processes;
+			this.pending = new AtomicInteger(streams);
+		}
+	}
+
+	private SpawnServer() {
+	}
+
+	/**
+	 * @param args ruta del socket
+	 */
+
+	public static void main(String[] args) throws IOException {
+		Path path = Path.of(args[0]);
+		ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		server.bind(UnixDomainSocketAddress.of(path));
+
+		// Ctrl-C llega a todo el grupo de procesos del terminal: el servidor no debe
+		// morir con él. Un manejador vacío (no SIG_IGN) no lo heredan los procesos creados.
+		try {
+			sun.misc.Signal.handle(new sun.misc.Signal("INT"), signal -> {
+			});
+		} catch (IllegalArgumentException | LinkageError e) {
+			// Señal no soportada en este sistema
+		}
+
+		// El socket se borra al salir, también si termina por una señal (SIGHUP al cerrar el terminal)
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				Files.deleteIfExists(path);
+				Files.deleteIfExists(path.getParent());
+			} catch (IOException e) {
+				// Directorio temporal: lo limpiará el sistema
+			}
+		}));
+
+		// La shell mantiene abierta la entrada estándar mientras vive
+		Thread lifeline = new Thread(() -> {
+			try {
+				while (System.in.read() >= 0) {
+					// Nada que leer: solo se espera al fin de datos
+				}
+			} catch (IOException e) {
+				// Igual que el fin de datos
+			}
+			System.exit(0);
+		}, "ms-spawn-lifeline");
+		lifeline.setDaemon(true);
+		lifeline.start();
+
+		while (true) {
+			SocketChannel channel = server.accept();
+			StreamPump.submit(() -> handle(channel));
+		}
+	}
+
+	private static void handle(SocketChannel channel) {
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			int kind = in.read();
+			if (kind == START) {
+				start(channel, in);
+			} else if (kind == ATTACH) {
+				attach(channel, in);
+			} else {
+				// Conexión de prueba de SpawnClient (comprueba que el servidor escucha)
+				channel.close();
+			}
+		} catch (IOException e) {
+			closeQuietly(channel);
+		}
+	}
+
+	/**
+	 * Arranca un tramo y envía su resultado: PIDs o el mensaje de error, y
+	 * después el código de salida de cada etapa al terminar.
+	 */
+
+	private static void start(SocketChannel channel, DataInputStream in) throws IOException {
+		List<ProcessBuilder> builders = readBuilders(in);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+
+		List<Process> processes;
+		try {
+			processes = JoinedPipes.start(builders);
+		} catch (IOException | RuntimeException e) {
+			out.writeBoolean(false);
+			writeString(out, String.valueOf(e.getMessage()));
+			out.close();
+			return;
+		}
+
+		long id = ids.incrementAndGet();
+		int streams = streams(builders).size();
+		if (streams > 0) {
+			sessions.put(id, new Session(processes, streams));
+		}
+
+		out.writeBoolean(true);
+		out.writeLong(id);
+		for (Process p : processes) {
+			out.writeLong(p.pid());
+		}
+		out.flush();
+
+		// Códigos de salida según terminan (cada proceso desde su propio hilo de espera)
+		AtomicInteger running = new AtomicInteger(processes.size());
+		for (int k = 0; k < processes.size(); k++) {
+			int stage = k;
+			processes.get(k).onExit().thenAccept(p -> {
+				synchronized (out) {
+					try {
+						out.writeInt(stage);
+						out.writeInt(p.exitValue());
+						out.flush();
+						if (running.decrementAndGet() == 0) {
+							out.close();
+						}
+					} catch (IOException e) {
+						// La shell ya no espera este tramo
+						closeQuietly(channel);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Conecta un flujo de un proceso ya arrancado con una conexión de la shell.
+	 */
+
+	private static void attach(SocketChannel channel, DataInputStream in) throws IOException {
+		long id = in.readLong();
+		int stage = in.readInt();
+		int fd = in.readInt();
+
+		Session session = sessions.get(id);
+		if (session == null) {
+			channel.close();
+			return;
+		}
+		if (session.pending.decrementAndGet() == 0) {
+			sessions.remove(id);
+		}
+
+		Process p = session.processes.get(stage);
+		if (fd == 0) {
+			StreamPump.connect(in, p.getOutputStream());
+		} else {
+			OutputStream out = Channels.newOutputStream(channel);
+			StreamPump.connect(fd == 1 ? p.getInputStream() : p.getErrorStream(), out);
+		}
+	}
+
+	/**
+	 * Flujos de un tramo que van a la shell (y necesitan su propia conexión):
+	 * stdin de la primera etapa, stdout de la última y stderr de cada una,
+	 * si son PIPE. Los pipes entre etapas los une JoinedPipes.
+	 *
+	 * @param builders
+	 * @return pares {etapa, descriptor}
+	 */
+
+	static List<int[]> streams(List<ProcessBuilder> builders) {
+		List<int[]> streams = new ArrayList<>();
+		int last = builders.size() - 1;
+		for (int k = 0; k <= last; k++) {
+			ProcessBuilder pb = builders.get(k);
+			if (k == 0 && pb.redirectInput().type() == ProcessBuilder.Redirect.Type.PIPE) {
+				streams.add(new int[] { k, 0 });
+			}
+			if (k == last && pb.redirectOutput().type() == ProcessBuilder.Redirect.Type.PIPE) {
+				streams.add(new int[] { k, 1 });
+			}
+			if (!pb.redirectErrorStream() && pb.redirectError().type() == ProcessBuilder.Redirect.Type.PIPE) {
+				streams.add(new int[] { k, 2 });
+			}
+		}
+		return streams;
+	}
+
+	/**
+	 * Envía un tramo. El entorno viaja como diferencia respecto al de la shell
+	 * al arrancar, que es el que hereda el servidor.
+	 */
+
+	static void writeBuilders(DataOutputStream out, List<ProcessBuilder> builders) throws IOException {
+		Map<String, String> inherited = System.getenv();
+		out.writeInt(builders.size());
+		for (ProcessBuilder pb : builders) {
+			List<String> command = pb.command();
+			out.writeInt(command.size());
+			for (String word : command) {
+				writeString(out, word);
+			}
+			writeString(out, pb.directory() == null ? "" : pb.directory().getPath());
+
+			Map<String, String> env = pb.environment();
+			List<String> changed = new ArrayList<>();
+			for (Map.Entry<String, String> e : env.entrySet()) {
+				if (!e.getValue().equals(inherited.get(e.getKey()))) {
+					changed.add(e.getKey());
+					changed.add(e.getValue());
+				}
+			}
+			List<String> removed = new ArrayList<>();
+			for (String name : inherited.keySet()) {
+				if (!env.containsKey(name)) {
+					removed.add(name);
+				}
+			}
+			out.writeInt(changed.size());
+			for (String s : changed) {
+				writeString(out, s);
+			}
+			out.writeInt(removed.size());
+			for (String s : removed) {
+				writeString(out, s);
+			}
+
+			writeRedirect(out, pb.redirectInput());
+			writeRedirect(out, pb.redirectOutput());
+			writeRedirect(out, pb.redirectError());
+			out.writeBoolean(pb.redirectErrorStream());
+		}
+	}
+
+	private static List<ProcessBuilder> readBuilders(DataInputStream in) throws IOException {
+		int n = in.readInt();
+		List<ProcessBuilder> builders = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			int argc = in.readInt();
+			List<String> command = new ArrayList<>(argc);
+			for (int j = 0; j < argc; j++) {
+				command.add(readString(in));
+			}
+			ProcessBuilder pb = new ProcessBuilder(command);
+			String directory = readString(in);
+			if (!directory.isEmpty()) {
+				pb.directory(new File(directory));
+			}
+
+			int changed = in.readInt();
+			for (int j = 0; j < changed; j += 2) {
+				pb.environment().put(readString(in), readString(in));
+			}
+			int removed = in.readInt();
+			for (int j = 0; j < removed; j++) {
+				pb.environment().remove(readString(in));
+			}
+
+			pb.redirectInput(readRedirect(in));
+			pb.redirectOutput(readRedirect(in));
+			pb.redirectError(readRedirect(in));
+			pb.redirectErrorStream(in.readBoolean());
+			builders.add(pb);
+		}
+		return builders;
+	}
+
+	private static void writeRedirect(DataOutputStream out, ProcessBuilder.Redirect redirect) throws IOException {
+		out.writeByte(redirect.type().ordinal());
+		if (redirect.file() != null) {
+			writeString(out, redirect.file().getPath());
+		}
+	}
+
+	private static ProcessBuilder.Redirect readRedirect(DataInputStream in) throws IOException {
+		switch (ProcessBuilder.Redirect.Type.values()[in.readByte()]) {
+			case PIPE:
+				return ProcessBuilder.Redirect.PIPE;
+			case INHERIT:
+				return ProcessBuilder.Redirect.INHERIT;
+			case READ:
+				return ProcessBuilder.Redirect.from(new File(readString(in)));
+			case WRITE:
+				return ProcessBuilder.Redirect.to(new File(readString(in)));
+			default:
+				return ProcessBuilder.Redirect.appendTo(new File(readString(in)));
+		}
+	}
+
+	/** Cadena de cualquier longitud (writeUTF se limita a 64 KiB) */
+
+	static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void closeQuietly(SocketChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException ignored) {
+			// Ya cerrada
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package minishell;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Subsistema de bombeo de salida.
+ *
+ * Funciones/Comportamientos principales:
+ * - Vacía stdout y stderr de todos los procesos a la vez, cada flujo en su
+ * 		propio hilo, para que ningún proceso quede bloqueado con el buffer
+ * 		del pipe lleno mientras se lee otro.
+ * - Copia bytes en bruto con buffers reutilizables (uno por hilo), sin
+ * 		decodificar líneas: la salida binaria llega intacta.
+ * - Los hilos son daemon y se reutilizan entre comandos: no impiden que la
+ * 		JVM termine al salir de la shell.
+ */
+
+final class StreamPump {
+
+	/** Tamaño del buffer de copia de cada hilo */
+
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Descriptores estándar de la shell sin capas de codificación ni buffer:
+	 * cada bloque leído de un proceso se escribe con una sola llamada al sistema.
+	 */
+
+	static final OutputStream stdout = new FileOutputStream(FileDescriptor.out);
+
+	static final OutputStream stderr = new FileOutputStream(FileDescriptor.err);
+
+	/**
+	 * Entrada estándar de la shell: los procesos externos la heredan y los comandos
+	 * internos la leen sin cerrarla al terminar (la shell la sigue usando).
+	 */
+
+	static final InputStream stdin = new FilterInputStream(System.in) {
+		@Override
+		public void close() {
+			// Es de la shell
+		}
+	};
+
+	/**
+	 * Pool dedicado: un pool acotado podría dejar flujos sin vaciar (y procesos
+	 * bloqueados), así que se reutilizan hilos ociosos y se crean nuevos solo si hace falta.
+	 * Se crea con la primera copia (clase contenedora): un comando interno
+	 * ejecutado en el hilo de la shell no llega a arrancar el pool.
+	 */
+
+	private static final class Pool {
+
+		private static final AtomicInteger threadCount = new AtomicInteger();
+
+		private static final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+			Thread t = new Thread(r, "ms-pump-" + threadCount.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+
+		private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+	}
+
+	private StreamPump() {
+	}
+
+	/**
+	 * Lanza en segundo plano la copia de 'in' hacia 'out'.
+	 * El flujo de entrada se cierra al terminar; el de salida no.
+	 *
+	 * @param in
+	 * @param out
+	 * @return Future que termina cuando 'in' llega a EOF
+	 */
+
+	static Future<Long> pump(InputStream in, OutputStream out) {
+		return Pool.executor.submit(() -> copy(in, out));
+	}
+
+	/**
+	 * Conecta dos etapas a través de la JVM: copia 'in' en 'out' en un hilo del
+	 * pool y cierra 'out' al terminar (fin de datos para la etapa siguiente).
+	 * Si la etapa siguiente termina antes de leerlo todo, el resto se descarta.
+	 *
+	 * @param in
+	 * @param out
+	 * @return Future que termina cuando 'in' llega a EOF
+	 */
+
+	static Future<Long> connect(InputStream in, OutputStream out) {
+		return Pool.executor.submit(() -> {
+			try (out) {
+				return copy(in, out);
+			} catch (IOException e) {
+				return -1L;
+			}
+		});
+	}
+
+	/**
+	 * Reparte 'in' entre varios destinos en un hilo del pool ('cmd > a > b').
+	 * Los archivos del reparto se cierran al terminar.
+	 *
+	 * @param in
+	 * @param sinks
+	 * @return Future que termina cuando 'in' llega a EOF
+	 */
+
+	static Future<Long> fanOut(InputStream in, FanOut sinks) {
+		return Pool.executor.submit(() -> {
+			try (sinks) {
+				return sinks.transfer(in);
+			}
+		});
+	}
+
+	/**
+	 * Ejecuta una tarea en el pool de la shell (p.ej. un comando interno de una pipeline).
+	 *
+	 * @param task
+	 * @return Future de la tarea (cancelable con interrupción)
+	 */
+
+	static Future<?> submit(Runnable task) {
+		return Pool.executor.submit(task);
+	}
+
+	/**
+	 * Copia 'in' en 'out' en el hilo actual con el buffer reutilizable del hilo.
+	 * Cada bloque se escribe de forma atómica respecto a otros hilos que
+	 * compartan el mismo destino (p.ej. stderr de varios procesos).
+	 *
+	 * @return número de bytes copiados
+	 */
+
+	static long copy(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = Pool.buffers.get();
+		long total = 0;
+
+		try (in) {
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				synchronized (out) {
+					out.write(buffer, 0, n);
+					out.flush();
+				}
+				total += n;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Espera a que terminen todas las copias indicadas.
+	 * Los errores de E/S de una copia (p.ej. pipe cerrado) no detienen al resto.
+	 *
+	 * @param pumps
+	 * @throws InterruptedException
+	 */
+
+	static void awaitAll(List<Future<Long>> pumps) throws InterruptedException {
+		for (Future<Long> f : pumps) {
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				System.err.println("Error al leer la salida del proceso: " + e.getCause().getMessage());
+			}
+		}
+	}
+}
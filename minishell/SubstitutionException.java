@@ -0,0 +1,23 @@
+package minishell;
+
+/**
+ * Una sustitución de orden ($(...) o `...`) no se puede usar: su salida
+ * supera el límite o la orden no se puede tokenizar. La pipeline que la
+ * contiene no se ejecuta.
+ */
+
+public class SubstitutionException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String command;
+
+	public SubstitutionException(String command, String reason) {
+		super("$(" + command + "): " + reason);
+		this.command = command;
+	}
+
+	public String getCommand() {
+		return command;
+	}
+}
@@ -0,0 +1,203 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Comandos internos de la JVM (echo, pwd, cat, wc, grep, head): su salida,
+ * sus códigos y las opciones que se delegan en el programa externo.
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class BuiltinsTest {
+
+	@TempDir
+	Path directory;
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+	/** Ejecuta un comando interno con 'input' como entrada estándar y devuelve su código */
+
+	private int run(Builtin builtin, String input, String... argv) throws IOException {
+		out.reset();
+		err.reset();
+		return builtin.run(List.of(argv), directory.toFile(),
+				new ByteArrayInputStream(input.getBytes(Charset.defaultCharset())), out, err);
+	}
+
+	private String out() {
+		return out.toString(Charset.defaultCharset());
+	}
+
+	@Test
+	void echoAndPwd() throws IOException {
+		assertEquals(0, run(Builtins::echo, "", "echo", "a", "b"));
+		assertEquals("a b\n", out());
+		run(Builtins::echo, "", "echo", "-n", "sin", "salto");
+		assertEquals("sin salto", out());
+		run(Builtins::pwd, "", "pwd");
+		assertEquals(directory.toFile().getAbsolutePath() + "\n", out());
+	}
+
+	@Test
+	void catFilesAndInput() throws IOException {
+		Files.writeString(directory.resolve("a.txt"), "uno\n");
+		assertEquals(0, run(Builtins::cat, "entrada\n", "cat", "a.txt", "-", "a.txt"));
+		assertEquals("uno\nentrada\nuno\n", out());
+
+		assertEquals(1, run(Builtins::cat, "", "cat", "falta.txt", "a.txt"));
+		assertEquals("uno\n", out());
+		assertTrue(err.size() > 0);
+	}
+
+	@Test
+	void wcCounts() throws IOException {
+		assertEquals(0, run(Builtins::wc, "una linea\ny otra\n", "wc", "-l"));
+		assertEquals("2\n", out());
+		run(Builtins::wc, "una linea\ny otra\n", "wc");
+		assertEquals("      2       4      17\n", out());
+
+		Files.writeString(directory.resolve("a.txt"), "a b c\n");
+		run(Builtins::wc, "", "wc", "-w", "a.txt", "a.txt");
+		assertEquals("      3 a.txt\n      3 a.txt\n      6 total\n", out());
+	}
+
+	@Test
+	void grepOptionsAndStatus() throws IOException {
+		String input = "Hola\nadios\nhola otra vez\n";
+		assertEquals(0, run(Builtins::grep, input, "grep", "hola"));
+		assertEquals("hola otra vez\n", out());
+		run(Builtins::grep, input, "grep", "-in", "hola");
+		assertEquals("1:Hola\n3:hola otra vez\n", out());
+		run(Builtins::grep, input, "grep", "-vc", "hola");
+		assertEquals("2\n", out());
+		assertEquals(0, run(Builtins::grep, input, "grep", "-q", "adios"));
+		assertEquals("", out());
+
+		assertEquals(1, run(Builtins::grep, input, "grep", "nada"));
+		assertEquals(2, run(Builtins::grep, input, "grep"));
+
+		// En una expresión básica '(' y '+' son literales
+		assertEquals(0, run(Builtins::grep, "f(x)\na+b\naab\n", "grep", "(x"));
+		assertEquals("f(x)\n", out());
+		run(Builtins::grep, "f(x)\na+b\naab\n", "grep", "a+b");
+		assertEquals("a+b\n", out());
+	}
+
+	@Test
+	void grepKeepsTheLineBytes() throws IOException {
+		// Solo '\n' separa líneas: '\r' sigue en la línea; la última recibe su '\n'
+		assertEquals(0, run(Builtins::grep, "a\r\nb\rab\nc\r\nab", "grep", "b"));
+		assertEquals("b\rab\nab\n", out());
+		run(Builtins::grep, "a\r\n\nx\r\n", "grep", "-v", "x");
+		assertEquals("a\r\n\n", out());
+		run(Builtins::grep, "\n\n", "grep", "-c", "");
+		assertEquals("2\n", out());
+
+		// Una línea más larga que el buffer
+		String longLine = "x".repeat(3 * StreamPump.BUFFER_SIZE) + "fin\r";
+		run(Builtins::grep, "a\n" + longLine + "\n", "grep", "fin");
+		assertEquals(longLine + "\n", out());
+	}
+
+	@Test
+	void headLines() throws IOException {
+		StringBuilder input = new StringBuilder();
+		for (int i = 1; i <= 20; i++) {
+			input.append(i).append('\n');
+		}
+		assertEquals(0, run(Builtins::head, input.toString(), "head"));
+		assertEquals(10, out().split("\n").length);
+		run(Builtins::head, input.toString(), "head", "-n", "2");
+		assertEquals("1\n2\n", out());
+		run(Builtins::head, input.toString(), "head", "-3");
+		assertEquals("1\n2\n3\n", out());
+		assertEquals(1, run(Builtins::head, "", "head", "-n", "x"));
+	}
+
+	@Test
+	void unsupportedOptionsGoToTheExternalProgram() {
+		BuiltinRegistry registry = BuiltinRegistry.withDefaults();
+		assertNotNull(registry.find(List.of("wc", "-lw", "f")));
+		assertNull(registry.find(List.of("wc", "-m")));
+		assertNull(registry.find(List.of("cat", "-n")));
+		assertNotNull(registry.find(List.of("cat", "--", "-n")));
+		assertNull(registry.find(List.of("ls")));
+
+		// Patrones con caracteres especiales de las expresiones básicas
+		assertNotNull(registry.find(List.of("grep", "-i", "a+b|(c)")));
+		assertNull(registry.find(List.of("grep", "x\\|y")));
+		assertNull(registry.find(List.of("grep", "^a.*$", "f")));
+		assertNull(registry.find(List.of("grep", "[ab]")));
+
+		// Cuentas negativas o incompletas
+		assertNotNull(registry.find(List.of("head", "-n", "2", "f")));
+		assertNotNull(registry.find(List.of("head", "-5")));
+		assertNull(registry.find(List.of("head", "-n", "-2")));
+		assertNull(registry.find(List.of("head", "-n")));
+		assertNull(registry.find(List.of("head", "-n", "x")));
+		assertSame(registry.find(List.of()), registry.find(List.of()));
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void writingToAFinishedStageIsSigpipe() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("cat /dev/zero | /bin/head -c 10 | wc -c");
+			assertEquals("10\n", session.out());
+			session.run("echo $PIPESTATUS");
+			assertEquals("141 0 0\n", session.out());
+
+			// Si el proceso siguiente ya ha terminado al escribir, tampoco es un error que mostrar
+			session.run("echo a | /bin/true");
+			assertEquals("", session.err());
+		}
+	}
+
+	@Test
+	void builtinsInAPipeline() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			File file = session.file("datos.txt");
+			Files.writeString(file.toPath(), "b\na\nb\n");
+			session.run("cat datos.txt | grep b | wc -l");
+			assertEquals("2\n", session.out());
+			session.run("pwd");
+			assertEquals(session.directory() + "\n", session.out());
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void unsupportedFormsRunTheExternalProgram() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			Files.writeString(session.file("datos.txt").toPath(), "1\n2\n3\n4\naab\nx\n");
+			session.run("head -n -2 datos.txt");
+			assertEquals("1\n2\n3\n4\n", session.out());
+			session.run("grep 'a\\+b\\|x' datos.txt");
+			assertEquals("aab\nx\n", session.out());
+			session.run("grep '^[23]$' datos.txt");
+			assertEquals("2\n3\n", session.out());
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Caché de rutas de ejecutables: búsqueda en el PATH, usos, entradas que se
+ * descartan al cambiar PATH o algún directorio anterior al del ejecutable, y
+ * directorios relativos del PATH resueltos desde el directorio de la shell.
+ */
+
+@DisabledOnOs(OS.WINDOWS)
+class CommandHashTest {
+
+	@TempDir
+	Path directory;
+
+	private Path first;
+
+	private Path second;
+
+	private String path;
+
+	private final CommandHash hash = new CommandHash();
+
+	@BeforeEach
+	void setUp() throws IOException {
+		first = Files.createDirectory(directory.resolve("a"));
+		second = Files.createDirectory(directory.resolve("b"));
+		path = first + File.pathSeparator + second;
+	}
+
+	/** Crea un ejecutable y adelanta la fecha de su directorio (la resolución puede ser de segundos) */
+
+	private Path executable(Path dir, String name) throws IOException {
+		Path file = Files.createFile(dir.resolve(name), PosixFilePermissions.asFileAttribute(
+				PosixFilePermissions.fromString("rwxr-xr-x")));
+		touch(dir);
+		return file;
+	}
+
+	private static void touch(Path dir) throws IOException {
+		FileTime time = Files.getLastModifiedTime(dir);
+		Files.setLastModifiedTime(dir, FileTime.fromMillis(time.toMillis() + 10_000));
+	}
+
+	@Test
+	void searchesThePathOnceAndCountsHits() throws IOException {
+		Path tool = executable(second, "tool");
+		assertEquals(tool, hash.resolve("tool", directory.toFile(), path));
+		assertEquals(tool, hash.resolve("tool", directory.toFile(), path));
+		assertEquals(List.of("2\t" + tool), hash.list());
+		assertNull(hash.resolve("falta", directory.toFile(), path));
+
+		hash.clear();
+		assertEquals(List.of(), hash.list());
+	}
+
+	@Test
+	void notExecutableFilesAreSkipped() throws IOException {
+		Files.createFile(first.resolve("tool"));
+		Path tool = executable(second, "tool");
+		assertEquals(tool, hash.resolve("tool", directory.toFile(), path));
+	}
+
+	@Test
+	void changedDirectoriesInvalidateTheEntry() throws IOException {
+		Path later = executable(second, "tool");
+		assertEquals(later, hash.resolve("tool", directory.toFile(), path));
+
+		// Un ejecutable nuevo antes en el PATH tapa al guardado
+		Path earlier = executable(first, "tool");
+		assertEquals(earlier, hash.resolve("tool", directory.toFile(), path));
+
+		// Y al borrarlo vuelve a encontrarse el otro
+		Files.delete(earlier);
+		touch(first);
+		assertEquals(later, hash.resolve("tool", directory.toFile(), path));
+	}
+
+	@Test
+	void changedPathEmptiesTheTable() throws IOException {
+		Path tool = executable(second, "tool");
+		hash.resolve("tool", directory.toFile(), path);
+		assertNull(hash.resolve("tool", directory.toFile(), first.toString()));
+		assertEquals(List.of(), hash.list());
+		assertEquals(tool, hash.resolve("tool", directory.toFile(), second.toString()));
+	}
+
+	@Test
+	void explicitPathsAreNotCached() throws IOException {
+		Path tool = executable(first, "tool");
+		assertEquals(tool, hash.resolve("a/tool", directory.toFile(), ""));
+		assertEquals(tool, hash.resolve(tool.toString(), second.toFile(), ""));
+		assertEquals(tool, hash.resolve("../a/./tool", second.toFile(), ""));
+		assertNull(hash.resolve("./tool", directory.toFile(), path));
+		assertEquals(List.of(), hash.list());
+	}
+
+	@Test
+	void relativeDirectoriesFollowTheShell() throws IOException {
+		Path inFirst = executable(first, "tool");
+		Path inSecond = executable(second, "tool");
+		String relative = "." + File.pathSeparator + "b" + File.pathSeparator + second;
+		assertEquals(inFirst, hash.resolve("tool", first.toFile(), relative));
+		assertEquals(inSecond, hash.resolve("tool", directory.toFile(), relative));
+		assertEquals(inSecond, hash.resolve("tool", second.toFile(), relative));
+		// Un elemento vacío es el directorio actual
+		assertEquals(inFirst, hash.resolve("tool", first.toFile(), File.pathSeparator + second));
+		assertEquals(List.of(), hash.list());
+
+		// Lo guardado de un directorio absoluto cede ante un relativo anterior
+		String parent = ".." + File.pathSeparator + second;
+		assertEquals(inSecond, hash.resolve("tool", directory.toFile(), parent));
+		assertEquals(inFirst, hash.resolve("tool", Files.createDirectory(first.resolve("sub")).toFile(), parent));
+		assertEquals(inSecond, hash.resolve("tool", directory.toFile(), parent));
+		assertEquals(List.of("2\t" + inSecond), hash.list());
+	}
+
+	@Test
+	void relativePathInTheShell() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			Path bin = Files.createDirectory(session.directory().resolve("bin"));
+			Files.writeString(executable(bin, "mscmd-rel"), "#!/bin/sh\necho relativo\n");
+			session.run("cd bin");
+			session.out();
+			assertEquals(0, session.run("PATH=.:$PATH mscmd-rel"));
+			assertEquals("relativo\n", session.out());
+			session.run("export PATH=.:$PATH; mscmd-rel");
+			assertEquals("relativo\n", session.out());
+			// Fuera del directorio ya no se encuentra
+			session.run("cd ..");
+			session.out();
+			assertEquals(127, session.run("mscmd-rel"));
+			session.err();
+			session.run("cd bin");
+			session.out();
+			assertEquals(0, session.run("mscmd-rel"));
+			assertEquals("relativo\n", session.out());
+		}
+	}
+}
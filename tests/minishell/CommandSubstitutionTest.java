@@ -0,0 +1,86 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * Sustitución de órdenes: cada $(...) se ejecuta en un subshell con los
+ * comandos de la shell, y sus cambios no salen de él.
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class CommandSubstitutionTest {
+
+	@Test
+	void cdOnlyChangesTheSubshell() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(0, session.run("echo $(cd /; pwd)"));
+			assertEquals("/\n", session.out());
+			session.run("pwd");
+			assertEquals(session.directory() + "\n", session.out());
+			assertEquals("", session.err());
+		}
+	}
+
+	@Test
+	void variablesOnlyChangeTheSubshell() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("A=fuera");
+			session.run("echo $(A=dentro; export B=1; echo $A $B) $A $B");
+			assertEquals("dentro 1 fuera\n", session.out());
+		}
+	}
+
+	@Test
+	void seesFunctionsAliasesAndArguments() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("alias saluda='echo hola'");
+			session.run("function eco { echo \"$(saluda) $1\"; }");
+			session.run("eco mundo");
+			assertEquals("hola mundo\n", session.out());
+		}
+	}
+
+	@Test
+	void statusOfTheLastPipeline() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(1, session.run("A=$(echo a; false)"));
+			assertEquals(0, session.run("A=$(false || echo b)"));
+			session.run("echo $A");
+			assertEquals("b\n", session.out());
+		}
+	}
+
+	@Test
+	void nestedAndParallelSubstitutions() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("echo $(echo $(echo uno)) $(echo dos) `echo tres`");
+			assertEquals("uno dos tres\n", session.out());
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void ordersHaveNoInput() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("echo \"[$(/bin/cat)][$(cat)]\"");
+			assertEquals("[][]\n", session.out());
+		}
+	}
+
+	@Test
+	void syntaxErrorsStopThePipeline() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(1, session.run("echo $(echo a <)"));
+			assertEquals("", session.out());
+			assertTrue(session.err().length() > 0);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import tokenizer.TLine;
+
+/**
+ * Tabla de órdenes: comandos de la shell, alias y funciones bajo un mismo
+ * nombre, copias para los subshells, los comandos 'alias' y 'unalias' y los
+ * comandos de la shell como etapas de una pipeline.
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class CommandTableTest {
+
+	@Test
+	void commandsIgnoreCase() {
+		CommandTable table = new CommandTable();
+		CommandTable.Command cd = (line, timing) -> 0;
+		table.register("cd", cd);
+		assertSame(cd, table.command("cd"));
+		assertSame(cd, table.command("CD"));
+		assertNull(table.command("ls"));
+
+		// Un alias con otras mayúsculas no oculta el comando
+		table.alias("Cd", "echo");
+		assertSame(cd, table.command("Cd"));
+		assertNull(table.get("cd"));
+	}
+
+	@Test
+	void aliasesAndFunctionsShareTheName() {
+		CommandTable table = new CommandTable();
+		TLine body = new TLine().toImmutable();
+		table.alias("f", "ls -l");
+		table.define("f", body);
+		table.alias("a", "echo a");
+		assertEquals("ls -l", table.get("f"));
+		assertSame(body, table.function("f"));
+		assertEquals(Map.of("a", "echo a", "f", "ls -l"), table.aliases());
+		assertEquals(Set.of("a", "f"), table.names());
+
+		assertTrue(table.unalias("f"));
+		assertFalse(table.unalias("f"));
+		assertSame(body, table.function("f"));
+		assertTrue(table.undefine("f"));
+		assertFalse(table.undefine("f"));
+		// Sin nada definido el nombre desaparece de la tabla
+		assertEquals(Set.of("a"), table.names());
+
+		// Una función de cuerpo vacío sigue definida
+		table.define("vacia", null);
+		assertNotNull(table.function("vacia"));
+	}
+
+	@Test
+	void copiesForSubshells() {
+		CommandTable table = new CommandTable();
+		table.register("exit", (line, timing) -> 0);
+		table.alias("ll", "ls -l");
+		CommandTable copy = table.copy();
+		assertEquals("ls -l", copy.get("ll"));
+		assertNull(copy.command("exit"));
+
+		copy.alias("ll", "ls -la");
+		copy.unalias("ll");
+		assertEquals("ls -l", table.get("ll"));
+		assertNull(copy.get("ll"));
+	}
+
+	@Test
+	void prefixCommands() {
+		CommandTable table = new CommandTable();
+		table.register("cd", (line, timing) -> 0);
+		table.registerPrefix("timeout", (line, timing) -> 0);
+		assertTrue(table.isPrefix("timeout"));
+		assertTrue(table.isPrefix("TIMEOUT"));
+		assertFalse(table.isPrefix("cd"));
+		assertFalse(table.isPrefix("ls"));
+		table.alias("t", "timeout 5");
+		assertFalse(table.isPrefix("t"));
+	}
+
+	@Test
+	void aliasCommands() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			// El texto del alias se analiza como el de la línea (con sus comillas)
+			assertEquals(0, session.run("alias saluda='echo hola' q=\"echo 'a  b'\""));
+			session.run("saluda mundo; q");
+			assertEquals("hola mundo\na  b\n", session.out());
+
+			session.run("alias");
+			assertEquals("alias q='echo '\\''a  b'\\'''\nalias saluda='echo hola'\n", session.out());
+			session.run("alias saluda");
+			assertEquals("alias saluda='echo hola'\n", session.out());
+
+			assertEquals(1, session.run("alias nada"));
+			assertTrue(session.err().contains("alias: nada: no encontrado"));
+			assertEquals(1, session.run("alias 'a/b=echo'"));
+			assertTrue(session.err().contains("alias: nombre no v"));
+
+			// Las líneas ya tokenizadas con el alias anterior no se reutilizan
+			session.run("alias saluda='echo adios'");
+			session.run("saluda mundo; q");
+			assertEquals("adios mundo\na  b\n", session.out());
+
+			assertEquals(0, session.run("unalias saluda"));
+			assertEquals(1, session.run("unalias saluda"));
+			assertTrue(session.err().contains("unalias: saluda: no encontrado"));
+			session.run("unalias -a");
+			session.run("alias");
+			assertEquals("", session.out());
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void commandsAsPipelineStages() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("alias a='echo a' b='echo b'");
+			assertEquals(0, session.run("alias | wc -l"));
+			assertEquals("2\n", session.out());
+
+			session.run("export MS_VAR=valor; export > f");
+			assertEquals("", session.out());
+			assertTrue(Files.readString(session.file("f").toPath()).contains("MS_VAR"));
+
+			// En una pipeline el comando va en un subshell: no cambia esta shell
+			session.run("cd / | cat");
+			session.run("pwd");
+			assertEquals(session.directory() + "\n", session.out());
+			session.run("alias c='echo c' | cat; alias c");
+			assertTrue(session.err().contains("alias: c: no encontrado"));
+
+			// 'timeout' sigue recibiendo la pipeline entera
+			assertEquals(0, session.run("timeout 5 echo t | cat"));
+			assertEquals("t\n", session.out());
+			// El 'kill' del sistema también en una pipeline
+			session.run("kill -l 9 | cat");
+			assertEquals("KILL\n", session.out());
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Completado con el tabulador: palabra bajo el cursor, posición de comando,
+ * archivos relativos al directorio de la shell y ejecutables del PATH
+ * (cargados en segundo plano y puestos al día cuando cambia).
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class CompleterTest {
+
+	@TempDir
+	Path directory;
+
+	private static List<String> names(Completer.Result result) {
+		return result.matches.names;
+	}
+
+	/** Completa hasta que aparece lo esperado: el PATH se carga en segundo plano */
+
+	private static Completer.Result await(Completer completer, String line, File directory, List<String> expected)
+			throws InterruptedException {
+		while (true) {
+			Completer.Result result = completer.complete(line, line.length(), directory, 100);
+			if (names(result).equals(expected)) {
+				return result;
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private static Path executable(Path dir, String name) throws IOException {
+		Files.createDirectories(dir);
+		return Files.createFile(dir.resolve(name), PosixFilePermissions.asFileAttribute(
+				PosixFilePermissions.fromString("rwxr-xr-x")));
+	}
+
+	@Test
+	void wordUnderTheCursor() {
+		assertEquals(0, Completer.wordStart("ec", 2));
+		assertEquals(8, Completer.wordStart("cat a.t|gr", 10));
+		assertEquals(4, Completer.wordStart("cat>out", 7));
+		assertEquals(-1, Completer.wordStart("echo 'a b", 9));
+		assertEquals(5, Completer.wordStart("echo 'a b'/x", 12));
+	}
+
+	@Test
+	void commandPositions() {
+		assertTrue(Completer.isCommandPosition("gi", 0));
+		assertTrue(Completer.isCommandPosition("ls | gr", 5));
+		assertTrue(Completer.isCommandPosition("a; b && c", 8));
+		assertTrue(Completer.isCommandPosition("A=1 B=2 gi", 8));
+		assertFalse(Completer.isCommandPosition("ls gi", 3));
+		assertFalse(Completer.isCommandPosition("echo A=1 gi", 9));
+		assertFalse(Completer.isCommandPosition("cat < ar", 6));
+	}
+
+	@Test
+	void filesRelativeToTheShell() throws IOException {
+		Files.createDirectories(directory.resolve("mis docs/sub"));
+		Files.createFile(directory.resolve("mis docs/nota.txt"));
+		Files.createFile(directory.resolve("mis docs/.oculto"));
+		Files.createFile(directory.resolve("leeme.md"));
+		Completer completer = new Completer(List.of("echo"), () -> "");
+		File dir = directory.toFile();
+
+		Completer.Result result = completer.complete("cat le", 6, dir, 10);
+		assertEquals(4, result.start);
+		assertEquals("", result.base);
+		assertEquals(List.of("leeme.md"), names(result));
+
+		// Las comillas ya cerradas no cuentan; los directorios acaban en '/'
+		result = completer.complete("ls 'mis docs'/", 14, dir, 10);
+		assertEquals("mis docs/", result.base);
+		assertEquals(List.of("nota.txt", "sub/"), names(result));
+		assertEquals(List.of(".oculto"), names(completer.complete("ls 'mis docs'/.", 15, dir, 10)));
+		assertEquals(List.of("mis docs/"), names(completer.complete("ls m", 4, dir, 10)));
+
+		// Un archivo nuevo se ve en el siguiente completado
+		Files.createFile(directory.resolve("leeme2.md"));
+		assertTrue(directory.toFile().setLastModified(System.currentTimeMillis() + 2000));
+		assertEquals(List.of("leeme.md", "leeme2.md"), names(completer.complete("cat le", 6, dir, 10)));
+
+		assertNull(completer.complete("cat 'le", 7, dir, 10));
+		assertEquals(0, completer.complete("cat nada/x", 10, dir, 10).matches.total);
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void commandsFromBuiltinsAndPath() throws Exception {
+		Path bin = directory.resolve("bin");
+		Path other = directory.resolve("otro");
+		executable(bin, "mscmd-uno");
+		Files.createFile(bin.resolve("mscmd-datos"));
+		executable(other, "mscmd-dos");
+		AtomicReference<String> path = new AtomicReference<>(bin.toString());
+		Completer completer = new Completer(List.of("mscmd-interno"), path::get);
+		File dir = directory.toFile();
+
+		// Solo los ejecutables; el primer completado puede llegar antes que el PATH
+		await(completer, "mscmd-", dir, List.of("mscmd-interno", "mscmd-uno"));
+		// En posición de argumento se completan archivos, no comandos
+		assertEquals(0, completer.complete("ls mscmd-", 9, dir, 10).matches.total);
+
+		// Cambios del PATH: se añade un directorio y se quita otro
+		path.set(other + File.pathSeparator + bin);
+		await(completer, "mscmd-", dir, List.of("mscmd-dos", "mscmd-interno", "mscmd-uno"));
+		path.set(other.toString());
+		await(completer, "mscmd-", dir, List.of("mscmd-dos", "mscmd-interno"));
+
+		// Un ejecutable nuevo en un directorio ya cargado
+		executable(other, "mscmd-tres");
+		assertTrue(other.toFile().setLastModified(System.currentTimeMillis() + 2000));
+		await(completer, "ls | mscmd-t", dir, List.of("mscmd-tres"));
+	}
+}
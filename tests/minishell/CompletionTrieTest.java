@@ -0,0 +1,85 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Árbol de prefijos del completado: orden, prefijo común, total sin recorrer
+ * el subárbol, referencias repetidas y archivos ocultos.
+ */
+
+class CompletionTrieTest {
+
+	private static CompletionTrie trie(String... names) {
+		CompletionTrie trie = new CompletionTrie();
+		for (String name : names) {
+			trie.add(name);
+		}
+		return trie;
+	}
+
+	@Test
+	void matchesInOrderWithTheCommonPrefix() {
+		CompletionTrie trie = trie("grep", "git", "gitk", "gzip", "ls");
+		CompletionTrie.Matches matches = trie.complete("gi", 10, true);
+		assertEquals(List.of("git", "gitk"), matches.names);
+		assertEquals("git", matches.common);
+		assertEquals(2, matches.total);
+
+		matches = trie.complete("gr", 10, true);
+		assertEquals("grep", matches.common);
+		assertEquals(List.of("grep"), matches.names);
+
+		matches = trie.complete("", 10, true);
+		assertEquals(List.of("git", "gitk", "grep", "gzip", "ls"), matches.names);
+		assertEquals("", matches.common);
+		assertSame(CompletionTrie.Matches.NONE, trie.complete("x", 10, true));
+	}
+
+	@Test
+	void limitKeepsTheTotal() {
+		CompletionTrie trie = new CompletionTrie();
+		for (int i = 0; i < 1000; i++) {
+			trie.add("f" + i);
+		}
+		CompletionTrie.Matches matches = trie.complete("f", 3, true);
+		assertEquals(List.of("f0", "f1", "f10"), matches.names);
+		assertEquals(1000, matches.total);
+		assertEquals(111, trie.complete("f1", 0, true).total);
+	}
+
+	@Test
+	void namesAreReferenceCounted() {
+		// El mismo ejecutable en dos directorios del PATH
+		CompletionTrie trie = trie("python", "python", "pip");
+		assertEquals(2, trie.size());
+		trie.remove("python");
+		assertEquals(List.of("pip", "python"), trie.complete("p", 10, true).names);
+		trie.remove("python");
+		assertEquals(List.of("pip"), trie.complete("p", 10, true).names);
+		assertEquals("pip", trie.complete("p", 10, true).common);
+
+		// Quitar lo que no está no cambia nada
+		trie.remove("pi");
+		trie.remove("nada");
+		assertEquals(1, trie.size());
+		trie.remove("pip");
+		assertEquals(0, trie.size());
+		assertSame(CompletionTrie.Matches.NONE, trie.complete("", 10, true));
+	}
+
+	@Test
+	void hiddenNamesNeedADot() {
+		CompletionTrie trie = trie(".git/", ".bashrc", "src/");
+		CompletionTrie.Matches matches = trie.complete("", 10, false);
+		assertEquals(List.of("src/"), matches.names);
+		assertEquals(1, matches.total);
+		assertEquals("src/", matches.common);
+		assertEquals(List.of(".bashrc", ".git/"), trie.complete(".", 10, false).names);
+		assertEquals(3, trie.complete("", 10, true).total);
+	}
+}
@@ -0,0 +1,128 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * Variables de la shell y entorno exportado: instantáneas inmutables, copia
+ * en escritura y visibilidad en los procesos hijos.
+ */
+
+class EnvironmentTest {
+
+	/** Una variable heredada de la JVM para las pruebas de 'unset' */
+
+	private static final String INHERITED = System.getenv().containsKey("PATH") ? "PATH"
+			: System.getenv().keySet().iterator().next();
+
+	@Test
+	void localsAreNotExported() {
+		Environment environment = new Environment();
+		environment.set("LOCAL", "1");
+		assertEquals("1", environment.get("LOCAL"));
+		assertNull(environment.snapshot().get("LOCAL"));
+
+		environment.export("LOCAL", null);
+		assertEquals("1", environment.snapshot().get("LOCAL"));
+		// Ya exportada, una asignación cambia el entorno
+		environment.set("LOCAL", "2");
+		assertEquals("2", environment.snapshot().get("LOCAL"));
+
+		environment.export("SIN_VALOR", null);
+		assertFalse(environment.snapshot().variables().containsKey("SIN_VALOR"));
+	}
+
+	@Test
+	void snapshotsAreCopyOnWrite() {
+		Environment environment = new Environment();
+		Environment.Snapshot before = environment.snapshot();
+		assertSame(Environment.Snapshot.INITIAL, before);
+
+		environment.export("A", "1");
+		Environment.Snapshot after = environment.snapshot();
+		assertNull(before.get("A"));
+		assertEquals("1", after.get("A"));
+
+		// Una variable local no crea otra instantánea
+		environment.set("B", "2");
+		assertSame(after, environment.snapshot());
+
+		Environment.Snapshot command = after.with(List.of("C=3", "A=x=y"));
+		assertEquals("x=y", command.get("A"));
+		assertEquals("3", command.get("C"));
+		assertEquals("1", after.get("A"));
+	}
+
+	@Test
+	void unsetHidesInheritedVariables() {
+		Environment environment = new Environment();
+		assertEquals(System.getenv(INHERITED), environment.get(INHERITED));
+		environment.unset(INHERITED);
+		assertNull(environment.get(INHERITED));
+		assertFalse(environment.snapshot().variables().containsKey(INHERITED));
+
+		ProcessBuilder pb = new ProcessBuilder("true");
+		environment.snapshot().applyTo(pb);
+		assertFalse(pb.environment().containsKey(INHERITED));
+
+		environment.export(INHERITED, "nuevo");
+		assertEquals("nuevo", environment.snapshot().variables().get(INHERITED));
+	}
+
+	@Test
+	void copiesAreIndependent() {
+		Environment environment = new Environment();
+		environment.set("L", "1");
+		environment.export("E", "1");
+		Environment copy = environment.copy();
+		copy.set("L", "2");
+		copy.export("E", "2");
+		copy.unset("E");
+		assertEquals("1", environment.get("L"));
+		assertEquals("1", environment.get("E"));
+		assertNull(copy.get("E"));
+	}
+
+	@Test
+	void names() {
+		assertTrue(Environment.isName("_A1"));
+		assertFalse(Environment.isName("1A"));
+		assertFalse(Environment.isName("A-B"));
+		assertFalse(Environment.isName(""));
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	@Timeout(value = 20, unit = TimeUnit.SECONDS)
+	void exportedToProcesses() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("LOCAL=l; export EXPORTADA=e");
+			session.run("/bin/sh -c 'echo \"[$LOCAL][$EXPORTADA]\"'");
+			assertEquals("[][e]\n", session.out());
+
+			// La asignación delante de un comando solo vale para él
+			session.run("LOCAL=x /bin/sh -c 'echo $LOCAL'; echo $LOCAL");
+			assertEquals("x\nl\n", session.out());
+
+			session.run("unset EXPORTADA; /bin/sh -c 'echo \"[$EXPORTADA]\"'");
+			assertEquals("[]\n", session.out());
+
+			// Una pipeline en segundo plano conserva el entorno con el que arrancó
+			session.run("export V=antes; /bin/sh -c 'sleep 0.3; echo $V' > v.txt &");
+			session.run("export V=despues; wait");
+			assertEquals("antes\n", Files.readString(session.file("v.txt").toPath()));
+		}
+	}
+}
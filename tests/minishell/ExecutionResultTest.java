@@ -0,0 +1,119 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import tokenizer.MissingFileException;
+import tokenizer.TLine;
+import tokenizer.Tokenizer;
+
+/**
+ * Resultado de cada pipeline: $PIPESTATUS y la línea JSON de MINISHELL_RESULTS.
+ */
+
+class ExecutionResultTest {
+
+	private static ExecutionResult result(String input, int status, ExecutionResult.Error error)
+			throws MissingFileException {
+		TLine line = Tokenizer.tokenize(input);
+		return new ExecutionResult(line, line.getSource(), status, error, null, null);
+	}
+
+	@Test
+	void unstartedPipelineHasNoStageStatus() throws MissingFileException {
+		ExecutionResult result = result("nosuch | cat", 127, ExecutionResult.Error.NOT_FOUND);
+		assertEquals("127", result.pipeStatus());
+		assertEquals("{\"line\":\"nosuch | cat\",\"status\":127,\"error\":\"not_found\",\"background\":false,"
+				+ "\"nanos\":null,\"stages\":[{\"command\":\"nosuch\",\"pid\":null,\"status\":null,\"nanos\":null},"
+				+ "{\"command\":\"cat\",\"pid\":null,\"status\":null,\"nanos\":null}]}", result.toJson());
+	}
+
+	@Test
+	void shellCommandHasItsOwnStatus() throws MissingFileException {
+		ExecutionResult result = result("cd /nada", 1, ExecutionResult.Error.NONE);
+		assertEquals("1", result.pipeStatus());
+		assertTrue(result.toJson().contains("{\"command\":\"cd\",\"pid\":null,\"status\":1,\"nanos\":null}"));
+	}
+
+	@Test
+	void lineIsTheSourceText() throws MissingFileException {
+		ExecutionResult result = result("cat < \"no existe\"\t2>&1", 1, ExecutionResult.Error.REDIRECTION);
+		assertTrue(result.toJson().startsWith("{\"line\":\"cat < \\\"no existe\\\"\\t2>&1\","), result.toJson());
+	}
+
+	@Test
+	void errorKindComesFromTheExceptionType() {
+		assertEquals(ExecutionResult.Error.NOT_FOUND, ExecutionResult.Error.of(new NoSuchFileException("/bin/x")));
+		assertEquals(ExecutionResult.Error.PERMISSION, ExecutionResult.Error.of(new AccessDeniedException("/bin/x")));
+		// El mensaje no se interpreta: cualquier otro error es IO
+		assertEquals(ExecutionResult.Error.IO,
+				ExecutionResult.Error.of(new IOException("Cannot run program \"x\": error=2, No such file or directory")));
+		assertEquals(ExecutionResult.Error.IO, ExecutionResult.Error.of(new IOException("error=13")));
+		assertEquals(ExecutionResult.Error.IO, ExecutionResult.Error.of(new IOException((String) null)));
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void notExecutableFilesArePermissionErrors() throws IOException {
+		try (ShellSession session = new ShellSession()) {
+			Files.writeString(session.file("script").toPath(), "echo no\n");
+			assertEquals(126, session.run("./script"));
+			assertTrue(session.err().contains("Permiso denegado"));
+			assertEquals(126, session.run("./script | cat"));
+			session.err();
+			assertEquals("", session.out());
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void shellPublishesEachPipeline() throws IOException {
+		try (ShellSession session = new ShellSession()) {
+			session.run("/bin/sh -c 'exit 3' | /bin/true");
+			session.run("echo $PIPESTATUS");
+			assertEquals("3 0\n", session.out());
+
+			session.run("nosuch | cat");
+			session.run("echo $PIPESTATUS");
+			assertEquals("127\n", session.out());
+
+			session.run("/bin/echo a | /bin/false");
+			session.run("echo $PIPESTATUS");
+			assertEquals("0 1\n", session.out());
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void resultsFileHasOneJsonLinePerPipeline() throws IOException, InterruptedException {
+		try (ShellSession session = new ShellSession()) {
+			File file = session.file("resultados.json");
+			ProcessBuilder shell = new ProcessBuilder(List.of(
+					System.getProperty("java.home") + "/bin/java", "-cp", System.getProperty("java.class.path"),
+					"minishell.MiniShell", "-c", "cat < falta; nosuch | cat"))
+					.directory(session.directory().toFile())
+					.redirectErrorStream(true)
+					.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+			shell.environment().put("MINISHELL_RESULTS", file.getPath());
+			shell.start().waitFor();
+
+			List<String> lines = Files.readAllLines(file.toPath());
+			assertEquals(2, lines.size());
+			assertTrue(lines.get(0).startsWith("{\"line\":\"cat < falta\",\"status\":1,\"error\":\"redirection\""),
+					lines.get(0));
+			assertTrue(lines.get(1).contains("\"error\":\"not_found\""), lines.get(1));
+			assertTrue(lines.get(1).contains("{\"command\":\"cat\",\"pid\":null,\"status\":null,"), lines.get(1));
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Salida repartida entre varios destinos: FanOut con archivos y flujos,
+ * 'cmd > a > b' y el comando interno 'tee'.
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class FanOutTest {
+
+	@TempDir
+	Path directory;
+
+	/** Más de un buffer, con todos los valores de byte */
+
+	private static byte[] data() {
+		byte[] data = new byte[2 * FanOut.BUFFER_SIZE + 123];
+		new Random(7).nextBytes(data);
+		return data;
+	}
+
+	private static String read(ShellSession session, String name) throws IOException {
+		return Files.readString(session.file(name).toPath());
+	}
+
+	@Test
+	void everyDestinationGetsTheSameBytes() throws IOException {
+		byte[] data = data();
+		File a = directory.resolve("a").toFile();
+		File b = directory.resolve("b").toFile();
+		Files.writeString(b.toPath(), "antes\n");
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		try (FanOut sinks = new FanOut(List.of(FanOut.open(a, false), FanOut.open(b, true)), List.of(stream))) {
+			assertEquals(data.length, sinks.transfer(new ByteArrayInputStream(data)));
+		}
+		assertArrayEquals(data, Files.readAllBytes(a.toPath()));
+		assertArrayEquals(data, stream.toByteArray());
+		byte[] appended = Files.readAllBytes(b.toPath());
+		assertEquals(6 + data.length, appended.length);
+		assertArrayEquals(data, Arrays.copyOfRange(appended, 6, appended.length));
+	}
+
+	@Test
+	void filesAreReadIntoTheBuffer() throws IOException {
+		byte[] data = data();
+		Path source = Files.write(directory.resolve("origen"), data);
+		Path copy = directory.resolve("copia");
+		Path shellOut = directory.resolve("salida");
+
+		// Un flujo de descriptor (FileOutputStream) se escribe por su canal
+		try (FileOutputStream out = new FileOutputStream(shellOut.toFile());
+				FanOut sinks = new FanOut(List.of(FanOut.open(copy.toFile(), false)), List.of(out))) {
+			assertEquals(data.length, sinks.transfer(new FileInputStream(source.toFile())));
+		}
+		assertArrayEquals(data, Files.readAllBytes(copy));
+		assertArrayEquals(data, Files.readAllBytes(shellOut));
+	}
+
+	@Test
+	void writesAndClose() throws IOException {
+		File a = directory.resolve("a").toFile();
+		Files.writeString(a.toPath(), "contenido anterior\n");
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		FanOut sinks = new FanOut(List.of(FanOut.open(a, false)), List.of(stream));
+		sinks.write('x');
+		sinks.write("yz\n".getBytes(), 1, 2);
+		sinks.close();
+		sinks.close();
+		assertEquals("xz\n", Files.readString(a.toPath()));
+		assertEquals("xz\n", stream.toString());
+		// El flujo de la shell sigue abierto
+		stream.write('!');
+		assertEquals("xz\n!", stream.toString());
+	}
+
+	@Test
+	void openFailsWithoutLeaks() throws IOException {
+		File ok = directory.resolve("ok").toFile();
+		File bad = directory.resolve("falta/f").toFile();
+		assertThrows(IOException.class, () -> FanOut.open(List.of(ok, bad), List.of(false, false)));
+		assertTrue(ok.exists());
+		// El archivo ya abierto se cerró: se puede borrar y volver a crear
+		assertTrue(ok.delete());
+		FanOut.open(List.of(ok), List.of(true)).close();
+		assertTrue(ok.exists());
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void severalOutputRedirections() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("echo uno > a > b");
+			session.run("/bin/echo dos >> a > c");
+			assertEquals("uno\ndos\n", read(session, "a"));
+			assertEquals("uno\n", read(session, "b"));
+			assertEquals("dos\n", read(session, "c"));
+
+			session.run("/bin/sh -c 'echo e >&2' 2> e1 2> e2");
+			assertEquals("e\n", read(session, "e1"));
+			assertEquals("e\n", read(session, "e2"));
+
+			// Con todos los destinos en archivos, nada llega a la tubería
+			session.run("echo z > a > b | wc -c");
+			assertEquals("0", session.out().trim());
+			assertEquals("z\n", read(session, "b"));
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void teeBuiltin() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(0, session.run("echo x | tee t1 t2"));
+			assertEquals("x\n", session.out());
+			session.run("echo mas | tee -a t1 > /dev/null");
+			assertEquals("x\nmas\n", read(session, "t1"));
+			assertEquals("x\n", read(session, "t2"));
+
+			// Un archivo que no se abre no impide escribir en el resto
+			assertEquals(1, session.run("echo y | tee falta/x t2"));
+			assertTrue(session.err().contains("tee: falta/x"));
+			assertEquals("y\n", session.out());
+			assertEquals("y\n", read(session, "t2"));
+			assertFalse(session.file("falta").exists());
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * Funciones: como orden simple se ejecutan en la shell; en una pipeline, con
+ * redirecciones, en $(...) o con 'parallel' son una etapa más, en un subshell.
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class FunctionTest {
+
+	private static final String GREET = "function greet { echo hola $1; }";
+
+	@Test
+	void simpleCallRunsInTheShell() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("mkdir sub");
+			session.run("function entra { cd sub; A=$1; }");
+			assertEquals(0, session.run("entra dentro"));
+			session.out();
+			session.run("pwd; echo $A");
+			assertEquals(session.directory().resolve("sub") + "\ndentro\n", session.out());
+		}
+	}
+
+	@Test
+	void argumentsWithSpaces() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("function cuenta { echo $#; }");
+			session.run("function primero { echo \"[$1]\"; }");
+			// "$@" da una palabra por argumento; sin comillas se separan por los espacios
+			session.run("function todos { cuenta \"$@\"; cuenta $@; cuenta \"x$@y\"; primero \"$@\"; primero $@; }");
+			assertEquals(0, session.run("todos 'a  b' c"));
+			assertEquals("2\n3\n2\n[a  b]\n[a]\n", session.out());
+			session.run("todos");
+			assertEquals("0\n0\n1\n[]\n[]\n", session.out());
+			session.run("todos ''");
+			assertEquals("1\n0\n1\n[]\n[]\n", session.out());
+
+			session.run("V='uno  dos\ttres'; cuenta $V; cuenta \"$V\"; primero \"$V\"");
+			assertEquals("3\n1\n[uno  dos\ttres]\n", session.out());
+		}
+	}
+
+	@Test
+	void insideCommandSubstitution() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run(GREET);
+			session.run("x=$(greet mundo)");
+			session.run("echo \"[$x]\"");
+			assertEquals("[hola mundo]\n", session.out());
+		}
+	}
+
+	@Test
+	void asAPipelineStage() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run(GREET);
+			session.run("function upper { tr a-z A-Z; }");
+			assertEquals(0, session.run("greet a | tr a-z A-Z"));
+			assertEquals("HOLA A\n", session.out());
+			session.run("greet b | upper | cat");
+			assertEquals("HOLA B\n", session.out());
+			session.run("echo $PIPESTATUS");
+			assertEquals("0 0 0\n", session.out());
+			assertEquals("", session.err());
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void readsTheStageInput() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("function upper { /bin/cat | tr a-z A-Z; }");
+			session.run("/bin/echo externo | upper");
+			assertEquals("EXTERNO\n", session.out());
+			session.run("echo interno | upper");
+			assertEquals("INTERNO\n", session.out());
+		}
+	}
+
+	@Test
+	void withRedirections() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run(GREET);
+			assertEquals(0, session.run("greet f > f.txt"));
+			assertEquals("", session.out());
+			assertEquals("hola f\n", Files.readString(session.file("f.txt").toPath()));
+		}
+	}
+
+	@Test
+	void inParallel() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run(GREET);
+			assertEquals(0, session.run("parallel -k greet ::: a b c"));
+			assertEquals("hola a\nhola b\nhola c\n", session.out());
+		}
+	}
+
+	@Test
+	void subshellChangesStayInside() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("function va { cd /; A=1; pwd; }");
+			session.run("va | cat");
+			assertEquals("/\n", session.out());
+			session.run("pwd; echo \"[$A]\"");
+			assertEquals(session.directory() + "\n[]\n", session.out());
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void timeoutStopsAFunctionStage() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("function lento { /bin/sleep 5; }");
+			long start = System.nanoTime();
+			assertEquals(124, session.run("timeout 0.5 lento | cat"));
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertTrue(elapsed < 4000, "la función no se detuvo a tiempo: " + elapsed + " ms");
+		}
+	}
+}
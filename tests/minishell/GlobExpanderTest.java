@@ -0,0 +1,116 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import tokenizer.MissingFileException;
+import tokenizer.Tokenizer;
+
+/**
+ * Comodines: '*', '?', clases, '**', archivos ocultos, caracteres escapados
+ * (un '*' entre comillas) y límite de argumentos. Usa un archivo llamado '*.txt',
+ * que no puede existir en Windows.
+ */
+
+@DisabledOnOs(OS.WINDOWS)
+class GlobExpanderTest {
+
+	@TempDir
+	Path directory;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		for (String file : List.of("a.txt", "b.txt", "c.log", "x1", "x2", "xa", ".oculto.txt", "*.txt",
+				"sub/d.txt", "sub/deep/e.txt", "sub/.privado/f.txt", "otro/g.txt")) {
+			Path path = directory.resolve(file);
+			Files.createDirectories(path.getParent());
+			Files.createFile(path);
+		}
+	}
+
+	private List<String> expand(String pattern) {
+		return new GlobExpander(directory.toFile(), GlobExpander.DEFAULT_LIMIT).expand(pattern);
+	}
+
+	@Test
+	void wildcardsWithinAComponent() {
+		assertEquals(List.of("*.txt", "a.txt", "b.txt"), expand("*.txt"));
+		assertEquals(List.of("x1", "x2", "xa"), expand("x?"));
+		assertEquals(List.of("x1", "x2"), expand("x[0-9]"));
+		assertEquals(List.of("xa"), expand("x[!0-9]"));
+		assertEquals(List.of(), expand("*.nada"));
+	}
+
+	@Test
+	void hiddenFilesNeedALeadingDot() {
+		assertFalse(expand("*").contains(".oculto.txt"));
+		assertEquals(List.of(".oculto.txt"), expand(".*.txt"));
+	}
+
+	@Test
+	void escapedCharactersAreLiteral() {
+		assertEquals(List.of("*.txt"), expand("\\*.txt"));
+		assertEquals(List.of("*.txt"), expand("\\**.txt"));
+	}
+
+	@Test
+	void directoriesAndRecursion() {
+		assertEquals(List.of("otro/g.txt", "sub/d.txt"), expand("*/*.txt"));
+		assertEquals(List.of("otro/", "sub/"), expand("*/"));
+		assertEquals(List.of("*.txt", "a.txt", "b.txt", "otro/g.txt", "sub/d.txt", "sub/deep/e.txt"),
+				expand("**/*.txt"));
+		assertEquals(List.of("sub/d.txt", "sub/deep/e.txt"), expand("sub/**/*.txt"));
+
+		String absolute = directory.resolve("sub").toString();
+		assertEquals(List.of(absolute + "/d.txt"), expand(absolute + "/*.txt"));
+	}
+
+	@Test
+	void limitStopsTheExpansion() {
+		GlobExpander glob = new GlobExpander(directory.toFile(), 3);
+		assertEquals(3, glob.expand("*.txt").size());
+		// El límite es por pipeline: cuenta todos los argumentos generados
+		ArgumentLimitException e = assertThrows(ArgumentLimitException.class, () -> glob.expand("x?"));
+		assertEquals(3, e.getLimit());
+	}
+
+	@Test
+	void onlyUnquotedWildcardsExpand() throws MissingFileException {
+		List<String> argv = Tokenizer.tokenize("ls *.txt '*'.txt \"x\"? c.* x[12]")
+				.expand(name -> null, new GlobExpander(directory.toFile(), GlobExpander.DEFAULT_LIMIT))
+				.getCommands().get(0).getArgv();
+		assertEquals(List.of("ls", "*.txt", "a.txt", "b.txt", "*.txt", "x1", "x2", "xa", "c.log", "x1", "x2"), argv);
+		assertTrue(Tokenizer.tokenize("ls *.txt").hasGlobs());
+		assertFalse(Tokenizer.tokenize("ls '*.txt'").hasGlobs());
+	}
+
+	@Test
+	void valuesOfVariablesAreLiteral() throws MissingFileException {
+		List<String> argv = Tokenizer.tokenize("ls $P*")
+				.expand(name -> "*", new GlobExpander(directory.toFile(), GlobExpander.DEFAULT_LIMIT))
+				.getCommands().get(0).getArgv();
+		assertEquals(List.of("ls", "*.txt"), argv);
+	}
+
+	@Test
+	void unmatchedPatternsStayInTheShell() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			Files.createFile(session.file("uno.txt").toPath());
+			session.run("echo *.txt *.nada");
+			assertEquals("uno.txt *.nada\n", session.out());
+		}
+	}
+}
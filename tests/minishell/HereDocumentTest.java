@@ -0,0 +1,126 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import tokenizer.MissingFileException;
+import tokenizer.Redirection;
+import tokenizer.TLine;
+import tokenizer.Tokenizer;
+
+/**
+ * Documentos en línea (<<FIN) y cadenas (<<<): análisis, expansión, contenido
+ * en memoria o en un archivo temporal, y entrada de comandos internos y externos.
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class HereDocumentTest {
+
+	private static String text(int size) {
+		StringBuilder sb = new StringBuilder(size);
+		while (sb.length() < size) {
+			sb.append("linea ").append(sb.length()).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static Redirection redirection(TLine line) {
+		return line.getCommands().get(0).getRedirections().get(0);
+	}
+
+	@Test
+	void bodiesFollowTheCommandLine() throws MissingFileException {
+		TLine line = Tokenizer.tokenize("cat <<UNO 3<<'DOS' | wc\nhola $A\nUNO\nsin $A\nDOS\necho fin");
+		Redirection first = redirection(line);
+		assertEquals(Redirection.Type.HEREDOC, first.getType());
+		assertEquals(0, first.getFd());
+		Redirection second = line.getCommands().get(0).getRedirections().get(1);
+		assertEquals(3, second.getFd());
+		assertEquals("sin $A\n", second.getTarget());
+		assertEquals(List.of("echo", "fin"), line.getNext().getCommands().get(0).getArgv());
+
+		// Con el delimitador sin comillas las variables se expanden al ejecutar
+		assertEquals("hola mundo\n", redirection(line.expand(name -> "mundo", null)).getTarget());
+	}
+
+	@Test
+	void hereStringsEndInANewline() throws MissingFileException {
+		assertEquals("a b\n", redirection(Tokenizer.tokenize("cat <<< 'a b'")).getTarget());
+	}
+
+	@Test
+	void smallDocumentsStayInMemory() throws Exception {
+		HereDocument document = HereDocument.of("hola\n");
+		assertNull(document.file());
+		try (InputStream in = document.open()) {
+			assertEquals("hola\n", new String(in.readAllBytes(), Charset.defaultCharset()));
+		}
+
+		CountDownLatch closed = new CountDownLatch(1);
+		ByteArrayOutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public void close() {
+				closed.countDown();
+			}
+		};
+		document.feed(out);
+		assertTrue(closed.await(5, TimeUnit.SECONDS));
+		assertEquals("hola\n", out.toString(Charset.defaultCharset()));
+	}
+
+	@Test
+	void largeDocumentsSpillToDisk() throws IOException {
+		String text = text(HereDocument.SPILL_THRESHOLD + 1);
+		HereDocument document = HereDocument.of(text);
+		assertNotNull(document.file());
+		try (InputStream in = document.open()) {
+			assertArrayEquals(text.getBytes(Charset.defaultCharset()), in.readAllBytes());
+		}
+		document.release();
+		assertFalse(document.file().exists());
+	}
+
+	@Test
+	void inputOfBuiltinsAndProcesses() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("A=mundo");
+			session.run("cat <<FIN | tr a-z A-Z\nhola $A\nFIN");
+			assertEquals("HOLA MUNDO\n", session.out());
+			session.run("wc -l <<< \"$A\"");
+			assertEquals("1\n", session.out());
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void largeDocumentsReachExternalCommands() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			String text = text(4 * HereDocument.SPILL_THRESHOLD);
+			session.run("/bin/cat <<FIN > grande.txt\n" + text + "FIN");
+			assertEquals(text, Files.readString(session.file("grande.txt").toPath()));
+
+			// Un proceso que no lee su entrada no bloquea a la shell
+			session.run("/bin/true <<FIN\n" + text(HereDocument.SPILL_THRESHOLD / 2) + "FIN");
+			session.run("/bin/head -n 1 <<FIN\nuno\ndos\nFIN");
+			assertEquals("uno\n", session.out());
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Historial persistente: archivo compartido entre sesiones, expansiones '!'
+ * y búsquedas por texto y prefijo.
+ */
+
+class HistoryTest {
+
+	@TempDir
+	Path directory;
+
+	private Path file;
+
+	@BeforeEach
+	void setUp() {
+		file = directory.resolve("history");
+	}
+
+	private History history(String... lines) {
+		History history = new History(file);
+		for (String line : lines) {
+			history.add(line);
+		}
+		return history;
+	}
+
+	@Test
+	void persistsBetweenSessions() throws IOException {
+		history("ls -l", "echo ñandú");
+		assertEquals("ls -l\necho ñandú\n", Files.readString(file, StandardCharsets.UTF_8));
+
+		History next = history("pwd");
+		assertEquals(3, next.size());
+		assertEquals("ls -l", next.get(0));
+		assertEquals("echo ñandú", next.get(1));
+		assertEquals("pwd", next.get(2));
+	}
+
+	@Test
+	void otherSessionsDoNotInterleave() {
+		History a = history("a1");
+		History b = history("b1");
+		a.add("a2");
+		// Cada sesión ve el historial anterior a ella más sus propias líneas
+		assertEquals(List.of("a1", "a2"), List.of(a.get(0), a.get(1)));
+		assertEquals(2, a.size());
+		assertEquals(List.of("a1", "b1"), List.of(b.get(0), b.get(1)));
+		assertEquals(3, history().size());
+	}
+
+	@Test
+	void expandsReferences() {
+		History history = history("ls -l", "echo uno", "grep x f");
+		assertEquals("grep x f | wc", history.expand("!! | wc"));
+		assertEquals("ls -l /tmp", history.expand("!1 /tmp"));
+		assertEquals("echo uno", history.expand("!-2"));
+		assertEquals("echo uno; ls -l", history.expand("!ec; !l"));
+		assertEquals("sin referencias", history.expand("sin referencias"));
+
+		// Sin expansión entre comillas simples ni ante espacio, '=' o '('
+		assertEquals("echo '!!' ! a!=b !(x)", history.expand("echo '!!' ! a!=b !(x)"));
+
+		assertThrows(IllegalArgumentException.class, () -> history.expand("!99"));
+		assertThrows(IllegalArgumentException.class, () -> history.expand("!nada"));
+		assertThrows(IllegalArgumentException.class, () -> new History(directory.resolve("vacio")).expand("!!"));
+	}
+
+	@Test
+	void searchesFromTheMostRecent() {
+		history("git status", "ls", "git commit -m x");
+		History history = history("cat git.txt", "l");
+		assertEquals(List.of(3, 2, 0), history.search("git", 10));
+		assertEquals(List.of(3), history.search("git", 1));
+		assertEquals(List.of(4, 1), history.search("l", 10));
+		assertEquals(List.of(), history.search("hg ", 10));
+		assertEquals(2, history.findPrefix("git"));
+		assertEquals(-1, history.findPrefix("commit"));
+
+		// El índice se mantiene al añadir líneas
+		history.add("git log");
+		assertEquals(List.of(5, 3, 2, 0), history.search("git", 10));
+	}
+
+	@Test
+	void clearRemovesTheFile() {
+		History history = history("uno", "dos");
+		history.clear();
+		assertEquals(0, history.size());
+		assertFalse(Files.exists(file));
+		history.add("tres");
+		assertEquals(1, history().size());
+	}
+}
@@ -0,0 +1,179 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * Control de trabajos: tabla de pipelines en segundo plano, recolección
+ * asíncrona y los comandos 'jobs', 'wait', 'fg' y 'kill'.
+ */
+
+@DisabledOnOs(OS.WINDOWS)
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class JobManagerTest {
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+	private final JobManager jobs = new JobManager(new PrintStream(out, true), new PrintStream(err, true));
+
+	private static Process start(String... command) throws IOException {
+		return new ProcessBuilder(command).start();
+	}
+
+	private String out() {
+		String text = out.toString(Charset.defaultCharset());
+		out.reset();
+		return text;
+	}
+
+	@Test
+	void launchAssignsIdentifiers() throws Exception {
+		Process first = start("/bin/sh", "-c", "exit 3");
+		Job job = jobs.launch("primero", List.of(first));
+		assertEquals(1, job.getId());
+		assertEquals("[1] " + first.pid() + "\n", out());
+		assertEquals(2, jobs.launch("segundo", List.of(start("/bin/sleep", "5"))).getId());
+		out();
+
+		first.waitFor();
+		job.onExit().get();
+		jobs.reportFinished();
+		assertEquals("[1] Hecho (3)\tprimero\n", out());
+		// Ya avisado: no vuelve a aparecer
+		jobs.reportFinished();
+		jobs.list();
+		assertEquals("[2] Ejecutando\tsegundo\n", out());
+
+		// El identificador es el mayor en uso más uno
+		assertEquals(3, jobs.launch("tercero", List.of(start("/bin/true"))).getId());
+		jobs.killAll();
+	}
+
+	@Test
+	void subshellCopy() throws Exception {
+		jobs.launch("a", List.of(start("/bin/sleep", "5")));
+		out();
+		ByteArrayOutputStream copyOut = new ByteArrayOutputStream();
+		JobManager copy = jobs.copy(new PrintStream(copyOut, true), new PrintStream(err, true));
+
+		// Ve los trabajos de la shell y escribe en su propia salida
+		copy.list();
+		assertEquals("[1] Ejecutando\ta\n", copyOut.toString(Charset.defaultCharset()));
+		assertEquals("", out());
+
+		// Lo que lanza el subshell no aparece en la tabla de la shell
+		copy.launch("b", List.of(start("/bin/true")));
+		jobs.list();
+		assertEquals("[1] Ejecutando\ta\n", out());
+		jobs.killAll();
+	}
+
+	@Test
+	void waitAndForeground() throws Exception {
+		jobs.launch("a", List.of(start("/bin/sh", "-c", "exit 4")));
+		jobs.launch("b", List.of(start("/bin/sh", "-c", "exit 5")));
+		out();
+		assertEquals(4, jobs.waitFor(List.of("wait", "%1")));
+		assertEquals(5, jobs.foreground(List.of("fg")));
+		assertEquals("b\n", out());
+
+		// Los trabajos esperados salen de la tabla sin aviso posterior
+		jobs.reportFinished();
+		jobs.list();
+		assertEquals("", out());
+		assertEquals(127, jobs.waitFor(List.of("wait", "%1")));
+		assertEquals(1, jobs.foreground(List.of("fg")));
+		assertEquals(1, jobs.foreground(List.of("fg", "x")));
+		assertTrue(err.size() > 0);
+	}
+
+	@Test
+	void killEndsTheWholeJob() throws Exception {
+		Process sleeper = start("/bin/sleep", "10");
+		jobs.launch("sleep 10", List.of(sleeper));
+		assertEquals(0, jobs.kill(List.of("kill", "%1")));
+		assertTrue(sleeper.waitFor(5, TimeUnit.SECONDS));
+		assertEquals(143, jobs.waitFor(List.of("wait")));
+
+		assertEquals(1, jobs.kill(List.of("kill", "%7")));
+		assertEquals(1, jobs.kill(List.of("kill", "no")));
+		assertEquals(2, jobs.kill(List.of("kill", "-9")));
+
+		// Una señal que no se llega a enviar no es un éxito (la propia JVM no se puede terminar así)
+		assertEquals(1, jobs.kill(List.of("kill", Long.toString(ProcessHandle.current().pid()))));
+	}
+
+	@Test
+	void otherSignalsAreForTheSystemKill() throws Exception {
+		assertTrue(jobs.handles(List.of("kill", "%1", "123")));
+		assertTrue(jobs.handles(List.of("kill", "-9", "%1")));
+		assertTrue(jobs.handles(List.of("kill", "-sigterm", "123")));
+		assertTrue(jobs.handles(List.of("kill")));
+		assertFalse(jobs.handles(List.of("kill", "-l")));
+		assertFalse(jobs.handles(List.of("kill", "-HUP", "123")));
+		assertFalse(jobs.handles(List.of("kill", "-s", "TERM", "123")));
+		assertFalse(jobs.handles(List.of("kill", "-9", "--", "-123")));
+
+		// Los trabajos se traducen a los PIDs de sus procesos
+		Process first = start("/bin/sleep", "10");
+		Process second = start("/bin/sleep", "10");
+		jobs.launch("sleep 10 | sleep 10", List.of(first, second));
+		assertEquals(List.of("kill", "-USR1", Long.toString(first.pid()), Long.toString(second.pid()), "7"),
+				jobs.external(List.of("kill", "-USR1", "%1", "7")));
+		assertNull(jobs.external(List.of("kill", "-USR1", "%2")));
+		jobs.killAll();
+	}
+
+	@Test
+	@EnabledOnOs(OS.LINUX)
+	void systemKillInTheShell() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(0, session.run("kill -l"));
+			assertTrue(session.out().contains("USR1"));
+
+			session.run("/bin/sleep 10 &");
+			session.out();
+			assertEquals(0, session.run("kill -USR1 %1"));
+			// 128 + SIGUSR1 (10 en Linux)
+			assertEquals(138, session.run("wait %1"));
+
+			assertEquals(1, session.run("kill -USR1 %3"));
+			assertTrue(session.err().contains("%3"));
+		}
+	}
+
+	@Test
+	void backgroundPipelinesInTheShell() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(0, session.run("/bin/sh -c 'exit 6' | /bin/sh -c 'exit 7' &"));
+			assertTrue(session.out().startsWith("[1] "));
+			// La shell no espera: sigue con la línea siguiente
+			long start = System.nanoTime();
+			session.run("/bin/sleep 5 &");
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+			assertEquals(7, session.run("wait %1"));
+			session.out();
+			session.run("jobs");
+			assertTrue(session.out().matches("\\[2\\] Ejecutando\t/bin/sleep 5\n"));
+			session.run("kill %2");
+			assertEquals(143, session.run("wait"));
+		}
+	}
+}
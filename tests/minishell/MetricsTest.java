@@ -0,0 +1,124 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * Medición: histograma de latencias, estadísticas acumuladas ('stats') y
+ * el informe de 'time' por etapa.
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class MetricsTest {
+
+	@Test
+	void smallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		assertEquals(100, histogram.count());
+		assertEquals(50, histogram.percentile(50));
+		assertEquals(90, histogram.percentile(90));
+		assertEquals(100, histogram.percentile(100));
+		assertEquals(100, histogram.max());
+		assertEquals(50, histogram.mean());
+	}
+
+	@Test
+	void largeValuesKeepTheirPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		long[] values = { 1_000, 123_456, 98_765_432, Long.MAX_VALUE / 3 };
+		for (long value : values) {
+			histogram.reset();
+			histogram.record(value);
+			histogram.record(2 * value);
+			long p50 = histogram.percentile(50);
+			assertTrue(p50 >= value && p50 - value <= value / 60, value + " -> " + p50);
+			assertEquals(2 * value, histogram.percentile(100));
+		}
+
+		histogram.reset();
+		assertEquals(0, histogram.percentile(99));
+		histogram.record(-5);
+		assertEquals(0, histogram.max());
+	}
+
+	@Test
+	void reportHasOneRowPerCommand() {
+		Metrics metrics = new Metrics();
+		assertEquals(List.of(), metrics.report());
+
+		metrics.record("ls", 2_000_000L);
+		metrics.record("cat", 1_000L);
+		metrics.record("ls", 4_000_000L);
+		metrics.recordParse(5_000L);
+		List<String> report = metrics.report();
+		assertEquals(4, report.size());
+		assertTrue(report.get(1).matches("cat +1 +1µs .*"), report.get(1));
+		assertTrue(report.get(2).matches("ls +2 +3\\.000ms .*"), report.get(2));
+		assertTrue(report.get(3).startsWith("(tokenizado)"));
+
+		metrics.recordSpawn(1_000L);
+		assertTrue(metrics.report().get(4).startsWith("(arranque)"));
+		metrics.reset();
+		assertEquals(List.of(), metrics.report());
+	}
+
+	@Test
+	void durations() {
+		assertEquals("999µs", PipelineTiming.format(999_999L));
+		assertEquals("1.500ms", PipelineTiming.format(1_500_000L).replace(',', '.'));
+		assertEquals("2.000s", PipelineTiming.format(2_000_000_000L).replace(',', '.'));
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void timeReportsEveryStage() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(3, session.run("time /bin/sleep 0.2 | /bin/sh -c 'exit 3'"));
+			String report = session.out() + session.err();
+			assertTrue(report.contains("real\t0m0."), report);
+			assertTrue(report.matches("(?s).*\\[1\\] /bin/sleep\tpid \\d+\t.*\tsalida 0\n.*"), report);
+			assertTrue(report.matches("(?s).*\\[2\\] /bin/sh\tpid \\d+\t.*\tsalida 3\n.*"), report);
+			assertTrue(report.contains("estado\t3\n"), report);
+
+			// Un comando de la shell es una sola etapa sin proceso
+			session.run("time cd .");
+			assertTrue((session.out() + session.err()).contains("[1] cd\tpid -"));
+		}
+	}
+
+	@Test
+	void statsAreOffByDefault() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("echo a");
+			session.out();
+			assertEquals(0, session.run("stats"));
+			assertTrue(session.out().startsWith("stats: sin muestras"));
+
+			session.run("stats on");
+			session.run("echo a");
+			session.run("echo b");
+			session.out();
+			session.run("stats");
+			String report = session.out();
+			assertTrue(report.matches("(?s).*\necho +2 .*"), report);
+			assertTrue(report.contains("(tokenizado)"), report);
+
+			session.run("stats off");
+			session.run("stats -r");
+			session.run("stats");
+			assertTrue(session.out().startsWith("stats: sin muestras"));
+			assertEquals(2, session.run("stats x"));
+		}
+	}
+}
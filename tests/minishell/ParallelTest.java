@@ -0,0 +1,97 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * Comando 'parallel': argumentos tras ':::' o de la entrada, '{}', orden con
+ * -k, límite de trabajos con -j, salida sin mezclar y código de salida.
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class ParallelTest {
+
+	@Test
+	void argumentsAndPlaceholder() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(0, session.run("parallel -k echo x ::: a b c"));
+			assertEquals("x a\nx b\nx c\n", session.out());
+			session.run("parallel -k echo [{}] fin ::: a b");
+			assertEquals("[a] fin\n[b] fin\n", session.out());
+
+			// Sin ':::' los argumentos se leen de la entrada, uno por línea
+			session.run("echo 'uno\n\ndos' | parallel -k echo");
+			assertEquals("uno\ndos\n", session.out());
+		}
+	}
+
+	@Test
+	void lineTemplates() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("parallel -k 'echo {} | tr a-z A-Z > {}.txt && cat {}.txt' ::: uno dos");
+			assertEquals("UNO\nDOS\n", session.out());
+			// El argumento se inserta literal, aunque tenga comillas o espacios
+			session.run("parallel -k 'echo [{}]' ::: \"it's\" 'a  b' '$HOME'");
+			assertEquals("[it's]\n[a  b]\n[$HOME]\n", session.out());
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void outputIsNotInterleaved() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("parallel -j 4 \"/bin/sh -c 'for i in 1 2 3 4 5; do echo {}; sleep 0.01; done'\" ::: a b c d");
+			String[] lines = session.out().split("\n");
+			assertEquals(20, lines.length);
+			for (int i = 0; i < lines.length; i += 5) {
+				String[] block = Arrays.copyOfRange(lines, i, i + 5);
+				assertTrue(Arrays.stream(block).allMatch(block[0]::equals), String.join(",", lines));
+			}
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void jobsRunConcurrently() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			long start = System.nanoTime();
+			assertEquals(0, session.run("parallel -j 4 /bin/sleep ::: 0.5 0.5 0.5 0.5"));
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertTrue(elapsed < 1500, "los trabajos no se ejecutaron a la vez: " + elapsed + " ms");
+
+			start = System.nanoTime();
+			session.run("parallel -j1 /bin/sleep ::: 0.3 0.3 0.3");
+			elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertTrue(elapsed >= 850, "-j1 ejecutó trabajos a la vez: " + elapsed + " ms");
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void statusCountsFailedJobs() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(2, session.run("parallel 'test {} = ok' ::: ok x y"));
+			assertEquals(0, session.run("parallel echo :::"));
+			assertEquals("", session.out());
+		}
+	}
+
+	@Test
+	void usageErrors() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(2, session.run("parallel"));
+			assertEquals(2, session.run("parallel -j 0 echo ::: a"));
+			assertEquals(2, session.run("parallel -x echo ::: a"));
+			assertTrue(session.err().contains("Uso: parallel"));
+			assertEquals("", session.out());
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * SIGPIPE entre procesos unidos por la shell (JoinedPipes): la etapa que escribe
+ * termina cuando la siguiente deja de leer, y no antes.
+ */
+
+@DisabledOnOs(OS.WINDOWS)
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class PipelineSignalTest {
+
+	@Test
+	void writerGetsSigpipeWhenReaderExits() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("yes | /bin/head -1");
+			assertEquals("y\n", session.out());
+			session.run("echo $PIPESTATUS");
+			assertEquals("141 0\n", session.out());
+		}
+	}
+
+	@Test
+	void sigpipePropagatesThroughJoinedStages() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("yes | /bin/cat | /bin/head -2");
+			assertEquals("y\ny\n", session.out());
+			session.run("echo $PIPESTATUS");
+			assertEquals("141 141 0\n", session.out());
+		}
+	}
+
+	@Test
+	void writerIsNotStoppedWhenItNeverWritesAgain() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			long start = System.nanoTime();
+			session.run("/bin/sleep 1 | /bin/true");
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			session.run("echo $PIPESTATUS");
+			assertEquals("0 0\n", session.out());
+			assertTrue(elapsed >= 900, "sleep terminó antes de tiempo: " + elapsed + " ms");
+		}
+	}
+
+	@Test
+	void segmentWithoutTheShell() throws Exception {
+		List<Process> processes = JoinedPipes.start(List.of(new ProcessBuilder("yes"),
+				new ProcessBuilder("/bin/head", "-3").redirectOutput(ProcessBuilder.Redirect.DISCARD)));
+		assertEquals(0, processes.get(1).waitFor());
+		assertEquals(141, processes.get(0).waitFor());
+
+		// Si una etapa no arranca, las anteriores no quedan huérfanas
+		List<ProcessBuilder> builders = List.of(new ProcessBuilder("/bin/sleep", "30"), new ProcessBuilder("/no/existe"));
+		assertThrows(IOException.class, () -> JoinedPipes.start(builders));
+	}
+}
@@ -0,0 +1,119 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * Redirecciones de cada etapa aplicadas en orden: archivos relativos al
+ * directorio de la shell, copia de descriptores (2>&1), &>, |& y errores.
+ */
+
+@DisabledOnOs(OS.WINDOWS)
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class RedirectionTest {
+
+	/** Escribe "salida" en stdout y "error" en stderr */
+
+	private static final String BOTH = "/bin/sh -c 'echo salida; echo error >&2'";
+
+	private static String read(ShellSession session, String name) throws IOException {
+		return Files.readString(session.file(name).toPath());
+	}
+
+	@Test
+	void duplicationFollowsTheOrder() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run(BOTH + " > todo.txt 2>&1");
+			assertEquals("salida\nerror\n", read(session, "todo.txt"));
+			assertEquals("", session.err());
+
+			// 2>&1 antes: stderr va a donde iba stdout (la shell)
+			session.run(BOTH + " 2>&1 > solo.txt");
+			assertEquals("salida\n", read(session, "solo.txt"));
+			assertEquals("error\n", session.out());
+
+			session.run("echo a 1>&2");
+			assertEquals("", session.out());
+			assertEquals("a\n", session.err());
+		}
+	}
+
+	@Test
+	void bothStreamsToAFile() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run(BOTH + " &> todo.txt");
+			session.run(BOTH + " &>> todo.txt");
+			session.run(BOTH + " >& todo2.txt");
+			assertEquals("salida\nerror\nsalida\nerror\n", read(session, "todo.txt"));
+			assertEquals("salida\nerror\n", read(session, "todo2.txt"));
+			assertEquals("", session.out() + session.err());
+		}
+	}
+
+	@Test
+	void stderrThroughThePipe() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run(BOTH + " |& sort");
+			assertEquals("error\nsalida\n", session.out());
+			session.run(BOTH + " 2>&1 | wc -l");
+			assertEquals("2\n", session.out());
+			session.run(BOTH + " | wc -l");
+			assertEquals("1\n", session.out());
+			assertEquals("error\n", session.err());
+		}
+	}
+
+	@Test
+	void perStageFiles() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run(BOTH + " 2> err1.txt | /bin/sh -c 'cat; echo otro >&2' 2> err2.txt > out.txt");
+			assertEquals("error\n", read(session, "err1.txt"));
+			assertEquals("otro\n", read(session, "err2.txt"));
+			assertEquals("salida\n", read(session, "out.txt"));
+
+			session.run("echo uno > a.txt; echo dos >> a.txt; cat < a.txt");
+			assertEquals("uno\ndos\n", session.out());
+		}
+	}
+
+	@Test
+	void pathsAreRelativeToTheShell() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("mkdir sub");
+			session.run("cd sub");
+			session.out();
+			session.run("/bin/echo dentro > f.txt; cat < f.txt");
+			assertEquals("dentro\n", session.out());
+			assertTrue(session.file("sub/f.txt").exists());
+			assertFalse(session.file("f.txt").exists());
+		}
+	}
+
+	@Test
+	void invalidRedirections() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertNotEquals(0, session.run("cat < falta.txt"));
+			assertTrue(session.err().contains("falta.txt"));
+
+			assertNotEquals(0, session.run("echo a 3> f.txt"));
+			assertTrue(session.err().contains("descriptor no soportado"));
+			assertNotEquals(0, session.run("echo a 2>&5"));
+			assertTrue(session.err().contains("descriptor no soportado"));
+			assertNotEquals(0, session.run("echo a 0> f.txt"));
+			assertTrue(session.err().contains("no soportada: [0>"));
+			assertFalse(session.file("f.txt").exists());
+			assertEquals("", session.out());
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Modo script: las líneas se leen de un flujo sin prompt, las órdenes
+ * incompletas continúan en las líneas siguientes y el código final es el
+ * del último comando.
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class ScriptTest {
+
+	private static int run(ShellSession session, String script) {
+		int status = session.shell().run(new BufferedReader(new StringReader(script)), false);
+		session.shell().flush();
+		return status;
+	}
+
+	@Test
+	void runsEveryLineWithoutPrompt() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(3, run(session, "# comentario\n\necho uno\n   \necho dos # fin\n/bin/sh -c 'exit 3'\n"));
+			assertEquals("uno\ndos\n", session.out());
+			assertEquals("", session.err());
+		}
+	}
+
+	@Test
+	void incompleteOrdersContinue() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			run(session, "echo a b |\ntr a-z A-Z\necho c \\\nd\ntrue &&\necho e\n");
+			assertEquals("A B\nc d\ne\n", session.out());
+		}
+	}
+
+	@Test
+	void hereDocumentsAndFunctionsSpanLines() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			run(session, "function saluda {\n  echo hola $1\n}\ncat <<FIN | saluda\n  texto\nFIN\nsaluda mundo\n");
+			assertEquals("hola\nhola mundo\n", session.out());
+
+			run(session, "cat <<FIN\n  sangrado\n\n!!\nFIN\n");
+			assertEquals("  sangrado\n\n!!\n", session.out());
+		}
+	}
+
+	@Test
+	void exitStopsTheScript() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(4, run(session, "echo antes\nexit 4\necho despues\n"));
+			assertEquals("antes\n", session.out());
+		}
+	}
+
+	@Test
+	void endOfInputInsideAnOrder() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			// Sin delimitador, el documento llega hasta el final del script
+			assertEquals(0, run(session, "cat <<FIN\nuno\ndos"));
+			assertEquals("uno\ndos", session.out());
+
+			// Una comilla abierta sigue en las líneas siguientes; sin cierre es un error de sintaxis
+			run(session, "echo 'a\nb'\n");
+			assertEquals("a\nb\n", session.out());
+			assertEquals(2, run(session, "echo \"sin cierre\necho b\n"));
+			assertEquals("", session.out());
+			assertTrue(session.err().contains("Error de sintaxis"));
+			assertEquals(2, run(session, "echo a |"));
+		}
+	}
+
+	@Test
+	void syntaxErrors() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			for (String line : List.of("| cat", "echo a ;; echo b", "&& echo x", "echo a ||", "echo $(ls")) {
+				assertEquals(2, session.run(line), line);
+				assertEquals("", session.out());
+				assertTrue(session.err().startsWith("Error de sintaxis: "), line);
+			}
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * Modo servidor: protocolo de líneas, sesiones independientes, permisos del
+ * socket UNIX y clave de las sesiones TCP.
+ */
+
+@DisabledOnOs(OS.WINDOWS)
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class ShellServerTest {
+
+	private Path directory;
+
+	private ShellServer server;
+
+	/** Conexión de un cliente: envía órdenes y lee las respuestas del protocolo */
+
+	private static final class Client implements AutoCloseable {
+
+		private final SocketChannel channel;
+		private final OutputStream out;
+		private final BufferedReader in;
+
+		Client(SocketChannel channel) {
+			this.channel = channel;
+			this.out = Channels.newOutputStream(channel);
+			this.in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+		}
+
+		void send(String line) throws IOException {
+			out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+			out.flush();
+		}
+
+		/** Lee bloques hasta "status C": devuelve "C|salida|errores" */
+
+		String reply() throws IOException {
+			StringBuilder stdout = new StringBuilder();
+			StringBuilder stderr = new StringBuilder();
+			String header;
+			while ((header = in.readLine()) != null) {
+				if (header.startsWith("status ")) {
+					return header.substring(7) + "|" + stdout + "|" + stderr;
+				}
+				(header.startsWith("out ") ? stdout : stderr).append(frame(header));
+			}
+			return null;
+		}
+
+		/** Contenido de un bloque "out N" o "err N" (N bytes, en esta prueba siempre ASCII) */
+
+		String frame(String header) throws IOException {
+			char[] text = new char[Integer.parseInt(header.substring(4))];
+			int read = 0;
+			while (read < text.length) {
+				read += in.read(text, read, text.length - read);
+			}
+			return new String(text);
+		}
+
+		String run(String line) throws IOException {
+			send(line);
+			return reply();
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	@BeforeEach
+	void setUp() throws IOException {
+		directory = Files.createTempDirectory("minishell-server").toRealPath();
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		if (server != null) {
+			server.close();
+		}
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	private void start(String address) throws IOException {
+		server = ShellServer.open(address, directory.resolve("token"));
+		Thread accept = new Thread(server::serve, "test-server");
+		accept.setDaemon(true);
+		accept.start();
+	}
+
+	private Client connectUnix(Path socket) throws IOException {
+		return new Client(SocketChannel.open(UnixDomainSocketAddress.of(socket)));
+	}
+
+	@Test
+	void unixSocketIsPrivateAndServesSessions() throws IOException {
+		Path socket = directory.resolve("shell.sock");
+		start(socket.toString());
+
+		assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(socket)));
+		// Del directorio privado en el que se creó no queda nada
+		try (Stream<Path> entries = Files.list(directory)) {
+			assertEquals(1, entries.count());
+		}
+
+		try (Client a = connectUnix(socket); Client b = connectUnix(socket)) {
+			assertEquals("0|hola\n|", a.run("echo hola"));
+			assertEquals("0|Directorio actual: /\n|", a.run("cd /"));
+			assertEquals("0||", b.run("export SESION=b"));
+			// Directorio y variables de cada sesión
+			assertEquals("0|/\n|", a.run("pwd"));
+			assertEquals("0|\n|", a.run("echo $SESION"));
+			assertEquals("0|b\n|", b.run("echo $SESION"));
+			assertEquals("3||", a.run("exit 3"));
+			assertNull(a.reply());
+		}
+	}
+
+	@Test
+	void unixSocketMustNotExist() throws IOException {
+		Path socket = directory.resolve("shell.sock");
+		Files.createFile(socket);
+		assertThrows(FileAlreadyExistsException.class, () -> ShellServer.open(socket.toString(), null));
+	}
+
+	@Test
+	void tcpSessionsNeedTheToken() throws IOException {
+		start("0");
+		Path tokenFile = directory.resolve("token");
+		assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+		String token = Files.readString(tokenFile);
+		assertFalse(token.isBlank());
+
+		try (Client client = new Client(SocketChannel.open(server.address()))) {
+			client.send("echo sin clave");
+			String header = client.in.readLine();
+			assertTrue(header.startsWith("err "));
+			assertTrue(client.frame(header).contains("clave incorrecta"));
+			assertNull(client.in.readLine());
+		}
+
+		try (Client client = new Client(SocketChannel.open(server.address()))) {
+			client.send("auth " + token);
+			assertEquals("0|ok\n|", client.run("echo ok"));
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package minishell;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Shell de pruebas: una MiniShell de sesión (como las del modo servidor) cuya
+ * salida estándar y de errores se guardan en memoria, con un directorio
+ * temporal propio como directorio actual.
+ */
+
+final class ShellSession implements AutoCloseable {
+
+	private final Capture out = new Capture();
+
+	private final Capture err = new Capture();
+
+	private final MiniShell shell = new MiniShell(out, err);
+
+	private final Path directory;
+
+	/** Salida en memoria segura entre hilos (la escriben los hilos de bombeo) */
+
+	private static final class Capture extends OutputStream {
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		@Override
+		public synchronized void write(int b) {
+			bytes.write(b);
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			bytes.write(b, off, len);
+		}
+
+		synchronized String take() {
+			String text = bytes.toString(Charset.defaultCharset());
+			bytes.reset();
+			return text;
+		}
+	}
+
+	ShellSession() throws IOException {
+		this.directory = Files.createTempDirectory("minishell-test").toRealPath();
+		run("cd " + directory);
+		out();
+	}
+
+	/** Ejecuta una línea (como si se hubiera leído de un script) y devuelve su código */
+
+	int run(String line) {
+		int status = shell.runLine(line);
+		shell.flush();
+		return status;
+	}
+
+	/** Salida estándar desde la última llamada */
+
+	String out() {
+		shell.flush();
+		return out.take();
+	}
+
+	/** Salida de errores desde la última llamada */
+
+	String err() {
+		shell.flush();
+		return err.take();
+	}
+
+	Path directory() {
+		return directory;
+	}
+
+	File file(String name) {
+		return directory.resolve(name).toFile();
+	}
+
+	MiniShell shell() {
+		return shell;
+	}
+
+	@Override
+	public void close() throws IOException {
+		shell.close();
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Servidor de arranque de procesos: formato de las peticiones, flujos que
+ * pasan por el socket, PIDs y códigos de salida, errores de arranque y uso
+ * desde la shell con MINISHELL_SPAWN_SERVER=1.
+ */
+
+@DisabledOnOs(OS.WINDOWS)
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+class SpawnServerTest {
+
+	/** Un solo servidor para todas las pruebas (arrancarlo cuesta una JVM) */
+
+	private static SpawnClient client;
+
+	@TempDir
+	Path directory;
+
+	@BeforeAll
+	static void launch() {
+		client = new SpawnClient();
+	}
+
+	@AfterAll
+	static void stop() {
+		client.close();
+	}
+
+	private static String read(Process p) throws IOException {
+		return new String(p.getInputStream().readAllBytes(), Charset.defaultCharset());
+	}
+
+	@Test
+	void stringsOfAnyLength() throws IOException {
+		String text = "\u00f1".repeat(70_000);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		SpawnServer.writeString(new DataOutputStream(bytes), text);
+		SpawnServer.writeString(new DataOutputStream(bytes), "");
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(text, SpawnServer.readString(in));
+		assertEquals("", SpawnServer.readString(in));
+	}
+
+	@Test
+	void onlyPipesToTheShellNeedAConnection() {
+		ProcessBuilder first = new ProcessBuilder("a");
+		ProcessBuilder middle = new ProcessBuilder("b").redirectErrorStream(true);
+		ProcessBuilder last = new ProcessBuilder("c").redirectError(ProcessBuilder.Redirect.INHERIT);
+		List<int[]> streams = SpawnServer.streams(List.of(first, middle, last));
+		assertEquals(3, streams.size());
+		assertArrayEquals(new int[] { 0, 0 }, streams.get(0));
+		assertArrayEquals(new int[] { 0, 2 }, streams.get(1));
+		assertArrayEquals(new int[] { 2, 1 }, streams.get(2));
+
+		// Con archivos no hay nada que conectar
+		File file = new File("f.txt");
+		ProcessBuilder alone = new ProcessBuilder("d").redirectInput(file).redirectOutput(file)
+				.redirectError(ProcessBuilder.Redirect.DISCARD);
+		assertEquals(0, SpawnServer.streams(List.of(alone)).size());
+	}
+
+	@Test
+	void pipelineThroughTheServer() throws Exception {
+		List<Process> processes = client.startPipeline(List.of(
+				new ProcessBuilder("/bin/cat"),
+				new ProcessBuilder("tr", "a-z", "A-Z"),
+				new ProcessBuilder("/bin/sh", "-c", "cat; echo aviso >&2; exit 3")));
+		assertEquals(3, processes.size());
+		assertTrue(processes.stream().allMatch(p -> p.pid() > 0));
+
+		try (OutputStream in = processes.get(0).getOutputStream()) {
+			in.write("hola\n".getBytes(Charset.defaultCharset()));
+		}
+		Process last = processes.get(2);
+		assertEquals("HOLA\n", read(last));
+		assertEquals("aviso\n", new String(last.getErrorStream().readAllBytes(), Charset.defaultCharset()));
+		assertEquals(3, last.waitFor());
+		assertEquals(0, processes.get(0).waitFor());
+		assertEquals(0, processes.get(1).waitFor());
+	}
+
+	@Test
+	void writerGetsSigpipeInTheServer() throws Exception {
+		List<Process> processes = client.startPipeline(List.of(new ProcessBuilder("yes"),
+				new ProcessBuilder("/bin/head", "-1")));
+		assertEquals("y\n", read(processes.get(1)));
+		assertEquals(0, processes.get(1).waitFor());
+		assertEquals(141, processes.get(0).waitFor());
+	}
+
+	@Test
+	void directoryEnvironmentAndFiles() throws Exception {
+		Path out = directory.resolve("out.txt");
+		ProcessBuilder builder = new ProcessBuilder("/bin/sh", "-c", "pwd; echo \"[$NUEVA][$HOME]\"; cat")
+				.directory(directory.toFile())
+				.redirectInput(ProcessBuilder.Redirect.from(Files.writeString(directory.resolve("in.txt"), "entrada\n").toFile()))
+				.redirectOutput(out.toFile());
+		builder.environment().put("NUEVA", "n");
+		builder.environment().remove("HOME");
+
+		Process p = client.startPipeline(List.of(builder)).get(0);
+		assertEquals(0, p.waitFor());
+		assertEquals("", read(p));
+		assertEquals(directory.toRealPath() + "\n[n][]\nentrada\n", Files.readString(out));
+
+		// Añadir al final también llega al servidor
+		client.startPipeline(List.of(new ProcessBuilder("/bin/echo", "otra")
+				.redirectOutput(ProcessBuilder.Redirect.appendTo(out.toFile())))).get(0).waitFor();
+		assertTrue(Files.readString(out).endsWith("entrada\notra\n"));
+	}
+
+	@Test
+	void startErrorsKeepTheMessage() {
+		IOException e = assertThrows(IOException.class,
+				() -> client.startPipeline(List.of(new ProcessBuilder("/no/existe"))));
+		assertTrue(e.getMessage().contains("/no/existe"), e.getMessage());
+	}
+
+	@Test
+	void shellUsesTheServer() throws Exception {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add("minishell.MiniShell");
+		command.add("-c");
+		command.add("/bin/echo hola | tr a-z A-Z; /bin/sh -c 'exit 4'");
+
+		ProcessBuilder builder = new ProcessBuilder(command).directory(directory.toFile());
+		builder.environment().put("MINISHELL_SPAWN_SERVER", "1");
+		builder.environment().put("MINISHELL_HISTFILE", directory.resolve("history").toString());
+		builder.redirectErrorStream(true);
+		Process shell = builder.start();
+		shell.getOutputStream().close();
+		// Sin el aviso de "no disponible": los procesos los ha creado el servidor
+		assertEquals("HOLA\n", read(shell));
+		assertEquals(4, shell.waitFor());
+	}
+}
@@ -0,0 +1,88 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Ejecuciones cortas en una JVM nueva ('-c', scripts, entrada redirigida): sin
+ * terminal no hay prompt ni secuencias ANSI, y lo que no se usa (el historial)
+ * no llega a crearse.
+ */
+
+@DisabledOnOs(OS.WINDOWS)
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+class StartupTest {
+
+	@TempDir
+	Path directory;
+
+	/** Ejecuta la shell en otro proceso con la entrada indicada; devuelve "código|salida" */
+
+	private String launch(String input, String... args) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add("minishell.MiniShell");
+		command.addAll(List.of(args));
+
+		ProcessBuilder builder = new ProcessBuilder(command).directory(directory.toFile());
+		builder.environment().put("MINISHELL_HISTFILE", directory.resolve("history").toString());
+		builder.redirectErrorStream(true);
+		Process process = builder.start();
+		try (OutputStream in = process.getOutputStream()) {
+			in.write(input.getBytes(Charset.defaultCharset()));
+		}
+		String output = new String(process.getInputStream().readAllBytes(), Charset.defaultCharset());
+		return process.waitFor() + "|" + output;
+	}
+
+	@Test
+	void oneShotCommand() throws Exception {
+		assertEquals("3|hola\n", launch("", "-c", "echo hola; /bin/sh -c 'exit 3'"));
+		assertFalse(Files.exists(directory.resolve("history")));
+	}
+
+	@Test
+	void scriptFile() throws Exception {
+		File script = directory.resolve("script.msh").toFile();
+		Files.writeString(script.toPath(), "echo uno |\ntr a-z A-Z\nexit 2\n");
+		assertEquals("2|UNO\n", launch("", script.getPath()));
+		assertEquals("127|No se puede leer el script: falta.msh\n", launch("", "falta.msh"));
+	}
+
+	@Test
+	void redirectedInputHasNoPrompt() throws Exception {
+		// Sin terminal la entrada se lee como un script: ni prompt ni historial
+		assertEquals("0|a\nb\n", launch("echo a\necho b\n"));
+		assertFalse(Files.exists(directory.resolve("history")));
+	}
+
+	@Test
+	void commandsReadTheShellInput() throws Exception {
+		// Los procesos heredan la entrada de la shell; los comandos internos la leen
+		assertEquals("0|a\nb\n", launch("b\na\n", "-c", "sort"));
+		assertEquals("0|zz\n", launch("zz", "-c", "grep z"));
+		assertEquals("0|2\nfin\n", launch("q\nw\n", "-c", "/bin/cat | wc -l; echo fin"));
+		// En segundo plano no la leen
+		assertTrue(launch("datos\n", "-c", "/bin/cat > /dev/null & wait; cat").endsWith("\ndatos\n"));
+	}
+}
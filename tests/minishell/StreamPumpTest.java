@@ -0,0 +1,127 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * Bombeo de la salida de los procesos: stdout y stderr se vacían a la vez,
+ * sin que uno bloquee al otro con el buffer del pipe lleno, y los bytes
+ * llegan tal cual, sin decodificar líneas.
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class StreamPumpTest {
+
+	/** Bastante más que el buffer de un pipe (64 KiB en Linux) */
+
+	private static final int SIZE = 1024 * 1024;
+
+	/** Todos los valores de byte, incluidos '\0', '\r' y secuencias UTF-8 no válidas */
+
+	private static byte[] allBytes() {
+		byte[] bytes = new byte[3 * 256];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) i;
+		}
+		return bytes;
+	}
+
+	/** Entrada que registra si se ha cerrado */
+
+	private static final class Tracked extends ByteArrayInputStream {
+
+		boolean closed;
+
+		Tracked(byte[] bytes) {
+			super(bytes);
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	@Test
+	void copiesBytesUnchanged() throws IOException {
+		byte[] bytes = allBytes();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Tracked in = new Tracked(bytes);
+		assertEquals(bytes.length, StreamPump.copy(in, out));
+		assertArrayEquals(bytes, out.toByteArray());
+		assertTrue(in.closed);
+	}
+
+	@Test
+	void connectClosesTheNextStage() throws Exception {
+		byte[] bytes = allBytes();
+		boolean[] closed = new boolean[1];
+		ByteArrayOutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public void close() {
+				closed[0] = true;
+			}
+		};
+		assertEquals(bytes.length, StreamPump.connect(new ByteArrayInputStream(bytes), out).get());
+		assertArrayEquals(bytes, out.toByteArray());
+		assertTrue(closed[0]);
+
+		// 'pump' deja abierto el destino y avisa de los errores de lectura
+		InputStream failing = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw new IOException("fallo");
+			}
+		};
+		assertThrows(ExecutionException.class, () -> StreamPump.pump(failing, new ByteArrayOutputStream()).get());
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void binaryOutputReachesTheFile() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			byte[] bytes = allBytes();
+			Files.write(session.file("datos.bin").toPath(), bytes);
+			assertEquals(0, session.run("/bin/cat datos.bin | /bin/cat > copia.bin"));
+			assertArrayEquals(bytes, Files.readAllBytes(session.file("copia.bin").toPath()));
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void stderrDoesNotStallStdout() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			// El proceso llena primero stderr: si solo se leyera stdout quedaría bloqueado
+			assertEquals(0, session.run("/bin/sh -c 'head -c " + SIZE + " /dev/zero | tr \"\\\\0\" e >&2; "
+					+ "head -c " + SIZE + " /dev/zero | tr \"\\\\0\" o'"));
+			assertEquals(SIZE, session.out().length());
+			assertEquals(SIZE, session.err().length());
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void everyStageIsDrained() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(0, session.run("/bin/sh -c 'head -c " + SIZE + " /dev/zero >&2; echo uno' | "
+					+ "/bin/sh -c 'cat; head -c " + SIZE + " /dev/zero >&2; echo dos'"));
+			assertEquals("uno\ndos\n", session.out());
+			assertEquals(2 * SIZE, session.err().length());
+		}
+	}
+}
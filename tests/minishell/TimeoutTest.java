@@ -0,0 +1,91 @@
+package minishell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * 'timeout N orden' y Ctrl-C: detienen también un comando interno que va solo
+ * en la línea, y 'timeout' acepta comandos de la shell y funciones.
+ */
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+class TimeoutTest {
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void stopsALoneBuiltin() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			long start = System.nanoTime();
+			assertEquals(124, session.run("timeout 1 cat /dev/zero > /dev/null"));
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertTrue(elapsed < 5000, "cat no se detuvo a tiempo: " + elapsed + " ms");
+			assertTrue(session.err().contains("tiempo agotado"));
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void stopsAnExternalPipeline() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			assertEquals(124, session.run("timeout 0.5 /bin/sleep 5"));
+		}
+	}
+
+	@Test
+	void runsShellCommands() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("mkdir sub");
+			assertEquals(0, session.run("timeout 5 cd sub"));
+			session.out();
+			session.run("pwd");
+			assertEquals(session.directory().resolve("sub").toString(), session.out().trim());
+
+			assertEquals(0, session.run("timeout 5 export LIMITE=1"));
+			session.run("echo $LIMITE");
+			assertEquals("1\n", session.out());
+			assertEquals("", session.err());
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void limitsAFunctionAsAWhole() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			session.run("function lento { /bin/sleep 5; echo fin; }");
+			long start = System.nanoTime();
+			session.run("timeout 0.5 lento");
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertTrue(elapsed < 4000, "la función no se detuvo a tiempo: " + elapsed + " ms");
+		}
+	}
+
+	@Test
+	@DisabledOnOs(OS.WINDOWS)
+	void ctrlCStopsALoneBuiltin() throws Exception {
+		try (ShellSession session = new ShellSession()) {
+			long pid = ProcessHandle.current().pid();
+			// SIGINT a esta JVM cuando la shell ya está ejecutando la línea
+			CompletableFuture<Void> interrupt = CompletableFuture.runAsync(() -> {
+				try {
+					Thread.sleep(1000);
+					new ProcessBuilder("kill", "-INT", Long.toString(pid)).start().waitFor();
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			int status = session.shell().run(new BufferedReader(new StringReader("cat /dev/zero > /dev/null\n")), true);
+			interrupt.join();
+			assertEquals(130, status);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package tokenizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+// Sustitución de alias al tokenizar: solo en el nombre del comando y sin
+// comillas, sin volver a sustituir un alias dentro de sí mismo y con un
+// nivel máximo de alias dentro de alias
+class AliasTest {
+
+    private static final Aliases ALIASES = Map.of(
+            "ll", "ls -l",
+            "ls", "ls -F",
+            "g", "grep -i",
+            "a", "b uno",
+            "b", "a dos",
+            "dos", "echo a | wc; echo b")::get;
+
+    // argv de cada comando de cada pipeline de la línea
+    private static List<List<String>> argv(String input, Aliases aliases) throws MissingFileException {
+        List<List<String>> commands = new ArrayList<>();
+        for (TLine line = Tokenizer.tokenize(input, aliases); line != null; line = line.getNext()) {
+            for (TCommand command : line.getCommands()) {
+                commands.add(command.getArgv());
+            }
+        }
+        return commands;
+    }
+
+    @Test
+    void onlyTheCommandName() throws MissingFileException {
+        assertEquals(List.of(List.of("ls", "-F", "-l", "/tmp")), argv("ll /tmp", ALIASES));
+        assertEquals(List.of(List.of("cat", "f"), List.of("grep", "-i", "ll"), List.of("ls", "-F")),
+                argv("cat f | g ll && ls", ALIASES));
+        // Tras las asignaciones sigue siendo el nombre del comando
+        assertEquals(List.of(List.of("ls", "-F", "-l")), argv("A=1 ll", ALIASES));
+        assertEquals(List.of(List.of("echo", "ll", "g")), argv("echo ll g", ALIASES));
+    }
+
+    @Test
+    void quotedNamesAreNotAliases() throws MissingFileException {
+        assertEquals(List.of(List.of("ll")), argv("'ll'", ALIASES));
+        assertEquals(List.of(List.of("ll", "x")), argv("\"ll\" x", ALIASES));
+        assertEquals(List.of(List.of("ls")), argv("l's'", ALIASES));
+        assertEquals(List.of(List.of("ls", "-F")), argv("ls", ALIASES));
+    }
+
+    @Test
+    void aliasNotExpandedWithinItself() throws MissingFileException {
+        // ls='ls -F': el 'ls' del alias es el comando
+        assertEquals(List.of(List.of("ls", "-F", "x")), argv("ls x", ALIASES));
+        // a -> b uno -> a dos uno: 'a' ya se está sustituyendo
+        assertEquals(List.of(List.of("a", "dos", "uno", "x")), argv("a x", ALIASES));
+        assertEquals(List.of(List.of("b", "uno", "dos")), argv("b", ALIASES));
+    }
+
+    @Test
+    void aliasesWithSeveralPipelines() throws MissingFileException {
+        assertEquals(List.of(List.of("echo", "a"), List.of("wc"), List.of("echo", "b", "x"), List.of("cat")),
+                argv("dos x | cat", ALIASES));
+    }
+
+    @Test
+    void depthLimit() throws MissingFileException {
+        // c0 -> c1 -> ... -> c99: se detiene tras 32 niveles
+        Map<String, String> chain = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            chain.put("c" + i, "c" + (i + 1) + " " + i);
+        }
+        List<String> argv = argv("c0", chain::get).get(0);
+        assertEquals("c32", argv.get(0));
+        assertEquals(33, argv.size());
+        assertEquals("31", argv.get(1));
+        assertEquals("0", argv.get(32));
+    }
+
+    @Test
+    void withoutAliases() throws MissingFileException {
+        assertEquals(List.of(List.of("ll", "x")), argv("ll x", null));
+        assertEquals(List.of(List.of("ll", "x")), argv("ll x", name -> null));
+    }
+}
@@ -0,0 +1,144 @@
+package tokenizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+// Expansión de variables y sustituciones de órdenes al ejecutar cada pipeline:
+// palabras que desaparecen, palabras vacías entre comillas, separación en campos
+// y "$@"
+class ExpansionTest {
+
+    private static final Variables VARIABLES = Map.of("A", "uno", "B", "dos tres", "VACIA", "", "?", "1")::get;
+
+    // Argumentos del primer comando de la línea tras expandirla
+    private static List<String> argv(String input) throws MissingFileException {
+        return argv(input, null);
+    }
+
+    private static List<String> argv(String input, Substitutions substitutions) throws MissingFileException {
+        return Tokenizer.tokenize(input).expand(VARIABLES, null, substitutions).getCommands().get(0).getArgv();
+    }
+
+    private static List<String> fields(String input, Variables variables) throws MissingFileException {
+        return Tokenizer.tokenize(input).expand(variables, null).getCommands().get(0).getArgv();
+    }
+
+    @Test
+    void references() throws MissingFileException {
+        assertEquals(List.of("echo", "uno", "uno-dos", "tres", "1", "$"), argv("echo $A ${A}-$B $? $"));
+        assertEquals(List.of("echo", "$A", "uno"), argv("echo '$A' \"$A\""));
+    }
+
+    @Test
+    void emptyWordsAreDroppedUnlessQuoted() throws MissingFileException {
+        assertEquals(List.of("echo", "x"), argv("echo $NOEXISTE x $VACIA${NOEXISTE}"));
+        assertEquals(List.of("echo", "", "", "x"), argv("echo \"$NOEXISTE\" '' x"));
+        assertEquals(List.of("echo", "", ""), argv("echo $VACIA\"\" ''${NOEXISTE}"));
+        assertEquals("${A}", Tokenizer.display(Tokenizer.tokenize("echo $A''").getCommands().get(0).getArgv().get(1)));
+
+        assertNull(Expansion.expand(Expansion.REF + "X" + Expansion.END, name -> null, false));
+        assertEquals("", Expansion.expand(Expansion.REF + "X" + Expansion.END, name -> null, true));
+    }
+
+    @Test
+    void assignmentsAndRedirectionsKeepEmptyValues() throws MissingFileException {
+        TCommand command = Tokenizer.tokenize("X=$NOEXISTE cat < $A > $B")
+                .expand(VARIABLES, null).getCommands().get(0);
+        assertEquals(List.of("X="), command.getAssignments());
+        assertEquals("uno", command.getRedirections().get(0).getTarget());
+        assertEquals("dos tres", command.getRedirections().get(1).getTarget());
+    }
+
+    @Test
+    void variablesSplitOnlyWithoutQuotes() throws MissingFileException {
+        Variables variables = Map.of("B", " dos  tres\tcuatro\n", "P", "a*")::get;
+        assertEquals(List.of("echo", "dos", "tres", "cuatro"), fields("echo $B", variables));
+        assertEquals(List.of("echo", "x", "dos", "tres", "cuatro", "y"), fields("echo x${B}y", variables));
+        assertEquals(List.of("echo", " dos  tres\tcuatro\n"), fields("echo \"$B\"", variables));
+        assertEquals(List.of("echo", "-", "dos", "tres", "cuatro", " dos  tres\tcuatro\n"),
+                fields("echo -$B\"$B\"", variables));
+        // Los valores siguen siendo literales: sin comodines
+        assertEquals(List.of("echo", "a*"), fields("echo $P", variables));
+
+        // En una asignación o una redirección el valor no se separa
+        TCommand command = Tokenizer.tokenize("X=$B cat > $B").expand(variables, null).getCommands().get(0);
+        assertEquals(List.of("X= dos  tres\tcuatro\n"), command.getAssignments());
+        assertEquals(" dos  tres\tcuatro\n", command.getRedirections().get(0).getTarget());
+    }
+
+    @Test
+    void positionalParameters() throws MissingFileException {
+        Variables parameters = new Variables() {
+            @Override
+            public String get(String name) {
+                return name.equals("@") ? "a  b c" : null;
+            }
+
+            @Override
+            public List<String> parameters() {
+                return List.of("a  b", "c");
+            }
+        };
+        assertEquals(List.of("f", "a  b", "c"), fields("f \"$@\"", parameters));
+        assertEquals(List.of("f", "xa  b", "cy"), fields("f x\"$@\"y", parameters));
+        assertEquals(List.of("f", "a", "b", "c"), fields("f $@", parameters));
+
+        Variables none = name -> name.equals("@") ? "" : null;
+        assertEquals(List.of("f"), fields("f \"$@\" $@", none));
+        assertEquals(List.of("f", "xy"), fields("f x\"$@\"y", none));
+    }
+
+    @Test
+    void substitutionsSplitOnlyWithoutQuotes() throws MissingFileException {
+        Substitutions outputs = commands -> {
+            List<String> values = new ArrayList<>();
+            for (String command : commands) {
+                values.add(command.equals("vacia") ? "" : " a  b\tc\nd ");
+            }
+            return values;
+        };
+        assertEquals(List.of("echo", "a", "b", "c", "d"), argv("echo $(ls)", outputs));
+        assertEquals(List.of("echo", "x", "a", "b", "c", "d", "y"), argv("echo x$(ls)y", outputs));
+        assertEquals(List.of("echo", " a  b\tc\nd "), argv("echo \"$(ls)\"", outputs));
+        assertEquals(List.of("echo", "z"), argv("echo $(vacia) z", outputs));
+        assertEquals(List.of("echo", "", "z"), argv("echo $(vacia)'' z", outputs));
+        assertEquals(List.of("echo", "", "z"), argv("echo \"$(vacia)\" z", outputs));
+
+        // En una asignación la salida no se separa
+        TCommand command = Tokenizer.tokenize("X=$(ls) true").expand(VARIABLES, null, outputs).getCommands().get(0);
+        assertEquals(List.of("X= a  b\tc\nd "), command.getAssignments());
+    }
+
+    @Test
+    void substitutionsRunOnceInOrder() throws MissingFileException {
+        List<List<String>> calls = new ArrayList<>();
+        Substitutions outputs = commands -> {
+            calls.add(commands);
+            return List.of("1", "2", "3");
+        };
+        assertEquals(List.of("echo", "1", "2-3"), argv("echo $(uno) `dos`-$(echo $(tres))", outputs));
+        assertEquals(List.of(List.of("uno", "dos", "echo $(tres)")), calls);
+    }
+
+    @Test
+    void linesWithoutExpansionsAreNotCopied() throws MissingFileException {
+        TLine line = Tokenizer.tokenize("echo a 'b'");
+        assertSame(line, line.expand(VARIABLES, null));
+    }
+
+    @Test
+    void displayAndPattern() {
+        String word = "a" + Expansion.REF + "A" + Expansion.END + Expansion.GLOB + "*" + Expansion.SUBST + "ls"
+                + Expansion.END;
+        assertEquals("a${A}*$(ls)", Expansion.display(word));
+        assertEquals("x\\*\\[" + "*", Expansion.pattern(Expansion.REF + "P" + Expansion.END + Expansion.GLOB + "*",
+                Map.of("P", "x*[")::get));
+    }
+}
@@ -0,0 +1,211 @@
+package tokenizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import tokenizer.Lexer.Token;
+
+// Análisis léxico en una pasada: operadores, comillas, descriptores, marcas de
+// expansión y comentarios
+class LexerTest {
+
+    // Tokens de la entrada hasta END (sin incluirlo)
+    private static List<Token> tokens(String input) {
+        Lexer lexer = new Lexer(input);
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        while ((token = lexer.next()) != Token.END) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    // Lexer situado sobre el primer token de la entrada
+    private static Lexer first(String input) {
+        Lexer lexer = new Lexer(input);
+        lexer.next();
+        return lexer;
+    }
+
+    @Test
+    void operatorsWithAndWithoutSpaces() {
+        assertEquals(List.of(Token.WORD, Token.PIPE, Token.WORD, Token.PIPE_ALL, Token.WORD, Token.AND_IF,
+                Token.WORD, Token.OR_IF, Token.WORD, Token.SEMI, Token.WORD, Token.AMP),
+                tokens("a|b |& c&&d || e;f&"));
+        assertEquals(List.of(Token.WORD, Token.IN, Token.WORD, Token.OUT, Token.WORD, Token.APPEND, Token.WORD),
+                tokens("cat<in>out>>log"));
+    }
+
+    @Test
+    void newlineSeparatesOnlyAfterAWord() {
+        assertEquals(List.of(Token.WORD, Token.SEMI, Token.WORD), tokens("a\nb"));
+        assertEquals(List.of(Token.WORD, Token.PIPE, Token.WORD), tokens("a |\nb"));
+        assertEquals(List.of(Token.WORD, Token.WORD), tokens("a \\\nb"));
+    }
+
+    @Test
+    void quotesAreLiteral() {
+        Lexer lexer = first("'a | b'\"$\"x");
+        assertEquals("a | b$x", lexer.text());
+        assertTrue(lexer.quoted());
+        assertFalse(lexer.plain());
+        assertFalse(lexer.references());
+
+        lexer = first("'sin cierre");
+        assertEquals("sin cierre", lexer.text());
+        assertEquals("'", lexer.unclosed());
+        assertEquals(Token.END, lexer.next());
+        assertEquals("\"", first("\"a $B").unclosed());
+        assertEquals(null, first("'a'\"b\"").unclosed());
+    }
+
+    @Test
+    void descriptors() {
+        Lexer lexer = new Lexer("2>err 1>>out 0<in 2>&1 >&todo &>>todo 12 x");
+        assertEquals(Token.OUT, lexer.next());
+        assertEquals(2, lexer.fd());
+        lexer.next();
+        assertEquals(Token.APPEND, lexer.next());
+        assertEquals(1, lexer.fd());
+        lexer.next();
+        assertEquals(Token.IN, lexer.next());
+        assertEquals(0, lexer.fd());
+        lexer.next();
+        assertEquals(Token.DUPLICATE, lexer.next());
+        assertEquals(2, lexer.fd());
+        assertEquals(1, lexer.targetFd());
+        assertEquals(Token.OUT_ALL, lexer.next());
+        assertEquals(1, lexer.fd());
+        assertEquals("todo", lexer.next() == Token.WORD ? lexer.text() : null);
+        assertEquals(Token.APPEND_ALL, lexer.next());
+        lexer.next();
+        // Los dígitos solo son un descriptor pegados a '<' o '>'
+        assertEquals(Token.WORD, lexer.next());
+        assertEquals("12", lexer.text());
+    }
+
+    @Test
+    void hereDocumentsAndHereStrings() {
+        assertEquals(List.of(Token.WORD, Token.HEREDOC, Token.WORD, Token.HERESTRING, Token.WORD),
+                tokens("cat <<FIN 0<<<hola"));
+
+        Lexer lexer = new Lexer("cat <<A <<'B'\nuno $X\nA\ndos $X\nB\necho fin");
+        lexer.next();
+        lexer.next();
+        lexer.next();
+        assertEquals("uno " + Expansion.QUOTED_REF + "X" + Expansion.END + "\n", lexer.heredoc(lexer.text(), true));
+        assertTrue(lexer.references());
+        lexer.next();
+        lexer.next();
+        assertTrue(lexer.quoted());
+        assertEquals("dos $X\n", lexer.heredoc(lexer.text(), !lexer.quoted()));
+        // La orden sigue tras el último delimitador
+        assertEquals(Token.SEMI, lexer.next());
+        assertEquals(Token.WORD, lexer.next());
+        assertEquals("echo", lexer.text());
+        assertFalse(lexer.incomplete());
+
+        lexer = new Lexer("cat <<FIN\nsin delimitador");
+        lexer.next();
+        lexer.next();
+        lexer.next();
+        assertEquals("sin delimitador", lexer.heredoc("FIN", false));
+        assertTrue(lexer.incomplete());
+    }
+
+    @Test
+    void expansionMarks() {
+        Lexer lexer = first("$A${B}");
+        assertTrue(lexer.references());
+        assertFalse(lexer.substitutions());
+        assertEquals("${A}${B}", Expansion.display(lexer.text()));
+
+        lexer = first("$(echo 'a)b' | tr a b)x");
+        assertTrue(lexer.substitutions());
+        assertEquals(Token.END, lexer.next());
+
+        lexer = first("*.txt");
+        assertTrue(lexer.globs());
+        assertFalse(lexer.plain());
+        lexer = first("'*'.txt");
+        assertFalse(lexer.globs());
+        lexer = first("a[bc]");
+        assertTrue(lexer.globs());
+        lexer = first("a[");
+        assertFalse(lexer.globs());
+
+        lexer = first("echo $(sin cierre");
+        lexer.next();
+        assertTrue(lexer.incomplete());
+        assertEquals("$(", lexer.unclosed());
+        assertEquals("`", first("`ls").unclosed());
+    }
+
+    @Test
+    void assignments() {
+        assertTrue(first("A=1").assignment());
+        assertTrue(first("A_1=\"x y\"").assignment());
+        assertFalse(first("=1").assignment());
+        assertFalse(first("1A=1").assignment());
+        assertFalse(first("'A'=1").assignment());
+        assertFalse(first("$A=1").assignment());
+    }
+
+    @Test
+    void commentsRunToTheEndOfTheLine() {
+        assertEquals(List.of(Token.WORD, Token.WORD, Token.SEMI, Token.WORD), tokens("echo a # b | c\nd"));
+        assertEquals(List.of(Token.WORD), tokens("echo#no"));
+        assertEquals(List.of(), tokens("  # solo comentario"));
+    }
+
+    @Test
+    void sliceKeepsTheTextAsWritten() {
+        Lexer lexer = new Lexer("cat  'a b' >x");
+        lexer.next();
+        int start = lexer.start();
+        lexer.next();
+        lexer.next();
+        lexer.next();
+        assertEquals("cat  'a b' >x", lexer.slice(start, lexer.end()));
+    }
+
+    @Test
+    void completeInput() {
+        assertTrue(Tokenizer.isComplete("echo a | b"));
+        assertFalse(Tokenizer.isComplete("echo a |"));
+        assertFalse(Tokenizer.isComplete("a &&"));
+        assertFalse(Tokenizer.isComplete("a ||"));
+        assertFalse(Tokenizer.isComplete("a \\"));
+        assertFalse(Tokenizer.isComplete("cat <<FIN\nuno"));
+        assertTrue(Tokenizer.isComplete("cat <<FIN\nuno\nFIN"));
+        assertFalse(Tokenizer.isComplete("function f {"));
+        assertFalse(Tokenizer.isComplete("f() { echo"));
+        assertTrue(Tokenizer.isComplete("f() { echo; }"));
+        assertTrue(Tokenizer.isComplete("echo }"));
+        assertFalse(Tokenizer.isComplete("echo 'a"));
+        assertTrue(Tokenizer.isComplete("echo 'a\nb'"));
+        assertFalse(Tokenizer.isComplete("echo \"$(ls\""));
+    }
+
+    @Test
+    void syntaxErrors() throws MissingFileException {
+        for (String input : List.of("| cat", "echo a ;; echo b", "; echo", "&& echo x", "|| echo x", "& echo",
+                "echo a | | cat", "echo a && ; echo b", "echo a |", "echo a |&", "echo a &&", "echo a ||",
+                "echo \"a", "echo 'a", "echo $(ls", "echo \"$(ls\"", "echo `ls", "f() { echo a | }")) {
+            assertThrows(MissingFileException.class, () -> Tokenizer.tokenize(input), input);
+        }
+        // Un separador final y el salto de línea tras la '{' de una función sí valen
+        assertEquals(1, Tokenizer.tokenize("echo a;").getNcommands());
+        assertTrue(Tokenizer.tokenize("echo a &").isBackground());
+        assertEquals("f", Tokenizer.tokenize("f() {\necho a\n}").getFunction());
+        assertEquals(2, Tokenizer.tokenize("> f | cat").getNcommands());
+        assertEquals(2, Tokenizer.tokenize("echo a |\ncat").getNcommands());
+    }
+}
@@ -0,0 +1,86 @@
+package tokenizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+// Caché LRU de líneas tokenizadas: aciertos, expulsión, inmutabilidad y alias
+class LineCacheTest {
+
+    @Test
+    void repeatedLinesAreHits() throws MissingFileException {
+        LineCache cache = new LineCache();
+        TLine line = cache.tokenize("ls -l | wc");
+        assertSame(line, cache.tokenize("  ls -l | wc "));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+
+        assertNull(cache.tokenize("   "));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsed() throws MissingFileException {
+        LineCache cache = new LineCache(2);
+        TLine a = cache.tokenize("a");
+        cache.tokenize("b");
+        cache.tokenize("a");  // 'b' pasa a ser la menos usada
+        cache.tokenize("c");
+        assertEquals(2, cache.size());
+        assertSame(a, cache.tokenize("a"));
+        long misses = cache.getMisses();
+        cache.tokenize("b");
+        assertEquals(misses + 1, cache.getMisses());
+
+        assertThrows(IllegalArgumentException.class, () -> new LineCache(0));
+    }
+
+    @Test
+    void cachedLinesAreImmutable() throws MissingFileException {
+        LineCache cache = new LineCache();
+        TLine line = cache.tokenize("echo $A; echo b");
+        assertTrue(line.isImmutable());
+        assertTrue(line.getNext().isImmutable());
+        assertThrows(RuntimeException.class, () -> line.setBackground(true));
+        assertThrows(RuntimeException.class, () -> line.getCommands().get(0).getArgv().add("x"));
+
+        // La expansión devuelve una copia nueva, sin tocar la guardada
+        TLine expanded = line.expand(name -> "v", null);
+        assertNotSame(line, expanded);
+        assertEquals(List.of("echo", "v"), expanded.getCommands().get(0).getArgv());
+        assertSame(line, cache.tokenize("echo $A; echo b"));
+        assertEquals("echo $A", line.getSource());
+    }
+
+    @Test
+    void syntaxErrorsAreNotCached() {
+        LineCache cache = new LineCache();
+        assertThrows(MissingFileException.class, () -> cache.tokenize("cat <"));
+        assertThrows(MissingFileException.class, () -> cache.tokenize("cat <"));
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void clearAfterAliasesChange() throws MissingFileException {
+        Map<String, String> aliases = new HashMap<>();
+        aliases.put("ll", "ls -l");
+        LineCache cache = new LineCache(LineCache.DEFAULT_CAPACITY, aliases::get);
+        assertEquals(List.of("ls", "-l"), cache.tokenize("ll").getCommands().get(0).getArgv());
+
+        aliases.put("ll", "ls -la");
+        cache.clear();
+        assertEquals(0, cache.getHits());
+        assertEquals(List.of("ls", "-la"), cache.tokenize("ll").getCommands().get(0).getArgv());
+    }
+}
@@ -0,0 +1,63 @@
+package tokenizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+// Texto de cada pipeline tal como se escribió (TLine.getSource())
+class TLineSourceTest {
+
+    @Test
+    void keepsQuotesAndRedirections() throws MissingFileException {
+        TLine line = Tokenizer.tokenize("cat < 'mi archivo' | tr a-z A-Z 2>&1 >> \"sal ida\"");
+        assertEquals("cat < 'mi archivo' | tr a-z A-Z 2>&1 >> \"sal ida\"", line.getSource());
+    }
+
+    @Test
+    void splitsAtSeparatorsWithoutThem() throws MissingFileException {
+        TLine line = Tokenizer.tokenize("a 1 ;  b|c && d || sleep 1 &");
+        assertEquals("a 1", line.getSource());
+        assertEquals("b|c", line.getNext().getSource());
+        assertEquals("d", line.getNext().getNext().getSource());
+        assertEquals("sleep 1", line.getNext().getNext().getNext().getSource());
+        assertEquals(0, line.getNext().getNext().getNext().getNext().getNcommands());
+    }
+
+    @Test
+    void survivesCopies() throws MissingFileException {
+        TLine line = Tokenizer.tokenize("echo $HOME *.txt").toImmutable();
+        assertEquals("echo $HOME *.txt", line.getSource());
+        assertEquals("echo $HOME *.txt", line.expand(name -> "/casa", null).getSource());
+    }
+
+    @Test
+    void hereDocumentIsTheCommandLineOnly() throws MissingFileException {
+        TLine line = Tokenizer.tokenize("cat <<FIN | wc -l\nuno\ndos\nFIN\necho fin");
+        assertEquals("cat <<FIN | wc -l", line.getSource());
+        assertEquals("echo fin", line.getNext().getSource());
+    }
+
+    @Test
+    void aliasIsShownAsWritten() throws MissingFileException {
+        Aliases aliases = Map.of("ll", "ls -l", "dos", "a; b")::get;
+        assertEquals("ll /tmp", Tokenizer.tokenize("ll /tmp", aliases).getSource());
+
+        // Un alias con ';' parte la pipeline: sus trozos no tienen un texto propio
+        TLine split = Tokenizer.tokenize("dos | c; d", aliases);
+        assertNull(split.getSource());
+        assertNull(split.getNext().getSource());
+        assertEquals("d", split.getNext().getNext().getSource());
+    }
+
+    @Test
+    void functionBodyPipelines() throws MissingFileException {
+        TLine line = Tokenizer.tokenize("function f { echo 'uno'; ls -l | wc; }; f x");
+        TLine body = line.getBody();
+        assertEquals("echo 'uno'", body.getSource());
+        assertEquals("ls -l | wc", body.getNext().getSource());
+        assertEquals("f x", line.getNext().getSource());
+    }
+}
@@ -0,0 +1,10 @@
+package tokenizer;
+
+// Alias de la shell ('alias ll="ls -l"'): se sustituyen al tokenizar, en el
+// nombre de cada comando escrito sin comillas
+@FunctionalInterface
+public interface Aliases {
+
+    // Texto del alias, o null si no está definido
+    String get(String name);
+}
@@ -0,0 +1,241 @@
+package tokenizer;
+
+import java.util.Iterator;
+import java.util.List;
+
+// Referencias a variables dentro de las palabras tokenizadas.
+// El Lexer no sustituye las variables: deja cada referencia marcada con caracteres
+// de uso privado de Unicode y la sustitución se hace al ejecutar cada pipeline
+// (TLine.expand). Así una línea tokenizada sigue siendo válida en la caché aunque
+// cambien los valores, y en "export A=1; echo $A" o "false; echo $?" cada
+// pipeline ve el estado que dejó la anterior.
+// Las sustituciones de órdenes ($(orden) y `orden`) se marcan igual, con el texto
+// de la orden en lugar del nombre de una variable.
+final class Expansion {
+
+    static final char REF = '\uE000';         // Comienzo de una referencia fuera de comillas
+    static final char QUOTED_REF = '\uE001';  // Comienzo de una referencia entre comillas dobles
+    static final char END = '\uE002';         // Fin del nombre de la variable (o de la orden)
+    static final char GLOB = '\uE003';        // El carácter siguiente es un comodín sin comillas (*, ? o [...])
+    static final char SUBST = '\uE004';       // Comienzo de una sustitución de orden fuera de comillas
+    static final char QUOTED_SUBST = '\uE005';  // Comienzo de una sustitución de orden entre comillas dobles
+
+    private Expansion() {
+    }
+
+    static boolean isNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    static boolean isNamePart(char c) {
+        return isNameStart(c) || (c >= '0' && c <= '9');
+    }
+
+    // Sustituye las referencias de una palabra. Una palabra formada solo por
+    // referencias sin comillas que quedan vacías desaparece (devuelve null), como
+    // en "echo $NOEXISTE x"; "$NOEXISTE" entre comillas sí queda como palabra vacía,
+    // igual que $NOEXISTE"" (el Lexer marca las comillas vacías como una referencia
+    // entre comillas sin nombre).
+    static String expand(String word, Variables variables, boolean keepEmpty) {
+        if (word == null || (word.indexOf(END) < 0 && word.indexOf(GLOB) < 0)) {
+            return word;
+        }
+
+        StringBuilder sb = new StringBuilder(word.length());
+        boolean droppable = true;
+        int i = 0;
+        while (i < word.length()) {
+            char c = word.charAt(i);
+            if (c == REF || c == QUOTED_REF) {
+                int end = word.indexOf(END, i + 1);
+                String value = end > i + 1 ? variables.get(word.substring(i + 1, end)) : null;
+                if (value != null) {
+                    sb.append(value);
+                }
+                droppable &= c == REF;
+                i = end + 1;
+            } else if (c == GLOB) {
+                i++;  // Sin expandir comodines la palabra queda literal
+            } else {
+                sb.append(c);
+                droppable = false;
+                i++;
+            }
+        }
+
+        if (sb.length() == 0 && droppable && !keepEmpty) {
+            return null;
+        }
+        return sb.toString();
+    }
+
+    // Añade a 'commands' el texto de las sustituciones de órdenes de una palabra
+    static void commands(String word, List<String> commands) {
+        if (word == null) {
+            return;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c == SUBST || c == QUOTED_SUBST) {
+                int end = word.indexOf(END, i + 1);
+                commands.add(word.substring(i + 1, end));
+                i = end;
+            }
+        }
+    }
+
+    static boolean hasSubstitutions(String word) {
+        return word != null && (word.indexOf(SUBST) >= 0 || word.indexOf(QUOTED_SUBST) >= 0);
+    }
+
+    // Sustituye las órdenes de una palabra por su salida (la siguiente de 'outputs' cada vez),
+    // sin separarla en palabras (asignaciones y redirecciones). El resto de marcas se conservan.
+    static String substitute(String word, Iterator<String> outputs) {
+        StringBuilder sb = new StringBuilder(word.length());
+        int i = 0;
+        while (i < word.length()) {
+            char c = word.charAt(i);
+            if (c == SUBST || c == QUOTED_SUBST) {
+                sb.append(outputs.next());
+                i = word.indexOf(END, i + 1) + 1;
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    // Separa un argumento en palabras, como en sh: el valor de las variables y la salida
+    // de las órdenes sin comillas se cortan por los espacios, tabuladores y saltos de
+    // línea ('rm $(ls *.tmp)', 'set -- $LISTA'), y "$@" da una palabra por parámetro.
+    // Los valores se insertan como texto literal; las referencias entre comillas y los
+    // comodines siguen marcados. Si no queda nada (referencias vacías sin comillas, "$@"
+    // sin parámetros) no se añade ninguna palabra.
+    // 'outputs' es la salida de las sustituciones de órdenes (null si no hay).
+    static void fields(String word, Iterator<String> outputs, Variables variables, List<String> fields) {
+        StringBuilder sb = new StringBuilder(word.length());
+        boolean open = false;  // Hay una palabra en curso, aunque esté vacía ("$(true)")
+        int i = 0;
+        while (i < word.length()) {
+            char c = word.charAt(i);
+            if (c == SUBST || c == QUOTED_SUBST || c == REF) {
+                int end = word.indexOf(END, i + 1);
+                String value = c == REF ? variables.get(word.substring(i + 1, end)) : outputs.next();
+                i = end + 1;
+                if (c == QUOTED_SUBST) {
+                    sb.append(value);
+                    open = true;
+                } else if (value != null) {
+                    open = split(value, sb, open, fields);
+                }
+            } else if (c == QUOTED_REF && word.startsWith("@" + END, i + 1)) {
+                List<String> parameters = variables.parameters();
+                for (int k = 0; k < parameters.size(); k++) {
+                    if (k > 0) {
+                        fields.add(sb.toString());
+                        sb.setLength(0);
+                    }
+                    sb.append(parameters.get(k));
+                    open = true;
+                }
+                i += 3;
+            } else {
+                sb.append(c);
+                open = true;
+                i++;
+            }
+        }
+        if (open) {
+            fields.add(sb.toString());
+        }
+    }
+
+    // Añade 'value' a la palabra en curso cortándolo por los separadores; devuelve si
+    // queda una palabra abierta
+    private static boolean split(String value, StringBuilder sb, boolean open, List<String> fields) {
+        for (int k = 0; k < value.length(); k++) {
+            char v = value.charAt(k);
+            if (v == ' ' || v == '\t' || v == '\n') {
+                if (open) {
+                    fields.add(sb.toString());
+                    sb.setLength(0);
+                    open = false;
+                }
+            } else {
+                sb.append(v);
+                open = true;
+            }
+        }
+        return open;
+    }
+
+    // Palabra sin expandir escrita como en la entrada ($NOMBRE, $(orden), comodines sin marca)
+    static String display(String word) {
+        if (word.indexOf(END) < 0 && word.indexOf(GLOB) < 0) {
+            return word;
+        }
+        StringBuilder sb = new StringBuilder(word.length() + 8);
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c == REF || c == QUOTED_REF || c == SUBST || c == QUOTED_SUBST) {
+                int end = word.indexOf(END, i + 1);
+                boolean variable = c == REF || c == QUOTED_REF;
+                if (!variable || end > i + 1) {  // La referencia vacía de unas comillas vacías no se muestra
+                    sb.append(variable ? "${" : "$(").append(word, i + 1, end).append(variable ? '}' : ')');
+                }
+                i = end;
+            } else if (c != GLOB) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // Patrón de comodines de una palabra (sintaxis de Glob): los comodines marcados
+    // quedan activos y el resto de caracteres, incluidos los valores de las
+    // variables, se escapan con una barra invertida para que coincidan literalmente
+    static String pattern(String word, Variables variables) {
+        StringBuilder sb = new StringBuilder(word.length() + 8);
+        int i = 0;
+        while (i < word.length()) {
+            char c = word.charAt(i);
+            if (c == REF || c == QUOTED_REF) {
+                int end = word.indexOf(END, i + 1);
+                String value = end > i + 1 ? variables.get(word.substring(i + 1, end)) : null;
+                if (value != null) {
+                    for (int k = 0; k < value.length(); k++) {
+                        escape(sb, value.charAt(k));
+                    }
+                }
+                i = end + 1;
+            } else if (c == GLOB) {
+                int end = word.charAt(i + 1) == '[' ? bracketEnd(word, i + 2) : i + 1;
+                sb.append(word, i + 1, end + 1);
+                i = end + 1;
+            } else {
+                escape(sb, c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    // Fin de la clase [...] cuyo contenido empieza en 'from' (el Lexer ya comprobó que se cierra)
+    private static int bracketEnd(String word, int from) {
+        if (word.charAt(from) == '!') {
+            from++;
+        }
+        if (word.charAt(from) == ']') {
+            from++;
+        }
+        return word.indexOf(']', from);
+    }
+
+    private static void escape(StringBuilder sb, char c) {
+        if (c == '\\' || c == '*' || c == '?' || c == '[' || c == ']') {
+            sb.append('\\');
+        }
+        sb.append(c);
+    }
+}
@@ -0,0 +1,14 @@
+package tokenizer;
+
+import java.util.List;
+
+// Expansión de comodines (*, ?, [...] y **) de los argumentos al expandir una pipeline.
+// El patrón usa '/' como separador y una barra invertida delante de cada
+// carácter que debe coincidir literalmente (p.ej. un '*' que iba entre comillas)
+@FunctionalInterface
+public interface Glob {
+
+    // Rutas que coinciden con el patrón, ordenadas; lista vacía si no hay ninguna
+    // (el argumento se queda entonces tal cual, como en sh)
+    List<String> expand(String pattern);
+}
@@ -0,0 +1,583 @@
+package tokenizer;
+
+// Analizador léxico de una sola pasada sobre la línea de entrada.
+// Sustituye a la expresión regular: recorre los caracteres una única vez y
+// devuelve los tokens bajo demanda, sin listas intermedias.
+final class Lexer {
+
+    // Tipos de token reconocidos
+    enum Token {
+        WORD,        // Palabra (comando, argumento o nombre de archivo)
+        PIPE,        // |
+        PIPE_ALL,    // |& (stdout y stderr a la siguiente etapa)
+        AMP,         // &
+        SEMI,        // ;
+        AND_IF,      // &&
+        OR_IF,       // ||
+        IN,          // <, N<
+        HEREDOC,     // <<, N<<
+        HERESTRING,  // <<<, N<<<
+        OUT,         // >, N>
+        APPEND,      // >>, N>>
+        DUPLICATE,   // N>&M
+        OUT_ALL,     // &> o >& (stdout y stderr al mismo archivo)
+        APPEND_ALL,  // &>>
+        END          // Fin de la línea
+    }
+
+    // Clases de carácter de la máquina de estados (tabla precalculada para ASCII)
+    private static final byte PLAIN = 0;
+    private static final byte SPACE = 1;
+    private static final byte META = 2;
+    private static final byte QUOTE = 3;
+
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        CLASSES[' '] = SPACE;
+        CLASSES['\t'] = SPACE;
+        CLASSES['\r'] = SPACE;
+        CLASSES['\n'] = SPACE;
+        CLASSES['|'] = META;
+        CLASSES['&'] = META;
+        CLASSES['<'] = META;
+        CLASSES['>'] = META;
+        CLASSES[';'] = META;
+        CLASSES['\''] = QUOTE;
+        CLASSES['"'] = QUOTE;
+    }
+
+    private final String input;
+    private final int length;
+    private int pos;
+    private int start;           // Comienzo del último token devuelto en 'input'
+
+    // Buffer reutilizado para construir cada palabra
+    private final StringBuilder word = new StringBuilder();
+    private String text;
+    private int plainLength;     // Caracteres literales sin comillas al comienzo de la palabra
+    private boolean references;  // La palabra contiene referencias a variables (o sustituciones de órdenes)
+    private boolean substitutions;  // La palabra contiene sustituciones de órdenes ($(...), `...`)
+    private boolean globs;       // La palabra contiene comodines sin comillas (*, ?, [...])
+    private boolean quoted;      // La palabra contiene comillas
+
+    private int fd;              // Descriptor de la última redirección (0 en '<', 1 en '>' si no se indica)
+    private int targetFd;        // Descriptor copiado en la última DUPLICATE ('2>&1' -> 1)
+
+    private Token last;          // Último token devuelto ('\n' tras '|', '&&'... no separa)
+
+    // Documentos en línea (<<FIN): sus cuerpos ocupan las líneas siguientes a la
+    // de la orden y el análisis continúa tras el último delimitador
+    private int lineEnd = -1;    // '\n' que termina la línea con documentos en línea
+    private int bodyEnd;         // Comienzo del siguiente cuerpo (y fin de los ya leídos)
+    private boolean incomplete;  // Algún cuerpo (o sustitución de orden) no tiene cierre
+    private String unclosed;     // Primera comilla o sustitución de orden sin cierre (', ", ` o $()
+
+    Lexer(String input) {
+        this.input = input;
+        this.length = input.length();
+        this.pos = 0;
+    }
+
+    // Texto de la última palabra leída (solo válido tras devolver WORD)
+    String text() {
+        return text;
+    }
+
+    // Descriptor de la última redirección leída
+    int fd() {
+        return fd;
+    }
+
+    // Descriptor copiado por la última DUPLICATE leída
+    int targetFd() {
+        return targetFd;
+    }
+
+    // Posiciones del último token devuelto en la entrada: [start(), end())
+    int start() {
+        return start;
+    }
+
+    int end() {
+        return pos;
+    }
+
+    // Texto de la entrada entre dos posiciones (tal como se escribió)
+    String slice(int from, int to) {
+        return input.substring(from, to);
+    }
+
+    Token next() {
+        last = scan();
+        return last;
+    }
+
+    private Token scan() {
+        // Saltar espacios en blanco; un salto de línea separa órdenes como ';'
+        while (pos < length) {
+            char c = input.charAt(pos);
+            if (c == '\\' && pos + 1 < length && input.charAt(pos + 1) == '\n') {
+                pos += 2;  // '\' al final de la línea: continúa en la siguiente
+            } else if (c == '\n') {
+                if (pos == lineEnd) {
+                    pos = bodyEnd;  // Los cuerpos de los documentos en línea ya se leyeron
+                    lineEnd = -1;
+                } else {
+                    pos++;
+                }
+                if (last == Token.WORD) {
+                    return Token.SEMI;
+                }
+            } else if (classOf(c) == SPACE) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        start = pos;
+        if (pos >= length) {
+            return Token.END;
+        }
+
+        // Descriptor explícito: "2>", "1>>", "0<"... solo al comienzo de una palabra
+        int explicitFd = -1;
+        int digits = pos;
+        while (digits < length && digits - pos < 4 && Character.isDigit(input.charAt(digits))) {
+            digits++;
+        }
+        if (digits > pos && digits < length && (input.charAt(digits) == '>' || input.charAt(digits) == '<')) {
+            explicitFd = Integer.parseInt(input.substring(pos, digits));
+            pos = digits;
+        }
+
+        char c = input.charAt(pos);
+        switch (c) {
+            case '#':
+                // Comentario: se ignora el resto de la línea
+                int nl = input.indexOf('\n', pos);
+                pos = nl < 0 ? length : nl;
+                return scan();
+            case '|':
+                pos++;
+                if (accept('&')) {
+                    return Token.PIPE_ALL;
+                }
+                return accept('|') ? Token.OR_IF : Token.PIPE;
+            case '&':
+                pos++;
+                if (accept('>')) {
+                    fd = 1;
+                    return accept('>') ? Token.APPEND_ALL : Token.OUT_ALL;
+                }
+                return accept('&') ? Token.AND_IF : Token.AMP;
+            case ';':
+                pos++;
+                return Token.SEMI;
+            case '<':
+                pos++;
+                fd = explicitFd < 0 ? 0 : explicitFd;
+                if (accept('<')) {
+                    return accept('<') ? Token.HERESTRING : Token.HEREDOC;
+                }
+                return Token.IN;
+            case '>':
+                pos++;
+                fd = explicitFd < 0 ? 1 : explicitFd;
+                if (accept('>')) {
+                    return Token.APPEND;
+                }
+                if (accept('&')) {
+                    // N>&M copia un descriptor; '>&archivo' equivale a '&>archivo'
+                    int start = pos;
+                    while (pos < length && pos - start < 4 && Character.isDigit(input.charAt(pos))) {
+                        pos++;
+                    }
+                    if (pos > start) {
+                        targetFd = Integer.parseInt(input.substring(start, pos));
+                        return Token.DUPLICATE;
+                    }
+                    return Token.OUT_ALL;
+                }
+                return Token.OUT;
+            default:
+                break;
+        }
+        return readWord();
+    }
+
+    // Cuerpo del documento en línea que termina en la línea 'delimiter'.
+    // Con el delimitador sin comillas las referencias a variables del cuerpo
+    // se marcan para expandirlas (como entre comillas dobles).
+    // Sin delimitador de cierre el cuerpo llega hasta el final (incomplete())
+    String heredoc(String delimiter, boolean expand) {
+        if (lineEnd < 0) {
+            lineEnd = input.indexOf('\n', pos);
+            if (lineEnd < 0) {
+                incomplete = true;
+                return "";
+            }
+            bodyEnd = lineEnd + 1;
+        }
+
+        int start = bodyEnd;
+        int stop = length;
+        int i = start;
+        while (i < length) {
+            int nl = input.indexOf('\n', i);
+            int eol = nl < 0 ? length : nl;
+            if (eol - i == delimiter.length() && input.startsWith(delimiter, i)) {
+                stop = i;
+                bodyEnd = nl < 0 ? length : nl + 1;
+                break;
+            }
+            i = eol + 1;
+        }
+        if (stop == length) {
+            incomplete = true;
+            bodyEnd = length;
+        }
+
+        references = false;
+        substitutions = false;
+        if (!expand || !hasExpansions(start, stop)) {
+            return input.substring(start, stop);
+        }
+        int saved = pos;
+        word.setLength(0);
+        pos = start;
+        while (pos < stop) {
+            if (!readExpansion(Expansion.QUOTED_REF, Expansion.QUOTED_SUBST)) {
+                word.append(input.charAt(pos++));
+            }
+        }
+        pos = saved;
+        return word.toString();
+    }
+
+    // El cuerpo [start, stop) contiene '$' o '`'
+    private boolean hasExpansions(int start, int stop) {
+        int dollar = input.indexOf('$', start);
+        int backquote = input.indexOf('`', start);
+        return (dollar >= 0 && dollar < stop) || (backquote >= 0 && backquote < stop);
+    }
+
+    // Algún documento en línea (o sustitución de orden) no tiene cierre
+    boolean incomplete() {
+        return incomplete;
+    }
+
+    // Primera comilla o sustitución de orden sin cierre (', ", ` o $(), o null
+    String unclosed() {
+        return unclosed;
+    }
+
+    private void unclosed(String what) {
+        if (unclosed == null) {
+            unclosed = what;
+        }
+    }
+
+    private Token readWord() {
+        word.setLength(0);
+        plainLength = -1;
+        references = false;
+        substitutions = false;
+        globs = false;
+        quoted = false;
+        boolean emptyQuotes = false;  // '' o "": la palabra no desaparece aunque sus referencias queden vacías
+        int close;
+
+        while (pos < length) {
+            char c = input.charAt(pos);
+            byte cls = classOf(c);
+
+            if (cls == SPACE || cls == META) {
+                break;
+            }
+
+            if (cls == QUOTE && c == '\'') {
+                // Comillas simples: se copia literal (sin las comillas), incluidos '|', '&', '<', '>' y '$'
+                markSpecial();
+                quoted = true;
+                close = input.indexOf(c, pos + 1);
+                if (close < 0) {
+                    close = length;  // Comilla sin cerrar: se toma hasta el final de la línea
+                    unclosed("'");
+                }
+                emptyQuotes |= close == pos + 1;
+                word.append(input, pos + 1, close);
+                pos = Math.min(close + 1, length);
+            } else if (cls == QUOTE) {
+                // Comillas dobles: literal salvo las referencias a variables
+                markSpecial();
+                quoted = true;
+                pos++;
+                emptyQuotes |= pos < length && input.charAt(pos) == '"';
+                while (pos < length && input.charAt(pos) != '"') {
+                    if (!readExpansion(Expansion.QUOTED_REF, Expansion.QUOTED_SUBST)) {
+                        word.append(input.charAt(pos++));
+                    }
+                }
+                if (pos >= length) {
+                    unclosed("\"");
+                }
+                pos = Math.min(pos + 1, length);
+            } else if ((c == '$' || c == '`') && readExpansion(Expansion.REF, Expansion.SUBST)) {
+                continue;
+            } else if (c == '*' || c == '?') {
+                // Comodín sin comillas: se marca para distinguirlo de un '*' literal ("*" o '*')
+                globs = true;
+                word.append(Expansion.GLOB).append(c);
+                pos++;
+            } else if (c == '[' && (close = bracketEnd()) > 0) {
+                globs = true;
+                word.append(Expansion.GLOB).append(input, pos, close + 1);
+                pos = close + 1;
+            } else {
+                word.append(c);
+                pos++;
+            }
+        }
+
+        if (plainLength < 0) {
+            plainLength = word.length();
+        }
+        if (emptyQuotes && references) {
+            // Se marcan como una referencia vacía entre comillas ($NOEXISTE"" da "")
+            word.append(Expansion.QUOTED_REF).append(Expansion.END);
+        }
+        text = word.toString();
+        return Token.WORD;
+    }
+
+    // Referencia a variable o sustitución de orden en 'pos', con las marcas indicadas.
+    // Devuelve false si el carácter es literal
+    private boolean readExpansion(char refMarker, char substMarker) {
+        char c = input.charAt(pos);
+        if (c == '`' || (c == '$' && pos + 1 < length && input.charAt(pos + 1) == '(')) {
+            readSubstitution(substMarker);
+            return true;
+        }
+        return c == '$' && readReference(refMarker);
+    }
+
+    // Sustitución de orden en 'pos' ($(orden) o `orden`): se deja marcada con el texto
+    // de la orden, que se tokeniza y ejecuta al expandir la pipeline (TLine.expand).
+    // Sin cierre la orden llega hasta el final de la entrada (incomplete())
+    private void readSubstitution(char marker) {
+        String command;
+        int next;
+        if (input.charAt(pos) == '`') {
+            // Entre comillas invertidas, '\`', '\\' y '\$' son el carácter sin la barra
+            StringBuilder sb = new StringBuilder();
+            int i = pos + 1;
+            while (i < length && input.charAt(i) != '`') {
+                char c = input.charAt(i);
+                if (c == '\\' && i + 1 < length && "`\\$".indexOf(input.charAt(i + 1)) >= 0) {
+                    c = input.charAt(++i);
+                }
+                sb.append(c);
+                i++;
+            }
+            if (i >= length) {
+                incomplete = true;
+                unclosed("`");
+            }
+            command = sb.toString();
+            next = Math.min(i + 1, length);
+        } else {
+            int close = commandEnd(pos + 2);
+            if (close >= length) {
+                incomplete = true;
+                unclosed("$(");
+            }
+            command = input.substring(pos + 2, Math.min(close, length));
+            next = Math.min(close + 1, length);
+        }
+
+        markSpecial();
+        references = true;
+        substitutions = true;
+        word.append(marker).append(command).append(Expansion.END);
+        pos = next;
+    }
+
+    // Posición del ')' que cierra la orden que empieza en 'from', o 'length' si no se
+    // cierra. Los paréntesis se emparejan (incluidos los de otras $(...) anidadas) y se
+    // saltan las comillas y las comillas invertidas
+    private int commandEnd(int from) {
+        int depth = 0;
+        int i = from;
+        while (i < length) {
+            char c = input.charAt(i);
+            if (c == '\'' || c == '`') {
+                int close = input.indexOf(c, i + 1);
+                if (close < 0) {
+                    return length;
+                }
+                i = close + 1;
+                continue;
+            }
+            if (c == '"') {
+                // Entre comillas dobles solo cuenta una $(...) anidada
+                i++;
+                while (i < length && input.charAt(i) != '"') {
+                    if (input.charAt(i) == '$' && i + 1 < length && input.charAt(i + 1) == '(') {
+                        i = commandEnd(i + 2);
+                    }
+                    i++;
+                }
+                if (i >= length) {
+                    return length;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+            i++;
+        }
+        return length;
+    }
+
+    // Referencia a variable en 'pos' ($NOMBRE, ${NOMBRE}, $?, $$ o los parámetros de
+    // una función: $0-$9, $# y $@): se deja marcada
+    // para sustituirla al ejecutar (Expansion). Devuelve false si el '$' es literal.
+    private boolean readReference(char marker) {
+        int start = pos + 1;
+        int nameStart;
+        int nameEnd;
+        int next;
+
+        if (start >= length) {
+            return false;
+        }
+        char c = input.charAt(start);
+        if (c == '{') {
+            int close = input.indexOf('}', start + 1);
+            if (close < 0 || !isName(start + 1, close)) {
+                return false;
+            }
+            nameStart = start + 1;
+            nameEnd = close;
+            next = close + 1;
+        } else if (c == '?' || c == '$' || c == '#' || c == '@' || (c >= '0' && c <= '9')) {
+            nameStart = start;
+            nameEnd = start + 1;
+            next = nameEnd;
+        } else if (Expansion.isNameStart(c)) {
+            nameStart = start;
+            nameEnd = start + 1;
+            while (nameEnd < length && Expansion.isNamePart(input.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            next = nameEnd;
+        } else {
+            return false;
+        }
+
+        markSpecial();
+        references = true;
+        word.append(marker).append(input, nameStart, nameEnd).append(Expansion.END);
+        pos = next;
+        return true;
+    }
+
+    // Posición del ']' que cierra la clase de caracteres que empieza en 'pos'
+    // ([abc], [a-z], [!0-9], []x]), o -1 si el '[' es literal
+    private int bracketEnd() {
+        int i = pos + 1;
+        if (i < length && input.charAt(i) == '!') {
+            i++;
+        }
+        if (i < length && input.charAt(i) == ']') {
+            i++;
+        }
+        for (; i < length; i++) {
+            char c = input.charAt(i);
+            if (c == ']') {
+                return i;
+            }
+            if (classOf(c) != PLAIN || c == '$' || c == '/') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isName(int from, int to) {
+        if (from >= to || !Expansion.isNameStart(input.charAt(from))) {
+            return false;
+        }
+        for (int i = from + 1; i < to; i++) {
+            if (!Expansion.isNamePart(input.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Fin del tramo literal sin comillas del comienzo de la palabra
+    private void markSpecial() {
+        if (plainLength < 0) {
+            plainLength = word.length();
+        }
+    }
+
+    // La última palabra es una asignación (NOMBRE=valor): el '=' y el nombre
+    // deben estar en el tramo literal, sin comillas ni referencias
+    boolean assignment() {
+        int eq = text.indexOf('=');
+        if (eq <= 0 || eq >= plainLength || !Expansion.isNameStart(text.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < eq; i++) {
+            if (!Expansion.isNamePart(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // La última palabra contiene referencias a variables
+    boolean references() {
+        return references;
+    }
+
+    // La última palabra contiene sustituciones de órdenes
+    boolean substitutions() {
+        return substitutions;
+    }
+
+    // La última palabra contiene comodines
+    boolean globs() {
+        return globs;
+    }
+
+    // La última palabra contiene comillas
+    boolean quoted() {
+        return quoted;
+    }
+
+    // La última palabra es literal: sin comillas, referencias, sustituciones ni
+    // comodines (candidata a alias o a palabra reservada como 'function' o '}')
+    boolean plain() {
+        return !quoted && !globs && plainLength == text.length();
+    }
+
+    private boolean accept(char expected) {
+        if (pos < length && input.charAt(pos) == expected) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private static byte classOf(char c) {
+        return c < 128 ? CLASSES[c] : PLAIN;
+    }
+}
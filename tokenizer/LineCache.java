@@ -0,0 +1,99 @@
+package tokenizer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Caché LRU acotada de líneas ya tokenizadas, indexada por el texto de entrada.
+// Guarda copias inmutables (TLine.toImmutable()), así que el mismo resultado
+// puede devolverse a varios llamantes sin riesgo de que uno lo modifique.
+// Las líneas con errores de sintaxis no se guardan.
+public final class LineCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final Map<String, TLine> lines;
+    private final Aliases aliases;  // Se sustituyen al tokenizar: si cambian hay que vaciar la caché (clear)
+
+    private long hits;    // Búsquedas resueltas desde la caché
+    private long misses;  // Búsquedas que han tenido que tokenizar
+
+    public LineCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LineCache(int capacity) {
+        this(capacity, null);
+    }
+
+    public LineCache(int capacity, Aliases aliases) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva: " + capacity);
+        }
+        this.capacity = capacity;
+        this.aliases = aliases;
+
+        // Orden de acceso: la entrada menos usada recientemente es la primera en salir
+        this.lines = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TLine> eldest) {
+                return size() > LineCache.this.capacity;
+            }
+        };
+    }
+
+    // Igual que Tokenizer.tokenize, pero reutiliza el resultado si la línea ya se vio.
+    // El TLine devuelto es inmutable.
+    public TLine tokenize(String input) throws MissingFileException {
+        String key = input.trim();
+
+        synchronized (this) {
+            TLine cached = lines.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        TLine line = Tokenizer.tokenize(key, aliases);
+        if (line == null) {
+            return null;
+        }
+        line = line.toImmutable();
+
+        synchronized (this) {
+            lines.put(key, line);
+        }
+        return line;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return lines.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized void clear() {
+        lines.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LineCache{size=" + lines.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses + '}';
+    }
+}
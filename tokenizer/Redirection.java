@@ -0,0 +1,71 @@
+package tokenizer;
+
+// Redirección de un descriptor de un comando (inmutable). Cada comando guarda
+// las suyas en el orden en que aparecen: '>f 2>&1' y '2>&1 >f' no son lo mismo
+public final class Redirection {
+
+    public enum Type {
+        INPUT,      // N<archivo (N = 0 por defecto)
+        OUTPUT,     // N>archivo (N = 1 por defecto)
+        APPEND,     // N>>archivo
+        DUPLICATE,  // N>&M: N pasa a apuntar a donde apunte M
+        HEREDOC     // <<FIN o <<<palabra: el destino es el propio contenido
+    }
+
+    private final int fd;         // Descriptor redirigido
+    private final Type type;
+    private final String target;  // Archivo o contenido (null en DUPLICATE)
+    private final int targetFd;   // Descriptor copiado en DUPLICATE (-1 en el resto)
+
+    private Redirection(int fd, Type type, String target, int targetFd) {
+        this.fd = fd;
+        this.type = type;
+        this.target = target;
+        this.targetFd = targetFd;
+    }
+
+    public static Redirection of(int fd, Type type, String target) {
+        return new Redirection(fd, type, target, -1);
+    }
+
+    public static Redirection duplicate(int fd, int targetFd) {
+        return new Redirection(fd, Type.DUPLICATE, null, targetFd);
+    }
+
+    public int getFd() {
+        return fd;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public int getTargetFd() {
+        return targetFd;
+    }
+
+    // Copia con otro destino (p.ej. con las variables ya expandidas)
+    public Redirection withTarget(String target) {
+        return target == null || target.equals(this.target) ? this : new Redirection(fd, type, target, targetFd);
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case INPUT:
+                return fd + "<" + target;
+            case OUTPUT:
+                return fd + ">" + target;
+            case APPEND:
+                return fd + ">>" + target;
+            case DUPLICATE:
+                return fd + ">&" + targetFd;
+            default:
+                return fd + "<<(" + target.length() + " caracteres)";
+        }
+    }
+}
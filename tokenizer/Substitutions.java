@@ -0,0 +1,12 @@
+package tokenizer;
+
+import java.util.List;
+
+// Ejecuta las sustituciones de órdenes de una pipeline ($(orden) o `orden`) al expandirla
+@FunctionalInterface
+public interface Substitutions {
+
+    // Salida de cada orden sin los saltos de línea finales, en el mismo orden que 'commands'.
+    // Las órdenes son independientes entre sí: se pueden ejecutar a la vez
+    List<String> run(List<String> commands);
+}
@@ -5,12 +5,16 @@ public class TCommand {
     String filename;    // El nombre del archivo ejecutable o comando
     int argc; // Número de argumentos
     List<String> argv;  // Lista de argumentos
+    List<String> assignments;  // Asignaciones previas al comando (VAR=valor cmd), solo para este comando
+    List<Redirection> redirections;  // Redirecciones del comando, en el orden en que aparecen
+    boolean immutable;  // Indica si es una copia inmutable
 
     public List<String> getArgv() {
         return argv;
     }
 
     public void setArgv(List<String> argv) {
+        checkMutable();
         this.argv = argv;
     }
 
@@ -19,14 +23,44 @@ public class TCommand {
     }
 
     public void setArgc(int argc) {
+        checkMutable();
         this.argc = argc;
     }
 
+    public List<String> getAssignments() {
+        return assignments;
+    }
+
+    public void setAssignments(List<String> assignments) {
+        checkMutable();
+        this.assignments = assignments;
+    }
+
+    public List<Redirection> getRedirections() {
+        return redirections;
+    }
+
+    public void setRedirections(List<Redirection> redirections) {
+        checkMutable();
+        this.redirections = redirections;
+    }
+
+    // Indica si la entrada estándar del comando está redirigida (<, << o <<<)
+    public boolean redirectsInput() {
+        for (Redirection redirection : redirections) {
+            if (redirection.getFd() == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public String getFilename() {
         return filename;
     }
 
     public void setFilename(String filename) {
+        checkMutable();
         this.filename = filename;
     }
 
@@ -34,10 +68,37 @@ public class TCommand {
         this.filename = filename;
         this.argv = argv;
         this.argc = argv.size();
+        this.assignments = List.of();
+        this.redirections = List.of();
+    }
+
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    // Devuelve una copia inmutable: los setters lanzan UnsupportedOperationException
+    // y la lista de argumentos no se puede modificar
+    public TCommand toImmutable() {
+        if (immutable) {
+            return this;
+        }
+        TCommand copy = new TCommand(filename, List.copyOf(argv));
+        copy.argc = argc;
+        copy.assignments = List.copyOf(assignments);
+        copy.redirections = List.copyOf(redirections);
+        copy.immutable = true;
+        return copy;
+    }
+
+    private void checkMutable() {
+        if (immutable) {
+            throw new UnsupportedOperationException("TCommand inmutable");
+        }
     }
 
     @Override
     public String toString() {
-        return "Command: " + filename + ", Args: " + argv;
+        return "Command: " + filename + ", Args: " + argv + (assignments.isEmpty() ? "" : ", Assignments: " + assignments)
+                + (redirections.isEmpty() ? "" : ", Redirections: " + redirections);
     }
 }
\ No newline at end of file
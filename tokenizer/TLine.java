@@ -1,27 +1,29 @@
 package tokenizer;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 // Clase para representar una línea de comandos completa (tline)
 public class TLine {
-    int ncommands;                   // Número de comandos en la línea
-    List<TCommand> commands;         // Lista de comandos
-    String redirectInput;            // Archivo de redirección de entrada
 
-    public String getRedirectOutput() {
-        return redirectOutput;
+    // Separador entre una pipeline y la siguiente de la misma línea
+    public enum Separator {
+        SEQUENCE,  // ';' o '&': la siguiente se ejecuta siempre
+        AND,       // '&&': la siguiente solo si esta termina con éxito
+        OR         // '||': la siguiente solo si esta falla
     }
 
-    public void setRedirectOutput(String redirectOutput) {
-        this.redirectOutput = redirectOutput;
-    }
+    int ncommands;                   // Número de comandos en la línea
+    List<TCommand> commands;         // Lista de comandos
 
     public int getNcommands() {
         return ncommands;
     }
 
     public void setNcommands(int ncommands) {
+        checkMutable();
         this.ncommands = ncommands;
     }
 
@@ -30,58 +32,235 @@ public class TLine {
     }
 
     public void setCommands(List<TCommand> commands) {
+        checkMutable();
         this.commands = commands;
     }
 
-    public String getRedirectInput() {
-        return redirectInput;
-    }
-
-    public void setRedirectInput(String redirectInput) {
-        this.redirectInput = redirectInput;
-    }
-
-    public String getRedirectError() {
-        return redirectError;
-    }
-
-    public void setRedirectError(String redirectError) {
-        this.redirectError = redirectError;
-    }
-
     public boolean isBackground() {
         return background;
     }
 
     public void setBackground(boolean background) {
+        checkMutable();
         this.background = background;
     }
 
-    public boolean isAppendOutput() { return appendOutput; }
+    public TLine getNext() { return next; }
+
+    public void setNext(TLine next) { checkMutable(); this.next = next; }
+
+    public Separator getSeparator() { return separator; }
+
+    public void setSeparator(Separator separator) { checkMutable(); this.separator = separator; }
+
+    public boolean isTimed() { return timed; }
+
+    public void setTimed(boolean timed) { checkMutable(); this.timed = timed; }
+
+    public boolean hasReferences() { return references; }
+
+    public boolean hasGlobs() { return globs; }
+
+    public boolean hasSubstitutions() { return substitutions; }
 
-    public void setAppendOutput(boolean appendOutput) { this.appendOutput = appendOutput; }
+    // Nombre de la función que define esta pipeline ('function nombre { ... }'), o null
+    public String getFunction() { return function; }
 
-    public boolean isAppendError() { return appendError; }
+    // Cuerpo ya tokenizado de la función (null si está vacío)
+    public TLine getBody() { return body; }
 
-    public void setAppendError(boolean appendError) { this.appendError = appendError; }
+    // Texto de la pipeline tal como se escribió, sin el separador (null si no sale de la
+    // entrada, p.ej. la que añade un alias con ';')
+    public String getSource() { return source; }
 
-    String redirectOutput;           // Archivo de redirección de salida
-    String redirectError;            // Archivo de redirección de errores
     boolean background;              // Indica si el proceso debe ejecutarse en segundo plano
-    boolean appendOutput;            // Indica si la redirección de salida es en modo append
-    boolean appendError;            // Indica si la redirección de salida es en modo append
+    TLine next;                      // Siguiente pipeline de la línea (tras ';', '&', '&&' o '||')
+    Separator separator;             // Separador entre esta pipeline y la siguiente
+    boolean timed;                   // Indica si la pipeline va precedida de 'time'
+    boolean references;              // Indica si contiene referencias a variables ($NOMBRE) por expandir
+    boolean globs;                   // Indica si contiene comodines (*, ?, [...]) por expandir
+    boolean substitutions;           // Indica si contiene sustituciones de órdenes ($(...), `...`) por ejecutar
+    boolean immutable;               // Indica si es una copia inmutable (compartible, p.ej. desde LineCache)
+    String function;                 // Nombre de la función que se define (la pipeline no tiene comandos)
+    TLine body;                      // Pipelines del cuerpo de la función
+    String source;                   // Texto de la pipeline en la entrada (comillas, redirecciones...)
 
     public TLine() {
         this.commands = new ArrayList<>();
-        this.redirectInput = null;
-        this.redirectOutput = null;
-        this.redirectError = null;
         this.background = false;
-        this.appendOutput = false;
-        this.appendError = false;
+        this.next = null;
+        this.separator = Separator.SEQUENCE;
+        this.timed = false;
+        this.references = false;
+        this.globs = false;
+        this.substitutions = false;
+        this.immutable = false;
+    }
+
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    // Devuelve una copia profunda inmutable (comandos, argumentos y pipelines siguientes):
+    // los setters lanzan UnsupportedOperationException y las listas no se pueden modificar
+    public TLine toImmutable() {
+        if (immutable) {
+            return this;
+        }
+        TLine copy = new TLine();
+        List<TCommand> frozen = new ArrayList<>(commands.size());
+        for (TCommand command : commands) {
+            frozen.add(command.toImmutable());
+        }
+        copy.commands = List.copyOf(frozen);
+        copy.ncommands = ncommands;
+        copy.background = background;
+        copy.separator = separator;
+        copy.timed = timed;
+        copy.references = references;
+        copy.globs = globs;
+        copy.substitutions = substitutions;
+        copy.function = function;
+        copy.source = source;
+        copy.body = body == null ? null : body.toImmutable();
+        copy.next = next == null ? null : next.toImmutable();
+        copy.immutable = true;
+        return copy;
+    }
+
+    // Copia de esta pipeline (sin las siguientes) sin las primeras 'words' palabras
+    // del primer comando, p.ej. para ejecutar 'cmd' en 'timeout 5 cmd | wc'.
+    // Devuelve null si el primer comando se queda vacío
+    public TLine dropPrefix(int words) {
+        List<String> argv = commands.get(0).getArgv();
+        if (argv.size() <= words) {
+            return null;
+        }
+        return withArgv(new ArrayList<>(argv.subList(words, argv.size())));
+    }
+
+    // Copia de esta pipeline (sin las siguientes) con otros argumentos en el primer
+    // comando, p.ej. para pasar 'kill -USR1 %1' al 'kill' del sistema con los PIDs
+    public TLine withArgv(List<String> argv) {
+        TLine copy = new TLine();
+        TCommand first = new TCommand(argv.get(0), argv);
+        first.assignments = commands.get(0).assignments;
+        first.redirections = commands.get(0).redirections;
+        copy.addCommand(first);
+        for (TCommand command : commands.subList(1, commands.size())) {
+            copy.addCommand(command);
+        }
+        copy.background = background;
+        copy.timed = timed;
+        return copy;
+    }
+
+    // Copia de esta pipeline (sin las siguientes) con las referencias a variables
+    // sustituidas por su valor actual y los comodines de los argumentos por las
+    // rutas que coinciden (si 'glob' no es null). Se hace al ejecutarla, no al
+    // tokenizar: la línea tokenizada sigue sirviendo (LineCache) aunque cambien
+    // las variables o los archivos.
+    // Un argumento que solo contenía referencias vacías desaparece, como en sh
+    public TLine expand(Variables variables, Glob glob) {
+        return expand(variables, glob, null);
+    }
+
+    // Igual, ejecutando además las sustituciones de órdenes con 'substitutions' (si es
+    // null su salida queda vacía). Se ejecutan todas antes de expandir nada, así
+    // pueden ir a la vez, y su salida se inserta en el orden en que aparecen
+    public TLine expand(Variables variables, Glob glob, Substitutions substitutions) {
+        if (!references && !globs) {
+            return this;
+        }
+
+        Iterator<String> outputs = null;
+        if (this.substitutions) {
+            List<String> pending = new ArrayList<>();
+            for (TCommand command : commands) {
+                for (String word : command.argv) {
+                    Expansion.commands(word, pending);
+                }
+                for (String assignment : command.assignments) {
+                    Expansion.commands(assignment, pending);
+                }
+                for (Redirection redirection : command.redirections) {
+                    Expansion.commands(redirection.getTarget(), pending);
+                }
+            }
+            outputs = (substitutions == null ? Collections.nCopies(pending.size(), "")
+                    : substitutions.run(pending)).iterator();
+        }
+
+        TLine copy = new TLine();
+        List<String> fields = new ArrayList<>();
+        for (TCommand command : commands) {
+            List<String> argv = new ArrayList<>(command.argv.size());
+            for (String word : command.argv) {
+                if (word.indexOf(Expansion.END) < 0) {
+                    expandWord(word, variables, glob, argv);
+                    continue;
+                }
+                // Las variables y la salida sin comillas pueden dar varias palabras (o ninguna)
+                fields.clear();
+                Expansion.fields(word, outputs, variables, fields);
+                for (String field : fields) {
+                    expandWord(field, variables, glob, argv);
+                }
+            }
+            List<String> assignments = new ArrayList<>(command.assignments.size());
+            for (String assignment : command.assignments) {
+                assignments.add(Expansion.expand(substitute(assignment, outputs), variables, true));
+            }
+            List<Redirection> redirections = new ArrayList<>(command.redirections.size());
+            for (Redirection redirection : command.redirections) {
+                String target = substitute(redirection.getTarget(), outputs);
+                redirections.add(redirection.withTarget(Expansion.expand(target, variables, true)));
+            }
+            TCommand expanded = new TCommand(argv.isEmpty() ? null : argv.get(0), argv);
+            expanded.assignments = assignments;
+            expanded.redirections = redirections;
+            copy.addCommand(expanded);
+        }
+        copy.background = background;
+        copy.separator = separator;
+        copy.timed = timed;
+        copy.source = source;
+        return copy;
+    }
+
+    // Añade a 'argv' una palabra ya separada (Expansion.fields) con sus variables
+    // entre comillas y sus comodines expandidos
+    private static void expandWord(String word, Variables variables, Glob glob, List<String> argv) {
+        if (glob != null && word.indexOf(Expansion.GLOB) >= 0) {
+            List<String> matches = glob.expand(Expansion.pattern(word, variables));
+            if (!matches.isEmpty()) {
+                argv.addAll(matches);
+                return;
+            }
+        }
+        String value = Expansion.expand(word, variables, false);
+        if (value != null) {
+            argv.add(value);
+        }
+    }
+
+    // Palabra con sus sustituciones de órdenes reemplazadas, sin separar en palabras
+    // (asignaciones y redirecciones, como en sh)
+    private static String substitute(String word, Iterator<String> outputs) {
+        if (outputs == null || !Expansion.hasSubstitutions(word)) {
+            return word;
+        }
+        return Expansion.substitute(word, outputs);
+    }
+
+    private void checkMutable() {
+        if (immutable) {
+            throw new UnsupportedOperationException("TLine inmutable");
+        }
     }
 
     public void addCommand(TCommand command) {
+        checkMutable();
         commands.add(command);
         ncommands = commands.size();
     }
@@ -91,12 +270,12 @@ public class TLine {
         return "TLine{" +
                 "ncommands=" + ncommands +
                 ", commands=" + commands +
-                ", redirectInput='" + redirectInput + '\'' +
-                ", redirectOutput='" + redirectOutput + '\'' +
-                ", redirectError='" + redirectError + '\'' +
                 ", background=" + background +
-                ", appendOutput=" + appendOutput +
-                ", appendError=" + appendError +
+                ", separator=" + separator +
+                ", timed=" + timed +
+                ", function=" + function +
+                ", body=" + body +
+                ", next=" + next +
                 '}';
     }
 }
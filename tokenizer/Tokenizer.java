@@ -1,15 +1,23 @@
 package tokenizer;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public final class Tokenizer {
 
+    // Nivel máximo de alias dentro de alias (alias a='b'; alias b='c'...)
+    private static final int ALIAS_DEPTH_LIMIT = 32;
+
+    // Devuelve la primera pipeline de la línea; las demás (separadas por ';', '&',
+    // '&&' o '||') se encadenan con TLine.getNext()
     public static TLine tokenize(String input) throws MissingFileException {
-        TLine tline = new TLine();
+        return tokenize(input, null);
+    }
 
+    // Igual, sustituyendo los alias ('aliases' puede ser null) en el nombre de cada comando
+    public static TLine tokenize(String input, Aliases aliases) throws MissingFileException {
         // Eliminar espacios al principio y al final de la línea de entrada
         input = input.trim();
 
@@ -18,98 +26,414 @@ public final class Tokenizer {
             return null; // Si la línea está vacía, no hay nada que tokenizar
         }
 
-        // Dividir la línea de comando en partes con posibles tuberías
-        String[] pipelineCommands = input.split("\\|");
+        Lexer lexer = new Lexer(input);
+        TLine line = new Parser(lexer, aliases).parse(null);
+        // Una comilla o una $(...) sin cerrar no se completan con el resto de la línea
+        if (lexer.unclosed() != null) {
+            throw new MissingFileException(unclosed(lexer.unclosed()));
+        }
+        return line;
+    }
+
+    private static String unclosed(String what) {
+        switch (what) {
+            case "$(":
+                return "Missing ')' for command substitution $(";
+            case "`":
+                return "Missing '`' for command substitution";
+            default:
+                return "Missing closing quote " + what;
+        }
+    }
+
+    // Una única pasada sobre la entrada: el Lexer entrega los tokens uno a uno.
+    // Los alias se leen con su propio Lexer, apilado sobre el de la línea hasta
+    // que se agota, y el cuerpo de una función ('function nombre { ... }') se
+    // analiza como una línea más que termina en su '}'
+    private static final class Parser {
+
+        private final Aliases aliases;
+        private final Lexer line;  // Lexer de la propia línea (sin alias)
+        private Lexer lexer;
+        private final Deque<Lexer> outer = new ArrayDeque<>();     // Lexers debajo del alias en curso
+        private final Deque<String> expanding = new ArrayDeque<>();  // Alias en curso (no se sustituyen otra vez)
+
+        // Texto de la pipeline en curso en la línea: del primer token al último (los de
+        // los alias cuentan como su nombre). 'previousEnd' es el fin del token anterior
+        private int sourceStart = -1;
+        private int sourceEnd;
+        private int previousEnd;
+        private boolean splitAlias;  // Un alias con ';' o '&&' partió la pipeline: no tiene texto propio
 
-        for (String commandSegment : pipelineCommands) {
-            // Limpiar cada segmento de la tubería y comprobar si no está vacío
-            commandSegment = commandSegment.trim();
-            if (commandSegment.isEmpty()) {
-                continue;  // Si el segmento está vacío, lo saltamos
+        Parser(Lexer lexer, Aliases aliases) {
+            this.line = lexer;
+            this.lexer = lexer;
+            this.aliases = aliases;
+        }
+
+        // Siguiente token, continuando con el Lexer anterior al agotar un alias
+        private Lexer.Token next() {
+            Lexer.Token token;
+            while ((token = lexer.next()) == Lexer.Token.END && !outer.isEmpty()) {
+                lexer = outer.pop();
+                expanding.pop();
+            }
+            if (outer.isEmpty() && token.compareTo(Lexer.Token.PIPE_ALL) > 0 && token.compareTo(Lexer.Token.IN) < 0) {
+                return token;  // '&', ';', '&&' o '||': separa pipelines, no forma parte de su texto
+            }
+            if (outer.isEmpty() && token != Lexer.Token.END) {
+                if (sourceStart < 0) {
+                    sourceStart = lexer.start();
+                }
+                previousEnd = sourceEnd;
+                sourceEnd = lexer.end();
             }
+            return token;
+        }
 
-            // Expresión regular mejorada para capturar las redirecciones, tuberías y argumentos
-            Pattern pattern = Pattern.compile("([\"'].*?[\"']|2>>?|[<>|&]{1,2}|[^\\s\"'<>|&]+)");
-            Matcher matcher = pattern.matcher(commandSegment);
+        // Guarda en 'tline' el texto de la pipeline hasta 'end' y empieza el de la siguiente
+        private void closeSource(TLine tline, int end) {
+            boolean inAlias = !outer.isEmpty();
+            tline.source = !inAlias && !splitAlias && sourceStart >= 0 && end > sourceStart
+                    ? line.slice(sourceStart, end) : null;
+            splitAlias = inAlias;
+            sourceStart = -1;
+        }
 
-            // Lista de tokens obtenidos de la entrada
-            List<String> tokens = new ArrayList<>();
-            while (matcher.find()) {
-                tokens.add(matcher.group());
+        // Si la palabra recién leída es un alias, sus tokens pasan a leerse antes que el resto
+        private boolean expandAlias() {
+            if (aliases == null || !lexer.plain() || expanding.size() >= ALIAS_DEPTH_LIMIT) {
+                return false;
+            }
+            String name = lexer.text();
+            if (expanding.contains(name)) {
+                return false;  // alias ls='ls -F': el 'ls' del alias es el comando
+            }
+            String value = aliases.get(name);
+            if (value == null) {
+                return false;
             }
+            outer.push(lexer);
+            expanding.push(name);
+            lexer = new Lexer(value);
+            return true;
+        }
 
+        // Analiza pipelines hasta el final de la entrada o, en el cuerpo de la función
+        // 'function', hasta su '}'. Devuelve la primera pipeline (null si el cuerpo está vacío)
+        TLine parse(String function) throws MissingFileException {
+            sourceStart = -1;  // El cuerpo de una función empieza tras su '{'
+            TLine head = new TLine();
+            TLine tline = head;
             List<String> argv = new ArrayList<>();
-            String filename = null;
+            List<String> assignments = new ArrayList<>();  // NOMBRE=valor delante del comando actual
+            List<Redirection> redirections = new ArrayList<>();  // Redirecciones del comando actual, en orden
+
+            Lexer.Token pending = null;  // '|', '&&' o '||' que aún espera su comando
 
-            for (int i = 0; i < tokens.size(); i++) {
-                String token = tokens.get(i);
+            Lexer.Token token;
+            while ((token = next()) != Lexer.Token.END) {
+                Lexer.Token waiting = pending;
+                if (token != Lexer.Token.WORD && token.compareTo(Lexer.Token.IN) < 0) {
+                    // '|' sin comando delante, o ';', '&', '&&' o '||' sin pipeline delante
+                    boolean emptyCommand = argv.isEmpty() && assignments.isEmpty() && redirections.isEmpty();
+                    boolean emptyPipeline = emptyCommand && tline.getNcommands() == 0 && !tline.timed;
+                    boolean pipe = token == Lexer.Token.PIPE || token == Lexer.Token.PIPE_ALL;
+                    // El salto de línea tras la '{' de una función no es un ';' de más
+                    boolean afterBrace = token == Lexer.Token.SEMI && function != null && tline == head;
+                    if (waiting != null || (pipe ? emptyCommand : emptyPipeline && !afterBrace)) {
+                        throw new MissingFileException("Unexpected token " + symbol(token));
+                    }
+                    pending = pipe || token == Lexer.Token.AND_IF || token == Lexer.Token.OR_IF ? token : null;
+                } else {
+                    pending = null;
+                }
 
                 switch (token) {
-                    case "<<":  // Redirección de entrada especial (heredoc)
-                        if (i + 1 < tokens.size()) {
-                            tline.redirectInput = tokens.get(++i);
-                        } else {
-                            throw new MissingFileException("Missing file for input redirection <<");
+                    case WORD:  // Comando o argumento
+                        boolean command = argv.isEmpty() && !lexer.assignment();
+                        if (command && expandAlias()) {
+                            break;
                         }
-                        break;
-                    case "<":  // Redirección de entrada simple
-                        if (i + 1 < tokens.size()) {
-                            tline.redirectInput = tokens.get(++i);
-                        } else {
-                            throw new MissingFileException("Missing file for input redirection <");
+                        tline.references |= lexer.references();
+                        tline.substitutions |= lexer.substitutions();
+                        tline.globs |= lexer.globs();
+                        // 'time' al comienzo de una pipeline no es un comando: marca la pipeline para medirla
+                        if (argv.isEmpty() && assignments.isEmpty() && tline.getNcommands() == 0 && !tline.timed
+                                && lexer.text().equals("time")) {
+                            tline.timed = true;
+                            break;
                         }
-                        break;
-                    case ">>":  // Redirección de salida en modo append
-                        if (i + 1 < tokens.size()) {
-                            tline.redirectOutput = tokens.get(++i);  // El siguiente token es el archivo de salida
-                            tline.setAppendOutput(true);
-                        } else {
-                            throw new MissingFileException("Missing file for output redirection >>");
+                        if (command && assignments.isEmpty() && lexer.plain()) {
+                            // '}' cierra el cuerpo de la función en curso
+                            if (function != null && lexer.text().equals("}")) {
+                                if (waiting != null) {
+                                    throw new MissingFileException("Unexpected token }");
+                                }
+                                addCommand(tline, argv, assignments, redirections);
+                                closeSource(tline, previousEnd);
+                                return head.getNcommands() == 0 && head.function == null ? null : head;
+                            }
+                            // Definición de función: una pipeline sin comandos con su cuerpo ya analizado
+                            String name = functionName(tline);
+                            if (name != null) {
+                                tline = define(tline, name);
+                                break;
+                            }
                         }
-                        break;
-                    case ">":  // Redirección de salida simple
-                        if (i + 1 < tokens.size()) {
-                            tline.redirectOutput = tokens.get(++i);  // El siguiente token es el archivo de salida
-                            tline.setAppendOutput(false);
-                        } else {
-                            throw new MissingFileException("Missing file for output redirection >");
+                        // Las asignaciones solo se reconocen antes del nombre del comando
+                        if (argv.isEmpty() && lexer.assignment()) {
+                            assignments.add(lexer.text());
+                            break;
                         }
+                        argv.add(lexer.text());
                         break;
-                    case "2>>":  // Redirección de errores en modo append
-                        if (i + 1 < tokens.size()) {
-                            tline.redirectError = tokens.get(++i);
-                            tline.setAppendError(true);  // Indicar que es append
-                        } else {
-                            throw new MissingFileException("Missing file for error redirection 2>>");
-                        }
+                    case PIPE:  // Fin del comando actual dentro de la tubería
+                        addCommand(tline, argv, assignments, redirections);
+                        argv = new ArrayList<>();
                         break;
-                    case "2>":  // Redirección de errores simple
-                        if (i + 1 < tokens.size()) {
-                            tline.redirectError = tokens.get(++i);
-                            tline.setAppendError(false);  // Indicar que no es append
-                        } else {
-                            throw new MissingFileException("Missing file for error redirection 2>");
-                        }
+                    case PIPE_ALL:  // Igual, con stderr también hacia la siguiente etapa (2>&1 tras el resto)
+                        redirections.add(Redirection.duplicate(2, 1));
+                        addCommand(tline, argv, assignments, redirections);
+                        argv = new ArrayList<>();
+                        break;
+                    case HEREDOC:  // Documento en línea: las líneas siguientes hasta el delimitador
+                        int fd = lexer.fd();
+                        String delimiter = expectFile(tline, "Missing delimiter for here-document <<");
+                        redirections.add(Redirection.of(fd, Redirection.Type.HEREDOC, lexer.heredoc(delimiter, !lexer.quoted())));
+                        tline.references |= lexer.references();
+                        tline.substitutions |= lexer.substitutions();
+                        break;
+                    case HERESTRING:  // Cadena como entrada estándar (con salto de línea final)
+                        int stringFd = lexer.fd();
+                        String string = expectFile(tline, "Missing word for here-string <<<");
+                        redirections.add(Redirection.of(stringFd, Redirection.Type.HEREDOC, string + "\n"));
+                        break;
+                    case IN:  // Redirección de entrada simple
+                        redirect(tline, redirections, Redirection.Type.INPUT, "Missing file for input redirection <");
+                        break;
+                    case APPEND:  // Redirección de salida en modo append (N>>, 1 por defecto)
+                        redirect(tline, redirections, Redirection.Type.APPEND, "Missing file for output redirection >>");
+                        break;
+                    case OUT:  // Redirección de salida simple (N>, 1 por defecto)
+                        redirect(tline, redirections, Redirection.Type.OUTPUT, "Missing file for output redirection >");
+                        break;
+                    case DUPLICATE:  // N>&M: el descriptor N apunta a donde apunte M (2>&1)
+                        redirections.add(Redirection.duplicate(lexer.fd(), lexer.targetFd()));
+                        break;
+                    case OUT_ALL:  // &>archivo: stdout y stderr al mismo archivo (>archivo 2>&1)
+                        redirect(tline, redirections, Redirection.Type.OUTPUT, "Missing file for output redirection &>");
+                        redirections.add(Redirection.duplicate(2, 1));
+                        break;
+                    case APPEND_ALL:  // &>>archivo: igual en modo append
+                        redirect(tline, redirections, Redirection.Type.APPEND, "Missing file for output redirection &>>");
+                        redirections.add(Redirection.duplicate(2, 1));
+                        break;
+                    case AMP:  // Proceso en segundo plano (background): también separa pipelines
+                        addCommand(tline, argv, assignments, redirections);
+                        tline.background = tline.getNcommands() > 0;
+                        argv = new ArrayList<>();
+                        closeSource(tline, sourceEnd);
+                        tline = chain(tline, TLine.Separator.SEQUENCE);
+                        break;
+                    case SEMI:  // Secuencia: la siguiente pipeline se ejecuta siempre
+                        addCommand(tline, argv, assignments, redirections);
+                        argv = new ArrayList<>();
+                        closeSource(tline, sourceEnd);
+                        tline = chain(tline, TLine.Separator.SEQUENCE);
                         break;
-                    case "&":  // Proceso en segundo plano (background)
-                        tline.background = true;
+                    case AND_IF:  // La siguiente pipeline solo se ejecuta si esta tiene éxito
+                        addCommand(tline, argv, assignments, redirections);
+                        argv = new ArrayList<>();
+                        closeSource(tline, sourceEnd);
+                        tline = chain(tline, TLine.Separator.AND);
+                        break;
+                    case OR_IF:  // La siguiente pipeline solo se ejecuta si esta falla
+                        addCommand(tline, argv, assignments, redirections);
+                        argv = new ArrayList<>();
+                        closeSource(tline, sourceEnd);
+                        tline = chain(tline, TLine.Separator.OR);
                         break;
                     default:
-                        if (filename == null) {
-                            filename = token;  // El primer token es el nombre del comando
-                        }
-                        argv.add(token);  // Agregar el token a los argumentos
                         break;
                 }
             }
 
-            // Crear un comando y agregarlo a la estructura de la línea de comandos
-            if (filename != null && !argv.isEmpty()) {  // Evitar comandos vacíos
-                TCommand command = new TCommand(filename, argv);
-                tline.addCommand(command);
+            if (function != null) {
+                throw new MissingFileException("Missing '}' for function " + function);
+            }
+            if (pending != null) {
+                throw new MissingFileException("Missing command after " + symbol(pending));
             }
+            addCommand(tline, argv, assignments, redirections);
+            closeSource(tline, sourceEnd);
+            return head;
         }
 
-        return tline;
+        // Nombre de la función si la palabra recién leída empieza una definición
+        // ('function nombre {', 'function nombre() {' o 'nombre() {'), o null.
+        // Solo al comienzo de una pipeline
+        private String functionName(TLine tline) throws MissingFileException {
+            if (tline.getNcommands() > 0 || tline.timed) {
+                return null;
+            }
+            String word = lexer.text();
+            String name;
+            if (word.equals("function")) {
+                if (next() != Lexer.Token.WORD || !lexer.plain()) {
+                    throw new MissingFileException("Missing name for function");
+                }
+                name = lexer.text();
+                if (name.endsWith("()")) {
+                    name = name.substring(0, name.length() - 2);
+                }
+            } else if (word.length() > 2 && word.endsWith("()")) {
+                name = word.substring(0, word.length() - 2);
+            } else {
+                return null;
+            }
+            if (name.isEmpty() || name.indexOf('(') >= 0 || name.indexOf(')') >= 0) {
+                throw new MissingFileException("Invalid function name: " + name);
+            }
+            if (next() != Lexer.Token.WORD || !lexer.plain() || !lexer.text().equals("{")) {
+                throw new MissingFileException("Missing '{' for function " + name);
+            }
+            return name;
+        }
+
+        // Analiza el cuerpo de la función y la deja en 'tline'. Tras la '}' solo puede
+        // venir un separador o el final; devuelve la pipeline donde continúa la línea
+        private TLine define(TLine tline, String name) throws MissingFileException {
+            tline.function = name;
+            tline.body = parse(name);
+            switch (next()) {
+                case END:
+                    return tline;
+                case SEMI:
+                case AMP:
+                    return chain(tline, TLine.Separator.SEQUENCE);
+                case AND_IF:
+                    return chain(tline, TLine.Separator.AND);
+                case OR_IF:
+                    return chain(tline, TLine.Separator.OR);
+                default:
+                    throw new MissingFileException("Unexpected token after function " + name);
+            }
+        }
+
+        // Añade al comando actual una redirección a archivo del descriptor recién leído
+        // (&> es de stdout: el 2>&1 lo añade quien la llama)
+        private void redirect(TLine tline, List<Redirection> redirections, Redirection.Type type, String message)
+                throws MissingFileException {
+            int fd = lexer.fd();
+            redirections.add(Redirection.of(fd, type, expectFile(tline, message)));
+        }
+
+        // El token que sigue a una redirección debe ser el nombre del archivo
+        private String expectFile(TLine tline, String message) throws MissingFileException {
+            if (next() != Lexer.Token.WORD) {
+                throw new MissingFileException(message);
+            }
+            tline.references |= lexer.references();
+            tline.substitutions |= lexer.substitutions();
+            tline.globs |= lexer.globs();  // En los archivos no se expanden, pero hay que quitar las marcas
+            return lexer.text();
+        }
+    }
+
+    // Indica si la entrada es una orden completa o hay que leer más líneas:
+    // termina en '|', '&&', '||' o '\\', queda una comilla o una $(...) sin
+    // cerrar, o falta el delimitador de algún documento en línea (<<FIN) o la
+    // '}' de alguna función
+    public static boolean isComplete(String input) {
+        input = input.trim();
+        if (input.endsWith("\\")) {
+            return false;
+        }
+
+        Lexer lexer = new Lexer(input);
+        Lexer.Token last = Lexer.Token.END;
+        Lexer.Token token;
+        int braces = 0;          // Cuerpos de función sin su '}'
+        int header = 0;          // Palabras que faltan hasta la '{' de una función
+        boolean command = true;  // La siguiente palabra es el nombre de un comando
+        while ((token = lexer.next()) != Lexer.Token.END) {
+            if (token == Lexer.Token.HEREDOC && lexer.next() == Lexer.Token.WORD) {
+                lexer.heredoc(lexer.text(), false);
+            } else if (token == Lexer.Token.WORD) {
+                String word = lexer.text();
+                if (header > 0) {
+                    header = word.endsWith("()") ? 1 : header - 1;
+                    if (header == 0 && lexer.plain() && word.equals("{")) {
+                        braces++;
+                        command = true;
+                    }
+                } else if (command && lexer.plain() && word.equals("function")) {
+                    header = 2;
+                } else if (command && lexer.plain() && word.length() > 2 && word.endsWith("()")) {
+                    header = 1;
+                } else if (command && lexer.plain() && word.equals("}") && braces > 0) {
+                    braces--;
+                    command = false;
+                } else if (!word.equals("time") && !(command && lexer.assignment())) {
+                    command = false;
+                }
+            } else if (token.compareTo(Lexer.Token.IN) < 0) {
+                command = true;  // '|', '&', ';', '&&' o '||' (no una redirección): empieza otro comando
+            }
+            last = token;
+        }
+        return !lexer.incomplete() && lexer.unclosed() == null && braces == 0 && last != Lexer.Token.PIPE && last != Lexer.Token.PIPE_ALL
+                && last != Lexer.Token.AND_IF && last != Lexer.Token.OR_IF;
+    }
+
+    // Operador tal como se escribe, para los mensajes de error
+    private static String symbol(Lexer.Token token) {
+        switch (token) {
+            case PIPE:
+                return "|";
+            case PIPE_ALL:
+                return "|&";
+            case AMP:
+                return "&";
+            case SEMI:
+                return ";";
+            case AND_IF:
+                return "&&";
+            default:
+                return "||";
+        }
+    }
+
+    // Palabra de una línea sin expandir tal como se escribió ($NOMBRE, $(orden)...), para mostrarla
+    public static String display(String word) {
+        return word == null ? null : Expansion.display(word);
+    }
+
+    // Cierra la pipeline actual con su separador y empieza la siguiente.
+    // Una pipeline vacía (p.ej. tras un ';' o un '&' final) no se encadena; la
+    // definición de una función sí.
+    private static TLine chain(TLine tline, TLine.Separator separator) {
+        if (tline.getNcommands() == 0 && tline.function == null) {
+            return tline;
+        }
+        tline.separator = separator;
+        tline.next = new TLine();
+        return tline.next;
+    }
+
+    // Crear un comando y agregarlo a la estructura de la línea de comandos
+    // (solo con asignaciones o redirecciones, el comando no tiene nombre: las asigna
+    // en la shell o solo abre los archivos, como '> vacio')
+    private static void addCommand(TLine tline, List<String> argv, List<String> assignments,
+            List<Redirection> redirections) {
+        if (!argv.isEmpty() || !assignments.isEmpty() || !redirections.isEmpty()) {  // Evitar comandos vacíos
+            TCommand command = new TCommand(argv.isEmpty() ? null : argv.get(0), argv);  // El primer token es el nombre del comando
+            command.assignments = List.copyOf(assignments);
+            command.redirections = List.copyOf(redirections);
+            tline.addCommand(command);
+            assignments.clear();
+            redirections.clear();
+        }
     }
 }
@@ -0,0 +1,18 @@
+package tokenizer;
+
+import java.util.List;
+
+// Origen de los valores de las variables al expandir una pipeline ($VAR, ${VAR}, $?, $$)
+@FunctionalInterface
+public interface Variables {
+
+    // Valor de la variable, o null si no está definida
+    String get(String name);
+
+    // Parámetros por separado para "$@" (una palabra cada uno). Por defecto, el
+    // valor de $@ como una sola palabra
+    default List<String> parameters() {
+        String value = get("@");
+        return value == null || value.isEmpty() ? List.of() : List.of(value);
+    }
+}